@@ -35,6 +35,7 @@ import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.SettingsModule;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.node.internal.InternalSettingsPreparer;
 import org.elasticsearch.transport.TransportModule;
@@ -107,5 +108,21 @@ public class CrateClient {
         return internalClient.sql(request);
     }
 
+    /**
+     * execute a select statement and keep a scroll open for the given time.
+     * The response contains the first page of rows and the scroll id
+     * to fetch the next page with using {@link #scroll(String, TimeValue)}
+     */
+    public ActionFuture<SQLResponse> sql(String stmt, TimeValue scroll) {
+        return sql(new SQLRequest(stmt).scroll(scroll));
+    }
+
+    /**
+     * fetch the next page of rows of an open scroll and keep it open for the given time
+     */
+    public ActionFuture<SQLResponse> scroll(String scrollId, TimeValue scroll) {
+        return sql(new SQLRequest().scrollId(scrollId).scroll(scroll));
+    }
+
 
 }
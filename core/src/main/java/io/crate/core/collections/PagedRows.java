@@ -0,0 +1,164 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.core.collections;
+
+import com.google.common.base.Preconditions;
+import io.crate.Constants;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * a fixed capacity buffer of rows which allocates its storage in pages of <code>pageSize</code> rows
+ * on demand. So memory usage is bounded by the number of rows actually stored and not by the capacity,
+ * which might be huge if it is derived from a limit.
+ * <p/>
+ * Rows may be set concurrently at distinct positions.
+ */
+public class PagedRows implements Iterable<Object[]> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    private final int pageSize;
+    private final int capacity;
+    private final AtomicReferenceArray<Object[][]> pages;
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    public PagedRows(int capacity) {
+        this(capacity, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedRows(int capacity, int pageSize) {
+        Preconditions.checkArgument(capacity >= 0, "invalid capacity");
+        Preconditions.checkArgument(pageSize > 0, "invalid pageSize");
+        this.capacity = capacity;
+        this.pageSize = pageSize;
+        this.pages = new AtomicReferenceArray<>((int) (((long) capacity + pageSize - 1) / pageSize));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows up to the highest position that has been set
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of pages allocated so far
+     */
+    public int numPages() {
+        int numPages = 0;
+        for (int i = 0; i < pages.length(); i++) {
+            if (pages.get(i) != null) {
+                numPages++;
+            }
+        }
+        return numPages;
+    }
+
+    public void set(int pos, Object[] row) {
+        if (pos < 0 || pos >= capacity) {
+            throw new IndexOutOfBoundsException(String.format("position %d out of bounds", pos));
+        }
+        page(pos / pageSize)[pos % pageSize] = row;
+
+        int current;
+        while ((current = size.get()) <= pos) {
+            if (size.compareAndSet(current, pos + 1)) {
+                break;
+            }
+        }
+    }
+
+    public Object[] get(int pos) {
+        if (pos < 0 || pos >= size()) {
+            throw new IndexOutOfBoundsException(String.format("position %d out of bounds", pos));
+        }
+        Object[][] page = pages.get(pos / pageSize);
+        return page == null ? null : page[pos % pageSize];
+    }
+
+    private Object[][] page(int pageIdx) {
+        Object[][] page = pages.get(pageIdx);
+        if (page == null) {
+            // the last page only needs to hold the remaining rows
+            int length = Math.min(pageSize, capacity - pageIdx * pageSize);
+            pages.compareAndSet(pageIdx, null, new Object[length][]);
+            page = pages.get(pageIdx);
+        }
+        return page;
+    }
+
+    /**
+     * copy the rows into one array of size {@link #size()}
+     */
+    public Object[][] toArray() {
+        int size = size();
+        if (size == 0) {
+            return Constants.EMPTY_RESULT;
+        }
+        Object[][] result = new Object[size][];
+        for (int pageIdx = 0, pos = 0; pos < size; pageIdx++, pos += pageSize) {
+            Object[][] page = pages.get(pageIdx);
+            if (page != null) {
+                System.arraycopy(page, 0, result, pos, Math.min(page.length, size - pos));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() {
+        final int size = size();
+        if (size == 0) {
+            return Collections.emptyIterator();
+        }
+        return new Iterator<Object[]>() {
+            private int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                return pos < size;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(pos++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove not supported");
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.core.collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PagedRowsTest {
+
+    @Test
+    public void testPagesAreAllocatedOnDemand() {
+        PagedRows rows = new PagedRows(10000, 10);
+        assertEquals(0, rows.size());
+        assertEquals(0, rows.numPages());
+        assertEquals(0, rows.toArray().length);
+        assertFalse(rows.iterator().hasNext());
+
+        rows.set(0, new Object[]{1});
+        rows.set(1, new Object[]{2});
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.numPages());
+
+        rows.set(25, new Object[]{3});
+        assertEquals(26, rows.size());
+        assertEquals(2, rows.numPages());
+    }
+
+    @Test
+    public void testToArrayAndIterator() {
+        PagedRows rows = new PagedRows(25, 10);
+        for (int i = 24; i >= 0; i--) {
+            rows.set(i, new Object[]{i});
+        }
+        assertEquals(25, rows.size());
+        assertEquals(3, rows.numPages());
+
+        Object[][] array = rows.toArray();
+        assertEquals(25, array.length);
+        int i = 0;
+        for (Object[] row : rows) {
+            assertEquals(i, row[0]);
+            assertArrayEquals(row, array[i]);
+            i++;
+        }
+        assertEquals(25, i);
+    }
+
+    @Test (expected = IndexOutOfBoundsException.class)
+    public void testSetOutOfBounds() {
+        new PagedRows(10, 10).set(10, new Object[]{1});
+    }
+}
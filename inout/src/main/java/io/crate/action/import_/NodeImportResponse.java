@@ -51,18 +51,24 @@ public class NodeImportResponse extends NodeOperationResponse implements ToXCont
         builder.startObject();
         builder.field(Fields.NODE_ID, this.getNode().id());
         builder.field(Fields.TOOK, result.took);
+        long bytes = 0;
         builder.startArray(Fields.IMPORTED_FILES);
         for (Importer.ImportCounts counts : result.importCounts) {
             builder.startObject();
             builder.field(Fields.FILE_NAME, counts.fileName);
             builder.field(Fields.SUCCESSES, counts.successes);
             builder.field(Fields.FAILURES, counts.failures);
-            if (counts.invalid > 0) {
+            if (counts.invalid.get() > 0) {
                 builder.field(Fields.INVALIDATED, counts.invalid);
             }
+            builder.field(Fields.BYTES, counts.bytes);
+            builder.field(Fields.TOOK, counts.took);
             builder.endObject();
+            bytes += counts.bytes.get();
         }
         builder.endArray();
+        builder.field(Fields.BYTES, bytes);
+        builder.field(Fields.BYTES_PER_SECOND, result.took > 0 ? bytes * 1000 / result.took : 0);
         builder.endObject();
         return builder;
     }
@@ -78,7 +84,9 @@ public class NodeImportResponse extends NodeOperationResponse implements ToXCont
             counts.fileName = in.readString();
             counts.successes = new AtomicLong(in.readVLong());
             counts.failures = new AtomicLong(in.readVLong());
-            counts.invalid = in.readInt();
+            counts.invalid = new AtomicLong(in.readVLong());
+            counts.bytes = new AtomicLong(in.readVLong());
+            counts.took = in.readVLong();
             result.importCounts.add(counts);
         }
     }
@@ -92,7 +100,9 @@ public class NodeImportResponse extends NodeOperationResponse implements ToXCont
             out.writeString(counts.fileName);
             out.writeVLong(counts.successes.get());
             out.writeVLong(counts.failures.get());
-            out.writeInt(counts.invalid);
+            out.writeVLong(counts.invalid.get());
+            out.writeVLong(counts.bytes.get());
+            out.writeVLong(counts.took);
         }
     }
 
@@ -110,6 +120,8 @@ public class NodeImportResponse extends NodeOperationResponse implements ToXCont
         static final XContentBuilderString SUCCESSES = new XContentBuilderString("successes");
         static final XContentBuilderString FAILURES = new XContentBuilderString("failures");
         static final XContentBuilderString INVALIDATED = new XContentBuilderString("invalidated");
+        static final XContentBuilderString BYTES = new XContentBuilderString("bytes");
+        static final XContentBuilderString BYTES_PER_SECOND = new XContentBuilderString("bytes_per_second");
     }
 
     public Importer.Result result() {
@@ -0,0 +1,238 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.import_;
+
+import io.crate.import_.Importer.ImportCounts;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sends the bulk requests built by the import workers.
+ *
+ * The number of documents per bulk request and the number of concurrently executed bulk requests
+ * adapt to the cluster: both grow while bulk requests are answered within {@link #TARGET_LATENCY_MS},
+ * slow bulk requests shrink the bulk size and rejected ones halve both.
+ * Rejected documents are sent again up to {@link #MAX_RETRIES} times, after a delay starting at
+ * {@link #RETRY_DELAY_MS} which doubles with every attempt.
+ */
+public class AdaptiveBulkProcessor {
+
+    private static final ESLogger logger = Loggers.getLogger(AdaptiveBulkProcessor.class);
+
+    static final int MIN_BULK_ACTIONS = 100;
+    static final int INITIAL_CONCURRENCY = 4;
+    static final long TARGET_LATENCY_MS = 1000;
+    static final int MAX_RETRIES = 3;
+    static final long RETRY_DELAY_MS = 100;
+    static final ByteSizeValue MAX_BULK_SIZE = new ByteSizeValue(5, ByteSizeUnit.MB);
+
+    private final Client client;
+    private final int maxBulkActions;
+    private final int maxConcurrency;
+    private final Queue<Retry> retries = new ConcurrentLinkedQueue<>();
+
+    private volatile int bulkActions;
+    // guarded by this
+    private int concurrency;
+    private int inFlight = 0;
+
+    private static class Retry {
+        final BulkRequest request;
+        final ImportCounts counts;
+        final int attempt;
+        final long due;
+
+        Retry(BulkRequest request, ImportCounts counts, int attempt) {
+            this.request = request;
+            this.counts = counts;
+            this.attempt = attempt;
+            this.due = System.currentTimeMillis() + (RETRY_DELAY_MS << (attempt - 1));
+        }
+    }
+
+    /**
+     * @param maxBulkActions maximum number of documents per bulk request
+     * @param maxConcurrency maximum number of concurrently executed bulk requests
+     */
+    public AdaptiveBulkProcessor(Client client, int maxBulkActions, int maxConcurrency) {
+        this.client = client;
+        this.maxBulkActions = Math.max(MIN_BULK_ACTIONS, maxBulkActions);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.bulkActions = Math.max(MIN_BULK_ACTIONS, this.maxBulkActions / 10);
+        this.concurrency = Math.min(INITIAL_CONCURRENCY, this.maxConcurrency);
+    }
+
+    /**
+     * @return true if the bulk request reached the current bulk size and should be executed
+     */
+    public boolean isFull(BulkRequest request) {
+        return request.numberOfActions() >= bulkActions
+                || request.estimatedSizeInBytes() >= MAX_BULK_SIZE.bytes();
+    }
+
+    int bulkActions() {
+        return bulkActions;
+    }
+
+    synchronized int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * execute the bulk request containing documents of the given file and pending retries,
+     * blocks while the current number of concurrent bulk requests is reached
+     */
+    public void execute(BulkRequest request, ImportCounts counts) throws InterruptedException {
+        execute(request, counts, 0);
+        executeRetries();
+    }
+
+    /**
+     * wait until all bulk requests and their retries are done
+     */
+    public void close() throws InterruptedException {
+        while (true) {
+            executeRetries();
+            synchronized (this) {
+                while (inFlight > 0 && retries.isEmpty()) {
+                    wait();
+                }
+                if (inFlight == 0 && retries.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void executeRetries() throws InterruptedException {
+        Retry retry;
+        while ((retry = retries.poll()) != null) {
+            // give the cluster time to work off its queues
+            long delay = retry.due - System.currentTimeMillis();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            execute(retry.request, retry.counts, retry.attempt);
+        }
+    }
+
+    private void execute(final BulkRequest request, final ImportCounts counts, final int attempt)
+            throws InterruptedException {
+        synchronized (this) {
+            while (inFlight >= concurrency) {
+                wait();
+            }
+            inFlight++;
+        }
+        final long started = System.currentTimeMillis();
+        ActionListener<BulkResponse> listener = new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(BulkResponse response) {
+                BulkRequest retry = null;
+                boolean rejected = false;
+                long successes = 0;
+                long failures = 0;
+                for (BulkItemResponse item : response.getItems()) {
+                    if (!item.isFailed()) {
+                        successes++;
+                        continue;
+                    }
+                    if (item.getFailure().getStatus() == RestStatus.SERVICE_UNAVAILABLE) {
+                        rejected = true;
+                        if (attempt < MAX_RETRIES) {
+                            if (retry == null) {
+                                retry = new BulkRequest();
+                            }
+                            retry.add(request.requests().get(item.getItemId()));
+                            continue;
+                        }
+                    }
+                    failures++;
+                }
+                counts.successes.addAndGet(successes);
+                counts.failures.addAndGet(failures);
+                if (retry != null) {
+                    retries.add(new Retry(retry, counts, attempt + 1));
+                }
+                finished(counts, started, rejected);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                boolean rejected = ExceptionsHelper.unwrapCause(e) instanceof EsRejectedExecutionException;
+                if (rejected && attempt < MAX_RETRIES) {
+                    retries.add(new Retry(request, counts, attempt + 1));
+                } else {
+                    logger.debug("bulk request of {} documents of '{}' failed", e,
+                            request.numberOfActions(), counts.fileName);
+                    counts.failures.addAndGet(request.numberOfActions());
+                }
+                finished(counts, started, rejected);
+            }
+        };
+        try {
+            client.bulk(request, listener);
+        } catch (Exception e) {
+            // e.g. rejected by the local thread pool, the request isn't in flight
+            listener.onFailure(e);
+        }
+    }
+
+    /**
+     * additive increase of bulk size and concurrency while bulk requests are fast,
+     * multiplicative decrease if they are slow or rejected
+     */
+    private synchronized void finished(ImportCounts counts, long started, boolean rejected) {
+        long now = System.currentTimeMillis();
+        long took = now - started;
+        counts.finished(now);
+        inFlight--;
+        if (rejected) {
+            concurrency = Math.max(1, concurrency / 2);
+            bulkActions = Math.max(MIN_BULK_ACTIONS, bulkActions / 2);
+        } else if (took > TARGET_LATENCY_MS) {
+            bulkActions = Math.max(MIN_BULK_ACTIONS, bulkActions * 3 / 4);
+        } else {
+            bulkActions = Math.min(maxBulkActions, bulkActions + MIN_BULK_ACTIONS);
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("bulk request took {}ms, rejected: {}, bulk size: {}, concurrency: {}",
+                    took, rejected, bulkActions, concurrency);
+        }
+        notifyAll();
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.import_;
 
 import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
@@ -35,7 +36,7 @@ import org.elasticsearch.action.admin.cluster.state.ClusterStateRequest;
 import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
-import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequest.OpType;
 import org.elasticsearch.client.Client;
@@ -56,7 +57,7 @@ import org.elasticsearch.common.settings.ImmutableSettings.Builder;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
-import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -66,15 +67,16 @@ import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.mapper.internal.*;
 import org.elasticsearch.indices.IndexAlreadyExistsException;
 import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import java.util.zip.GZIPInputStream;
 
 public class Importer {
 
@@ -83,15 +85,19 @@ public class Importer {
     private Client client;
     private final Injector injector;
     private final ClusterService clusterService;
+    private final ThreadPool threadPool;
 
-    private final ByteSizeValue bulkByteSize = new ByteSizeValue(5, ByteSizeUnit.MB);
-    private final TimeValue flushInterval = TimeValue.timeValueSeconds(5);
-    private final int concurrentRequests = 4;
+    /**
+     * uncompressed files larger than this are split into byte ranges of this size
+     * which are imported concurrently
+     */
+    static final ByteSizeValue SPLIT_SIZE = new ByteSizeValue(32, ByteSizeUnit.MB);
 
     @Inject
-    public Importer(Injector injector, ClusterService clusterService) {
+    public Importer(Injector injector, ClusterService clusterService, ThreadPool threadPool) {
         this.injector = injector;
         this.clusterService = clusterService;
+        this.threadPool = threadPool;
     }
 
     public Result execute(ImportContext context, NodeImportRequest request) {
@@ -191,45 +197,153 @@ public class Importer {
             throw new ElasticsearchException("::" ,e);
         }
         // import data according to the given data file pattern
+        List<String> pks = getPrimaryKey(index);
+        String routing = getRouting(index);
+        Queue<FileSplit> splits = new ConcurrentLinkedQueue<>();
         for (File file : files) {
             String fileName = file.getName();
             if (!fileName.endsWith(".mapping") && !fileName.endsWith(".settings")) {
-                ImportCounts counts = handleFile(file, index, type, bulkSize, context.compression());
-                if (counts != null) {
+                if (file.isFile() && file.canRead()) {
+                    ImportCounts counts = new ImportCounts();
+                    counts.fileName = file.getAbsolutePath();
                     result.importCounts.add(counts);
+                    addSplits(splits, file, counts, context.compression());
+                } else {
+                    logger.trace("[{}] file '{}' not readable", clusterService.localNode().id(), file.getAbsolutePath());
                 }
             }
         }
+        if (!splits.isEmpty()) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            AdaptiveBulkProcessor bulkProcessor = new AdaptiveBulkProcessor(client, bulkSize, 2 * processors);
+            int numWorkers = Math.min(splits.size(), processors);
+            CountDownLatch workersDone = new CountDownLatch(numWorkers);
+            for (int i = 1; i < numWorkers; i++) {
+                threadPool.executor(ThreadPool.Names.GENERIC).execute(
+                        new SplitWorker(splits, bulkProcessor, workersDone, index, type, pks, routing));
+            }
+            // the current thread is a worker too
+            new SplitWorker(splits, bulkProcessor, workersDone, index, type, pks, routing).run();
+            try {
+                workersDone.await();
+                bulkProcessor.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ElasticsearchException("import interrupted", e);
+            }
+        }
         result.took = new Date().getTime() - start.getTime();
+        if (logger.isDebugEnabled()) {
+            long bytes = 0;
+            for (ImportCounts counts : result.importCounts) {
+                bytes += counts.bytes.get();
+            }
+            logger.debug("[{}] imported {} files with {} bytes in {}ms",
+                    clusterService.localNode().id(), result.importCounts.size(), bytes, result.took);
+        }
         return result;
     }
 
-    private ImportCounts handleFile(File file, String index, String type, int bulkSize, boolean compression) {
-        if (file.isFile() && file.canRead()) {
-            List<String> pks = getPrimaryKey(index);
-            String routing = getRouting(index);
-            ImportBulkListener bulkListener = new ImportBulkListener(file.getAbsolutePath());
-            BulkProcessor bulkProcessor = BulkProcessor.builder(client, bulkListener)
-                    .setBulkActions(bulkSize)
-                    .setBulkSize(bulkByteSize)
-                    .setFlushInterval(flushInterval)
-                    .setConcurrentRequests(concurrentRequests)
-                    .build();
+    /**
+     * split uncompressed files into byte ranges of {@link #SPLIT_SIZE},
+     * compressed files can only be read as a whole
+     */
+    private void addSplits(Queue<FileSplit> splits, File file, ImportCounts counts, boolean compressed) {
+        long length = file.length();
+        long splitSize = SPLIT_SIZE.bytes();
+        if (compressed || length <= splitSize) {
+            splits.add(new FileSplit(file, 0, Long.MAX_VALUE, compressed, counts));
+            return;
+        }
+        for (long start = 0; start < length; start += splitSize) {
+            long end = start + splitSize >= length ? Long.MAX_VALUE : start + splitSize;
+            splits.add(new FileSplit(file, start, end, false, counts));
+        }
+    }
+
+    static class FileSplit {
+        final File file;
+        final long start;
+        final long end;
+        final boolean compressed;
+        final ImportCounts counts;
+
+        /**
+         * @param start byte offset of the split, the line containing it belongs to the previous split
+         * @param end byte offset of the next split, the line containing it is still part of this split
+         */
+        FileSplit(File file, long start, long end, boolean compressed, ImportCounts counts) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.compressed = compressed;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * parses the lines of the file splits taken from a shared queue
+     * and hands the bulk requests built of them over to the bulk processor
+     */
+    private class SplitWorker implements Runnable {
+
+        private final Queue<FileSplit> splits;
+        private final AdaptiveBulkProcessor bulkProcessor;
+        private final CountDownLatch workersDone;
+        private final String index;
+        private final String type;
+        private final List<String> pks;
+        private final String routing;
+
+        SplitWorker(Queue<FileSplit> splits,
+                    AdaptiveBulkProcessor bulkProcessor,
+                    CountDownLatch workersDone,
+                    @Nullable String index,
+                    @Nullable String type,
+                    @Nullable List<String> pks,
+                    @Nullable String routing) {
+            this.splits = splits;
+            this.bulkProcessor = bulkProcessor;
+            this.workersDone = workersDone;
+            this.index = index;
+            this.type = type;
+            this.pks = pks;
+            this.routing = routing;
+        }
+
+        @Override
+        public void run() {
             try {
-                BufferedReader r;
-                if (compression) {
-                    GZIPInputStream is = new GZIPInputStream(new FileInputStream(file));
-                    r = new BufferedReader(new InputStreamReader(is));
-                } else {
-                    r = new BufferedReader(new FileReader(file));
+                FileSplit split;
+                while ((split = splits.poll()) != null) {
+                    importSplit(split);
                 }
-                String line;
-                while ((line = r.readLine()) != null) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                logger.error("[{}] error during file import into index {}", t,
+                        clusterService.localNode().id(), index);
+            } finally {
+                workersDone.countDown();
+            }
+        }
+
+        private void importSplit(FileSplit split) throws InterruptedException {
+            ImportCounts counts = split.counts;
+            counts.started(System.currentTimeMillis());
+            BulkRequest bulkRequest = new BulkRequest();
+            LineReader reader = null;
+            long position = split.start;
+            try {
+                reader = LineReader.open(split.file, split.start, split.compressed);
+                position = reader.position();
+                byte[] line;
+                while (reader.position() < split.end && (line = reader.readLine()) != null) {
                     IndexRequest indexRequest;
                     try {
                         indexRequest = parseObject(line, index, type, pks, routing);
                     } catch (ObjectImportException e) {
-                        bulkListener.addFailure();
+                        counts.failures.incrementAndGet();
                         continue;
                     }
                     if (indexRequest != null) {
@@ -241,46 +355,65 @@ public class Importer {
                             indexRequest.type(type);
                         }
                         if (indexRequest.type() != null && indexRequest.index() != null) {
-                            bulkProcessor.add(indexRequest);
+                            bulkRequest.add(indexRequest);
+                            if (bulkProcessor.isFull(bulkRequest)) {
+                                bulkProcessor.execute(bulkRequest, counts);
+                                bulkRequest = new BulkRequest();
+                            }
                         } else {
-                            bulkListener.addFailure();
+                            counts.failures.incrementAndGet();
                         }
                     } else {
-                        bulkListener.addInvalid();
+                        counts.invalid.incrementAndGet();
                     }
                 }
-            } catch (FileNotFoundException e) {
-                // Ignore not existing files, actually they should exist, as they are filtered before.
             } catch (IOException e) {
-                logger.trace("[{}] error during file import of {} into index {}",
+                logger.trace("[{}] error during file import of {} into index {}", e,
                         clusterService.localNode().id(),
-                        file.getAbsolutePath(),
+                        split.file.getAbsolutePath(),
                         index);
             } finally {
-                bulkProcessor.close();
+                if (reader != null) {
+                    counts.bytes.addAndGet(reader.position() - position);
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
             }
-            try {
-                bulkListener.get();
-            } catch (InterruptedException|ExecutionException e1) {
-                logger.trace("[{}] error waiting for ImportBulkListener", e1, clusterService.localNode().id());
+            if (bulkRequest.numberOfActions() > 0) {
+                bulkProcessor.execute(bulkRequest, counts);
             }
-            return bulkListener.importCounts();
-        } else {
-            logger.trace("[{}] file '{}' not readable", clusterService.localNode().id(), file.getAbsolutePath());
+            counts.finished(System.currentTimeMillis());
         }
-
-        return null;
     }
 
     public static IndexRequest parseObject(String line,
             String index,
             String type, @Nullable List<String> pks, @Nullable String routing) throws ObjectImportException {
+        return parseObject(line.getBytes(Charsets.UTF_8), index, type, pks, routing);
+    }
+
+    /**
+     * parse a line of an import file, the source of the returned request is the line itself
+     * unless it contains a <code>_source</code> object
+     *
+     * @return the index request or null if the object is expired
+     */
+    public static IndexRequest parseObject(byte[] line,
+            String index,
+            String type, @Nullable List<String> pks, @Nullable String routing) throws ObjectImportException {
         XContentParser parser;
         try {
             IndexRequest indexRequest = new IndexRequest();
-            parser = XContentFactory.xContent(line.getBytes()).createParser(line.getBytes());
+            XContent xContent = XContentFactory.xContent(line);
+            if (xContent == null) {
+                throw new ObjectImportException(new ElasticsearchParseException("unknown content type"));
+            }
+            parser = xContent.createParser(line);
             Token token;
-            XContentBuilder sourceBuilder = XContentFactory.contentBuilder(XContentType.JSON);
+            XContentBuilder sourceBuilder = null;
             boolean checkPK = (pks != null);
             boolean checkRouting = (routing != null);
             List<String> primaryKeyValues = new ArrayList<>();
@@ -320,6 +453,7 @@ public class Importer {
                         indexRequest.versionType(VersionType.EXTERNAL);
                     } else if (token == Token.START_OBJECT){
                         if (fieldName.equals(SourceFieldMapper.NAME)) {
+                            sourceBuilder = XContentFactory.contentBuilder(XContentType.JSON);
                             sourceBuilder.copyCurrentStructure(parser);
                         } else {
                             depth ++;
@@ -364,9 +498,9 @@ public class Importer {
                     return null;
                 }
             }
-            if (sourceBuilder.bytes().length() == 0) {
+            if (sourceBuilder == null) {
                 // treat complete line as source
-                indexRequest.source(line.getBytes());
+                indexRequest.source(line);
             } else {
                 indexRequest.source(sourceBuilder);
             }
@@ -553,7 +687,30 @@ public class Importer {
         public String fileName;
         public AtomicLong successes = new AtomicLong(0);
         public AtomicLong failures = new AtomicLong(0);
-        public int invalid = 0;
+        public AtomicLong invalid = new AtomicLong(0);
+        public AtomicLong bytes = new AtomicLong(0);
+        public volatile long took = 0;
+
+        private long started = -1;
+
+        /**
+         * the import of a part of the file started
+         */
+        synchronized void started(long time) {
+            if (started < 0 || time < started) {
+                started = time;
+            }
+        }
+
+        /**
+         * a part of the file or a bulk request of it finished, the file is imported in
+         * the time between the first start and the last finish
+         */
+        synchronized void finished(long time) {
+            if (started >= 0 && time - started > took) {
+                took = time - started;
+            }
+        }
     }
 
     private Tuple<String, Pattern> parsePathPattern(String path) {
@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.import_;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the lines of a file as bytes, without decoding them.
+ *
+ * A reader may start at any byte offset of an uncompressed file, the line it starts in
+ * is skipped. Together with stopping at the first line starting at or after the end
+ * of a split (see {@link #position()}), every line is read by exactly one split,
+ * so the splits of a file can be read concurrently.
+ */
+class LineReader implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private long position;
+
+    private LineReader(InputStream in, long position) {
+        this.in = in;
+        this.position = position;
+    }
+
+    /**
+     * open a reader positioned at the first line starting at or after <code>start</code>
+     *
+     * @param start byte offset to start at, must be 0 for compressed files
+     */
+    static LineReader open(File file, long start, boolean compressed) throws IOException {
+        if (compressed) {
+            assert start == 0 : "compressed files can't be split";
+            return new LineReader(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), 0);
+        }
+        FileInputStream in = new FileInputStream(file);
+        if (start == 0) {
+            return new LineReader(in, 0);
+        }
+        // a line starting before the split belongs to the previous split,
+        // if the previous byte is a line break only this byte is skipped
+        in.getChannel().position(start - 1);
+        LineReader reader = new LineReader(in, start - 1);
+        reader.readLine();
+        return reader;
+    }
+
+    /**
+     * @return the byte offset of the next line in the file
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * @return the next line without its line terminator, null at the end of the file
+     */
+    byte[] readLine() throws IOException {
+        byte[] line = null;
+        int length = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                return line == null ? null : stripCarriageReturn(line, length);
+            }
+            int start = pos;
+            while (pos < limit && buffer[pos] != '\n') {
+                pos++;
+            }
+            int chunk = pos - start;
+            if (line == null) {
+                line = new byte[chunk];
+            } else if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(length + chunk, line.length * 2));
+            }
+            System.arraycopy(buffer, start, line, length, chunk);
+            length += chunk;
+            position += chunk;
+            if (pos < limit) {
+                // skip the line break
+                pos++;
+                position++;
+                return stripCarriageReturn(line, length);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private static byte[] stripCarriageReturn(byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return length == line.length ? line : Arrays.copyOf(line, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
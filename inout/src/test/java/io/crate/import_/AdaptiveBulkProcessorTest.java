@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.import_;
+
+import io.crate.test.BulkResponses;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveBulkProcessorTest {
+
+    private Client client;
+    private final List<BulkRequest> bulkRequests = new ArrayList<>();
+    private Importer.ImportCounts counts;
+
+    @Before
+    public void prepare() {
+        client = mock(Client.class);
+        counts = new Importer.ImportCounts();
+        counts.fileName = "import.json";
+    }
+
+    /**
+     * respond to bulk requests, the documents of the first <code>failingRequests</code>
+     * requests fail with the given status
+     */
+    @SuppressWarnings("unchecked")
+    private void respond(int failingRequests, RestStatus failureStatus) {
+        doAnswer(BulkResponses.answering(bulkRequests, failingRequests, failureStatus))
+                .when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+    }
+
+    private BulkRequest bulkRequest(int numDocs) {
+        BulkRequest request = new BulkRequest();
+        for (int i = 0; i < numDocs; i++) {
+            request.add(new IndexRequest("test", "default", String.valueOf(i)).source("{}"));
+        }
+        return request;
+    }
+
+    @Test
+    public void testGrowWhileFast() throws Exception {
+        respond(0, null);
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        assertEquals(1000, processor.bulkActions());
+        assertEquals(AdaptiveBulkProcessor.INITIAL_CONCURRENCY, processor.concurrency());
+
+        processor.execute(bulkRequest(5), counts);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(10L, counts.successes.get());
+        assertEquals(0L, counts.failures.get());
+        assertEquals(1000 + 2 * AdaptiveBulkProcessor.MIN_BULK_ACTIONS, processor.bulkActions());
+        assertEquals(AdaptiveBulkProcessor.INITIAL_CONCURRENCY + 2, processor.concurrency());
+    }
+
+    @Test
+    public void testIsFull() throws Exception {
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 1000, 8);
+        assertEquals(AdaptiveBulkProcessor.MIN_BULK_ACTIONS, processor.bulkActions());
+        assertEquals(false, processor.isFull(bulkRequest(AdaptiveBulkProcessor.MIN_BULK_ACTIONS - 1)));
+        assertEquals(true, processor.isFull(bulkRequest(AdaptiveBulkProcessor.MIN_BULK_ACTIONS)));
+    }
+
+    @Test
+    public void testRetryRejectedDocuments() throws Exception {
+        respond(1, RestStatus.SERVICE_UNAVAILABLE);
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(2, bulkRequests.size());
+        assertEquals(5, bulkRequests.get(1).numberOfActions());
+        assertEquals(5L, counts.successes.get());
+        assertEquals(0L, counts.failures.get());
+        // halved after the rejection, increased after the successful retry
+        assertEquals(500 + AdaptiveBulkProcessor.MIN_BULK_ACTIONS, processor.bulkActions());
+        assertEquals(AdaptiveBulkProcessor.INITIAL_CONCURRENCY / 2 + 1, processor.concurrency());
+    }
+
+    @Test
+    public void testGiveUpAfterMaxRetries() throws Exception {
+        respond(Integer.MAX_VALUE, RestStatus.SERVICE_UNAVAILABLE);
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(AdaptiveBulkProcessor.MAX_RETRIES + 1, bulkRequests.size());
+        assertEquals(0L, counts.successes.get());
+        assertEquals(5L, counts.failures.get());
+        assertEquals(1, processor.concurrency());
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() throws Exception {
+        respond(1, RestStatus.BAD_REQUEST);
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(1, bulkRequests.size());
+        assertEquals(5L, counts.failures.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetryRejectedRequest() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                BulkRequest request = (BulkRequest) invocation.getArguments()[0];
+                bulkRequests.add(request);
+                ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[1];
+                if (bulkRequests.size() == 1) {
+                    listener.onFailure(new EsRejectedExecutionException("rejected"));
+                } else {
+                    listener.onResponse(BulkResponses.response(request, null));
+                }
+                return null;
+            }
+        }).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(2, bulkRequests.size());
+        assertEquals(5L, counts.successes.get());
+        assertEquals(0L, counts.failures.get());
+    }
+
+    @Test
+    public void testBulkThrowing() throws Exception {
+        doThrow(new ElasticsearchException("failed")).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(0L, counts.successes.get());
+        assertEquals(5L, counts.failures.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetryRejectedRequestAfterDelay() throws Exception {
+        final List<Long> sent = new ArrayList<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                BulkRequest request = (BulkRequest) invocation.getArguments()[0];
+                sent.add(System.currentTimeMillis());
+                if (sent.size() == 1) {
+                    throw new EsRejectedExecutionException("rejected");
+                }
+                ((ActionListener<BulkResponse>) invocation.getArguments()[1]).onResponse(
+                        BulkResponses.response(request, null));
+                return null;
+            }
+        }).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+        AdaptiveBulkProcessor processor = new AdaptiveBulkProcessor(client, 10000, 8);
+        processor.execute(bulkRequest(5), counts);
+        processor.close();
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(1) - sent.get(0) >= AdaptiveBulkProcessor.RETRY_DELAY_MS);
+        assertEquals(5L, counts.successes.get());
+        assertEquals(0L, counts.failures.get());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.import_;
+
+import com.google.common.base.Charsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LineReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String content, boolean compressed) throws IOException {
+        File file = folder.newFile();
+        OutputStream out = new FileOutputStream(file);
+        if (compressed) {
+            out = new GZIPOutputStream(out);
+        }
+        out.write(content.getBytes(Charsets.UTF_8));
+        out.close();
+        return file;
+    }
+
+    private List<String> read(File file, long start, long end, boolean compressed) throws IOException {
+        List<String> lines = new ArrayList<>();
+        LineReader reader = LineReader.open(file, start, compressed);
+        byte[] line;
+        while (reader.position() < end && (line = reader.readLine()) != null) {
+            lines.add(new String(line, Charsets.UTF_8));
+        }
+        reader.close();
+        return lines;
+    }
+
+    @Test
+    public void testReadLines() throws Exception {
+        File file = write("{\"a\":1}\r\n{\"b\":\"ü\"}\n\nlast", false);
+        LineReader reader = LineReader.open(file, 0, false);
+        assertEquals("{\"a\":1}", new String(reader.readLine(), Charsets.UTF_8));
+        assertEquals(9, reader.position());
+        assertEquals("{\"b\":\"ü\"}", new String(reader.readLine(), Charsets.UTF_8));
+        assertEquals("", new String(reader.readLine(), Charsets.UTF_8));
+        assertEquals("last", new String(reader.readLine(), Charsets.UTF_8));
+        assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testCompressed() throws Exception {
+        File file = write("line1\nline2\n", true);
+        assertEquals(Arrays.asList("line1", "line2"), read(file, 0, Long.MAX_VALUE, true));
+    }
+
+    @Test
+    public void testLongLines() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3 * LineReader.BUFFER_SIZE; i++) {
+            builder.append(i % 10);
+        }
+        String longLine = builder.toString();
+        File file = write(longLine + "\nshort\n" + longLine, false);
+        assertEquals(Arrays.asList(longLine, "short", longLine), read(file, 0, Long.MAX_VALUE, false));
+    }
+
+    @Test
+    public void testEveryLineIsReadByExactlyOneSplit() throws Exception {
+        List<String> expected = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String line = "{\"id\":" + i + ",\"name\":\"" + "x" + (i * 7 % 13) + "\"}";
+            expected.add(line);
+            builder.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        File file = write(builder.toString(), false);
+        long length = file.length();
+        for (long splitSize = 1; splitSize <= length; splitSize += 7) {
+            List<String> lines = new ArrayList<>();
+            for (long start = 0; start < length; start += splitSize) {
+                long end = start + splitSize >= length ? Long.MAX_VALUE : start + splitSize;
+                lines.addAll(read(file, start, end, false));
+            }
+            assertEquals("split size " + splitSize, expected, lines);
+        }
+    }
+}
@@ -83,7 +83,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         assertNotNull(nodeInfo.get("node_id"));
         assertTrue(Long.valueOf(nodeInfo.get("took").toString()) > 0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)/importdata/import_1/import_1.json, successes=2, failures=0\\}\\]"));
+                "\\[\\{file_name=(.*)/importdata/import_1/import_1.json, successes=2, failures=0, bytes=\\d+, took=\\d+\\}\\]"));
         assertTrue(existsWithField("102", "name", "102"));
         assertTrue(existsWithField("103", "name", "103"));
     }
@@ -99,7 +99,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List<Map<String, Object>> imports = getImports(response);
         Map<String, Object> nodeInfo = imports.get(0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)/importdata/import_2/import_2.json, successes=1, failures=3\\}\\]"));
+                "\\[\\{file_name=(.*)/importdata/import_2/import_2.json, successes=1, failures=3, bytes=\\d+, took=\\d+\\}\\]"));
         assertTrue(existsWithField("202", "name", "202"));
         assertFalse(existsWithField("203", "name", "203"));
         assertFalse(existsWithField("204", "name", "204"));
@@ -122,7 +122,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List<Map<String, Object>> imports = getImports(response);
         Map<String, Object> nodeInfo = imports.get(0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)/importdata/import_2/import_2.json, successes=4, failures=0\\}\\]"));
+                "\\[\\{file_name=(.*)/importdata/import_2/import_2.json, successes=4, failures=0, bytes=\\d+, took=\\d+\\}\\]"));
         assertTrue(existsWithField("202", "name", "202", "another_index", "e"));
         assertTrue(existsWithField("203", "name", "203", "another_index", "e"));
         assertTrue(existsWithField("204", "name", "204", "another_index", "e"));
@@ -140,7 +140,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List<Map<String, Object>> imports = getImports(response);
         assertEquals(1, imports.size());
         assertTrue(imports.get(0).get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)/importdata/import_3/import_3.json, successes=3, failures=2\\}\\]"));
+                "\\[\\{file_name=(.*)/importdata/import_3/import_3.json, successes=3, failures=2, bytes=\\d+, took=\\d+\\}\\]"));
     }
 
     /**
@@ -169,7 +169,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         assertNotNull(nodeInfo.get("node_id"));
         assertTrue(Long.valueOf(nodeInfo.get("took").toString()) > 0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)/importdata/import_4/import_4.json, successes=2, failures=0, invalidated=1}]"));
+                "\\[\\{file_name=(.*)/importdata/import_4/import_4.json, successes=2, failures=0, invalidated=1, bytes=\\d+, took=\\d+}]"));
 
         GetRequestBuilder rb = new GetRequestBuilder(client(), "test");
         GetResponse res = rb.setType("d").setId("402").setFields("_ttl", "_timestamp", "_routing").execute().actionGet();
@@ -198,7 +198,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List<Map<String, Object>> imports = getImports(response);
         assertEquals(2, imports.size());
 
-        String result = "\\[\\{file_name=(.*)/importdata/import_5/import_5_[ab].json, successes=1, failures=0\\}, \\{file_name=(.*)import_5_[ab].json, successes=1, failures=0\\}\\]";
+        String result = "\\[\\{file_name=(.*)/importdata/import_5/import_5_[ab].json, successes=1, failures=0, bytes=\\d+, took=\\d+\\}, \\{file_name=(.*)import_5_[ab].json, successes=1, failures=0, bytes=\\d+, took=\\d+\\}\\]";
         Map<String, Object> nodeInfo = imports.get(0);
         assertNotNull(nodeInfo.get("node_id"));
         assertTrue(Long.valueOf(nodeInfo.get("took").toString()) > 0);
@@ -225,7 +225,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         assertNotNull(nodeInfo.get("node_id"));
         assertTrue(Long.valueOf(nodeInfo.get("took").toString()) > 0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)import_6.json, successes=1, failures=1\\}\\]"));
+                "\\[\\{file_name=(.*)import_6.json, successes=1, failures=1, bytes=\\d+, took=\\d+\\}\\]"));
     }
 
     /**
@@ -242,7 +242,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         assertNotNull(nodeInfo.get("node_id"));
         assertTrue(Long.valueOf(nodeInfo.get("took").toString()) > 0);
         assertTrue(nodeInfo.get("imported_files").toString().matches(
-                "\\[\\{file_name=(.*)import_7.json.gz, successes=2, failures=0\\}\\]"));
+                "\\[\\{file_name=(.*)import_7.json.gz, successes=2, failures=0, bytes=\\d+, took=\\d+\\}\\]"));
         assertTrue(existsWithField("102", "name", "102"));
         assertTrue(existsWithField("103", "name", "103"));
     }
@@ -285,7 +285,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         ImportResponse response = executeImportRequest("{\"directory\": \"myExport\"}");
         List<Map<String, Object>> imports = getImports(response);
         assertEquals(2, imports.size());
-        String regex = "\\[\\{file_name=(.*)/nodes/(\\d)/myExport/export.(\\d).users.json, successes=(\\d), failures=0\\}\\]";
+        String regex = "\\[\\{file_name=(.*)/nodes/(\\d)/myExport/export.(\\d).users.json, successes=(\\d), failures=0, bytes=\\d+, took=\\d+\\}\\]";
 
         String importedFilesString = imports.get(0).get("imported_files").toString();
         assertTrue(
@@ -316,7 +316,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List imported = (List) nodeInfo.get("imported_files");
         assertTrue(imported.size() == 1);
         assertTrue(imported.get(0).toString().matches(
-                "\\{file_name=(.*)/importdata/import_8/index_test_1.json, successes=2, failures=0\\}"));
+                "\\{file_name=(.*)/importdata/import_8/index_test_1.json, successes=2, failures=0, bytes=\\d+, took=\\d+\\}"));
         assertTrue(existsWithField("802", "name", "802", "test", "d"));
         assertTrue(existsWithField("803", "name", "803", "test", "d"));
         assertFalse(existsWithField("811", "name", "811", "test", "d"));
@@ -460,7 +460,7 @@ public class RestImportActionTest extends AbstractRestActionTest {
         List imported = (List) nodeInfo.get("imported_files");
         assertTrue(imported.size() == 1);
         assertTrue(imported.get(0).toString().matches(
-                "\\{file_name=(.*)/importdata/import_8/index_test_1.json, successes=2, failures=0\\}"));
+                "\\{file_name=(.*)/importdata/import_8/index_test_1.json, successes=2, failures=0, bytes=\\d+, took=\\d+\\}"));
         assertTrue(existsWithField("802", "name", "802", "test", "d"));
         assertTrue(existsWithField("803", "name", "803", "test", "d"));
         assertFalse(existsWithField("811", "name", "811", "test", "d"));
@@ -98,6 +98,7 @@ tokens {
     ASSIGNMENT;
     ASSIGNMENT_LIST;
     COPY_FROM;
+    COPY_TO;
     INDEX_COLUMNS;
     GENERIC_PROPERTIES;
     GENERIC_PROPERTY;
@@ -195,6 +196,7 @@ statement
     | copyStmt
     | createAnalyzerStmt
     | refreshStmt
+    | killStmt
     ;
 
 query
@@ -699,7 +701,10 @@ integer
 
 
 insertStmt
-    : INSERT INTO table (columns=columnList)? VALUES values=insertValues -> ^(INSERT table $values $columns?)
+    : INSERT INTO table (columns=columnList)?
+      ( VALUES values=insertValues -> ^(INSERT table $values $columns?)
+      | subQuery=query             -> ^(INSERT table $subQuery $columns?)
+      )
     ;
 
 columnList
@@ -733,7 +738,10 @@ assignment
 
 
 copyStmt
-    : COPY table FROM expr -> ^(COPY_FROM table expr)
+    : COPY table
+      ( FROM expr -> ^(COPY_FROM table expr)
+      | TO DIRECTORY expr (WITH '(' genericProperties ')' )? -> ^(COPY_TO table expr genericProperties?)
+      )
     ;
 
 alterBlobTableStmt
@@ -824,6 +832,7 @@ columnConstDef
 columnConst
     : PRIMARY_KEY
     | columnIndexConstraint
+    | columnStorageDefinition
     ;
 
 columnIndexConstraint
@@ -831,6 +840,10 @@ columnIndexConstraint
     | INDEX OFF                                                        -> INDEX_OFF
     ;
 
+columnStorageDefinition
+    : STORAGE WITH '(' genericProperties ')' -> ^(STORAGE genericProperties)
+    ;
+
 indexDefinition
     : INDEX ident USING indexMethod=ident indexColumns (WITH '(' genericProperties ')' )? -> ^(INDEX ident $indexMethod indexColumns genericProperties?)
     ;
@@ -908,6 +921,10 @@ refreshStmt
     : REFRESH TABLE table -> ^(REFRESH table)
     ;
 
+killStmt
+    : KILL expr -> ^(KILL expr)
+    ;
+
 nonReserved
     : SHOW | TABLES | COLUMNS | PARTITIONS | FUNCTIONS | SCHEMAS | CATALOGS
     | OVER | PARTITION | RANGE | ROWS | PRECEDING | FOLLOWING | CURRENT | ROW
@@ -919,7 +936,8 @@ nonReserved
     | DYNAMIC | STRICT | IGNORED
     | PLAIN | FULLTEXT | OFF
     | REPLICAS | SHARDS | CLUSTERED | COPY | ANALYZER
-    | EXTENDS | TOKENIZER | CHAR_FILTERS | TOKEN_FILTERS | BLOB
+    | EXTENDS | TOKENIZER | CHAR_FILTERS | TOKEN_FILTERS | BLOB | KILL
+    | STORAGE | TO | DIRECTORY
     ;
 
 SELECT: 'SELECT';
@@ -1071,6 +1089,12 @@ TOKENIZER: 'TOKENIZER';
 TOKEN_FILTERS: 'TOKEN_FILTERS';
 CHAR_FILTERS: 'CHAR_FILTERS';
 
+KILL: 'KILL';
+
+STORAGE: 'STORAGE';
+TO: 'TO';
+DIRECTORY: 'DIRECTORY';
+
 
 EQ  : '=';
 NEQ : '<>' | '!=';
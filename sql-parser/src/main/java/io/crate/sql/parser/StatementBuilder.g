@@ -88,8 +88,10 @@ statement returns [Statement value]
     | delete                    { $value = $delete.value; }
     | update                    { $value = $update.value; }
     | copyFrom                  { $value = $copyFrom.value; }
+    | copyTo                    { $value = $copyTo.value; }
     | createAnalyzer            { $value = $createAnalyzer.value; }
     | refresh                   { $value = $refresh.value; }
+    | kill                      { $value = $kill.value; }
     ;
 
 query returns [Query value]
@@ -613,6 +615,13 @@ insert returns [Statement value]
                                 Objects.firstNonNull($cols.value, ImmutableList.<QualifiedNameReference>of())
                                 );
         }
+    | ^(INSERT namedTable subQuery=query cols=insertColumnsList?)
+        {
+            $value = new Insert($namedTable.value,
+                                $subQuery.value,
+                                Objects.firstNonNull($cols.value, ImmutableList.<QualifiedNameReference>of())
+                                );
+        }
     ;
 
 insertValues returns [List<ValuesList> value = new ArrayList<>()]
@@ -657,6 +666,13 @@ copyFrom returns [Statement value]
     : ^(COPY_FROM namedTable path=expr) { $value = new CopyFromStatement($namedTable.value, $path.value); }
     ;
 
+copyTo returns [Statement value]
+    : ^(COPY_TO namedTable target=expr genericProperties?)
+        {
+            $value = new CopyToStatement($namedTable.value, $target.value, $genericProperties.value);
+        }
+    ;
+
 createBlobTable returns [Statement value]
     : ^(CREATE_BLOB_TABLE namedTable clusteredBy? genericProperties?)
         {
@@ -752,6 +768,7 @@ columnConstraint returns [ColumnConstraint value]
         {
             $value = new IndexColumnConstraint($indexMethod.value, $genericProperties.value);
         }
+    | ^(STORAGE genericProperties) { $value = new ColumnStorageDefinition($genericProperties.value); }
     ;
 
 genericProperties returns [GenericProperties value = new GenericProperties()]
@@ -840,3 +857,7 @@ namedProperties returns [NamedProperties value]
 refresh returns [RefreshStatement value]
     : ^(REFRESH namedTable) { $value = new RefreshStatement($namedTable.value); }
     ;
+
+kill returns [KillStatement value]
+    : ^(KILL expr) { $value = new KillStatement($expr.value); }
+    ;
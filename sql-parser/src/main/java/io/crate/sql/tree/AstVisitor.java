@@ -428,6 +428,10 @@ public abstract class AstVisitor<R, C>
         return visitNode(node, context);
     }
 
+    public R visitCopyToStatement(CopyToStatement node, C context) {
+        return visitNode(node, context);
+    }
+
     public R visitCreateTable(CreateTable node, C context)
     {
         return visitStatement(node, context);
@@ -465,6 +469,10 @@ public abstract class AstVisitor<R, C>
         return visitNode(node, context);
     }
 
+    public R visitColumnStorageDefinition(ColumnStorageDefinition node, C context) {
+        return visitNode(node, context);
+    }
+
     public R visitGenericProperties(GenericProperties node, C context) {
         return visitNode(node, context);
     }
@@ -517,6 +525,10 @@ public abstract class AstVisitor<R, C>
         return visitStatement(node, context);
     }
 
+    public R visitKillStatement(KillStatement node, C context) {
+        return visitStatement(node, context);
+    }
+
     public R visitAlterTable(AlterTable node, C context) {
         return visitStatement(node, context);
     }
@@ -408,6 +408,9 @@ public abstract class DefaultTraversalVisitor<R, C>
         for (ValuesList valuesList : node.valuesLists()) {
             process(valuesList, context);
         }
+        if (node.subQuery() != null) {
+            process(node.subQuery(), context);
+        }
         return null;
     }
 
@@ -436,4 +439,10 @@ public abstract class DefaultTraversalVisitor<R, C>
         process(node.table(), context);
         return null;
     }
+
+    @Override
+    public R visitCopyToStatement(CopyToStatement node, C context) {
+        process(node.table(), context);
+        return null;
+    }
 }
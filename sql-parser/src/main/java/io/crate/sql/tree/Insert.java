@@ -32,11 +32,24 @@ public class Insert extends Statement {
     private final Table table;
     private final List<ValuesList> valuesLists;
     private final List<QualifiedNameReference> columns;
+    private final Query subQuery;
     private final int maxValuesLength;
 
     public Insert(Table table, List<ValuesList> valuesLists, @Nullable List<QualifiedNameReference> columns) {
+        this(table, valuesLists, null, columns);
+    }
+
+    public Insert(Table table, Query subQuery, @Nullable List<QualifiedNameReference> columns) {
+        this(table, ImmutableList.<ValuesList>of(), subQuery, columns);
+    }
+
+    private Insert(Table table,
+                   List<ValuesList> valuesLists,
+                   @Nullable Query subQuery,
+                   @Nullable List<QualifiedNameReference> columns) {
         this.table = table;
         this.valuesLists = valuesLists;
+        this.subQuery = subQuery;
         this.columns = Objects.firstNonNull(columns, ImmutableList.<QualifiedNameReference>of());
         int i = 0;
         for (ValuesList valuesList : valuesLists) {
@@ -57,6 +70,14 @@ public class Insert extends Statement {
         return valuesLists;
     }
 
+    /**
+     * the query whose result rows are inserted, null if the rows are given as values
+     */
+    @Nullable
+    public Query subQuery() {
+        return subQuery;
+    }
+
     /**
      * returns the length of the longest values List
      */
@@ -66,7 +87,7 @@ public class Insert extends Statement {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(table, valuesLists, columns);
+        return Objects.hashCode(table, valuesLists, subQuery, columns);
     }
 
 
@@ -75,6 +96,7 @@ public class Insert extends Statement {
         return Objects.toStringHelper(this)
                 .add("table", table)
                 .add("values", valuesLists)
+                .add("subQuery", subQuery)
                 .add("columns", columns)
                 .toString();
     }
@@ -91,6 +113,7 @@ public class Insert extends Statement {
         if (table != null ? !table.equals(insert.table) : insert.table != null)
             return false;
         if (valuesLists != null ? !valuesLists.equals(insert.valuesLists) : insert.valuesLists != null) return false;
+        if (subQuery != null ? !subQuery.equals(insert.subQuery) : insert.subQuery != null) return false;
 
         return true;
     }
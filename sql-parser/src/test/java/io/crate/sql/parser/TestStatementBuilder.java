@@ -111,6 +111,9 @@ public class TestStatementBuilder
         printStatement("insert into foo values ('string', NULL)");
         printStatement("insert into foo (id, name) values ('string', 1.2), (abs(-4), 4+?)");
         printStatement("insert into schemah.foo (foo.id, bar.name) values ('string', 1.2)");
+        printStatement("insert into foo (id, name) select id, name from bar where id > 10");
+        printStatement("insert into foo select * from bar");
+        printStatement("insert into foo (id, name) (select id, name from bar)");
 
         printStatement("delete from foo");
         printStatement("delete from schemah.foo where foo.a=foo.b and a is not null");
@@ -123,6 +126,10 @@ public class TestStatementBuilder
         printStatement("copy foo from ?");
         printStatement("copy schemah.foo from '/folder/file.extension'");
 
+        printStatement("copy foo to directory '/folder'");
+        printStatement("copy foo to directory ?");
+        printStatement("copy schemah.foo to directory '/folder' with (compression='gzip')");
+
 
         printStatement("create table t (id integer primary key, name string)");
         printStatement("create table t (id integer primary key, name string) clustered into 3 shards");
@@ -158,6 +165,10 @@ public class TestStatementBuilder
                 "\"full\" string index using fulltext," +
                 "analyzed string index using fulltext with (analyzer='german', param=?, list=[1,2,3])" +
                 ")");
+        printStatement("create table t (" +
+                "name string storage with (doc_values=false), " +
+                "tags string index off storage with (doc_values=true)" +
+                ")");
         printStatement("create table test (col1 string, col2 string," +
                 "index \"_col1_ft\" using fulltext(col1))");
         printStatement("create table test (col1 string, col2 string," +
@@ -195,6 +206,9 @@ public class TestStatementBuilder
         printStatement("refresh table t");
         printStatement("refresh table schemah.tableh");
 
+        printStatement("kill '4e3c9f4b-4bd5-4a9c-8b37-1a7bf3c6b0a3'");
+        printStatement("kill ?");
+
         printStatement("alter table t set (number_of_replicas=4)");
         printStatement("alter table schema.t set (number_of_replicas=4)");
         printStatement("alter table t reset (number_of_replicas)");
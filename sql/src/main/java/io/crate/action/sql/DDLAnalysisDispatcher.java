@@ -27,6 +27,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.analyze.*;
 import io.crate.blob.v2.BlobIndices;
+import io.crate.executor.transport.TransportCollectNodeAction;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
@@ -34,6 +35,8 @@ import org.elasticsearch.action.admin.indices.refresh.TransportRefreshAction;
 import org.elasticsearch.action.admin.indices.settings.put.TransportUpdateSettingsAction;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.Inject;
 
 import javax.annotation.Nullable;
@@ -49,14 +52,20 @@ public class DDLAnalysisDispatcher extends AnalysisVisitor<Void, ListenableFutur
     private final BlobIndices blobIndices;
     private final TransportRefreshAction transportRefreshAction;
     private final TransportUpdateSettingsAction transportUpdateSettingsAction;
+    private final TransportCollectNodeAction transportCollectNodeAction;
+    private final ClusterService clusterService;
 
     @Inject
     public DDLAnalysisDispatcher(BlobIndices blobIndices,
                                   TransportRefreshAction transportRefreshAction,
-                                  TransportUpdateSettingsAction transportUpdateSettingsAction) {
+                                  TransportUpdateSettingsAction transportUpdateSettingsAction,
+                                  TransportCollectNodeAction transportCollectNodeAction,
+                                  ClusterService clusterService) {
         this.blobIndices = blobIndices;
         this.transportRefreshAction = transportRefreshAction;
         this.transportUpdateSettingsAction = transportUpdateSettingsAction;
+        this.transportCollectNodeAction = transportCollectNodeAction;
+        this.clusterService = clusterService;
     }
 
     @Override
@@ -149,4 +158,15 @@ public class DDLAnalysisDispatcher extends AnalysisVisitor<Void, ListenableFutur
 
         return result;
     }
+
+    /**
+     * signal all nodes to kill the job, the running operations of the job fail on their next check
+     */
+    @Override
+    public ListenableFuture<Long> visitKillAnalysis(KillAnalysis analysis, Void context) {
+        for (DiscoveryNode node : clusterService.state().nodes()) {
+            transportCollectNodeAction.kill(node.id(), analysis.jobId());
+        }
+        return Futures.immediateFuture(null);
+    }
 }
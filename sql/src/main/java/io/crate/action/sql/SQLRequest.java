@@ -25,14 +25,22 @@ import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
 public class SQLRequest extends ActionRequest<SQLRequest> {
 
 
     private String stmt;
     private Object[] args;
+    private Object[][] bulkArgs;
+    private TimeValue scroll;
+    private String scrollId;
+    private TimeValue timeout;
     private long creationTime;
 
     public SQLRequest(String stmt, Object[] args) {
@@ -48,9 +56,11 @@ public class SQLRequest extends ActionRequest<SQLRequest> {
     }
 
     public SQLRequest() {
+        this.args = new Object[0];
         this.creationTime = System.currentTimeMillis();
     }
 
+    @Nullable
     public String stmt() {
         return stmt;
     }
@@ -67,6 +77,66 @@ public class SQLRequest extends ActionRequest<SQLRequest> {
         }
     }
 
+    /**
+     * a list of argument arrays. If set the statement is executed once for each of them
+     * and the response contains one row count per argument array.
+     */
+    @Nullable
+    public Object[][] bulkArgs() {
+        return bulkArgs;
+    }
+
+    public SQLRequest bulkArgs(Object[][] bulkArgs) {
+        this.bulkArgs = bulkArgs;
+        return this;
+    }
+
+    public boolean isBulk() {
+        return bulkArgs != null;
+    }
+
+    /**
+     * if set, a scroll is opened, or kept open, for the given time and the response
+     * contains a scroll id to fetch the next page of rows with.
+     */
+    @Nullable
+    public TimeValue scroll() {
+        return scroll;
+    }
+
+    public SQLRequest scroll(TimeValue scroll) {
+        this.scroll = scroll;
+        return this;
+    }
+
+    /**
+     * the id of an open scroll to fetch the next page of rows from,
+     * see {@link io.crate.action.sql.SQLResponse#scrollId()}
+     */
+    @Nullable
+    public String scrollId() {
+        return scrollId;
+    }
+
+    public SQLRequest scrollId(String scrollId) {
+        this.scrollId = scrollId;
+        return this;
+    }
+
+    /**
+     * if set, the collect and merge operations of the statement are aborted
+     * on every node once they ran for longer than the given time.
+     */
+    @Nullable
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    public SQLRequest timeout(TimeValue timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
     public SQLRequest stmt(String stmt){
         this.stmt = stmt;
         return this;
@@ -78,29 +148,73 @@ public class SQLRequest extends ActionRequest<SQLRequest> {
 
     @Override
     public ActionRequestValidationException validate() {
-        return null;
+        ActionRequestValidationException validationException = null;
+        if (stmt == null && scrollId == null) {
+            validationException = addValidationError("stmt or scrollId is missing", null);
+        } else if (bulkArgs != null && args.length > 0) {
+            validationException = addValidationError("args and bulkArgs are mutually exclusive", null);
+        } else if (bulkArgs != null && (scroll != null || scrollId != null)) {
+            validationException = addValidationError("bulkArgs can't be used with scroll", null);
+        }
+        return validationException;
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        stmt = in.readString();
+        stmt = in.readOptionalString();
         int length = in.readVInt();
         args = new Object[length];
         for (int i = 0; i < length; i++) {
             args[i] = in.readGenericValue();
         }
+        if (in.readBoolean()) {
+            int numBulkArgs = in.readVInt();
+            bulkArgs = new Object[numBulkArgs][];
+            for (int i = 0; i < numBulkArgs; i++) {
+                bulkArgs[i] = new Object[in.readVInt()];
+                for (int j = 0; j < bulkArgs[i].length; j++) {
+                    bulkArgs[i][j] = in.readGenericValue();
+                }
+            }
+        }
+        if (in.readBoolean()) {
+            scroll = TimeValue.readTimeValue(in);
+        }
+        scrollId = in.readOptionalString();
+        if (in.readBoolean()) {
+            timeout = TimeValue.readTimeValue(in);
+        }
         creationTime = in.readVLong();
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        out.writeString(stmt);
+        out.writeOptionalString(stmt);
         out.writeVInt(args.length);
         for (int i = 0; i < args.length; i++) {
             out.writeGenericValue(args[i]);
         }
+        out.writeBoolean(bulkArgs != null);
+        if (bulkArgs != null) {
+            out.writeVInt(bulkArgs.length);
+            for (Object[] bulkArg : bulkArgs) {
+                out.writeVInt(bulkArg.length);
+                for (Object arg : bulkArg) {
+                    out.writeGenericValue(arg);
+                }
+            }
+        }
+        out.writeBoolean(scroll != null);
+        if (scroll != null) {
+            scroll.writeTo(out);
+        }
+        out.writeOptionalString(scrollId);
+        out.writeBoolean(timeout != null);
+        if (timeout != null) {
+            timeout.writeTo(out);
+        }
         out.writeVLong(creationTime);
     }
 
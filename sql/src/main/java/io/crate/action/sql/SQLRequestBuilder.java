@@ -53,6 +53,10 @@ public class SQLRequestBuilder extends ActionRequestBuilder<SQLRequest, SQLRespo
         parser.parseSource(source);
         request.stmt(context.stmt());
         request.args(context.args());
+        request.bulkArgs(context.bulkArgs());
+        request.scroll(context.scroll());
+        request.scrollId(context.scrollId());
+        request.timeout(context.timeout());
         return this;
     }
 
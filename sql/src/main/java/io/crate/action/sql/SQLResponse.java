@@ -29,6 +29,7 @@ import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -39,6 +40,8 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
         static final XContentBuilderString ROWS = new XContentBuilderString("rows");
         static final XContentBuilderString ROWCOUNT = new XContentBuilderString("rowcount");
         static final XContentBuilderString DURATION = new XContentBuilderString("duration");
+        static final XContentBuilderString RESULTS = new XContentBuilderString("results");
+        static final XContentBuilderString SCROLL_ID = new XContentBuilderString("scroll_id");
     }
     public static final long NO_ROW_COUNT = -1L;
 
@@ -46,6 +49,8 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
     private String[] cols;
     private long rowCount = NO_ROW_COUNT;
     private long requestStartedTime = 0L;
+    private long[] bulkRowCounts;
+    private String scrollId;
 
     public SQLResponse() {
     }
@@ -75,6 +80,18 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
         if (hasRowCount()) {
             builder.field(Fields.ROWCOUNT, rowCount());
         }
+        if (bulkRowCounts != null) {
+            builder.startArray(Fields.RESULTS);
+            for (long bulkRowCount : bulkRowCounts) {
+                builder.startObject();
+                builder.field(Fields.ROWCOUNT, bulkRowCount);
+                builder.endObject();
+            }
+            builder.endArray();
+        }
+        if (scrollId != null) {
+            builder.field(Fields.SCROLL_ID, scrollId);
+        }
         builder.field(Fields.DURATION, duration());
 
         return builder;
@@ -119,6 +136,31 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
         this.requestStartedTime = requestStartedTime;
     }
 
+    /**
+     * the row counts of a bulk request, one for each argument array of the request
+     */
+    @Nullable
+    public long[] bulkRowCounts() {
+        return bulkRowCounts;
+    }
+
+    public void bulkRowCounts(long[] bulkRowCounts) {
+        this.bulkRowCounts = bulkRowCounts;
+    }
+
+    /**
+     * the id of the scroll to fetch the next page of rows with,
+     * null if no scroll was requested or if there are no more rows
+     */
+    @Nullable
+    public String scrollId() {
+        return scrollId;
+    }
+
+    public void scrollId(String scrollId) {
+        this.scrollId = scrollId;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -136,6 +178,13 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
             }
         }
         requestStartedTime = in.readVLong();
+        if (in.readBoolean()) {
+            bulkRowCounts = new long[in.readVInt()];
+            for (int i = 0; i < bulkRowCounts.length; i++) {
+                bulkRowCounts[i] = in.readLong();
+            }
+        }
+        scrollId = in.readOptionalString();
     }
 
     @Override
@@ -151,6 +200,14 @@ public class SQLResponse extends ActionResponse implements ToXContent, SQLResult
             }
         }
         out.writeVLong(requestStartedTime);
+        out.writeBoolean(bulkRowCounts != null);
+        if (bulkRowCounts != null) {
+            out.writeVInt(bulkRowCounts.length);
+            for (long bulkRowCount : bulkRowCounts) {
+                out.writeLong(bulkRowCount);
+            }
+        }
+        out.writeOptionalString(scrollId);
     }
 
     @Override
@@ -0,0 +1,156 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.io.BaseEncoding;
+import io.crate.DataType;
+import io.crate.exceptions.ScrollUnknownException;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * everything needed to fetch the next page of an open scroll.
+ *
+ * The context is encoded into the scroll id returned to the client together with
+ * the id of the underlying elasticsearch scroll, so the next page can be fetched
+ * on any node.
+ */
+public class ScrollContext {
+
+    private final String esScrollId;
+    private final List<? extends Reference> outputs;
+    private final List<DataType> outputTypes;
+    private final String[] outputNames;
+    private final TimeValue scroll;
+    private final int pageSize;
+
+    public ScrollContext(String esScrollId,
+                         List<? extends Reference> outputs,
+                         List<DataType> outputTypes,
+                         String[] outputNames,
+                         TimeValue scroll,
+                         int pageSize) {
+        this.esScrollId = esScrollId;
+        this.outputs = outputs;
+        this.outputTypes = outputTypes;
+        this.outputNames = outputNames;
+        this.scroll = scroll;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * the id of the underlying elasticsearch scroll
+     */
+    public String esScrollId() {
+        return esScrollId;
+    }
+
+    public List<? extends Reference> outputs() {
+        return outputs;
+    }
+
+    public List<DataType> outputTypes() {
+        return outputTypes;
+    }
+
+    public String[] outputNames() {
+        return outputNames;
+    }
+
+    /**
+     * the time to keep the scroll open
+     */
+    public TimeValue scroll() {
+        return scroll;
+    }
+
+    /**
+     * the number of rows each shard returns per page.
+     * A page with less rows is the last one.
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public String encode() {
+        try {
+            BytesStreamOutput out = new BytesStreamOutput();
+            out.writeString(esScrollId);
+            out.writeVInt(outputs.size());
+            for (Reference output : outputs) {
+                Symbol.toStream(output, out);
+            }
+            for (DataType outputType : outputTypes) {
+                DataType.toStream(outputType, out);
+            }
+            out.writeStringArray(outputNames);
+            scroll.writeTo(out);
+            out.writeVInt(pageSize);
+            return BaseEncoding.base64Url().encode(out.bytes().toBytes());
+        } catch (IOException e) {
+            // writing to a BytesStreamOutput doesn't fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @throws io.crate.exceptions.ScrollUnknownException if the scroll id is invalid
+     */
+    public static ScrollContext decode(String scrollId) {
+        try {
+            StreamInput in = new BytesStreamInput(
+                    new BytesArray(BaseEncoding.base64Url().decode(scrollId)));
+            String esScrollId = in.readString();
+            int numOutputs = in.readVInt();
+            List<Reference> outputs = new ArrayList<>(numOutputs);
+            for (int i = 0; i < numOutputs; i++) {
+                outputs.add((Reference) Symbol.fromStream(in));
+            }
+            List<DataType> outputTypes = new ArrayList<>(numOutputs);
+            for (int i = 0; i < numOutputs; i++) {
+                outputTypes.add(DataType.fromStream(in));
+            }
+            String[] outputNames = in.readStringArray();
+            TimeValue scroll = TimeValue.readTimeValue(in);
+            int pageSize = in.readVInt();
+            return new ScrollContext(esScrollId, outputs, outputTypes, outputNames, scroll, pageSize);
+        } catch (Exception e) {
+            throw new ScrollUnknownException(scrollId);
+        }
+    }
+
+    /**
+     * @return a context for the next page of the scroll
+     */
+    public ScrollContext next(String esScrollId, TimeValue scroll) {
+        return new ScrollContext(esScrollId, outputs, outputTypes, outputNames, scroll, pageSize);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * bounded cache of parsed {@link io.crate.sql.tree.Statement}s keyed by the statement text.
+ *
+ * The AST does not depend on the parameters or on the cluster metadata,
+ * so entries never need to be invalidated, they only get evicted once
+ * the cache is full.
+ */
+public class StatementCache extends AbstractComponent {
+
+    public static final String SETTING_SIZE = "crate.sql.statement_cache.size";
+    public static final int DEFAULT_SIZE = 1000;
+
+    private final LoadingCache<String, Statement> cache;
+
+    @Inject
+    public StatementCache(Settings settings) {
+        super(settings);
+        int size = settings.getAsInt(SETTING_SIZE, DEFAULT_SIZE);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .recordStats()
+                .build(
+                        new CacheLoader<String, Statement>() {
+                            @Override
+                            public Statement load(String key) throws Exception {
+                                return SqlParser.createStatement(key);
+                            }
+                        }
+                );
+    }
+
+    /**
+     * return the parsed statement, parsing it only if it isn't cached yet.
+     *
+     * @throws io.crate.sql.parser.ParsingException if the statement can't be parsed
+     */
+    public Statement get(String stmt) {
+        try {
+            return cache.getUnchecked(stmt);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -21,6 +21,7 @@
 
 package io.crate.action.sql;
 
+import com.google.common.base.Objects;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -28,36 +29,61 @@ import io.crate.Constants;
 import io.crate.DataType;
 import io.crate.analyze.Analysis;
 import io.crate.analyze.Analyzer;
+import io.crate.analyze.SelectAnalysis;
 import io.crate.exceptions.ExceptionHelper;
+import io.crate.exceptions.ScrollUnknownException;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.executor.AffectedRowsResponseBuilder;
 import io.crate.executor.Job;
 import io.crate.executor.ResponseBuilder;
 import io.crate.executor.RowsResponseBuilder;
+import io.crate.executor.ScrollableTask;
 import io.crate.executor.transport.TransportExecutor;
 import io.crate.planner.Plan;
 import io.crate.planner.PlanPrinter;
 import io.crate.planner.Planner;
-import io.crate.sql.parser.SqlParser;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.dql.ESSearchNode;
+import io.crate.planner.node.dql.ESSearchScrollNode;
 import io.crate.sql.tree.Statement;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.action.search.TransportClearScrollAction;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BaseTransportRequestHandler;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 
 public class TransportSQLAction extends TransportAction<SQLRequest, SQLResponse> {
 
+    /**
+     * the timeout of statements which don't specify one, see {@link SQLRequest#timeout()}
+     */
+    public static final String SETTING_STATEMENT_TIMEOUT = "crate.sql.statement_timeout";
+
     private final Analyzer analyzer;
     private final Planner planner;
     private final TransportExecutor transportExecutor;
     private final DDLAnalysisDispatcher dispatcher;
+    private final StatementCache statementCache;
+    private final TransportClearScrollAction transportClearScrollAction;
+    private final TimeValue defaultTimeout;
 
     @Inject
     protected TransportSQLAction(Settings settings, ThreadPool threadPool,
@@ -65,12 +91,17 @@ public class TransportSQLAction extends TransportAction<SQLRequest, SQLResponse>
             Planner planner,
             TransportExecutor transportExecutor,
             DDLAnalysisDispatcher dispatcher,
+            StatementCache statementCache,
+            TransportClearScrollAction transportClearScrollAction,
             TransportService transportService) {
         super(settings, threadPool);
         this.analyzer = analyzer;
         this.planner = planner;
         this.transportExecutor = transportExecutor;
         this.dispatcher = dispatcher;
+        this.statementCache = statementCache;
+        this.transportClearScrollAction = transportClearScrollAction;
+        this.defaultTimeout = settings.getAsTime(SETTING_STATEMENT_TIMEOUT, null);
         transportService.registerHandler(SQLAction.NAME, new TransportHandler());
     }
 
@@ -79,7 +110,15 @@ public class TransportSQLAction extends TransportAction<SQLRequest, SQLResponse>
         logger.trace("doExecute: " + request);
 
         try {
-            Statement statement = SqlParser.createStatement(request.stmt());
+            if (request.scrollId() != null) {
+                processScroll(request, listener);
+                return;
+            }
+            Statement statement = statementCache.get(request.stmt());
+            if (request.isBulk()) {
+                processBulk(statement, request, listener);
+                return;
+            }
             Analysis analysis = analyzer.analyze(statement, request.args());
 
             if (analysis.isData()) {
@@ -92,6 +131,50 @@ public class TransportSQLAction extends TransportAction<SQLRequest, SQLResponse>
         }
     }
 
+    /**
+     * analyzes and plans the statement once for each argument array.
+     * The plans are executed together, see {@link TransportExecutor#executeBulk(java.util.List)}
+     */
+    private void processBulk(Statement statement,
+                             final SQLRequest request,
+                             final ActionListener<SQLResponse> listener) {
+        List<Plan> plans = new ArrayList<>(request.bulkArgs().length);
+        for (Object[] args : request.bulkArgs()) {
+            Analysis analysis = analyzer.analyze(statement, args);
+            // checked before hasNoResult, a select with a false where clause isn't planned
+            if (!analysis.isData() || analysis instanceof SelectAnalysis) {
+                throw new UnsupportedFeatureException("Bulk operations are only supported for INSERT, UPDATE and DELETE");
+            }
+            if (analysis.hasNoResult()) {
+                plans.add(null);
+                continue;
+            }
+            Plan plan = planner.plan(analysis);
+            if (!plan.expectsAffectedRows()) {
+                throw new UnsupportedFeatureException("Bulk operations are only supported for INSERT, UPDATE and DELETE");
+            }
+            plans.add(plan);
+        }
+
+        Futures.addCallback(transportExecutor.executeBulk(plans), new FutureCallback<long[]>() {
+            @Override
+            public void onSuccess(@Nullable long[] rowCounts) {
+                SQLResponse response = new SQLResponse(
+                        new String[0],
+                        Constants.EMPTY_RESULT,
+                        SQLResponse.NO_ROW_COUNT,
+                        request.creationTime());
+                response.bulkRowCounts(rowCounts);
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                listener.onFailure(ExceptionHelper.transformToCrateException(t));
+            }
+        });
+    }
+
     private void processNonData(final Analysis analysis,
                                 final SQLRequest request,
                                 final ActionListener<SQLResponse> listener) {
@@ -122,17 +205,148 @@ public class TransportSQLAction extends TransportAction<SQLRequest, SQLResponse>
             return;
         }
         final Plan plan = planner.plan(analysis);
+        if (request.scroll() != null) {
+            ESSearchNode searchNode = scrollableSearchNode(plan);
+            searchNode.scroll(request.scroll());
+            ScrollContext context = new ScrollContext(
+                    null, searchNode.outputs(), searchNode.outputTypes(), outputNames,
+                    request.scroll(), searchNode.limit());
+            executeScroll(plan, context, request, listener);
+            return;
+        }
         if (logger.isTraceEnabled()) {
             PlanPrinter printer = new PlanPrinter();
             logger.trace(printer.print(plan));
         }
         final ResponseBuilder responseBuilder = getResponseBuilder(plan);
-        final Job job = transportExecutor.newJob(plan);
+        final Job job = transportExecutor.newJob(plan, timeout(request));
         final ListenableFuture<List<Object[][]>> resultFuture = Futures.allAsList(transportExecutor.execute(job));
 
         addResultCallback(request, listener, outputNames, plan, responseBuilder, resultFuture);
     }
 
+    @Nullable
+    private TimeValue timeout(SQLRequest request) {
+        return request.timeout() != null ? request.timeout() : defaultTimeout;
+    }
+
+    private static ESSearchNode scrollableSearchNode(Plan plan) {
+        Iterator<PlanNode> iterator = plan.iterator();
+        PlanNode planNode = iterator.hasNext() ? iterator.next() : null;
+        if (!(planNode instanceof ESSearchNode) || iterator.hasNext()) {
+            throw new UnsupportedFeatureException(
+                    "scroll is only supported for selects on a single table without aggregations");
+        }
+        ESSearchNode searchNode = (ESSearchNode) planNode;
+        if (searchNode.offset() > 0) {
+            throw new UnsupportedFeatureException("scroll doesn't support OFFSET");
+        }
+        return searchNode;
+    }
+
+    /**
+     * fetch the next page of an open scroll
+     */
+    private void processScroll(SQLRequest request, ActionListener<SQLResponse> listener) {
+        ScrollContext context = ScrollContext.decode(request.scrollId());
+        TimeValue scroll = Objects.firstNonNull(request.scroll(), context.scroll());
+
+        ESSearchScrollNode scrollNode = new ESSearchScrollNode(context.esScrollId(), scroll, context.outputs());
+        scrollNode.outputTypes(context.outputTypes());
+        Plan plan = new Plan();
+        plan.add(scrollNode);
+
+        executeScroll(plan, context, request, listener);
+    }
+
+    /**
+     * execute a plan consisting of one {@link io.crate.executor.ScrollableTask}.
+     * If there are no more rows the response doesn't contain a scroll id
+     * and the elasticsearch scroll is cleared.
+     */
+    private void executeScroll(Plan plan,
+                               final ScrollContext context,
+                               final SQLRequest request,
+                               final ActionListener<SQLResponse> listener) {
+        final Job job = transportExecutor.newJob(plan);
+        assert job.tasks().size() == 1 && job.tasks().get(0) instanceof ScrollableTask;
+        final ScrollableTask task = (ScrollableTask) job.tasks().get(0);
+
+        Futures.addCallback(Futures.allAsList(transportExecutor.execute(job)), new FutureCallback<List<Object[][]>>() {
+            @Override
+            public void onSuccess(@Nullable List<Object[][]> result) {
+                Object[][] rows = result == null ? Constants.EMPTY_RESULT : result.get(0);
+
+                SQLResponse response = new RowsResponseBuilder(true).buildResponse(
+                        context.outputTypes().toArray(new DataType[context.outputTypes().size()]),
+                        context.outputNames(),
+                        rows,
+                        request.creationTime());
+                if (task.scrollId() == null) {
+                    listener.onResponse(response);
+                } else if (rows.length == 0 || rows.length < context.pageSize()) {
+                    // every shard returns up to pageSize rows, so a shorter page is the last one
+                    clearScroll(task.scrollId(), response, listener);
+                } else {
+                    response.scrollId(context.next(task.scrollId(),
+                            Objects.firstNonNull(request.scroll(), context.scroll())).encode());
+                    listener.onResponse(response);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (request.scrollId() != null && isScrollMissing(t)) {
+                    listener.onFailure(new ScrollUnknownException(request.scrollId()));
+                } else {
+                    listener.onFailure(ExceptionHelper.transformToCrateException(t));
+                }
+            }
+        });
+    }
+
+    /**
+     * release the search contexts of an exhausted scroll on all shards
+     * before the last page is returned.
+     */
+    private void clearScroll(final String esScrollId,
+                             final SQLResponse response,
+                             final ActionListener<SQLResponse> listener) {
+        ClearScrollRequest request = new ClearScrollRequest();
+        request.addScrollId(esScrollId);
+        transportClearScrollAction.execute(request, new ActionListener<ClearScrollResponse>() {
+            @Override
+            public void onResponse(ClearScrollResponse clearScrollResponse) {
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                // the contexts are freed by the keep alive anyway
+                logger.warn("failed to clear scroll {}", e, esScrollId);
+                listener.onResponse(response);
+            }
+        });
+    }
+
+    /**
+     * @return true if the exception was caused by an expired or unknown elasticsearch scroll
+     */
+    private static boolean isScrollMissing(Throwable t) {
+        Throwable cause = ExceptionsHelper.unwrapCause(t);
+        if (cause instanceof SearchContextMissingException) {
+            return true;
+        }
+        if (cause instanceof SearchPhaseExecutionException) {
+            for (ShardSearchFailure failure : ((SearchPhaseExecutionException) cause).shardFailures()) {
+                if (failure.status() == RestStatus.NOT_FOUND) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private static void emptyResponse(SQLRequest request,
                                       Analysis analysis,
                                       final ActionListener<SQLResponse> listener) {
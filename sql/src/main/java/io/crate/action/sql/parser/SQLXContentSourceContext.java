@@ -21,6 +21,8 @@
 
 package io.crate.action.sql.parser;
 
+import org.elasticsearch.common.unit.TimeValue;
+
 /**
  * Context for information gathered by parsing an XContent based sql request
  */
@@ -28,6 +30,10 @@ public class SQLXContentSourceContext {
 
     private String stmt;
     private Object[] args;
+    private Object[][] bulkArgs;
+    private TimeValue scroll;
+    private String scrollId;
+    private TimeValue timeout;
 
     public String stmt() {
         return stmt;
@@ -44,4 +50,36 @@ public class SQLXContentSourceContext {
     public void args(Object[] args) {
         this.args = args;
     }
+
+    public Object[][] bulkArgs() {
+        return bulkArgs;
+    }
+
+    public void bulkArgs(Object[][] bulkArgs) {
+        this.bulkArgs = bulkArgs;
+    }
+
+    public TimeValue scroll() {
+        return scroll;
+    }
+
+    public void scroll(TimeValue scroll) {
+        this.scroll = scroll;
+    }
+
+    public String scrollId() {
+        return scrollId;
+    }
+
+    public void scrollId(String scrollId) {
+        this.scrollId = scrollId;
+    }
+
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    public void timeout(TimeValue timeout) {
+        this.timeout = timeout;
+    }
 }
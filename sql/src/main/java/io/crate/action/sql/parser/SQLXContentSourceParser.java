@@ -34,6 +34,22 @@ import org.elasticsearch.common.xcontent.XContentParser;
  * {
  * "stmt": "select * from...."
  * }
+ * <p/>
+ * or, to execute a statement once for each set of arguments
+ * <p/>
+ * {
+ * "stmt": "insert into ...",
+ * "bulk_args": [[...], [...]]
+ * }
+ * <p/>
+ * or, to fetch the next page of an open scroll
+ * <p/>
+ * {
+ * "scroll_id": "...",
+ * "scroll": "1m"
+ * }
+ * <p/>
+ * every statement can be given a timeout, e.g. "timeout": "30s"
  */
 public class SQLXContentSourceParser {
 
@@ -42,21 +58,33 @@ public class SQLXContentSourceParser {
     static final class Fields {
         static final String STMT = "stmt";
         static final String ARGS = "args";
+        static final String BULK_ARGS = "bulk_args";
+        static final String SCROLL = "scroll";
+        static final String SCROLL_ID = "scroll_id";
+        static final String TIMEOUT = "timeout";
     }
 
-    private static final ImmutableMap<String, SQLParseElement> elementParsers = ImmutableMap.of(
-            Fields.STMT, (SQLParseElement) new SQLStmtParseElement(),
-            Fields.ARGS, (SQLParseElement) new SQLArgsParseElement()
-    );
+    private static final ImmutableMap<String, SQLParseElement> elementParsers =
+            ImmutableMap.<String, SQLParseElement>builder()
+                    .put(Fields.STMT, new SQLStmtParseElement())
+                    .put(Fields.ARGS, new SQLArgsParseElement())
+                    .put(Fields.BULK_ARGS, new SQLBulkArgsParseElement())
+                    .put(Fields.SCROLL, new SQLScrollParseElement())
+                    .put(Fields.SCROLL_ID, new SQLScrollIdParseElement())
+                    .put(Fields.TIMEOUT, new SQLTimeoutParseElement())
+                    .build();
 
     public SQLXContentSourceParser(SQLXContentSourceContext context) {
         this.context = context;
     }
 
     private void validate() throws SQLParseSourceException {
-        if (context.stmt() == null) {
+        if (context.stmt() == null && context.scrollId() == null) {
             throw new SQLParseSourceException(context, "Field [stmt] was not defined");
         }
+        if (context.args() != null && context.bulkArgs() != null) {
+            throw new SQLParseSourceException(context, "Fields [args] and [bulk_args] are mutually exclusive");
+        }
     }
 
     public void parseSource(BytesReference source) throws SQLParseException {
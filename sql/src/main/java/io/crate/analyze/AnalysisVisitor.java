@@ -49,6 +49,10 @@ public class AnalysisVisitor<C, R> {
         return visitAnalysis(analysis, context);
     }
 
+    protected R visitInsertFromSubQueryAnalysis(InsertFromSubQueryAnalysis analysis, C context) {
+        return visitAnalysis(analysis, context);
+    }
+
     protected R visitSelectAnalysis(SelectAnalysis analysis, C context) {
         return visitAnalysis(analysis, context);
     }
@@ -92,4 +96,8 @@ public class AnalysisVisitor<C, R> {
     public R visitAlterBlobTableAnalysis(AlterBlobTableAnalysis analysis, C context) {
         return visitDDLAnalysis(analysis, context);
     }
+
+    public R visitKillAnalysis(KillAnalysis analysis, C context) {
+        return visitDDLAnalysis(analysis, context);
+    }
 }
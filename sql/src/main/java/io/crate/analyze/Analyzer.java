@@ -73,6 +73,8 @@ public class Analyzer {
 
         private final AbstractStatementAnalyzer selectStatementAnalyzer = new SelectStatementAnalyzer();
         private final AbstractStatementAnalyzer insertStatementAnalyzer = new InsertStatementAnalyzer();
+        private final AbstractStatementAnalyzer insertFromSubQueryStatementAnalyzer =
+                new InsertFromSubQueryStatementAnalyzer();
         private final AbstractStatementAnalyzer updateStatementAnalyzer = new UpdateStatementAnalyzer();
         private final AbstractStatementAnalyzer deleteStatementAnalyzer = new DeleteStatementAnalyzer();
         private final AbstractStatementAnalyzer copyStatementAnalyzer = new CopyStatementAnalyzer();
@@ -84,6 +86,7 @@ public class Analyzer {
         private final AbstractStatementAnalyzer refreshTableAnalyzer = new RefreshTableAnalyzer();
         private final AbstractStatementAnalyzer alterTableAnalyzer = new AlterTableAnalyzer();
         private final AbstractStatementAnalyzer alterBlobTableAnalyzer = new AlterBlobTableAnalyzer();
+        private final AbstractStatementAnalyzer killStatementAnalyzer = new KillStatementAnalyzer();
 
         public AnalyzerDispatcher(ReferenceInfos referenceInfos,
                                   Functions functions,
@@ -111,6 +114,11 @@ public class Analyzer {
 
         @Override
         public AbstractStatementAnalyzer visitInsert(Insert node, Context context) {
+            if (node.subQuery() != null) {
+                context.analysis = new InsertFromSubQueryAnalysis(
+                        referenceInfos, functions, context.parameters, referenceResolver);
+                return insertFromSubQueryStatementAnalyzer;
+            }
             context.analysis = new InsertAnalysis(
                     referenceInfos, functions, context.parameters, referenceResolver);
             return insertStatementAnalyzer;
@@ -130,6 +138,13 @@ public class Analyzer {
             return copyStatementAnalyzer;
         }
 
+        @Override
+        public AbstractStatementAnalyzer visitCopyToStatement(CopyToStatement node, Context context) {
+            context.analysis = new CopyAnalysis(
+                    referenceInfos, functions, context.parameters, referenceResolver);
+            return copyStatementAnalyzer;
+        }
+
         @Override
         public AbstractStatementAnalyzer visitDropTable(DropTable node, Context context) {
             context.analysis = new DropTableAnalysis(referenceInfos);
@@ -178,6 +193,12 @@ public class Analyzer {
             return alterTableAnalyzer;
         }
 
+        @Override
+        public AbstractStatementAnalyzer visitKillStatement(KillStatement node, Context context) {
+            context.analysis = new KillAnalysis(context.parameters);
+            return killStatementAnalyzer;
+        }
+
         @Override
         protected AbstractStatementAnalyzer visitNode(Node node, Context context) {
             throw new UnsupportedOperationException(String.format("cannot analyze statement: '%s'", node));
@@ -34,6 +34,7 @@ public class CopyAnalysis extends AbstractDataAnalysis {
 
     private String path;
     private Mode mode;
+    private boolean compressed = false;
 
     public CopyAnalysis(ReferenceInfos referenceInfos, Functions functions, Object[] parameters, ReferenceResolver referenceResolver) {
         super(referenceInfos, functions, parameters, referenceResolver);
@@ -55,6 +56,17 @@ public class CopyAnalysis extends AbstractDataAnalysis {
         this.mode = mode;
     }
 
+    /**
+     * whether the files written by COPY TO are gzip compressed
+     */
+    public boolean compressed() {
+        return compressed;
+    }
+
+    public void compressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
     @Override
     public <C, R> R accept(AnalysisVisitor<C, R> analysisVisitor, C context) {
         return analysisVisitor.visitCopyAnalysis(this, context);
@@ -21,33 +21,96 @@
 
 package io.crate.analyze;
 
+import com.google.common.base.Preconditions;
 import io.crate.DataType;
+import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.metadata.sys.SysShardsTableInfo;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Parameter;
 import io.crate.planner.symbol.Symbol;
 import io.crate.planner.symbol.SymbolType;
-import io.crate.sql.tree.CopyFromStatement;
-import io.crate.sql.tree.Table;
+import io.crate.sql.tree.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class CopyStatementAnalyzer extends DataStatementAnalyzer<CopyAnalysis> {
 
+    private static final String COMPRESSION = "compression";
+    private static final String GZIP = "gzip";
+
+    private static final ExpressionToObjectVisitor expressionVisitor = new ExpressionToObjectVisitor();
+
     @Override
     public Symbol visitCopyFromStatement(CopyFromStatement node, CopyAnalysis context) {
         context.mode(CopyAnalysis.Mode.FROM);
         process(node.table(), context);
-        Symbol pathSymbol = process(node.path(), context);
+        context.path(pathValue(process(node.path(), context), "Invalid COPY FROM statement"));
+        return null;
+    }
+
+    @Override
+    public Symbol visitCopyToStatement(CopyToStatement node, CopyAnalysis context) {
+        context.mode(CopyAnalysis.Mode.INTO);
+        TableIdent tableIdent = TableIdent.of(node.table());
+        context.table(tableIdent);
+        if (context.schema().systemSchema()) {
+            throw new UnsupportedOperationException(
+                    String.format("COPY TO is not supported on tables of schema '%s'", tableIdent.schema()));
+        }
+        if (context.table().isAlias()) {
+            throw new IllegalArgumentException("Table alias not allowed in COPY TO statement.");
+        }
+        String directory = pathValue(process(node.targetUri(), context), "Invalid COPY TO statement");
+        if (!new File(directory).isAbsolute()) {
+            throw new IllegalArgumentException(
+                    String.format("COPY TO requires an absolute directory path, got \"%s\"", directory));
+        }
+        context.path(directory);
+        if (node.genericProperties().isPresent()) {
+            setProperties(node.genericProperties().get(), context);
+        }
+
+        // every shard writes the raw source of its documents into its own file
+        context.outputSymbols(Arrays.<Symbol>asList(
+                context.allocateReference(new ReferenceIdent(context.table().ident(), DocSysColumns.RAW)),
+                context.allocateReference(new ReferenceIdent(SysShardsTableInfo.IDENT, "id"))
+        ));
+        return null;
+    }
+
+    private void setProperties(GenericProperties properties, CopyAnalysis context) {
+        for (Map.Entry<String, List<Expression>> entry : properties.properties().entrySet()) {
+            if (!COMPRESSION.equals(entry.getKey())) {
+                throw new IllegalArgumentException(
+                        String.format("COPY TO doesn't have the \"%s\" property", entry.getKey()));
+            }
+            Preconditions.checkArgument(entry.getValue().size() == 1,
+                    String.format("Invalid number of arguments passed to \"%s\"", COMPRESSION));
+            Object compression = expressionVisitor.process(entry.getValue().get(0), context.parameters());
+            if (compression == null || !GZIP.equalsIgnoreCase(compression.toString())) {
+                throw new IllegalArgumentException(
+                        String.format("Unknown compression \"%s\", only \"%s\" is supported", compression, GZIP));
+            }
+            context.compressed(true);
+        }
+    }
+
+    private String pathValue(Symbol pathSymbol, String errorMessage) {
         if (pathSymbol.symbolType() != SymbolType.STRING_LITERAL && pathSymbol.symbolType() != SymbolType.PARAMETER) {
-            throw new IllegalArgumentException("Invalid COPY FROM statement");
+            throw new IllegalArgumentException(errorMessage);
         }
         if (pathSymbol.symbolType() == SymbolType.PARAMETER) {
             if (((Parameter)pathSymbol).guessedValueType() != DataType.STRING) {
-                throw new IllegalArgumentException("Invalid COPY FROM statement");
+                throw new IllegalArgumentException(errorMessage);
             }
             pathSymbol = ((Parameter)pathSymbol).toLiteral(DataType.STRING);
         }
-        context.path(((Literal) pathSymbol).valueAsString());
-        return null;
+        return ((Literal) pathSymbol).valueAsString();
     }
 
     @Override
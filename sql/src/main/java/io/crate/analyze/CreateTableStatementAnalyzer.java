@@ -26,6 +26,7 @@ import com.google.common.collect.Lists;
 import io.crate.Constants;
 import io.crate.metadata.TableIdent;
 import io.crate.sql.tree.*;
+import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.settings.Settings;
 
 import java.util.*;
@@ -145,8 +146,16 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
 
         Object indexName = context.currentColumnDefinition().get("index");
         assert indexName != null;
-        if (indexName.equals("not_analyzed")) {
-            context.currentColumnDefinition().put("doc_values", true);
+        Object docValues = context.currentColumnDefinition().get("doc_values");
+        if (docValues == null) {
+            // plain indexed columns are read from doc values instead of field data loaded on the heap
+            if (indexName.equals("not_analyzed")) {
+                context.currentColumnDefinition().put("doc_values", true);
+            }
+        } else if ((Boolean) docValues && indexName.equals("analyzed")) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Column \"%s\" with a fulltext index can't be stored with doc values",
+                    context.currentColumnName()));
         }
         context.currentColumnDefinition().put("type", typeName);
 
@@ -155,6 +164,10 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
 
     @Override
     public Void visitObjectColumnType(ObjectColumnType node, CreateTableAnalysis context) {
+        if (Boolean.TRUE.equals(context.currentColumnDefinition().get("doc_values"))) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Object column \"%s\" can't be stored with doc values", context.currentColumnName()));
+        }
         context.currentColumnDefinition().put("type", node.name());
         Map<String, Object> nestedProperties = new HashMap<>();
         context.currentColumnDefinition().put("properties", nestedProperties);
@@ -186,7 +199,9 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
             throw new UnsupportedOperationException("the SET dataType is currently not supported");
         }
         context.currentMetaColumnDefinition().put("collection_type", "array");
-        context.currentColumnDefinition().put("doc_values", false);
+        if (!context.currentColumnDefinition().containsKey("doc_values")) {
+            context.currentColumnDefinition().put("doc_values", false);
+        }
 
         if (node.innerType().type() != ColumnType.Type.PRIMITIVE) {
             throw new UnsupportedOperationException("Nesting ARRAY or SET types is currently not supported");
@@ -211,6 +226,22 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
         return null;
     }
 
+    @Override
+    public Void visitColumnStorageDefinition(ColumnStorageDefinition node, CreateTableAnalysis context) {
+        for (Map.Entry<String, List<Expression>> entry : node.properties().properties().entrySet()) {
+            if (!entry.getKey().equals("doc_values")) {
+                throw new IllegalArgumentException(
+                        String.format(Locale.ENGLISH, "Invalid storage option \"%s\"", entry.getKey()));
+            }
+            if (entry.getValue().size() != 1) {
+                throw new IllegalArgumentException("Invalid argument(s) passed to the doc_values storage option");
+            }
+            Object docValues = expressionVisitor.process(entry.getValue().get(0), context.parameters());
+            context.currentColumnDefinition().put("doc_values", Booleans.parseBoolean(docValues.toString(), false));
+        }
+        return null;
+    }
+
     @Override
     public Void visitPrimaryKeyConstraint(PrimaryKeyConstraint node, CreateTableAnalysis context) {
         for (Expression expression : node.columns()) {
@@ -45,6 +45,11 @@ class ExpressionToObjectVisitor extends AstVisitor<Object, Object[]> {
         return node.getValue();
     }
 
+    @Override
+    protected Object visitBooleanLiteral(BooleanLiteral node, Object[] context) {
+        return node.getValue();
+    }
+
     @Override
     protected String visitSubscriptExpression(SubscriptExpression node, Object[] context) {
         return String.format("%s.%s", process(node.name(), null), process(node.index(), null));
@@ -0,0 +1,103 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import io.crate.metadata.Functions;
+import io.crate.metadata.ReferenceInfos;
+import io.crate.metadata.ReferenceResolver;
+import io.crate.planner.symbol.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analysis of an <code>INSERT INTO table SELECT ...</code> statement.
+ * The table of this analysis is the target table, the source query is analyzed as {@link SelectAnalysis}.
+ */
+public class InsertFromSubQueryAnalysis extends AbstractDataAnalysis {
+
+    private final SelectAnalysis subQueryAnalysis;
+    private List<Reference> columns = new ArrayList<>();
+    private int primaryKeyColumnIdx = -1;
+    private int routingColumnIdx = -1;
+
+    public InsertFromSubQueryAnalysis(ReferenceInfos referenceInfos,
+                                      Functions functions,
+                                      Object[] parameters,
+                                      ReferenceResolver referenceResolver) {
+        super(referenceInfos, functions, parameters, referenceResolver);
+        this.subQueryAnalysis = new SelectAnalysis(referenceInfos, functions, parameters, referenceResolver);
+    }
+
+    public SelectAnalysis subQueryAnalysis() {
+        return subQueryAnalysis;
+    }
+
+    /**
+     * the target columns, the n-th column is set to the n-th output of the sub query
+     */
+    public List<Reference> columns() {
+        return columns;
+    }
+
+    public void columns(List<Reference> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return the index of the primary key column, -1 if the table uses generated ids
+     */
+    public int primaryKeyColumnIdx() {
+        return primaryKeyColumnIdx;
+    }
+
+    public void primaryKeyColumnIdx(int primaryKeyColumnIdx) {
+        this.primaryKeyColumnIdx = primaryKeyColumnIdx;
+    }
+
+    /**
+     * @return the index of the clustered by column, -1 if the documents are routed by id
+     */
+    public int routingColumnIdx() {
+        return routingColumnIdx;
+    }
+
+    public void routingColumnIdx(int routingColumnIdx) {
+        this.routingColumnIdx = routingColumnIdx;
+    }
+
+    @Override
+    public boolean hasNoResult() {
+        return subQueryAnalysis.hasNoResult();
+    }
+
+    @Override
+    public void normalize() {
+        subQueryAnalysis.normalize();
+    }
+
+    @Override
+    public <C, R> R accept(AnalysisVisitor<C, R> analysisVisitor, C context) {
+        return analysisVisitor.visitInsertFromSubQueryAnalysis(this, context);
+    }
+}
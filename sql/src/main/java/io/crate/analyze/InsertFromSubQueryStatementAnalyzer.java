@@ -0,0 +1,157 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import com.google.common.base.Preconditions;
+import io.crate.DataType;
+import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.exceptions.ValidationException;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.DataTypeVisitor;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.sql.tree.Insert;
+import io.crate.sql.tree.QualifiedNameReference;
+import io.crate.sql.tree.Table;
+
+import java.util.List;
+
+public class InsertFromSubQueryStatementAnalyzer extends DataStatementAnalyzer<InsertFromSubQueryAnalysis> {
+
+    private static final DataTypeVisitor dataTypeVisitor = new DataTypeVisitor();
+
+    private final SelectStatementAnalyzer subQueryAnalyzer = new SelectStatementAnalyzer();
+
+    @Override
+    public Symbol visitInsert(Insert node, InsertFromSubQueryAnalysis context) {
+        process(node.table(), context);
+
+        SelectAnalysis subQueryAnalysis = context.subQueryAnalysis();
+        node.subQuery().accept(subQueryAnalyzer, subQueryAnalysis);
+        validateSubQuery(subQueryAnalysis);
+        List<Symbol> sourceSymbols = subQueryAnalysis.outputSymbols();
+
+        if (node.columns().size() == 0) {
+            if (sourceSymbols.size() > context.table().columns().size()) {
+                throw new IllegalArgumentException("too many columns in the query of the insert statement");
+            }
+            // no columns given in statement, use the first columns of the table
+            for (ReferenceInfo columnInfo : context.table().columns()) {
+                if (context.columns().size() == sourceSymbols.size()) {
+                    break;
+                }
+                addColumn(context.allocateUniqueReference(columnInfo.ident()), context);
+            }
+        } else {
+            if (sourceSymbols.size() != node.columns().size()) {
+                throw new IllegalArgumentException(
+                        "number of columns in the query doesn't match the number of insert columns");
+            }
+            for (QualifiedNameReference column : node.columns()) {
+                process(column, context);
+            }
+        }
+
+        if (context.table().primaryKey().size() > 1) {
+            throw new UnsupportedOperationException("Multiple primary key columns are currently not supported.");
+        }
+        if (!context.table().hasAutoGeneratedPrimaryKey() && context.primaryKeyColumnIdx() < 0) {
+            throw new IllegalArgumentException("Primary key is required but is missing from the insert statement");
+        }
+        if (!context.table().clusteredBy().equalsIgnoreCase("_id") && context.routingColumnIdx() < 0) {
+            throw new IllegalArgumentException("Clustered by value is required but is missing from the insert statement");
+        }
+
+        for (int i = 0; i < sourceSymbols.size(); i++) {
+            validateType(context.columns().get(i), sourceSymbols.get(i));
+        }
+        return null;
+    }
+
+    @Override
+    protected Symbol visitTable(Table node, InsertFromSubQueryAnalysis context) {
+        Preconditions.checkState(context.table() == null, "inserting into multiple tables is not supported");
+        context.editableTable(TableIdent.of(node));
+        return null;
+    }
+
+    /**
+     * visit columns, if given in statement
+     */
+    @Override
+    protected Symbol visitQualifiedNameReference(QualifiedNameReference node, InsertFromSubQueryAnalysis context) {
+        ReferenceIdent ident = context.getReference(node.getName());
+        if (ident.columnIdent().name().startsWith("_")) {
+            throw new IllegalArgumentException("Inserting system columns is not allowed");
+        }
+        // ensure that every column is only listed once
+        Reference columnReference = context.allocateUniqueReference(ident);
+        addColumn(columnReference, context);
+        return columnReference;
+    }
+
+    private void addColumn(Reference column, InsertFromSubQueryAnalysis context) {
+        String name = column.info().ident().columnIdent().name();
+        if (context.table().primaryKey().contains(name)) {
+            context.primaryKeyColumnIdx(context.columns().size());
+        }
+        if (context.table().clusteredBy().equalsIgnoreCase(column.info().ident().columnIdent().fqn())) {
+            context.routingColumnIdx(context.columns().size());
+        }
+        context.columns().add(column);
+    }
+
+    /**
+     * the rows of the query are written on the nodes holding the source shards,
+     * so only queries which can be processed on every shard on its own are supported.
+     */
+    private void validateSubQuery(SelectAnalysis subQueryAnalysis) {
+        if (subQueryAnalysis.rowGranularity().ordinal() < RowGranularity.DOC.ordinal()) {
+            throw new UnsupportedFeatureException("INSERT INTO ... SELECT is only supported for queries on user tables");
+        }
+        if (subQueryAnalysis.hasGroupBy() || subQueryAnalysis.hasAggregates()) {
+            throw new UnsupportedFeatureException(
+                    "INSERT INTO ... SELECT with GROUP BY or aggregations is not supported");
+        }
+        if (subQueryAnalysis.limit() != null || subQueryAnalysis.offset() > 0) {
+            throw new UnsupportedFeatureException("INSERT INTO ... SELECT with LIMIT or OFFSET is not supported");
+        }
+    }
+
+    private void validateType(Reference column, Symbol source) {
+        DataType columnType = column.valueType();
+        DataType sourceType = source.accept(dataTypeVisitor, null);
+        if (columnType == sourceType || columnType == DataType.NULL || sourceType == DataType.NULL) {
+            return;
+        }
+        if (DataType.NUMERIC_TYPES.contains(columnType) && DataType.NUMERIC_TYPES.contains(sourceType)) {
+            return;
+        }
+        throw new ValidationException(column.info().ident().columnIdent().fqn(),
+                String.format("type of the query column (%s) doesn't match the column type (%s)",
+                        sourceType, columnType));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.exceptions;
+
+import java.util.UUID;
+
+public class JobKilledException extends CrateException {
+
+    private static final String MESSAGE_TMPL = "job '%s' has been killed";
+
+    private final UUID jobId;
+
+    public JobKilledException(UUID jobId) {
+        this(String.format(MESSAGE_TMPL, jobId), jobId);
+    }
+
+    protected JobKilledException(String message, UUID jobId) {
+        super(message);
+        this.jobId = jobId;
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    @Override
+    public int errorCode() {
+        return 4100;
+    }
+
+    @Override
+    public Object[] args() {
+        return new Object[]{jobId};
+    }
+}
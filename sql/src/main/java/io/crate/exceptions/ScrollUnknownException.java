@@ -0,0 +1,55 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.exceptions;
+
+import org.elasticsearch.rest.RestStatus;
+
+public class ScrollUnknownException extends CrateException {
+
+    private static final String MESSAGE_TMPL = "unknown scroll '%s'";
+
+    private final String scrollId;
+
+    public ScrollUnknownException(String scrollId) {
+        super(String.format(MESSAGE_TMPL, scrollId));
+        this.scrollId = scrollId;
+    }
+
+    public String scrollId() {
+        return scrollId;
+    }
+
+    @Override
+    public int errorCode() {
+        return 4047;
+    }
+
+    @Override
+    public RestStatus status() {
+        return RestStatus.NOT_FOUND;
+    }
+
+    @Override
+    public Object[] args() {
+        return new Object[]{scrollId};
+    }
+}
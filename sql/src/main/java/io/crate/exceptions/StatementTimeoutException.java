@@ -0,0 +1,55 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.exceptions;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.UUID;
+
+/**
+ * thrown by the operations of a job which ran longer than the timeout of its statement
+ */
+public class StatementTimeoutException extends JobKilledException {
+
+    private static final String MESSAGE_TMPL = "job '%s' has been aborted after exceeding the statement timeout of %s";
+
+    private final TimeValue timeout;
+
+    public StatementTimeoutException(UUID jobId, TimeValue timeout) {
+        super(String.format(MESSAGE_TMPL, jobId, timeout), jobId);
+        this.timeout = timeout;
+    }
+
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    @Override
+    public int errorCode() {
+        return 4101;
+    }
+
+    @Override
+    public Object[] args() {
+        return new Object[]{jobId(), timeout};
+    }
+}
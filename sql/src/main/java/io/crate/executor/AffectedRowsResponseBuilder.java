@@ -34,7 +34,7 @@ public class AffectedRowsResponseBuilder implements ResponseBuilder {
     public SQLResponse buildResponse(DataType[] dataTypes, String[] outputNames, Object[][] rows, long requestStartedTime) {
         long affectedRows = 0;
         if (rows.length >= 1 && rows[0].length >= 1) {
-            affectedRows = (long)rows[0][0];
+            affectedRows = ((Number) rows[0][0]).longValue();
         }
         return new SQLResponse(outputNames, Constants.EMPTY_RESULT, affectedRows, requestStartedTime);
     }
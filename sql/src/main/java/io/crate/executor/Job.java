@@ -21,6 +21,9 @@
 
 package io.crate.executor;
 
+import org.elasticsearch.common.unit.TimeValue;
+
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -28,12 +31,30 @@ import java.util.UUID;
 public class Job {
 
     private final UUID id = UUID.randomUUID();
+    private final TimeValue timeout;
     private List<Task> tasks = new ArrayList<>();
 
+    public Job() {
+        this(null);
+    }
+
+    /**
+     * @param timeout if not null, the collect and merge operations of the job fail once it
+     *                ran for longer than the given time
+     */
+    public Job(@Nullable TimeValue timeout) {
+        this.timeout = timeout;
+    }
+
     public UUID id() {
         return id;
     }
 
+    @Nullable
+    public TimeValue timeout() {
+        return timeout;
+    }
+
     public void addTask(Task task) {
         tasks.add(task);
     }
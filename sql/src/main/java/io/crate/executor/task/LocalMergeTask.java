@@ -30,7 +30,10 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.executor.Task;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.job.JobContextService;
 import io.crate.operation.merge.MergeOperation;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.node.dql.MergeNode;
 import io.crate.Constants;
 import org.elasticsearch.common.logging.ESLogger;
@@ -52,6 +55,9 @@ public class LocalMergeTask implements Task<Object[][]> {
     private final MergeNode mergeNode;
     private final ImplementationSymbolVisitor symbolVisitor;
     private final ThreadPool threadPool;
+    private final SpillService spillService;
+    private final QueryBreakerService breakerService;
+    private final JobContextService jobContextService;
     private final SettableFuture<Object[][]> result;
     private final List<ListenableFuture<Object[][]>> resultList;
     private final Object lock = new Object();
@@ -64,7 +70,22 @@ public class LocalMergeTask implements Task<Object[][]> {
      * @param mergeNode
      */
     public LocalMergeTask(ThreadPool threadPool, ImplementationSymbolVisitor implementationSymbolVisitor, MergeNode mergeNode) {
+        this(threadPool, implementationSymbolVisitor, mergeNode, null, null, null);
+    }
+
+    /**
+     * @param spillService   if not null, the merge spills to disk once it exceeds the memory budget
+     * @param breakerService if not null, the memory held by the merge is accounted
+     * @param jobContextService if not null, the merge is listed as operation of its job
+     */
+    public LocalMergeTask(ThreadPool threadPool, ImplementationSymbolVisitor implementationSymbolVisitor,
+                          MergeNode mergeNode, @Nullable SpillService spillService,
+                          @Nullable QueryBreakerService breakerService,
+                          @Nullable JobContextService jobContextService) {
         this.threadPool = threadPool;
+        this.spillService = spillService;
+        this.breakerService = breakerService;
+        this.jobContextService = jobContextService;
         this.symbolVisitor = implementationSymbolVisitor;
         this.mergeNode = mergeNode;
         this.result = SettableFuture.create();
@@ -84,7 +105,8 @@ public class LocalMergeTask implements Task<Object[][]> {
             return;
         }
 
-        final MergeOperation mergeOperation = new MergeOperation(symbolVisitor, mergeNode);
+        final MergeOperation mergeOperation = new MergeOperation(
+                symbolVisitor, mergeNode, spillService, breakerService, jobContextService);
         final AtomicInteger countdown = new AtomicInteger(upstreamResults.size());
 
         for (final ListenableFuture<Object[][]> upstreamResult : upstreamResults) {
@@ -99,6 +121,7 @@ public class LocalMergeTask implements Task<Object[][]> {
                         shouldContinue = mergeOperation.addRows(rows);
                     } catch (Exception ex) {
                         result.setException(ex);
+                        mergeOperation.close();
                         logger.error("Failed to add rows", ex);
                         return;
                     }
@@ -111,6 +134,8 @@ public class LocalMergeTask implements Task<Object[][]> {
                             result.setException(e);
                             logger.error("Failed to get merge result", e);
                             return;
+                        } finally {
+                            mergeOperation.close();
                         }
 
                         assert mergeResult != null;
@@ -121,6 +146,7 @@ public class LocalMergeTask implements Task<Object[][]> {
                 @Override
                 public void onFailure(Throwable t) {
                     result.setException(t);
+                    mergeOperation.close();
                 }
             }, threadPool.executor(ThreadPool.Names.GENERIC));
         }
@@ -25,8 +25,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.action.LoggingTransportResponseHandler;
 import io.crate.operation.collect.DistributingCollectOperation;
 import io.crate.operation.collect.MapSideDataCollectOperation;
+import io.crate.operation.job.JobContextService;
 import io.crate.planner.node.dql.CollectNode;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.Streamer;
@@ -45,12 +47,14 @@ import org.elasticsearch.transport.*;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.UUID;
 
 public class TransportCollectNodeAction {
 
     private final ESLogger logger = Loggers.getLogger(getClass());
 
     private final String transportAction = "crate/sql/node/collect";
+    private final String stopTransportAction = "crate/sql/node/collect/stop";
     private final TransportService transportService;
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
@@ -58,6 +62,7 @@ public class TransportCollectNodeAction {
     private final PlanNodeStreamerVisitor planNodeStreamerVisitor;
     private final String executor = ThreadPool.Names.SEARCH;
     private final DistributingCollectOperation distributingCollectOperation;
+    private final JobContextService jobContextService;
 
     @Inject
     public TransportCollectNodeAction(ThreadPool threadPool,
@@ -65,15 +70,18 @@ public class TransportCollectNodeAction {
                                       TransportService transportService,
                                       MapSideDataCollectOperation localDataCollector,
                                       DistributingCollectOperation distributingCollectOperation,
-                                      PlanNodeStreamerVisitor planNodeStreamerVisitor) {
+                                      PlanNodeStreamerVisitor planNodeStreamerVisitor,
+                                      JobContextService jobContextService) {
         this.threadPool = threadPool;
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.localDataCollector = localDataCollector;
         this.distributingCollectOperation = distributingCollectOperation;
         this.planNodeStreamerVisitor = planNodeStreamerVisitor;
+        this.jobContextService = jobContextService;
 
         transportService.registerHandler(transportAction, new TransportHandler());
+        transportService.registerHandler(stopTransportAction, new StopTransportHandler());
     }
 
     public void execute(
@@ -83,6 +91,44 @@ public class TransportCollectNodeAction {
         new AsyncAction(targetNode, request, listener).start();
     }
 
+    /**
+     * signal the target node to stop collecting for the given job, e.g. because its result isn't needed anymore.
+     * Shards which are still collecting finish early, their results are incomplete.
+     */
+    public void stop(String targetNode, UUID jobId) {
+        sendStop(targetNode, new NodeStopCollectRequest(jobId, false));
+    }
+
+    /**
+     * signal the target node to kill the given job, its operations fail with a
+     * {@link io.crate.exceptions.JobKilledException}
+     */
+    public void kill(String targetNode, UUID jobId) {
+        sendStop(targetNode, new NodeStopCollectRequest(jobId, true));
+    }
+
+    private void sendStop(String targetNode, NodeStopCollectRequest request) {
+        ClusterState clusterState = clusterService.state();
+        if (targetNode.equals("_local") || targetNode.equals(clusterState.nodes().localNodeId())) {
+            stopLocal(request);
+            return;
+        }
+        DiscoveryNode node = clusterState.nodes().get(targetNode);
+        if (node == null) {
+            return;
+        }
+        transportService.sendRequest(node, stopTransportAction, request,
+                LoggingTransportResponseHandler.INSTANCE_SAME);
+    }
+
+    private void stopLocal(NodeStopCollectRequest request) {
+        if (request.kill()) {
+            jobContextService.kill(request.jobId());
+        } else {
+            jobContextService.stop(request.jobId());
+        }
+    }
+
     protected String executor() {
         return ThreadPool.Names.SEARCH;
     }
@@ -239,4 +285,23 @@ public class TransportCollectNodeAction {
             return executor;
         }
     }
+
+    private class StopTransportHandler extends BaseTransportRequestHandler<NodeStopCollectRequest> {
+
+        @Override
+        public NodeStopCollectRequest newInstance() {
+            return new NodeStopCollectRequest();
+        }
+
+        @Override
+        public void messageReceived(NodeStopCollectRequest request, TransportChannel channel) throws Exception {
+            stopLocal(request);
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+
+        @Override
+        public String executor() {
+            return ThreadPool.Names.SAME;
+        }
+    }
 }
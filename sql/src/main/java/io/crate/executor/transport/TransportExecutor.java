@@ -21,6 +21,10 @@
 
 package io.crate.executor.transport;
 
+import com.google.common.base.Function;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.executor.Executor;
 import io.crate.executor.Job;
@@ -35,7 +39,11 @@ import io.crate.executor.transport.task.inout.ImportTask;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.QueryBreakerService;
 import io.crate.operation.collect.HandlerSideDataCollectOperation;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.job.OperationContext;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.Plan;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.*;
@@ -56,10 +64,15 @@ import org.elasticsearch.action.get.TransportGetAction;
 import org.elasticsearch.action.get.TransportMultiGetAction;
 import org.elasticsearch.action.index.TransportIndexAction;
 import org.elasticsearch.action.search.TransportSearchAction;
+import org.elasticsearch.action.search.TransportSearchScrollAction;
 import org.elasticsearch.action.update.TransportUpdateAction;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TransportExecutor implements Executor {
@@ -70,6 +83,7 @@ public class TransportExecutor implements Executor {
     private final ThreadPool threadPool;
 
     private final TransportSearchAction transportSearchAction;
+    private final TransportSearchScrollAction transportSearchScrollAction;
     private final TransportCollectNodeAction transportCollectNodeAction;
     private final TransportMergeNodeAction transportMergeNodeAction;
     private final TransportGetAction transportGetAction;
@@ -86,9 +100,13 @@ public class TransportExecutor implements Executor {
     private final TransportClusterUpdateSettingsAction transportClusterUpdateSettingsAction;
     // operation for handler side collecting
     private final HandlerSideDataCollectOperation handlerSideDataCollectOperation;
+    private final SpillService spillService;
+    private final QueryBreakerService breakerService;
+    private final JobContextService jobContextService;
 
     @Inject
     public TransportExecutor(TransportSearchAction transportSearchAction,
+                             TransportSearchScrollAction transportSearchScrollAction,
                              TransportCollectNodeAction transportCollectNodeAction,
                              TransportMergeNodeAction transportMergeNodeAction,
                              TransportGetAction transportGetAction,
@@ -106,13 +124,17 @@ public class TransportExecutor implements Executor {
                              TransportImportAction transportImportAction,
                              TransportDeleteIndexAction transportDeleteIndexAction,
                              TransportClusterUpdateSettingsAction transportClusterUpdateSettingsAction,
-                             HandlerSideDataCollectOperation handlerSideDataCollectOperation
+                             HandlerSideDataCollectOperation handlerSideDataCollectOperation,
+                             SpillService spillService,
+                             QueryBreakerService breakerService,
+                             JobContextService jobContextService
     ) {
         this.transportGetAction = transportGetAction;
         this.transportMultiGetAction = transportMultiGetAction;
         this.transportCollectNodeAction = transportCollectNodeAction;
         this.transportMergeNodeAction = transportMergeNodeAction;
         this.transportSearchAction = transportSearchAction;
+        this.transportSearchScrollAction = transportSearchScrollAction;
         this.transportDeleteByQueryAction = transportDeleteByQueryAction;
         this.transportDeleteAction = transportDeleteAction;
         this.transportCreateIndexAction = transportCreateIndexAction;
@@ -125,6 +147,9 @@ public class TransportExecutor implements Executor {
         this.transportClusterUpdateSettingsAction = transportClusterUpdateSettingsAction;
 
         this.handlerSideDataCollectOperation = handlerSideDataCollectOperation;
+        this.spillService = spillService;
+        this.breakerService = breakerService;
+        this.jobContextService = jobContextService;
         this.threadPool = threadPool;
         this.functions = functions;
         this.referenceResolver = referenceResolver;
@@ -133,7 +158,15 @@ public class TransportExecutor implements Executor {
 
     @Override
     public Job newJob(Plan node) {
-        final Job job = new Job();
+        return newJob(node, null);
+    }
+
+    /**
+     * @param timeout if not null, the collect and merge operations of the job are aborted on the nodes
+     *                running them once they exceed it
+     */
+    public Job newJob(Plan node, @Nullable TimeValue timeout) {
+        final Job job = new Job(timeout);
         for (PlanNode planNode : node) {
             planNode.accept(visitor, job);
         }
@@ -149,8 +182,21 @@ public class TransportExecutor implements Executor {
             // chaining tasks
             if (lastTask != null) {
                 task.upstreamResult(lastTask.result());
+                if (lastTask instanceof RemoteCollectTask) {
+                    // the collect isn't needed anymore once the merge is done, e.g. if its limit is reached
+                    @SuppressWarnings("unchecked")
+                    List<ListenableFuture<Object[][]>> downstreamResult = task.result();
+                    ((RemoteCollectTask) lastTask).stopWhenDone(downstreamResult);
+                }
             }
             task.start();
+            if (!(task instanceof RemoteCollectTask
+                    || task instanceof LocalCollectTask
+                    || task instanceof LocalMergeTask
+                    || task instanceof DistributedMergeTask)) {
+                // collects and merges are listed as operations by the nodes running them
+                trackOperation(job, task);
+            }
             lastTask = task;
         }
 
@@ -158,11 +204,120 @@ public class TransportExecutor implements Executor {
         return lastTask.result();
     }
 
+    /**
+     * list the task as operation of the job on this node until its result is done
+     */
+    @SuppressWarnings("unchecked")
+    private void trackOperation(Job job, Task task) {
+        final OperationContext operationContext = jobContextService.startOperation(
+                job.id(), task.getClass().getSimpleName(), null);
+        List<ListenableFuture<Object[][]>> result = task.result();
+        Futures.addCallback(Futures.allAsList(result), new FutureCallback<List<Object[][]>>() {
+            @Override
+            public void onSuccess(@Nullable List<Object[][]> results) {
+                if (results != null) {
+                    for (Object[][] rows : results) {
+                        operationContext.addRows(rows.length);
+                    }
+                }
+                jobContextService.finishOperation(operationContext);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                jobContextService.finishOperation(operationContext);
+            }
+        });
+    }
+
+    /**
+     * executes plans which return the number of affected rows, e.g. the plans of an INSERT, UPDATE
+     * or DELETE statement analyzed with different arguments.
+     * <p/>
+     * Plans which consist of a single index, delete-by-id or update-by-id node are combined into
+     * one bulk request, all other plans are executed as separate jobs.
+     *
+     * @param plans the plans to execute, a <code>null</code> plan results in 0 affected rows.
+     * @return the number of affected rows for each plan
+     */
+    public ListenableFuture<long[]> executeBulk(List<Plan> plans) {
+        List<ListenableFuture<Long>> rowCounts = new ArrayList<>(plans.size());
+        List<PlanNode> bulkNodes = new ArrayList<>();
+        List<Integer> bulkPositions = new ArrayList<>();
+
+        for (Plan plan : plans) {
+            if (plan == null) {
+                rowCounts.add(Futures.immediateFuture(0L));
+                continue;
+            }
+            PlanNode bulkNode = bulkNode(plan);
+            if (bulkNode != null) {
+                bulkPositions.add(rowCounts.size());
+                bulkNodes.add(bulkNode);
+                rowCounts.add(null);
+            } else {
+                rowCounts.add(Futures.transform(execute(newJob(plan)).get(0), new RowCountFunction(0)));
+            }
+        }
+
+        if (!bulkNodes.isEmpty()) {
+            ESBulkTask bulkTask = new ESBulkTask(transportBulkAction, bulkNodes);
+            bulkTask.start();
+            ListenableFuture<Object[][]> bulkResult = bulkTask.result().get(0);
+            for (int i = 0; i < bulkPositions.size(); i++) {
+                rowCounts.set(bulkPositions.get(i), Futures.transform(bulkResult, new RowCountFunction(i)));
+            }
+        }
+
+        return Futures.transform(Futures.allAsList(rowCounts), new Function<List<Long>, long[]>() {
+            @Nullable
+            @Override
+            public long[] apply(@Nullable List<Long> input) {
+                assert input != null;
+                return Longs.toArray(input);
+            }
+        });
+    }
+
+    @Nullable
+    private static PlanNode bulkNode(Plan plan) {
+        PlanNode bulkNode = null;
+        for (PlanNode planNode : plan) {
+            if (bulkNode != null || !ESBulkTask.supports(planNode)) {
+                return null;
+            }
+            bulkNode = planNode;
+        }
+        return bulkNode;
+    }
+
+    /**
+     * extracts the number of affected rows from the given row of a result
+     */
+    private static class RowCountFunction implements Function<Object[][], Long> {
+
+        private final int row;
+
+        RowCountFunction(int row) {
+            this.row = row;
+        }
+
+        @Nullable
+        @Override
+        public Long apply(@Nullable Object[][] input) {
+            if (input == null || input.length <= row || input[row].length < 1) {
+                return 0L;
+            }
+            return ((Number) input[row][0]).longValue();
+        }
+    }
+
     class Visitor extends PlanVisitor<Job, Void> {
 
         @Override
         public Void visitCollectNode(CollectNode node, Job context) {
             node.jobId(context.id()); // add jobId to collectNode
+            node.timeout(context.timeout());
             if (node.isRouted()) {
                 context.addTask(new RemoteCollectTask(
                     node,
@@ -177,11 +332,15 @@ public class TransportExecutor implements Executor {
         @Override
         public Void visitMergeNode(MergeNode node, Job context) {
             node.contextId(context.id());
+            node.timeout(context.timeout());
             if (node.executionNodes().isEmpty()) {
                 context.addTask(new LocalMergeTask(
                         threadPool,
                         new ImplementationSymbolVisitor(referenceResolver, functions, RowGranularity.CLUSTER),
-                        node));
+                        node,
+                        spillService,
+                        breakerService,
+                        jobContextService));
             } else {
                 context.addTask(new DistributedMergeTask(transportMergeNodeAction, node));
             }
@@ -191,7 +350,13 @@ public class TransportExecutor implements Executor {
 
         @Override
         public Void visitESSearchNode(ESSearchNode node, Job context) {
-            context.addTask(new ESSearchTask(node, transportSearchAction));
+            context.addTask(new ESSearchTask(node, transportSearchAction, transportSearchScrollAction));
+            return null;
+        }
+
+        @Override
+        public Void visitESSearchScrollNode(ESSearchScrollNode node, Job context) {
+            context.addTask(new ESSearchScrollTask(node, transportSearchScrollAction));
             return null;
         }
 
@@ -209,7 +374,11 @@ public class TransportExecutor implements Executor {
 
         @Override
         public Void visitESDeleteNode(ESDeleteNode node, Job context) {
-            context.addTask(new ESDeleteTask(transportDeleteAction, node));
+            if (node.ids().size() == 1) {
+                context.addTask(new ESDeleteTask(transportDeleteAction, node));
+            } else {
+                context.addTask(new ESBulkTask(transportBulkAction, Arrays.asList(node)));
+            }
             return null;
         }
 
@@ -240,6 +409,9 @@ public class TransportExecutor implements Executor {
             // update with _version currently only possible in update by query
             if (node.ids().size() == 1 && !node.version().isPresent()) {
                 context.addTask(new ESUpdateByIdTask(transportUpdateAction, node));
+            } else if (node.ids().size() > 1 && !node.version().isPresent()) {
+                // several primary keys: one routed update request per row, grouped per shard by the bulk action
+                context.addTask(new ESBulkTask(transportBulkAction, Arrays.asList(node)));
             } else {
                 context.addTask(new ESUpdateByQueryTask(transportSearchAction, node));
             }
@@ -28,6 +28,8 @@ import com.google.common.util.concurrent.SettableFuture;
 import io.crate.executor.transport.merge.NodeMergeResponse;
 import io.crate.metadata.Functions;
 import io.crate.operation.DownstreamOperationFactory;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
 import io.crate.planner.node.dql.MergeNode;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.Streamer;
@@ -52,8 +54,13 @@ import java.util.*;
  *
  * in case of this race condition the rows that are sent from the collector cannot be de-serialized immediately
  * so they are placed into a memoryStream and later read.
+ * Such requests are answered once their rows are merged, like any other request,
+ * so an upstream can't send more pages than the merge is able to take.
  *
  * this class is also responsible for this lazy-de-serialization.
+ * The memory held by these streams is accounted until they are read.
+ *
+ * An upstream may send its rows in many requests, it is finished with the request flagged as last.
  *
  * the merge itself is done inside {@link DownstreamOperationContext}
  */
@@ -62,16 +69,25 @@ public class DistributedRequestContextManager {
     private final ESLogger logger = Loggers.getLogger(getClass());
 
     private final Map<UUID, DownstreamOperationContext> activeMergeOperations = new HashMap<>();
-    private final Map<UUID, List<BytesReference>> unreadStreams = new HashMap<>();
+    private final Map<UUID, List<UnreadRequest>> unreadStreams = new HashMap<>();
+    private final Map<UUID, RamAccountingContext> unreadStreamsRamAccountingContexts = new HashMap<>();
     private final Set<UUID> unreadFailures = new HashSet<>();
     private final Object lock = new Object();
     private final DownstreamOperationFactory downstreamOperationFactory;
     private final PlanNodeStreamerVisitor planNodeStreamerVisitor;
+    private final QueryBreakerService breakerService;
 
     public DistributedRequestContextManager(DownstreamOperationFactory downstreamOperationFactory,
                                             Functions functions) {
+        this(downstreamOperationFactory, functions, null);
+    }
+
+    public DistributedRequestContextManager(DownstreamOperationFactory downstreamOperationFactory,
+                                            Functions functions,
+                                            @Nullable QueryBreakerService breakerService) {
         this.downstreamOperationFactory = downstreamOperationFactory;
         this.planNodeStreamerVisitor = new PlanNodeStreamerVisitor(functions);
+        this.breakerService = breakerService;
     }
 
     /**
@@ -116,9 +132,41 @@ public class DistributedRequestContextManager {
     }
 
     /**
-     * merge to rows inside the request
+     * a request received before its context was created together with the listener to answer it
      */
-    public void addToContext(DistributedResultRequest request) throws Exception {
+    private static class UnreadRequest {
+
+        private final DistributedResultRequest request;
+        private final ActionListener<DistributedResultResponse> listener;
+
+        UnreadRequest(DistributedResultRequest request, ActionListener<DistributedResultResponse> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * merge the rows inside the request
+     *
+     * @param listener called once the rows are merged. If the context doesn't exist yet,
+     *                 that is after it has been created.
+     */
+    public void addToContext(DistributedResultRequest request, ActionListener<DistributedResultResponse> listener) {
+        try {
+            if (addOrStash(request, listener)) {
+                listener.onResponse(new DistributedResultResponse());
+            }
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    /**
+     * @return false if the rows have been stashed until the context is created,
+     *         the listener is called once they are merged
+     */
+    private boolean addOrStash(DistributedResultRequest request,
+                               ActionListener<DistributedResultResponse> listener) throws Exception {
         logger.trace("addToContext: hasrows: {}", request.rowsRead());
         DownstreamOperationContext operationContext;
         if (request.rowsRead()) {
@@ -128,10 +176,10 @@ public class DistributedRequestContextManager {
             if (request.failure()) {
                 operationContext.addFailure(null);
             } else {
-                operationContext.add(request.rows());
+                operationContext.add(request.rows(), request.isLast());
             }
             logger.trace("addToContext rowsRead succes");
-            return;
+            return true;
         }
         synchronized (lock) {
             operationContext = activeMergeOperations.get(request.contextId());
@@ -144,25 +192,44 @@ public class DistributedRequestContextManager {
                     logger.error("adding unread failure from distributed result for context: ", request.contextId());
                 } else {
                     assert request.memoryStream() != null;
-                    List<BytesReference> bytesStreamOutputs = unreadStreams.get(request.contextId());
-                    if (bytesStreamOutputs == null) {
-                        bytesStreamOutputs = new ArrayList<>();
-                        unreadStreams.put(request.contextId(), bytesStreamOutputs);
+                    accountUnreadStream(request.contextId(), request.memoryStream().bytes());
+                    List<UnreadRequest> unreadRequests = unreadStreams.get(request.contextId());
+                    if (unreadRequests == null) {
+                        unreadRequests = new ArrayList<>();
+                        unreadStreams.put(request.contextId(), unreadRequests);
                     }
-                    bytesStreamOutputs.add(request.memoryStream().bytes());
+                    unreadRequests.add(new UnreadRequest(request, listener));
+                    return false;
                 }
             } else {
                 logger.trace("addToContext: with context norows failure: {}", request.failure());
                 if (request.failure()) {
                     operationContext.addFailure(null);
                     logger.error("addToContext: failure in distributed result");
-                    return;
+                    return true;
                 }
                 logger.trace("addToContext: using memory stream: ", request.memoryStream());
-                addFromBytesReference(request.memoryStream().bytes(), operationContext);
+                addFromBytesReference(request.memoryStream().bytes(), request.isLast(), operationContext);
             }
         }
         logger.trace("addToContext: finished");
+        return true;
+    }
+
+    /**
+     * account the memory of a stream which can't be read yet.
+     * If the circuit breaker trips the exception is sent back to the upstream.
+     */
+    private void accountUnreadStream(UUID contextId, BytesReference bytes) {
+        if (breakerService == null) {
+            return;
+        }
+        RamAccountingContext ramAccountingContext = unreadStreamsRamAccountingContexts.get(contextId);
+        if (ramAccountingContext == null) {
+            ramAccountingContext = breakerService.newContext(contextId, "unread merge results");
+            unreadStreamsRamAccountingContexts.put(contextId, ramAccountingContext);
+        }
+        ramAccountingContext.addBytes(bytes.length());
     }
 
     private SettableFuture<Object[][]> wrapActionListener(final Streamer<?>[] streamers,
@@ -183,24 +250,37 @@ public class DistributedRequestContextManager {
     }
 
     private void put(UUID contextId, DownstreamOperationContext downstreamOperationContext) {
-        List<BytesReference> bytesReferences;
+        List<UnreadRequest> unreadRequests;
+        RamAccountingContext ramAccountingContext;
         synchronized (lock) {
             logger.trace("put: {} {}", contextId, downstreamOperationContext);
             activeMergeOperations.put(contextId, downstreamOperationContext);
-            bytesReferences = unreadStreams.remove(contextId);
+            unreadRequests = unreadStreams.remove(contextId);
+            ramAccountingContext = unreadStreamsRamAccountingContexts.remove(contextId);
             if (unreadFailures.contains(contextId)) {
                 unreadFailures.remove(contextId);
                 downstreamOperationContext.addFailure(null);
             }
         }
-        if (bytesReferences != null) {
-            for (BytesReference bytes : bytesReferences) {
-                addFromBytesReference(bytes, downstreamOperationContext);
+        if (unreadRequests != null) {
+            for (UnreadRequest unread : unreadRequests) {
+                try {
+                    addFromBytesReference(unread.request.memoryStream().bytes(),
+                            unread.request.isLast(), downstreamOperationContext);
+                    unread.listener.onResponse(new DistributedResultResponse());
+                } catch (Exception e) {
+                    unread.listener.onFailure(e);
+                }
             }
         }
+        if (ramAccountingContext != null) {
+            ramAccountingContext.close();
+        }
     }
 
-    private void addFromBytesReference(BytesReference bytesReference, DownstreamOperationContext ctx) {
+    private void addFromBytesReference(BytesReference bytesReference,
+                                       boolean isLast,
+                                       DownstreamOperationContext ctx) {
         // bytesReference must be wrapped into HandlesStreamInput because it has a different readString()
         // implementation than BytesStreamInput alone.
         // and the memoryOutputStream originates from a HandlesStreamOutput.
@@ -209,12 +289,12 @@ public class DistributedRequestContextManager {
         try {
             rows = DistributedResultRequest.readRemaining(ctx.streamers(), wrappedStream);
         } catch (IOException e) {
-            ctx.addFailure(e);
+            ctx.addFailure(e, isLast);
             logger.error("unable to deserialize upstream result", e);
             return;
         }
         assert rows != null;
-        ctx.add(rows);
+        ctx.add(rows, isLast);
     }
 
     public interface DoneCallback {
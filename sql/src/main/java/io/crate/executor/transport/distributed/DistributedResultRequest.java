@@ -44,6 +44,11 @@ public class DistributedResultRequest extends TransportRequest {
     // exception and the error handling in the DistributedMergeTask can be simplified.
     private boolean failure = false;
 
+    /**
+     * an upstream might send its rows in many pages, only the last one finishes the upstream
+     */
+    private boolean isLast = true;
+
     public DistributedResultRequest(DistributedRequestContextManager contextManager) {
         this.contextManager = contextManager;
     }
@@ -82,6 +87,7 @@ public class DistributedResultRequest extends TransportRequest {
             failure= true;
             return;
         }
+        isLast = in.readBoolean();
 
         final Optional<Streamer<?>[]> optStreamer = contextManager.getStreamer(contextId);
         if (optStreamer.isPresent()) {
@@ -125,6 +131,7 @@ public class DistributedResultRequest extends TransportRequest {
             return;
         }
         out.writeBoolean(false);
+        out.writeBoolean(isLast);
 
         assert streamers != null;
         final int numColumns = streamers.length;
@@ -144,4 +151,15 @@ public class DistributedResultRequest extends TransportRequest {
     public boolean failure() {
         return this.failure;
     }
+
+    public void isLast(boolean isLast) {
+        this.isLast = isLast;
+    }
+
+    /**
+     * @return false if the upstream will send more rows for this context, failures are always the last request
+     */
+    public boolean isLast() {
+        return failure || isLast;
+    }
 }
@@ -55,6 +55,13 @@ public class DownstreamOperationContext {
     }
 
     public void addFailure(@Nullable Throwable failure) {
+        addFailure(failure, true);
+    }
+
+    /**
+     * @param isLast false if the failure occurred on rows of an upstream which will send more rows
+     */
+    public void addFailure(@Nullable Throwable failure, boolean isLast) {
         if (failure != null) {
             logger.error("addFailure local", failure);
         } else {
@@ -64,15 +71,26 @@ public class DownstreamOperationContext {
             boolean firstFailure = listener.setException(failure);
             logger.trace("addFailure first: {}", firstFailure);
         } finally {
-            if (mergeOperationsLeft.decrementAndGet() == 0) {
+            if (isLast && mergeOperationsLeft.decrementAndGet() == 0) {
                 doneCallback.finished();
+                downstreamOperation.close();
             }
         }
     }
 
     public void add(Object[][] rows) {
+        add(rows, true);
+    }
+
+    /**
+     * add rows of an upstream
+     *
+     * @param isLast false if the upstream will send more rows,
+     *               the result is set once all upstreams have sent their last rows
+     */
+    public void add(Object[][] rows, boolean isLast) {
         assert rows != null;
-        logger.trace("add rows.size: {}", rows.length);
+        logger.trace("add rows.size: {} isLast: {}", rows.length, isLast);
         synchronized (lock) {
             if (needsMoreRows) {
                 try {
@@ -84,13 +102,15 @@ public class DownstreamOperationContext {
             }
         }
 
-        if (mergeOperationsLeft.decrementAndGet() == 0) {
+        if (isLast && mergeOperationsLeft.decrementAndGet() == 0) {
             doneCallback.finished();
             try {
                 listener.set(downstreamOperation.result());
             } catch (Exception e) {
                 logger.error("failed to get downstreamOperation result", e);
                 listener.setException(e);
+            } finally {
+                downstreamOperation.close();
             }
         }
     }
@@ -29,8 +29,11 @@ import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
 import io.crate.operation.DownstreamOperationFactory;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.job.JobContextService;
 import io.crate.operation.DownstreamOperation;
 import io.crate.operation.merge.MergeOperation;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.MergeNode;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
@@ -63,7 +66,10 @@ public class TransportMergeNodeAction {
     public TransportMergeNodeAction(TransportService transportService, ClusterService clusterService,
                                     ReferenceResolver referenceResolver,
                                     Functions functions,
-                                    ThreadPool threadPool) {
+                                    ThreadPool threadPool,
+                                    final SpillService spillService,
+                                    final QueryBreakerService breakerService,
+                                    final JobContextService jobContextService) {
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
@@ -76,9 +82,10 @@ public class TransportMergeNodeAction {
         this.contextManager = new DistributedRequestContextManager(new DownstreamOperationFactory<MergeNode>() {
             @Override
             public DownstreamOperation create(MergeNode node) {
-                return new MergeOperation(implementationSymbolVisitor, node);
+                return new MergeOperation(
+                        implementationSymbolVisitor, node, spillService, breakerService, jobContextService);
             }
-        }, functions);
+        }, functions, breakerService);
 
         transportService.registerHandler(startMergeAction, new StartMergeHandler());
         transportService.registerHandler(mergeRowsAction, new DistributedResultRequestHandler(contextManager));
@@ -25,6 +25,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.executor.Task;
 import io.crate.executor.transport.NodeCollectRequest;
@@ -37,6 +38,7 @@ import org.elasticsearch.action.ActionListener;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 public class RemoteCollectTask implements Task<Object[][]> {
 
@@ -112,6 +114,30 @@ public class RemoteCollectTask implements Task<Object[][]> {
         });
     }
 
+    /**
+     * stop collecting on the nodes which are still running as soon as the given downstream result is done,
+     * e.g. because a limit is reached or the downstream failed.
+     */
+    public void stopWhenDone(List<ListenableFuture<Object[][]>> downstreamResult) {
+        if (!collectNode.jobId().isPresent()) {
+            return;
+        }
+        final UUID jobId = collectNode.jobId().get();
+        Runnable stopRunningCollects = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < nodeIds.length; i++) {
+                    if (nodeIds[i] != null && !result.get(i).isDone()) {
+                        transportCollectNodeAction.stop(nodeIds[i], jobId);
+                    }
+                }
+            }
+        };
+        for (ListenableFuture<Object[][]> future : downstreamResult) {
+            future.addListener(stopRunningCollects, MoreExecutors.sameThreadExecutor());
+        }
+    }
+
     @Override
     public List<ListenableFuture<Object[][]>> result() {
         return result;
@@ -56,10 +56,10 @@ public abstract class AbstractESIndexTask implements Task<Object[][]> {
         throw new UnsupportedOperationException();
     }
 
-    protected IndexRequest buildIndexRequest(String index,
-                                             Map<String, Object> sourceMap,
-                                             String id,
-                                             @Nullable String routingValue) {
+    protected static IndexRequest buildIndexRequest(String index,
+                                                    Map<String, Object> sourceMap,
+                                                    String id,
+                                                    @Nullable String routingValue) {
         IndexRequest request = new IndexRequest(index, Constants.DEFAULT_MAPPING_TYPE);
         request.create(true);
         request.source(sourceMap);
@@ -0,0 +1,235 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task.elasticsearch;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.Constants;
+import io.crate.exceptions.CrateException;
+import io.crate.exceptions.DuplicateKeyException;
+import io.crate.executor.Task;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.PlanVisitor;
+import io.crate.planner.node.dml.ESDeleteNode;
+import io.crate.planner.node.dml.ESIndexNode;
+import io.crate.planner.node.dml.ESUpdateNode;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.bulk.TransportBulkAction;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Task which executes the index, delete-by-id and update-by-id operations of
+ * several plan nodes using one single bulk request.
+ * <p/>
+ * The result contains one row per plan node with the number of affected rows.
+ */
+public class ESBulkTask implements Task<Object[][]> {
+
+    private static final BulkRequestBuilder BULK_REQUEST_BUILDER = new BulkRequestBuilder();
+
+    private final TransportBulkAction bulkAction;
+    private final BulkRequest request;
+    private final ActionListener<BulkResponse> listener;
+    private final SettableFuture<Object[][]> result;
+    private final List<ListenableFuture<Object[][]>> results;
+
+    /**
+     * @return true if the given plan node can be executed as part of a bulk request
+     */
+    public static boolean supports(PlanNode node) {
+        return BULK_REQUEST_BUILDER.process(node, null) != null;
+    }
+
+    static class BulkResponseListener implements ActionListener<BulkResponse> {
+
+        private final SettableFuture<Object[][]> result;
+        private final int[] itemsPerNode;
+        private final List<ActionRequest> requests;
+
+        BulkResponseListener(SettableFuture<Object[][]> result, int[] itemsPerNode, List<ActionRequest> requests) {
+            this.result = result;
+            this.itemsPerNode = itemsPerNode;
+            this.requests = requests;
+        }
+
+        @Override
+        public void onResponse(BulkResponse bulkItemResponses) {
+            BulkItemResponse[] responses = bulkItemResponses.getItems();
+            Object[][] rows = new Object[itemsPerNode.length][];
+            int item = 0;
+            for (int i = 0; i < itemsPerNode.length; i++) {
+                long rowsAffected = 0L;
+                for (int j = 0; j < itemsPerNode[i]; j++, item++) {
+                    try {
+                        if (isAffected(responses[item], requests.get(item))) {
+                            rowsAffected++;
+                        }
+                    } catch (CrateException e) {
+                        result.setException(e);
+                        return;
+                    }
+                }
+                rows[i] = new Object[]{rowsAffected};
+            }
+            result.set(rows);
+        }
+
+        /**
+         * missing documents and version conflicts of requests with a version
+         * don't affect a row, any other failure fails the whole task.
+         *
+         * @throws io.crate.exceptions.DuplicateKeyException if a document to index exists already
+         */
+        private static boolean isAffected(BulkItemResponse response, ActionRequest request) {
+            if (response.isFailed()) {
+                RestStatus status = response.getFailure().getStatus();
+                if (status == RestStatus.NOT_FOUND || (status == RestStatus.CONFLICT && hasVersion(request))) {
+                    return false;
+                }
+                if (status == RestStatus.CONFLICT && request instanceof IndexRequest) {
+                    throw new DuplicateKeyException(String.format(
+                            "A document with the same primary key exists already: %s", response.getId()), null);
+                }
+                throw new CrateException(String.format("Failed to %s document with id %s: %s",
+                        response.getOpType(), response.getId(), response.getFailureMessage()));
+            }
+            if (response.getResponse() instanceof DeleteResponse) {
+                return ((DeleteResponse) response.getResponse()).isFound();
+            }
+            return true;
+        }
+
+        /**
+         * only delete requests are sent with a version, see {@link BulkRequestBuilder}
+         */
+        private static boolean hasVersion(ActionRequest request) {
+            return request instanceof DeleteRequest
+                    && ((DeleteRequest) request).version() != Versions.MATCH_ANY;
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            result.setException(e);
+        }
+    }
+
+    public ESBulkTask(TransportBulkAction bulkAction, List<? extends PlanNode> nodes) {
+        this.bulkAction = bulkAction;
+        this.request = new BulkRequest();
+
+        int[] itemsPerNode = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            Integer numItems = BULK_REQUEST_BUILDER.process(nodes.get(i), request);
+            if (numItems == null) {
+                throw new IllegalArgumentException(
+                        String.format("Can't execute planNode %s as part of a bulk request", nodes.get(i)));
+            }
+            itemsPerNode[i] = numItems;
+        }
+
+        result = SettableFuture.create();
+        results = Arrays.<ListenableFuture<Object[][]>>asList(result);
+        listener = new BulkResponseListener(result, itemsPerNode, request.requests());
+    }
+
+    @Override
+    public void start() {
+        if (request.numberOfActions() == 0) {
+            result.set(Constants.EMPTY_RESULT);
+            return;
+        }
+        bulkAction.execute(request, listener);
+    }
+
+    @Override
+    public List<ListenableFuture<Object[][]>> result() {
+        return results;
+    }
+
+    @Override
+    public void upstreamResult(List<ListenableFuture<Object[][]>> result) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * adds the requests for a plan node to the bulk request and returns the number of added requests.
+     * Returns null for unsupported nodes. If called without a bulk request it only checks
+     * if the node is supported.
+     */
+    private static class BulkRequestBuilder extends PlanVisitor<BulkRequest, Integer> {
+
+        @Override
+        public Integer visitESIndexNode(ESIndexNode node, BulkRequest request) {
+            if (request != null) {
+                for (int i = 0; i < node.sourceMaps().size(); i++) {
+                    request.add(AbstractESIndexTask.buildIndexRequest(
+                            node.index(),
+                            node.sourceMaps().get(i),
+                            node.ids().get(i),
+                            node.routingValues().get(i)));
+                }
+            }
+            return node.sourceMaps().size();
+        }
+
+        @Override
+        public Integer visitESDeleteNode(ESDeleteNode node, BulkRequest request) {
+            if (request != null) {
+                for (int i = 0; i < node.ids().size(); i++) {
+                    DeleteRequest deleteRequest = new DeleteRequest(
+                            node.index(), Constants.DEFAULT_MAPPING_TYPE, node.ids().get(i));
+                    deleteRequest.routing(node.routing(i));
+                    if (node.version().isPresent()) {
+                        deleteRequest.version(node.version().get());
+                    }
+                    request.add(deleteRequest);
+                }
+            }
+            return node.ids().size();
+        }
+
+        @Override
+        public Integer visitESUpdateNode(ESUpdateNode node, BulkRequest request) {
+            // update with _version currently only possible in update by query
+            if (node.ids().isEmpty() || node.version().isPresent()) {
+                return null;
+            }
+            if (request != null) {
+                for (int i = 0; i < node.ids().size(); i++) {
+                    request.add(ESUpdateByIdTask.buildUpdateRequest(node, i));
+                }
+            }
+            return node.ids().size();
+        }
+    }
+}
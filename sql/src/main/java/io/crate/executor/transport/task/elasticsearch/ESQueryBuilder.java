@@ -121,7 +121,7 @@ public class ESQueryBuilder {
                 if (DocSysColumns.VERSION.equals(columnIdent)){
                     builder.field("version", true);
                 }
-                else if (DocSysColumns.SOURCE.equals(columnIdent)){
+                else if (DocSysColumns.SOURCE.equals(columnIdent) || DocSysColumns.RAW.equals(columnIdent)){
                     needWholeSource = true;
                 }
             } else {
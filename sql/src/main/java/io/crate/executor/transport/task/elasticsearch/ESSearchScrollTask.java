@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task.elasticsearch;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.executor.ScrollableTask;
+import io.crate.planner.node.dql.ESSearchScrollNode;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.TransportSearchScrollAction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * fetches the next page of a scroll opened by an {@link ESSearchTask}
+ */
+public class ESSearchScrollTask implements ScrollableTask<Object[][]> {
+
+    private final ESSearchScrollNode node;
+    private final TransportSearchScrollAction transportSearchScrollAction;
+    private final SettableFuture<Object[][]> result;
+    private final List<ListenableFuture<Object[][]>> results;
+    private volatile String scrollId;
+
+    public ESSearchScrollTask(ESSearchScrollNode node,
+                              TransportSearchScrollAction transportSearchScrollAction) {
+        this.node = node;
+        this.transportSearchScrollAction = transportSearchScrollAction;
+
+        result = SettableFuture.create();
+        results = Arrays.<ListenableFuture<Object[][]>>asList(result);
+    }
+
+    @Override
+    public void start() {
+        SearchScrollRequest request = new SearchScrollRequest(node.scrollId());
+        request.scroll(node.scroll());
+        transportSearchScrollAction.execute(request, new ESSearchTask.SearchScrollResponseListener(
+                ESSearchTask.buildExtractor(node.outputs()), result) {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                scrollId = searchResponse.getScrollId();
+                super.onResponse(searchResponse);
+            }
+        });
+    }
+
+    @Override
+    public String scrollId() {
+        return scrollId;
+    }
+
+    @Override
+    public List<ListenableFuture<Object[][]>> result() {
+        return results;
+    }
+
+    @Override
+    public void upstreamResult(List<ListenableFuture<Object[][]>> result) {
+        throw new UnsupportedOperationException("Can't have upstreamResults");
+    }
+}
@@ -23,7 +23,7 @@ package io.crate.executor.transport.task.elasticsearch;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
-import io.crate.executor.Task;
+import io.crate.executor.ScrollableTask;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.planner.node.dql.ESSearchNode;
@@ -33,25 +33,32 @@ import io.crate.exceptions.ExceptionHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.search.TransportSearchAction;
+import org.elasticsearch.action.search.TransportSearchScrollAction;
 import org.elasticsearch.search.SearchHit;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
-public class ESSearchTask implements Task<Object[][]> {
+public class ESSearchTask implements ScrollableTask<Object[][]> {
 
     private final ESSearchNode searchNode;
     private final TransportSearchAction transportSearchAction;
+    private final TransportSearchScrollAction transportSearchScrollAction;
     private final SettableFuture<Object[][]> result;
     private final List<ListenableFuture<Object[][]>> results;
     private final ESQueryBuilder queryBuilder;
+    private volatile String scrollId;
 
     public ESSearchTask(ESSearchNode searchNode,
-                        TransportSearchAction transportSearchAction) {
+                        TransportSearchAction transportSearchAction,
+                        TransportSearchScrollAction transportSearchScrollAction) {
         this.searchNode = searchNode;
         this.transportSearchAction = transportSearchAction;
+        this.transportSearchScrollAction = transportSearchScrollAction;
         this.queryBuilder = new ESQueryBuilder();
 
         result = SettableFuture.create();
@@ -63,12 +70,19 @@ public class ESSearchTask implements Task<Object[][]> {
         final SearchRequest request = new SearchRequest();
 
         final ESFieldExtractor[] extractor = buildExtractor(searchNode.outputs());
-        final int numColumns = searchNode.outputs().size();
 
         try {
             request.source(queryBuilder.convert(searchNode), false);
             request.indices(new String[]{searchNode.indexName()});
             request.routing(searchNode.whereClause().clusteredBy().orNull());
+            if (searchNode.scroll() != null) {
+                request.scroll(searchNode.scroll());
+                if (searchNode.orderBy().isEmpty()) {
+                    // scan doesn't need to re-collect the previous pages on every shard
+                    // but its first response doesn't contain any hits
+                    request.searchType(SearchType.SCAN);
+                }
+            }
 
             transportSearchAction.execute(request, new ActionListener<SearchResponse>() {
                 @Override
@@ -79,18 +93,11 @@ public class ESSearchTask implements Task<Object[][]> {
                         } catch (Exception e) {
                             onFailure(e);
                         }
+                    } else if (request.searchType() == SearchType.SCAN) {
+                        fetchFirstScanPage(searchResponse.getScrollId(), extractor);
                     } else {
-                        final SearchHit[] hits = searchResponse.getHits().getHits();
-                        final Object[][] rows = new Object[hits.length][numColumns];
-
-                        for (int r = 0; r < hits.length; r++) {
-                            rows[r] = new Object[numColumns];
-                            for (int c = 0; c < numColumns; c++) {
-                                rows[r][c] = extractor[c].extract(hits[r]);
-                            }
-                        }
-
-                        result.set(rows);
+                        scrollId = searchResponse.getScrollId();
+                        result.set(extractRows(searchResponse.getHits().getHits(), extractor));
                     }
                 }
 
@@ -104,7 +111,63 @@ public class ESSearchTask implements Task<Object[][]> {
         }
     }
 
-    private ESFieldExtractor[] buildExtractor(final List<? extends Reference> outputs) {
+    private void fetchFirstScanPage(String scanScrollId, final ESFieldExtractor[] extractor) {
+        SearchScrollRequest request = new SearchScrollRequest(scanScrollId);
+        request.scroll(searchNode.scroll());
+        transportSearchScrollAction.execute(request, new SearchScrollResponseListener(extractor, result) {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                scrollId = searchResponse.getScrollId();
+                super.onResponse(searchResponse);
+            }
+        });
+    }
+
+    static Object[][] extractRows(SearchHit[] hits, ESFieldExtractor[] extractor) {
+        final Object[][] rows = new Object[hits.length][extractor.length];
+
+        for (int r = 0; r < hits.length; r++) {
+            rows[r] = new Object[extractor.length];
+            for (int c = 0; c < extractor.length; c++) {
+                rows[r][c] = extractor[c].extract(hits[r]);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * sets the rows extracted from a scroll response as result
+     */
+    static class SearchScrollResponseListener implements ActionListener<SearchResponse> {
+
+        private final ESFieldExtractor[] extractor;
+        private final SettableFuture<Object[][]> result;
+
+        SearchScrollResponseListener(ESFieldExtractor[] extractor, SettableFuture<Object[][]> result) {
+            this.extractor = extractor;
+            this.result = result;
+        }
+
+        @Override
+        public void onResponse(SearchResponse searchResponse) {
+            if (searchResponse.getFailedShards() > 0) {
+                try {
+                    ExceptionHelper.exceptionOnSearchShardFailures(searchResponse.getShardFailures());
+                } catch (Exception e) {
+                    onFailure(e);
+                }
+            } else {
+                result.set(extractRows(searchResponse.getHits().getHits(), extractor));
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            result.setException(e);
+        }
+    }
+
+    static ESFieldExtractor[] buildExtractor(final List<? extends Reference> outputs) {
         ESFieldExtractor[] extractors = new ESFieldExtractor[outputs.size()];
         int i = 0;
         for (Reference reference : outputs) {
@@ -130,6 +193,13 @@ public class ESSearchTask implements Task<Object[][]> {
                         return hit.getSource();
                     }
                 };
+            } else if (DocSysColumns.RAW.equals(columnIdent)) {
+                extractors[i] = new ESFieldExtractor() {
+                    @Override
+                    public Object extract(SearchHit hit) {
+                        return hit.sourceRef().toBytesRef();
+                    }
+                };
             } else if (DocSysColumns.SCORE.equals(columnIdent)) {
                 extractors[i] = new ESFieldExtractor() {
                     @Override
@@ -145,6 +215,11 @@ public class ESSearchTask implements Task<Object[][]> {
         return extractors;
     }
 
+    @Override
+    public String scrollId() {
+        return scrollId;
+    }
+
     @Override
     public List<ListenableFuture<Object[][]>> result() {
         return results;
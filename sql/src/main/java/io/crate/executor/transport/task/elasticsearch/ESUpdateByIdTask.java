@@ -69,13 +69,20 @@ public class ESUpdateByIdTask extends AbstractESUpdateTask {
         transport.execute(this.request, this.listener);
     }
 
-    protected UpdateRequest buildUpdateRequest(ESUpdateNode node) {
+    protected static UpdateRequest buildUpdateRequest(ESUpdateNode node) {
+        return buildUpdateRequest(node, 0);
+    }
+
+    /**
+     * builds the update request for the id at position <code>idx</code> of the node
+     */
+    protected static UpdateRequest buildUpdateRequest(ESUpdateNode node, int idx) {
         UpdateRequest request = new UpdateRequest(node.index(),
-                Constants.DEFAULT_MAPPING_TYPE, node.ids().get(0));
+                Constants.DEFAULT_MAPPING_TYPE, node.ids().get(idx));
         request.fields(node.columns());
         request.paths(node.updateDoc());
         request.retryOnConflict(UPDATE_RETRY_ON_CONFLICT);
-        request.routing(node.whereClause().clusteredBy().orNull());
+        request.routing(node.routing(idx));
         return request;
     }
 }
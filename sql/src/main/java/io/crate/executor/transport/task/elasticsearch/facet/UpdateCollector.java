@@ -23,40 +23,59 @@ package io.crate.executor.transport.task.elasticsearch.facet;
 
 import com.google.common.base.Splitter;
 import io.crate.Constants;
+import io.crate.exceptions.CrateException;
+import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.search.Scorer;
-import org.elasticsearch.action.update.TransportUpdateAction;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.action.update.UpdateRequest;
-import org.elasticsearch.action.update.UpdateResponse;
-import org.elasticsearch.common.lucene.uid.Versions;
-import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.fieldvisitor.JustUidFieldsVisitor;
 import org.elasticsearch.index.mapper.Uid;
-import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.facet.FacetExecutor;
 import org.elasticsearch.search.internal.SearchContext;
-import org.elasticsearch.search.lookup.SearchLookup;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * A Collector which generates elasticsearch update requests for every document it collects
+ * A Collector which generates elasticsearch update requests for every document it collects.
+ *
+ * The update requests of a shard are sent in bulk requests of {@link #BATCH_SIZE} documents,
+ * at most {@link #MAX_BATCHES_IN_FLIGHT} bulk requests are executed concurrently.
+ * The collect is finished once the responses of all bulk requests have been received.
  */
 public class UpdateCollector extends FacetExecutor.Collector {
 
-    private final SearchLookup lookup;
-    private final TransportUpdateAction updateAction;
+    private static final ESLogger logger = Loggers.getLogger(UpdateCollector.class);
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_BATCHES_IN_FLIGHT = 4;
+
+    private final TransportBulkAction bulkAction;
     private final Map<String, Object> updateDoc;
     private final ShardId shardId;
-    private long rowCount;
-    private Long requiredVersion;
-    private AtomicReaderContext currentReaderContext;
+    private final Long requiredVersion;
+    private final JustUidFieldsVisitor fieldsVisitor = new JustUidFieldsVisitor();
+    private final Semaphore batchesInFlight = new Semaphore(MAX_BATCHES_IN_FLIGHT);
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicReference<String> failure = new AtomicReference<>();
+    private AtomicReader currentReader;
+    private BulkRequest bulkRequest = new BulkRequest();
 
     public long rowCount() {
-        return rowCount;
+        return rowCount.get();
     }
 
     class CollectorUpdateRequest extends UpdateRequest {
@@ -64,7 +83,12 @@ public class UpdateCollector extends FacetExecutor.Collector {
         CollectorUpdateRequest(ShardId shardId, Uid uid) {
             super(shardId.getIndex(), uid.type(), uid.id());
             this.shardId = shardId.id();
-            retryOnConflict(Constants.UPDATE_RETRY_ON_CONFLICT);
+            if (requiredVersion != null) {
+                // the version is checked by the primary shard while updating the document
+                version(requiredVersion);
+            } else {
+                retryOnConflict(Constants.UPDATE_RETRY_ON_CONFLICT);
+            }
             paths(updateDoc);
 
             // parse routing value out of id
@@ -81,57 +105,116 @@ public class UpdateCollector extends FacetExecutor.Collector {
         }
     }
 
+    /**
+     * counts the updated documents of a bulk request and keeps its failures
+     */
+    private class BatchListener implements ActionListener<BulkResponse> {
+
+        @Override
+        public void onResponse(BulkResponse bulkItemResponses) {
+            long updated = 0;
+            long failed = 0;
+            for (BulkItemResponse response : bulkItemResponses.getItems()) {
+                if (!response.isFailed()) {
+                    updated++;
+                } else if (!isMismatch(response.getFailure())) {
+                    failed++;
+                    failure.compareAndSet(null, response.getFailureMessage());
+                }
+            }
+            rowCount.addAndGet(updated);
+            failedRows.addAndGet(failed);
+            if (logger.isTraceEnabled()) {
+                logger.trace("{} batch of {} documents done, {} updated, {} failed",
+                        shardId, bulkItemResponses.getItems().length, updated, failed);
+            }
+            batchesInFlight.release();
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            failure.compareAndSet(null, e.getMessage());
+            batchesInFlight.release();
+        }
+
+        /**
+         * @return true if the document has been deleted in the meantime
+         *         or doesn't have the version required by the update
+         */
+        private boolean isMismatch(BulkItemResponse.Failure failure) {
+            return failure.getStatus() == RestStatus.NOT_FOUND
+                    || (requiredVersion != null && failure.getStatus() == RestStatus.CONFLICT);
+        }
+    }
+
     public UpdateCollector(
             Map<String, Object> doc,
             Long requiredVersion,
-            TransportUpdateAction updateAction,
+            TransportBulkAction bulkAction,
             SearchContext context
             ) {
         this.shardId = context.indexShard().shardId();
-        this.updateAction = updateAction;
-        this.lookup = context.lookup();
+        this.bulkAction = bulkAction;
         this.updateDoc = doc;
-        this.rowCount = 0;
         this.requiredVersion = requiredVersion;
     }
 
-    @Override
-    public void setScorer(Scorer scorer) {
-        lookup.setScorer(scorer);
-    }
-
     @Override
     public void setNextReader(AtomicReaderContext context) {
-        this.currentReaderContext = context;
-        lookup.setNextReader(context);
+        this.currentReader = context.reader();
     }
 
-
+    /**
+     * wait for the responses of all bulk requests
+     *
+     * @throws CrateException if a document couldn't be updated
+     */
     @Override
     public void postCollection() {
-        // nothing to do here
+        if (bulkRequest.numberOfActions() > 0) {
+            executeBatch();
+        }
+        acquireBatches(MAX_BATCHES_IN_FLIGHT);
+        batchesInFlight.release(MAX_BATCHES_IN_FLIGHT);
+        checkFailure();
     }
 
     @Override
     public void collect(int doc) throws IOException {
-        lookup.setNextDocId(doc);
-        Uid uid = Uid.createUid(((ScriptDocValues.Strings) lookup.doc().get("_uid")).getValue());
-        if (requiredVersion != null) {
-            Long currentVersion = Versions.loadVersion(
-                    currentReaderContext.reader(),
-                    new Term(UidFieldMapper.NAME, uid.toBytesRef())
-            );
-            if (!currentVersion.equals(requiredVersion)) {
-                return;
-            }
+        fieldsVisitor.reset();
+        currentReader.document(doc, fieldsVisitor);
+        bulkRequest.add(new CollectorUpdateRequest(shardId, fieldsVisitor.uid()));
+        if (bulkRequest.numberOfActions() >= BATCH_SIZE) {
+            executeBatch();
         }
-        collect(uid);
     }
 
-    private void collect(Uid uid) {
-        UpdateRequest request = new CollectorUpdateRequest(shardId, uid);
-        // Since we are sequential here, it should be ok to reuse the same request instance
-        UpdateResponse response = updateAction.execute(request).actionGet();
-        rowCount++;
+    /**
+     * send the update requests of the current batch, blocks while too many batches are in flight
+     */
+    private void executeBatch() {
+        // stop updating once a batch failed
+        checkFailure();
+        acquireBatches(1);
+        BulkRequest request = bulkRequest;
+        bulkRequest = new BulkRequest();
+        bulkAction.execute(request, new BatchListener());
+    }
+
+    private void acquireBatches(int numBatches) {
+        try {
+            batchesInFlight.acquire(numBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CrateException("Interrupted while waiting for update requests", e);
+        }
+    }
+
+    private void checkFailure() {
+        String message = failure.get();
+        if (message != null) {
+            throw new CrateException(String.format("Failed to update %d documents of shard %s: %s",
+                    failedRows.get(), shardId, message));
+        }
     }
 }
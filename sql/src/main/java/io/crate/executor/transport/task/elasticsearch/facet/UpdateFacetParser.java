@@ -23,7 +23,7 @@ package io.crate.executor.transport.task.elasticsearch.facet;
 
 import com.google.common.base.Optional;
 import io.crate.exceptions.SQLParseException;
-import org.elasticsearch.action.update.TransportUpdateAction;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -41,15 +41,15 @@ import java.util.Map;
  */
 public class UpdateFacetParser extends AbstractComponent implements FacetParser {
 
-    private final TransportUpdateAction updateAction;
+    private final TransportBulkAction bulkAction;
 
     @Inject
     public UpdateFacetParser(
             Settings settings,
-            TransportUpdateAction updateAction) {
+            TransportBulkAction bulkAction) {
         super(settings);
         InternalUpdateFacet.registerStreams();
-        this.updateAction = updateAction;
+        this.bulkAction = bulkAction;
     }
 
     @Override
@@ -90,6 +90,6 @@ public class UpdateFacetParser extends AbstractComponent implements FacetParser
         } catch (ClassCastException e) {
             throw new SQLParseException("invalid update doc");
         }
-        return new UpdateFacetExecutor(doc, version, searchContext, updateAction);
+        return new UpdateFacetExecutor(doc, version, searchContext, bulkAction);
     }
 }
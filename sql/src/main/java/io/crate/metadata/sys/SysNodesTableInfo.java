@@ -66,6 +66,14 @@ public class SysNodesTableInfo extends SysTableInfo {
         register("fs", DataType.LONG, ImmutableList.of("used"));
         register("fs", DataType.DOUBLE, ImmutableList.of("free_percent"));
         register("fs", DataType.DOUBLE, ImmutableList.of("used_percent"));
+        register("statement_cache", DataType.OBJECT, null);
+        register("statement_cache", DataType.LONG, ImmutableList.of("size"));
+        register("statement_cache", DataType.LONG, ImmutableList.of("hits"));
+        register("statement_cache", DataType.LONG, ImmutableList.of("misses"));
+        register("query_memory", DataType.OBJECT, null);
+        register("query_memory", DataType.LONG, ImmutableList.of("used"));
+        register("query_memory", DataType.LONG, ImmutableList.of("limit"));
+        register("query_memory", DataType.LONG, ImmutableList.of("tripped"));
     }
 
     private final ClusterService clusterService;
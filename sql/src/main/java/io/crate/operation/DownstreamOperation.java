@@ -33,4 +33,10 @@ public interface DownstreamOperation {
 
     // TODO: make result a future
     public Object[][] result() throws Exception;
+
+    /**
+     * release the resources held by this operation.
+     * Called once the result was retrieved or the operation failed.
+     */
+    public void close();
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.breaker;
+
+import com.google.common.collect.Sets;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.MemorySizeValue;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * accounts the memory held by the collect and merge operations of queries on this node.
+ *
+ * Every operation gets its own {@link RamAccountingContext}, the bytes of all contexts are added
+ * to a node wide circuit breaker which aborts the operation exceeding the limit
+ * ({@link #SETTING_LIMIT}, default 60% of the heap) with a {@link org.elasticsearch.common.breaker.CircuitBreakingException}.
+ */
+public class QueryBreakerService extends AbstractComponent {
+
+    public static final String SETTING_LIMIT = "crate.breaker.query.limit";
+    public static final String DEFAULT_LIMIT = "60%";
+    public static final String SETTING_OVERHEAD = "crate.breaker.query.overhead";
+    public static final double DEFAULT_OVERHEAD = 1.0;
+
+    private final MemoryCircuitBreaker breaker;
+    private final Set<RamAccountingContext> contexts = Sets.newConcurrentHashSet();
+    private final AtomicLong tripped = new AtomicLong();
+
+    @Inject
+    public QueryBreakerService(Settings settings) {
+        super(settings);
+        ByteSizeValue limit = MemorySizeValue.parseBytesSizeValueOrHeapRatio(
+                settings.get(SETTING_LIMIT, DEFAULT_LIMIT));
+        double overhead = settings.getAsDouble(SETTING_OVERHEAD, DEFAULT_OVERHEAD);
+        this.breaker = new MemoryCircuitBreaker(limit, overhead, logger);
+    }
+
+    /**
+     * create a context accounting the memory of one operation
+     *
+     * @param jobId the job the operation belongs to, if known
+     * @param operationName used in the error message if the breaker trips
+     */
+    public RamAccountingContext newContext(@Nullable UUID jobId, String operationName) {
+        RamAccountingContext context = new RamAccountingContext(this, jobId, operationName);
+        contexts.add(context);
+        return context;
+    }
+
+    MemoryCircuitBreaker breaker() {
+        return breaker;
+    }
+
+    void onTripped() {
+        tripped.incrementAndGet();
+    }
+
+    void remove(RamAccountingContext context) {
+        contexts.remove(context);
+    }
+
+    /**
+     * the estimated number of bytes held by all operations of this node
+     */
+    public long used() {
+        return breaker.getUsed();
+    }
+
+    public long limit() {
+        return breaker.getMaximum();
+    }
+
+    /**
+     * the number of operations aborted because they exceeded the limit
+     */
+    public long tripped() {
+        return tripped.get();
+    }
+
+    /**
+     * the estimated number of bytes held by the operations of every job on this node
+     */
+    public Map<UUID, Long> usedByJob() {
+        Map<UUID, Long> usedByJob = new HashMap<>();
+        for (RamAccountingContext context : contexts) {
+            if (context.jobId() == null) {
+                continue;
+            }
+            Long used = usedByJob.get(context.jobId());
+            usedByJob.put(context.jobId(), (used == null ? 0L : used) + context.usedBytes());
+        }
+        return usedByJob;
+    }
+}
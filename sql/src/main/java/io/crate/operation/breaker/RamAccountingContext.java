@@ -0,0 +1,116 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.breaker;
+
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.unit.ByteSizeValue;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * accounts the memory held by a single operation of a job.
+ * All bytes added are released from the circuit breaker once the context is closed.
+ */
+public class RamAccountingContext {
+
+    private final QueryBreakerService breakerService;
+    private final UUID jobId;
+    private final String operationName;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private volatile boolean closed = false;
+
+    RamAccountingContext(QueryBreakerService breakerService, @Nullable UUID jobId, String operationName) {
+        this.breakerService = breakerService;
+        this.jobId = jobId;
+        this.operationName = operationName;
+    }
+
+    /**
+     * add the estimated bytes to the breaker
+     *
+     * @throws CircuitBreakingException if the limit of the breaker would be exceeded,
+     *                                  in this case the bytes are not added
+     */
+    public void addBytes(long bytes) throws CircuitBreakingException {
+        if (closed) {
+            return;
+        }
+        try {
+            breakerService.breaker().addEstimateBytesAndMaybeBreak(bytes);
+        } catch (CircuitBreakingException e) {
+            breakerService.onTripped();
+            throw new CircuitBreakingException(String.format(
+                    "Query aborted, the %s operation of job %s would use more than the query memory limit of %s " +
+                    "(already using %s)",
+                    operationName,
+                    jobId,
+                    new ByteSizeValue(breakerService.limit()),
+                    new ByteSizeValue(usedBytes.get())));
+        }
+        usedBytes.addAndGet(bytes);
+        if (closed) {
+            // closed concurrently
+            release();
+        }
+    }
+
+    /**
+     * release bytes which are no longer held, e.g. because they have been spilled to disk
+     */
+    public void releaseBytes(long bytes) {
+        long released = Math.min(bytes, usedBytes.get());
+        if (released > 0) {
+            usedBytes.addAndGet(-released);
+            breakerService.breaker().addWithoutBreaking(-released);
+        }
+    }
+
+    private void release() {
+        long released = usedBytes.getAndSet(0);
+        if (released > 0) {
+            breakerService.breaker().addWithoutBreaking(-released);
+        }
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    @Nullable
+    public UUID jobId() {
+        return jobId;
+    }
+
+    public String operationName() {
+        return operationName;
+    }
+
+    /**
+     * release all bytes of this context, bytes added afterwards are ignored
+     */
+    public void close() {
+        closed = true;
+        breakerService.remove(this);
+        release();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.breaker;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * cheap estimates of the heap used by the rows of a query.
+ * They are meant for accounting, not exact: nested objects are estimated by their number of entries.
+ */
+public class SizeEstimator {
+
+    private static final long OBJECT_SIZE = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_LONG;
+    private static final long BYTES_REF_SIZE = RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+            + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+    private static final long STRING_SIZE = 40;
+    private static final long ENTRY_SIZE = 64;
+
+    /**
+     * estimate the size of a row including the array holding the values
+     */
+    public static long estimate(Object[] row) {
+        long size = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + row.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        for (Object value : row) {
+            size += estimate(value);
+        }
+        return size;
+    }
+
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof BytesRef) {
+            return BYTES_REF_SIZE + ((BytesRef) value).length;
+        } else if (value instanceof String) {
+            return STRING_SIZE + ((String) value).length() * RamUsageEstimator.NUM_BYTES_CHAR;
+        } else if (value instanceof Object[]) {
+            return estimate((Object[]) value);
+        } else if (value instanceof Collection) {
+            return OBJECT_SIZE + ((Collection) value).size() * ENTRY_SIZE;
+        } else if (value instanceof Map) {
+            return OBJECT_SIZE + ((Map) value).size() * ENTRY_SIZE;
+        }
+        return OBJECT_SIZE;
+    }
+}
@@ -27,7 +27,17 @@ public interface CrateCollector {
         @Override
         public void doCollect() {
         }
+
+        @Override
+        public void close() {
+        }
     };
 
     public void doCollect() throws Exception;
+
+    /**
+     * release the resources held by this collector, e.g. an index searcher.
+     * Called once the collector isn't used anymore, whether {@link #doCollect()} ran or not.
+     */
+    public void close();
 }
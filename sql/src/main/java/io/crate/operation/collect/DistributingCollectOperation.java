@@ -28,16 +28,21 @@ import io.crate.executor.transport.distributed.DistributedResultResponse;
 import io.crate.executor.transport.merge.TransportMergeNodeAction;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.projectors.GroupingProjector;
 import io.crate.operation.projectors.Projector;
 import io.crate.planner.node.dql.CollectNode;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.Constants;
 import io.crate.Streamer;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BaseTransportResponseHandler;
@@ -51,10 +56,24 @@ import java.util.UUID;
 /**
  * handling distributing collect requests
  * collected data is distributed to downStream nodes that further merge/reduce their data
+ *
+ * If the collected rows are partial groups, they are sent in pages of at most
+ * {@link #SETTING_PAGE_SIZE} groups per collecting thread while collecting.
+ * Only {@link DistributingShardCollectFuture#MAX_PAGES_IN_FLIGHT} pages per downstream are sent
+ * before a response is received, as long as the downstreams are busy the groups are kept (and spilled).
  */
 public class DistributingCollectOperation extends MapSideDataCollectOperation {
 
-    public static class DistributingShardCollectFuture extends ShardCollectFuture {
+    public static final String SETTING_PAGE_SIZE = "crate.distributed.page_size";
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+
+    public static class DistributingShardCollectFuture extends ShardCollectFuture
+            implements GroupingProjector.PageHandler {
+
+        /**
+         * pages sent to a downstream which are not yet merged by it
+         */
+        static final int MAX_PAGES_IN_FLIGHT = 2;
 
         private final ESLogger logger = Loggers.getLogger(getClass());
 
@@ -63,7 +82,12 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
         private final List<DiscoveryNode> downStreams;
         private final int numDownStreams;
         private final UUID jobId;
+        private final Streamer<?>[] streamers;
+        private final int pageSize;
 
+        // guarded by this
+        private final int[] pagesInFlight;
+        private final boolean[] lastRequestPending;
 
         public DistributingShardCollectFuture(UUID jobId,
                                               int numShards,
@@ -71,6 +95,19 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                                               List<DiscoveryNode> downStreams,
                                               TransportService transportService,
                                               Streamer<?>[] streamers) {
+            this(jobId, numShards, projectorChain, downStreams, transportService, streamers, 0);
+        }
+
+        /**
+         * @param pageSize number of groups per page, 0 to send all rows after all shards finished
+         */
+        public DistributingShardCollectFuture(UUID jobId,
+                                              int numShards,
+                                              List<Projector> projectorChain,
+                                              List<DiscoveryNode> downStreams,
+                                              TransportService transportService,
+                                              Streamer<?>[] streamers,
+                                              int pageSize) {
             super(numShards, projectorChain);
             Preconditions.checkNotNull(downStreams);
             Preconditions.checkNotNull(jobId);
@@ -78,11 +115,60 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
             this.transportService = transportService;
             this.downStreams = downStreams;
             this.numDownStreams = this.downStreams.size();
+            this.streamers = streamers;
+            this.pageSize = pageSize;
+            this.pagesInFlight = new int[numDownStreams];
+            this.lastRequestPending = new boolean[numDownStreams];
 
             this.requests = new DistributedResultRequest[numDownStreams];
             for (int i=0, length = this.downStreams.size(); i<length; i++) {
                 this.requests[i] = new DistributedResultRequest(jobId, streamers);
             }
+
+            // pages of partial groups can be reduced by the downstreams,
+            // the rows of any other projection are sent after all shards finished
+            if (pageSize > 0 && projectorChain.size() == 1
+                    && projectorChain.get(0) instanceof GroupingProjector) {
+                ((GroupingProjector) projectorChain.get(0)).pageHandler(this);
+            }
+        }
+
+        @Override
+        public int pageSize() {
+            return pageSize;
+        }
+
+        @Override
+        public boolean page(Iterable<Object[]> rows) {
+            synchronized (this) {
+                if (lastException.get() != null) {
+                    return false;
+                }
+                for (int i = 0; i < numDownStreams; i++) {
+                    if (pagesInFlight[i] >= MAX_PAGES_IN_FLIGHT) {
+                        return false;
+                    }
+                }
+                for (int i = 0; i < numDownStreams; i++) {
+                    pagesInFlight[i]++;
+                }
+            }
+            BucketingIterator bucketingIterator = new ModuloBucketingIterator(this.numDownStreams, rows);
+            int i = 0;
+            for (List<Object[]> bucket : bucketingIterator) {
+                DistributedResultRequest request = new DistributedResultRequest(jobId, streamers);
+                request.isLast(false);
+                request.rows(bucket.toArray(new Object[bucket.size()][]));
+                if (logger.isTraceEnabled()) {
+                    logger.trace("[{}] sending page of {} rows to {} ...",
+                            jobId.toString(),
+                            bucket.size(),
+                            downStreams.get(i).id());
+                }
+                sendRequest(request, i);
+                i++;
+            }
+            return true;
         }
 
         @Override
@@ -104,29 +190,55 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
             // send requests
             int i = 0;
             for (List<Object[]> bucket : bucketingIterator) {
-                DistributedResultRequest request = this.requests[i];
-                request.rows(bucket.toArray(new Object[bucket.size()][]));
-                final DiscoveryNode node = downStreams.get(i);
-                if (logger.isTraceEnabled()) {
-                    logger.trace("[{}] sending distributing collect request to {} ...",
-                            jobId.toString(),
-                            node.id());
-                }
-                sendRequest(request, node);
+                this.requests[i].rows(bucket.toArray(new Object[bucket.size()][]));
+                sendLastRequest(i);
                 i++;
             }
         }
 
         private void forwardFailures() {
-            int idx = 0;
-            for (DistributedResultRequest request : requests) {
-                request.failure(true);
-                sendRequest(request, downStreams.get(idx));
-                idx++;
+            for (int i = 0; i < numDownStreams; i++) {
+                requests[i].failure(true);
+                sendLastRequest(i);
             }
         }
 
-        private void sendRequest(DistributedResultRequest request, final DiscoveryNode node) {
+        /**
+         * the last request is sent once all pages are merged by the downstream,
+         * so that it can't overtake a page
+         */
+        private void sendLastRequest(int downStreamIdx) {
+            synchronized (this) {
+                if (pagesInFlight[downStreamIdx] > 0) {
+                    lastRequestPending[downStreamIdx] = true;
+                    return;
+                }
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("[{}] sending distributing collect request to {} ...",
+                        jobId.toString(),
+                        downStreams.get(downStreamIdx).id());
+            }
+            sendRequest(requests[downStreamIdx], downStreamIdx);
+        }
+
+        private void pageDone(int downStreamIdx) {
+            synchronized (this) {
+                pagesInFlight[downStreamIdx]--;
+                if (pagesInFlight[downStreamIdx] > 0 || !lastRequestPending[downStreamIdx]) {
+                    return;
+                }
+                lastRequestPending[downStreamIdx] = false;
+            }
+            if (lastException.get() != null) {
+                // a page got lost, the rows of the last request are incomplete
+                requests[downStreamIdx].failure(true);
+            }
+            sendRequest(requests[downStreamIdx], downStreamIdx);
+        }
+
+        private void sendRequest(final DistributedResultRequest request, final int downStreamIdx) {
+            final DiscoveryNode node = downStreams.get(downStreamIdx);
             transportService.submitRequest(
                 node,
                 TransportMergeNodeAction.mergeRowsAction, // NOTICE: hard coded transport action, should be delivered by collectNode
@@ -144,6 +256,9 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                                     jobId.toString(),
                                     node.id());
                         }
+                        if (!request.isLast()) {
+                            pageDone(downStreamIdx);
+                        }
                     }
 
                     @Override
@@ -152,6 +267,11 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                                 exp,
                                 jobId.toString(),
                                 node.id());
+                        if (!request.isLast()) {
+                            // no more pages, the last request is sent as failure
+                            lastException.compareAndSet(null, exp.getCause());
+                            pageDone(downStreamIdx);
+                        }
                         setException(exp.getCause());
                     }
 
@@ -166,18 +286,25 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
 
     private final TransportService transportService;
     private final PlanNodeStreamerVisitor streamerVisitor;
+    private final int pageSize;
 
     @Inject
-    public DistributingCollectOperation(ClusterService clusterService,
+    public DistributingCollectOperation(Settings settings,
+                                        ClusterService clusterService,
                                         Functions functions,
                                         ReferenceResolver referenceResolver,
                                         IndicesService indicesService,
                                         ThreadPool threadPool,
                                         TransportService transportService,
-                                        PlanNodeStreamerVisitor streamerVisitor) {
-        super(clusterService, functions, referenceResolver, indicesService, threadPool);
+                                        PlanNodeStreamerVisitor streamerVisitor,
+                                        QueryBreakerService breakerService,
+                                        JobContextService jobContextService,
+                                        TransportBulkAction transportBulkAction) {
+        super(clusterService, functions, referenceResolver, indicesService, threadPool, breakerService,
+                jobContextService, transportBulkAction);
         this.transportService = transportService;
         this.streamerVisitor = streamerVisitor;
+        this.pageSize = settings.getAsInt(SETTING_PAGE_SIZE, DEFAULT_PAGE_SIZE);
     }
 
     @Override
@@ -207,7 +334,8 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                 projectors,
                 downStreams,
                 transportService,
-                streamers
+                streamers,
+                pageSize
                 );
     }
 }
@@ -174,6 +174,10 @@ public class InformationSchemaCollectService implements CollectService {
                 }
             }
         }
+
+        @Override
+        public void close() {
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -22,6 +22,7 @@
 package io.crate.operation.collect;
 
 import io.crate.operation.Input;
+import io.crate.operation.job.OperationContext;
 import io.crate.operation.projectors.Projector;
 import io.crate.operation.reference.doc.CollectorContext;
 import io.crate.operation.reference.doc.LuceneCollectorExpression;
@@ -42,18 +43,59 @@ import org.elasticsearch.search.internal.DefaultSearchContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * collect documents from ES shard, a lucene index
+ *
+ * The ids of the collected documents are buffered per segment and the rows of a batch
+ * are evaluated at once and handed over to the downStream using {@link Projector#setNextRows(Object[][], int)}.
+ *
+ * The segments of a large shard can be collected concurrently by the units created with {@link #split(int, int, UnitInputsFactory)}.
  */
 public class LuceneDocCollector extends Collector implements CrateCollector {
 
-    private final SearchContext searchContext;
-    private final Projector downStream;
-    private final List<Input<?>> topLevelInputs;
-    private final List<LuceneCollectorExpression<?>> collectorExpressions;
+    private static final int ROWS_PER_REPORT = 1000;
+    static final int BATCH_SIZE = 1024;
+
+    /**
+     * minimum number of documents a unit of a split collector has to collect
+     */
+    public static final String SETTING_MIN_DOCS_PER_UNIT = "crate.collect.min_docs_per_unit";
+    public static final int DEFAULT_MIN_DOCS_PER_UNIT = 100000;
+
+    /**
+     * creates the inputs of a unit of a split collector, every unit evaluates its own expressions
+     */
+    public interface UnitInputsFactory {
+
+        public CollectInputSymbolVisitor.Context<LuceneCollectorExpression<?>> create();
+    }
+
+    protected final SearchContext searchContext;
+    protected final Projector downStream;
+    protected final List<Input<?>> topLevelInputs;
+    protected final List<LuceneCollectorExpression<?>> collectorExpressions;
+    private OperationContext operationContext;
+    private int unreportedRows = 0;
+
+    private final int[] docs = new int[BATCH_SIZE];
+    private final Object[][] rows = new Object[BATCH_SIZE][];
+    private int numDocs = 0;
+    private boolean terminated = false;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * the segments, weight and number of unfinished units of a unit of a split collector,
+     * null if the collector searches the whole shard
+     */
+    private final List<AtomicReaderContext> leaves;
+    private final Weight weight;
+    private final AtomicInteger pendingUnits;
 
     public LuceneDocCollector(ClusterService clusterService,
                               ShardId shardId,
@@ -67,6 +109,9 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
                               BytesReference querySource,
                               Projector downStreamProjector) throws Exception {
         this.downStream = downStreamProjector;
+        this.leaves = null;
+        this.weight = null;
+        this.pendingUnits = null;
 
         SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), shardId.getIndex(), shardId.id());
 
@@ -89,27 +134,178 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
         sqlxContentQueryParser.parse(searchContext, querySource);
     }
 
+    /**
+     * create a unit of a split collector, it shares the search context of the split collector
+     */
+    private LuceneDocCollector(LuceneDocCollector splitCollector,
+                               List<Input<?>> inputs,
+                               List<LuceneCollectorExpression<?>> collectorExpressions,
+                               List<AtomicReaderContext> leaves,
+                               Weight weight,
+                               AtomicInteger pendingUnits) {
+        this.searchContext = splitCollector.searchContext;
+        this.downStream = splitCollector.downStream;
+        this.topLevelInputs = inputs;
+        this.collectorExpressions = collectorExpressions;
+        this.leaves = leaves;
+        this.weight = weight;
+        this.pendingUnits = pendingUnits;
+    }
+
+    /**
+     * split the collect of the shard into units which collect disjoint sets of segments
+     * and can be run concurrently instead of this collector.
+     * The segments are distributed over the units by their number of documents,
+     * a unit collects at least <code>minDocsPerUnit</code> documents.
+     *
+     * @param maxUnits maximum number of units to create
+     * @param minDocsPerUnit minimum number of documents of a unit, see {@link #SETTING_MIN_DOCS_PER_UNIT}
+     * @param inputsFactory creates the inputs of every unit
+     * @return the units or a list containing only this collector if the shard isn't split
+     */
+    public List<LuceneDocCollector> split(int maxUnits,
+                                          int minDocsPerUnit,
+                                          UnitInputsFactory inputsFactory) throws IOException {
+        List<AtomicReaderContext> allLeaves = searchContext.searcher().getIndexReader().leaves();
+        long numDocs = 0;
+        for (AtomicReaderContext leaf : allLeaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        int numUnits = (int) Math.min(Math.min(maxUnits, allLeaves.size()), numDocs / Math.max(1, minDocsPerUnit));
+        if (numUnits < 2) {
+            return Collections.singletonList(this);
+        }
+
+        // the biggest segments are assigned first, always to the unit with the fewest documents
+        List<AtomicReaderContext> sortedLeaves = new ArrayList<>(allLeaves);
+        Collections.sort(sortedLeaves, new Comparator<AtomicReaderContext>() {
+            @Override
+            public int compare(AtomicReaderContext o1, AtomicReaderContext o2) {
+                return Integer.compare(o2.reader().maxDoc(), o1.reader().maxDoc());
+            }
+        });
+        List<List<AtomicReaderContext>> unitLeaves = new ArrayList<>(numUnits);
+        long[] unitDocs = new long[numUnits];
+        for (int i = 0; i < numUnits; i++) {
+            unitLeaves.add(new ArrayList<AtomicReaderContext>());
+        }
+        for (AtomicReaderContext leaf : sortedLeaves) {
+            int unit = 0;
+            for (int i = 1; i < numUnits; i++) {
+                if (unitDocs[i] < unitDocs[unit]) {
+                    unit = i;
+                }
+            }
+            unitLeaves.get(unit).add(leaf);
+            unitDocs[unit] += leaf.reader().maxDoc();
+        }
+
+        Weight unitWeight;
+        SearchContext.setCurrent(searchContext);
+        try {
+            unitWeight = searchContext.searcher().createNormalizedWeight(query());
+        } finally {
+            SearchContext.removeCurrent();
+        }
+        AtomicInteger pendingUnits = new AtomicInteger(numUnits);
+        List<LuceneDocCollector> units = new ArrayList<>(numUnits);
+        for (List<AtomicReaderContext> leaves : unitLeaves) {
+            CollectInputSymbolVisitor.Context<LuceneCollectorExpression<?>> ctx = inputsFactory.create();
+            units.add(new LuceneDocCollector(
+                    this, ctx.topLevelInputs(), ctx.docLevelExpressions(), leaves, unitWeight, pendingUnits));
+        }
+        return units;
+    }
+
+    /**
+     * set the operation this collector belongs to, the collect finishes early if its job is stopped
+     */
+    public void operationContext(@Nullable OperationContext operationContext) {
+        this.operationContext = operationContext;
+    }
+
+    /**
+     * called for every collected document, the number of documents is reported to the operation in batches
+     * and the timeout of the job is checked along with every batch
+     *
+     * @throws CollectionTerminatedException if the job has been stopped
+     * @throws io.crate.exceptions.JobKilledException if the job has been killed
+     */
+    protected void checkStopped() throws CollectionTerminatedException {
+        if (operationContext == null) {
+            return;
+        }
+        if (++unreportedRows == ROWS_PER_REPORT) {
+            reportRows();
+            operationContext.checkTimeout();
+        }
+        if (operationContext.isStopped()) {
+            operationContext.checkKilled();
+            throw new CollectionTerminatedException();
+        }
+    }
+
+    private void reportRows() {
+        if (operationContext != null && unreportedRows > 0) {
+            operationContext.addRows(unreportedRows);
+        }
+        unreportedRows = 0;
+    }
+
     @Override
     public void setScorer(Scorer scorer) throws IOException {}
 
     @Override
     public void collect(int doc) throws IOException {
-        Object[] newRow = new Object[topLevelInputs.size()];
-        for (LuceneCollectorExpression e : collectorExpressions) {
-            e.setNextDocId(doc);
+        if (terminated) {
+            throw new CollectionTerminatedException();
+        }
+        checkStopped();
+        docs[numDocs++] = doc;
+        if (numDocs == BATCH_SIZE) {
+            flushDocs();
+        }
+    }
+
+    /**
+     * evaluate the rows of the buffered documents of the current segment and pass them to the downStream
+     *
+     * @throws CollectionTerminatedException if the downStream doesn't need any more rows
+     */
+    protected void flushDocs() throws CollectionTerminatedException {
+        if (numDocs == 0) {
+            return;
         }
-        int i = 0;
-        for (Input<?> input : topLevelInputs) {
-            newRow[i++] = input.value();
+        int numInputs = topLevelInputs.size();
+        for (int d = 0; d < numDocs; d++) {
+            for (LuceneCollectorExpression e : collectorExpressions) {
+                e.setNextDocId(docs[d]);
+            }
+            Object[] newRow = new Object[numInputs];
+            for (int i = 0; i < numInputs; i++) {
+                newRow[i] = topLevelInputs.get(i).value();
+            }
+            rows[d] = newRow;
         }
-        if (!downStream.setNextRow(newRow)) {
+        int numRows = numDocs;
+        numDocs = 0;
+        boolean needsMore = downStream.setNextRows(rows, numRows);
+        Arrays.fill(rows, 0, numRows, null);
+        if (!needsMore) {
             // no more rows required, we can stop here
+            terminated = true;
             throw new CollectionTerminatedException();
         }
     }
 
     @Override
     public void setNextReader(AtomicReaderContext context) throws IOException {
+        try {
+            // the buffered documents belong to the previous segment
+            flushDocs();
+        } catch (CollectionTerminatedException e) {
+            // collect() stops the collection of the following segments
+        }
         for (LuceneCollectorExpression expr : collectorExpressions) {
             expr.setNextReader(context);
         }
@@ -120,6 +316,27 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
         return true;
     }
 
+    /**
+     * run the query, collecting all matching documents with this collector
+     */
+    protected void search(IndexSearcher searcher, Query query) throws IOException {
+        searcher.search(query, this);
+    }
+
+    /**
+     * called after all documents have been collected, before the searcher is released
+     */
+    protected void searchFinished() throws IOException {
+    }
+
+    private Query query() {
+        Query query = searchContext.query();
+        if (query == null) {
+            query = new MatchAllDocsQuery();
+        }
+        return query;
+    }
+
     @Override
     public void doCollect() throws Exception {
         // start collect
@@ -128,17 +345,36 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
             collectorExpression.startCollect(collectorContext);
         }
         SearchContext.setCurrent(searchContext);
-        Query query = searchContext.query();
-        if (query == null) {
-            query = new MatchAllDocsQuery();
-        }
 
         // do the lucene search
         try {
-            searchContext.searcher().search(query, this);
+            if (leaves == null) {
+                search(searchContext.searcher(), query());
+            } else {
+                searchContext.searcher().search(leaves, weight, this);
+            }
+            try {
+                flushDocs();
+            } catch (CollectionTerminatedException e) {
+                // the downStream doesn't need any more rows
+            }
+            searchFinished();
         } finally {
-            searchContext.release();
+            reportRows();
+            close();
             SearchContext.removeCurrent();
         }
     }
+
+    /**
+     * release the searcher acquired when this collector has been created,
+     * the units of a split collector release it once the last of them is closed
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)
+                && (pendingUnits == null || pendingUnits.decrementAndGet() == 0)) {
+            searchContext.release();
+        }
+    }
 }
@@ -21,13 +21,19 @@
 
 package io.crate.operation.collect;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
 import io.crate.operation.Input;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.job.OperationContext;
 import io.crate.operation.projectors.NoopProjector;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.Projector;
@@ -36,17 +42,21 @@ import io.crate.planner.node.dql.CollectNode;
 import io.crate.Constants;
 import io.crate.exceptions.CrateException;
 import io.crate.exceptions.TableUnknownException;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -64,6 +74,12 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
 
         @Override
         protected void onAllShardsFinished() {
+            Throwable throwable = lastException.get();
+            if (throwable != null) {
+                // the projection is failed once all collectors are done, see shardFinished()
+                setException(throwable);
+                return;
+            }
             projectorChain.get(0).finishProjection();
             super.set(projectorChain.get(projectorChain.size() - 1).getRows());
         }
@@ -75,19 +91,30 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
     protected final EvaluatingNormalizer nodeNormalizer;
     private final ThreadPool threadPool;
     protected final ClusterService clusterService;
+    private final QueryBreakerService breakerService;
+    private final JobContextService jobContextService;
+    private final SysJobsCollectService sysJobsCollectService;
+    private final TransportBulkAction transportBulkAction;
 
     @Inject
     public MapSideDataCollectOperation(ClusterService clusterService,
                                        Functions functions,
                                        ReferenceResolver referenceResolver,
                                        IndicesService indicesService,
-                                       ThreadPool threadPool) {
+                                       ThreadPool threadPool,
+                                       QueryBreakerService breakerService,
+                                       JobContextService jobContextService,
+                                       TransportBulkAction transportBulkAction) {
         this.clusterService = clusterService;
         this.functions = functions;
         this.referenceResolver = referenceResolver;
         this.indicesService = indicesService;
         this.nodeNormalizer = new EvaluatingNormalizer(functions, RowGranularity.NODE, referenceResolver);
         this.threadPool = threadPool;
+        this.breakerService = breakerService;
+        this.jobContextService = jobContextService;
+        this.sysJobsCollectService = new SysJobsCollectService(functions, jobContextService);
+        this.transportBulkAction = transportBulkAction;
     }
 
 
@@ -97,6 +124,8 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
      * * if local node id is contained in routing:
      * * if no shards are given:
      * -> run node level collect
+     * * if a table of the {@link SysJobsCollectService} is given without shards:
+     * -> collect the jobs or operations of this node
      * * if shards are given:
      * -> run shard or doc level collect
      * * else if we got cluster RowGranularity:
@@ -110,6 +139,8 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
             if (collectNode.routing().locations().get(localNodeId).size() == 0) {
                 // node collect
                 return handleNodeCollect(collectNode);
+            } else if (SysJobsCollectService.handles(collectNode, localNodeId)) {
+                return handleSysJobsCollect(collectNode);
             } else {
                 // shard or doc level
                 return handleShardCollect(collectNode);
@@ -143,7 +174,7 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
 
         assert ctx.maxGranularity().ordinal() <= RowGranularity.NODE.ordinal() : "wrong RowGranularity";
 
-        List<Projector> projectors = extractProjectors(collectNode);
+        List<Projector> projectors = extractProjectors(collectNode, null);
 
         new SimpleOneRowCollector(inputs, collectExpressions, projectors.get(0)).doCollect();
         projectors.get(0).finishProjection();
@@ -159,11 +190,37 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
         return result;
     }
 
+    /**
+     * collect the rows of <code>sys.jobs</code> or <code>sys.operations</code> on this node
+     */
+    protected ListenableFuture<Object[][]> handleSysJobsCollect(CollectNode collectNode) {
+        List<Projector> projectors = extractProjectors(collectNode, null);
+        try {
+            CrateCollector collector = sysJobsCollectService.getCollector(collectNode, projectors.get(0));
+            projectors.get(0).startProjection();
+            try {
+                collector.doCollect();
+            } catch (CollectionTerminatedException e) {
+                // the downstream doesn't need any more rows
+            }
+            projectors.get(0).finishProjection();
+        } catch (Exception e) {
+            projectors.get(0).failProjection(e);
+            return Futures.immediateFailedFuture(e);
+        }
+        return Futures.immediateFuture(projectors.get(projectors.size() - 1).getRows());
+    }
+
     /**
      * collect data on shard or doc level
      * <p/>
      * collects data from each shard in a separate thread,
      * collecting the data into a single state through an {@link java.util.concurrent.ArrayBlockingQueue}.
+     * If there are fewer shards than search threads, the segments of a large shard
+     * are collected by several threads.
+     * <p/>
+     * The collect is registered as operation of its job in the {@link JobContextService},
+     * the shards stop collecting once the job is stopped.
      *
      * @param collectNode {@link io.crate.planner.node.dql.CollectNode} containing routing information and symbols to collect
      * @return the collect results from all shards on this node that were given in {@link io.crate.planner.node.dql.CollectNode#routing}
@@ -173,8 +230,25 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
         String localNodeId = clusterService.localNode().id();
         final int numShards = collectNode.routing().numShards(localNodeId);
 
-        List<Projector> projectors = extractProjectors(collectNode);
+        // the memory held by the projectors is accounted until the collect is done
+        final RamAccountingContext ramAccountingContext = breakerService.newContext(
+                collectNode.jobId().orNull(), "collect");
+        final OperationContext operationContext = collectNode.jobId().isPresent()
+                ? jobContextService.startOperation(
+                        collectNode.jobId().get(), "collect", ramAccountingContext, collectNode.timeout())
+                : null;
+        final Runnable releaseContexts = new Runnable() {
+            @Override
+            public void run() {
+                ramAccountingContext.close();
+                if (operationContext != null) {
+                    jobContextService.finishOperation(operationContext);
+                }
+            }
+        };
+        List<Projector> projectors = extractProjectors(collectNode, ramAccountingContext);
         final ShardCollectFuture result = getShardCollectFuture(numShards, projectors, collectNode);
+        result.addListener(releaseContexts, MoreExecutors.sameThreadExecutor());
 
         collectNode = collectNode.normalize(nodeNormalizer);
         if (collectNode.whereClause().noMatch()) {
@@ -183,6 +257,7 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
         }
 
         List<CrateCollector> shardCollectors = new ArrayList<>(numShards);
+        int maxCollectorsPerShard = Math.max(1, threadPool.info(ThreadPool.Names.SEARCH).getMax() / Math.max(1, numShards));
 
         // get shardCollectors from single shards
         Map<String, Set<Integer>> shardIdMap = collectNode.routing().locations().get(localNodeId);
@@ -191,6 +266,8 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
             try {
                 indexService = indicesService.indexServiceSafe(entry.getKey());
             } catch (IndexMissingException e) {
+                closeCollectors(shardCollectors);
+                releaseContexts.run();
                 throw new TableUnknownException(entry.getKey(), e);
             }
             for (Integer shardId : entry.getValue()) {
@@ -198,14 +275,25 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
                 try {
                     shardInjector = indexService.shardInjectorSafe(shardId);
                     ShardCollectService shardCollectService = shardInjector.getInstance(ShardCollectService.class);
-                    CrateCollector crateCollector = shardCollectService.getCollector(collectNode, projectors.get(0));
-                    shardCollectors.add(crateCollector);
+                    List<? extends CrateCollector> crateCollectors = shardCollectService.getCollectors(
+                            collectNode, projectors.get(0), maxCollectorsPerShard);
+                    for (CrateCollector crateCollector : crateCollectors) {
+                        if (crateCollector instanceof LuceneDocCollector) {
+                            ((LuceneDocCollector) crateCollector).operationContext(operationContext);
+                        }
+                        shardCollectors.add(crateCollector);
+                    }
+                    result.addCollectors(crateCollectors.size() - 1);
                 } catch (IndexShardMissingException e) {
+                    closeCollectors(shardCollectors);
+                    releaseContexts.run();
                     throw new CrateException(
                             String.format("unknown shard id %d on index '%s'",
                                     shardId, entry.getKey()));
                 } catch (Exception e) {
                     logger.error("Error while getting collector", e);
+                    closeCollectors(shardCollectors);
+                    releaseContexts.run();
                     throw new CrateException(e);
                 }
             }
@@ -216,36 +304,71 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
 
         // start shardCollectors
         for (final CrateCollector shardCollector : shardCollectors) {
-            threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        shardCollector.doCollect();
-                        result.shardFinished();
-                    } catch (Exception ex) {
-                        result.shardFailure(ex);
-                    }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("shard finished collect, {} to go", result.numShards());
+            try {
+                threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        collectShard(shardCollector, result, operationContext);
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("shard finished collect, {} to go", result.numShards());
+                        }
                     }
-                }
-            });
+                });
+            } catch (EsRejectedExecutionException e) {
+                shardCollector.close();
+                result.shardFailure(e);
+            }
         }
 
         if (logger.isTraceEnabled()) {
-            logger.trace("started {} shardCollectors", numShards);
+            logger.trace("started {} shardCollectors for {} shards", shardCollectors.size(), numShards);
         }
 
         return result;
     }
 
-    protected List<Projector> extractProjectors(CollectNode collectNode) {
+    /**
+     * run the collector of a shard, the job might have been stopped or timed out while it was queued.
+     * The collector is closed whether it collected or not, so its searcher is always released.
+     */
+    static void collectShard(CrateCollector shardCollector,
+                             ShardCollectFuture result,
+                             @Nullable OperationContext operationContext) {
+        try {
+            try {
+                if (operationContext != null) {
+                    // the collect might have been queued for a while
+                    operationContext.checkTimeout();
+                }
+                if (operationContext != null && operationContext.isStopped()) {
+                    operationContext.checkKilled();
+                } else {
+                    shardCollector.doCollect();
+                }
+            } finally {
+                shardCollector.close();
+            }
+            result.shardFinished();
+        } catch (Exception ex) {
+            result.shardFailure(ex);
+        }
+    }
+
+    private static void closeCollectors(List<CrateCollector> collectors) {
+        for (CrateCollector collector : collectors) {
+            collector.close();
+        }
+    }
+
+    protected List<Projector> extractProjectors(CollectNode collectNode,
+                                                @Nullable RamAccountingContext ramAccountingContext) {
         ImplementationSymbolVisitor visitor = new ImplementationSymbolVisitor(
                 this.referenceResolver,
                 this.functions,
                 RowGranularity.NODE
         );
-        ProjectionToProjectorVisitor projectorVisitor = new ProjectionToProjectorVisitor(visitor);
+        ProjectionToProjectorVisitor projectorVisitor = new ProjectionToProjectorVisitor(
+                visitor, null, ramAccountingContext, transportBulkAction);
         List<Projector> projectors = new ArrayList<>(collectNode.projections().size());
         if (collectNode.projections().size() == 0) {
             projectors.add(new NoopProjector());
@@ -0,0 +1,266 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.DataType;
+import io.crate.action.SQLXContentQueryParser;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.impl.MaximumAggregation;
+import io.crate.operation.aggregation.impl.MinimumAggregation;
+import io.crate.operation.projectors.AggregationProjector;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.reference.doc.LuceneCollectorExpression;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.script.ScriptService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * answers a global aggregation consisting only of <code>min</code> and <code>max</code> aggregations
+ * on indexed numeric or timestamp columns without reading any documents.
+ *
+ * The smallest and greatest full precision term of every column is looked up in the terms dictionary
+ * of every segment. Per segment a row containing the smallest values and a row containing the greatest values
+ * is passed to the {@link AggregationProjector}, which computes the minimum and maximum of these rows.
+ *
+ * The terms of deleted documents are still contained in the terms dictionary,
+ * the documents of segments with deletions are collected.
+ */
+public class MinMaxTermsCollector extends LuceneDocCollector {
+
+    private static final EnumSet<DataType> NUMERIC_TYPES = EnumSet.of(
+            DataType.BYTE, DataType.SHORT, DataType.INTEGER, DataType.LONG,
+            DataType.FLOAT, DataType.DOUBLE, DataType.TIMESTAMP);
+
+    private final List<Reference> columns;
+
+    public MinMaxTermsCollector(ClusterService clusterService,
+                                ShardId shardId,
+                                IndexService indexService,
+                                ScriptService scriptService,
+                                CacheRecycler cacheRecycler,
+                                PageCacheRecycler pageCacheRecycler,
+                                SQLXContentQueryParser sqlxContentQueryParser,
+                                List<Input<?>> inputs,
+                                List<LuceneCollectorExpression<?>> collectorExpressions,
+                                BytesReference querySource,
+                                Projector downStreamProjector,
+                                List<Reference> columns) throws Exception {
+        super(clusterService, shardId, indexService, scriptService, cacheRecycler, pageCacheRecycler,
+                sqlxContentQueryParser, inputs, collectorExpressions, querySource, downStreamProjector);
+        this.columns = columns;
+    }
+
+    /**
+     * the collected columns if the collectNode only computes their minimum and maximum
+     *
+     * @return the columns or null if the collectNode has a query, another aggregation
+     *         or a column which isn't a numeric or timestamp doc level column
+     */
+    @Nullable
+    public static List<Reference> minMaxColumns(CollectNode collectNode, Projector downStream) {
+        if (!(downStream instanceof AggregationProjector)
+                || collectNode.whereClause().hasQuery()
+                || collectNode.projections().size() != 1) {
+            return null;
+        }
+        Projection projection = collectNode.projections().get(0);
+        if (!(projection instanceof AggregationProjection)) {
+            return null;
+        }
+        for (Aggregation aggregation : ((AggregationProjection) projection).aggregations()) {
+            String name = aggregation.functionIdent().name();
+            if (!(name.equals(MinimumAggregation.NAME) || name.equals(MaximumAggregation.NAME))
+                    || aggregation.inputs().size() != 1
+                    || !(aggregation.inputs().get(0) instanceof InputColumn)) {
+                return null;
+            }
+        }
+        List<Reference> columns = new ArrayList<>(collectNode.toCollect().size());
+        for (Symbol symbol : collectNode.toCollect()) {
+            if (!(symbol instanceof Reference)) {
+                return null;
+            }
+            ReferenceInfo info = ((Reference) symbol).info();
+            if (info.granularity() != RowGranularity.DOC
+                    || info.ident().columnIdent().isSystemColumn()
+                    || !NUMERIC_TYPES.contains(info.type())) {
+                return null;
+            }
+            columns.add((Reference) symbol);
+        }
+        return columns;
+    }
+
+    @Override
+    protected void search(IndexSearcher searcher, Query query) throws IOException {
+        String[] indexNames = indexNames();
+        if (indexNames == null) {
+            super.search(searcher, query);
+            return;
+        }
+        Weight weight = null;
+        for (AtomicReaderContext leaf : searcher.getIndexReader().leaves()) {
+            if (leaf.reader().hasDeletions()) {
+                if (weight == null) {
+                    weight = searcher.createNormalizedWeight(query);
+                }
+                searchContext.searcher().search(Collections.singletonList(leaf), weight, this);
+            } else {
+                collectTerms(leaf, indexNames);
+            }
+        }
+    }
+
+    /**
+     * @return the index names of the columns or null if a column isn't an indexed number in this shard
+     */
+    @Nullable
+    private String[] indexNames() {
+        String[] indexNames = new String[columns.size()];
+        for (int i = 0; i < indexNames.length; i++) {
+            FieldMapper mapper = searchContext.smartNameFieldMapper(columns.get(i).info().ident().columnIdent().fqn());
+            if (!(mapper instanceof NumberFieldMapper) || !mapper.fieldType().indexed()) {
+                return null;
+            }
+            indexNames[i] = mapper.names().indexName();
+        }
+        return indexNames;
+    }
+
+    /**
+     * pass a row of the smallest and a row of the greatest values of the columns in the segment to the downStream
+     */
+    private void collectTerms(AtomicReaderContext leaf, String[] indexNames) throws IOException {
+        // the documents of previous segments with deletions
+        flushDocs();
+        Object[] minRow = new Object[indexNames.length];
+        Object[] maxRow = new Object[indexNames.length];
+        for (int i = 0; i < indexNames.length; i++) {
+            Object[] minMax = minMax(leaf.reader(), indexNames[i], columns.get(i).info().type());
+            if (minMax != null) {
+                minRow[i] = minMax[0];
+                maxRow[i] = minMax[1];
+            }
+        }
+        downStream.setNextRows(new Object[][]{minRow, maxRow}, 2);
+    }
+
+    /**
+     * @return the smallest and the greatest value of a numeric field in the segment, null if it has no values
+     */
+    @Nullable
+    static Object[] minMax(AtomicReader reader, String indexName, DataType type) throws IOException {
+        Terms terms = reader.terms(indexName);
+        if (terms == null) {
+            return null;
+        }
+        TermsEnum termsEnum = isLong(type)
+                ? NumericUtils.filterPrefixCodedLongs(terms.iterator(null))
+                : NumericUtils.filterPrefixCodedInts(terms.iterator(null));
+        BytesRef minTerm = termsEnum.next();
+        if (minTerm == null) {
+            return null;
+        }
+        return new Object[]{value(type, minTerm), value(type, maxTerm(terms, minTerm))};
+    }
+
+    /**
+     * the greatest full precision term, searched byte by byte.
+     * All full precision terms have the length of the smallest one and start with the same shift byte,
+     * the following bytes of prefix coded numbers only use 7 bits.
+     */
+    private static BytesRef maxTerm(Terms terms, BytesRef minTerm) throws IOException {
+        TermsEnum termsEnum = terms.iterator(null);
+        BytesRef term = BytesRef.deepCopyOf(minTerm);
+        BytesRef prefix = new BytesRef(term.bytes, 0, 0);
+        BytesRef target = new BytesRef(term.bytes, 0, 0);
+        for (int pos = 1; pos < term.length; pos++) {
+            prefix.length = pos;
+            target.length = pos + 1;
+            // the greatest byte at pos of a term with the prefix
+            int low = 0;
+            int high = 0x7f;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                term.bytes[pos] = (byte) mid;
+                if (termsEnum.seekCeil(target) != TermsEnum.SeekStatus.END
+                        && StringHelper.startsWith(termsEnum.term(), prefix)) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            term.bytes[pos] = (byte) low;
+        }
+        return term;
+    }
+
+    private static boolean isLong(DataType type) {
+        return type == DataType.LONG || type == DataType.TIMESTAMP || type == DataType.DOUBLE;
+    }
+
+    private static Object value(DataType type, BytesRef term) {
+        switch (type) {
+            case BYTE:
+                return (byte) NumericUtils.prefixCodedToInt(term);
+            case SHORT:
+                return (short) NumericUtils.prefixCodedToInt(term);
+            case INTEGER:
+                return NumericUtils.prefixCodedToInt(term);
+            case FLOAT:
+                return NumericUtils.sortableIntToFloat(NumericUtils.prefixCodedToInt(term));
+            case DOUBLE:
+                return NumericUtils.sortableLongToDouble(NumericUtils.prefixCodedToLong(term));
+            default:
+                return NumericUtils.prefixCodedToLong(term);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Ordering;
+import io.crate.DataType;
+import io.crate.action.SQLXContentQueryParser;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.operation.Input;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.projectors.SortingTopNProjector;
+import io.crate.operation.projectors.TopN;
+import io.crate.operation.reference.doc.LuceneCollectorExpression;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.*;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.fieldcomparator.SortMode;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.script.ScriptService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * collects only the top <code>offset + limit</code> documents of a shard for a sorted and limited collect.
+ *
+ * The top documents are found in a first pass which only reads the order by values:
+ * using a lucene {@link TopFieldCollector} on the field data if all order by symbols are sortable columns,
+ * otherwise by evaluating only the order by inputs of every document.
+ * All other columns are materialized in a second pass for the top documents only.
+ *
+ * The rows are still passed to the {@link SortingTopNProjector} which merges the rows of all shards.
+ */
+public class OrderedLuceneDocCollector extends LuceneDocCollector {
+
+    /**
+     * the {@link TopFieldCollector} allocates its queue upfront,
+     * collects with a higher limit materialize all rows.
+     */
+    static final int MAX_NUM_HITS = 10000;
+
+    private static final EnumSet<DataType> SORTABLE_TYPES = EnumSet.of(
+            DataType.BYTE, DataType.SHORT, DataType.INTEGER, DataType.LONG,
+            DataType.FLOAT, DataType.DOUBLE, DataType.STRING, DataType.TIMESTAMP);
+
+    private final List<Reference> orderBy;
+    private final List<Input<?>> orderByInputs;
+    private final boolean[] reverseFlags;
+    private final int numHits;
+
+    public OrderedLuceneDocCollector(ClusterService clusterService,
+                                     ShardId shardId,
+                                     IndexService indexService,
+                                     ScriptService scriptService,
+                                     CacheRecycler cacheRecycler,
+                                     PageCacheRecycler pageCacheRecycler,
+                                     SQLXContentQueryParser sqlxContentQueryParser,
+                                     List<Input<?>> inputs,
+                                     List<LuceneCollectorExpression<?>> collectorExpressions,
+                                     BytesReference querySource,
+                                     Projector downStreamProjector,
+                                     TopNProjection topN,
+                                     @Nullable List<Reference> orderBy) throws Exception {
+        super(clusterService, shardId, indexService, scriptService, cacheRecycler, pageCacheRecycler,
+                sqlxContentQueryParser, inputs, collectorExpressions, querySource, downStreamProjector);
+        this.orderBy = orderBy;
+        this.orderByInputs = new ArrayList<>(topN.orderBy().size());
+        for (Symbol symbol : topN.orderBy()) {
+            orderByInputs.add(inputs.get(((InputColumn) symbol).index()));
+        }
+        this.reverseFlags = topN.reverseFlags();
+        this.numHits = topN.offset() + topN.limit();
+    }
+
+    /**
+     * the topN projection of the collectNode if only its top documents have to be collected
+     *
+     * @return the projection or null if the collectNode isn't sorted and limited
+     */
+    @Nullable
+    public static TopNProjection orderedTopN(CollectNode collectNode, Projector downStream) {
+        if (!(downStream instanceof SortingTopNProjector) || collectNode.projections().isEmpty()) {
+            return null;
+        }
+        Projection projection = collectNode.projections().get(0);
+        if (!(projection instanceof TopNProjection)) {
+            return null;
+        }
+        TopNProjection topN = (TopNProjection) projection;
+        if (!topN.isOrdered() || topN.limit() == TopN.NO_LIMIT
+                || (long) topN.offset() + topN.limit() > MAX_NUM_HITS) {
+            return null;
+        }
+        for (Symbol symbol : topN.orderBy()) {
+            if (!(symbol instanceof InputColumn)) {
+                return null;
+            }
+        }
+        return topN;
+    }
+
+    /**
+     * resolve the order by symbols of the projection to the collected references
+     *
+     * @return the references or null if an order by symbol isn't a sortable doc level column
+     */
+    @Nullable
+    public static List<Reference> orderBy(CollectNode collectNode, TopNProjection topN) {
+        List<Reference> orderBy = new ArrayList<>(topN.orderBy().size());
+        for (Symbol symbol : topN.orderBy()) {
+            Symbol collected = collectNode.toCollect().get(((InputColumn) symbol).index());
+            if (!(collected instanceof Reference)) {
+                return null;
+            }
+            ReferenceInfo info = ((Reference) collected).info();
+            if (info.granularity() != RowGranularity.DOC
+                    || info.ident().columnIdent().isSystemColumn()
+                    || !SORTABLE_TYPES.contains(info.type())) {
+                return null;
+            }
+            orderBy.add((Reference) collected);
+        }
+        return orderBy;
+    }
+
+    /**
+     * the sort on the field data of the order by columns,
+     * null values are sorted like in the {@link SortingTopNProjector}: they are greater than any other value.
+     *
+     * @return the sort or null if a column isn't mapped in this shard
+     */
+    @Nullable
+    private Sort sort() {
+        SortField[] sortFields = new SortField[orderBy.size()];
+        for (int i = 0; i < sortFields.length; i++) {
+            String name = orderBy.get(i).info().ident().columnIdent().fqn();
+            FieldMapper mapper = searchContext.smartNameFieldMapper(name);
+            if (mapper == null) {
+                return null;
+            }
+            IndexFieldData fieldData = searchContext.fieldData().getForField(mapper);
+            boolean reverse = reverseFlags[i];
+            sortFields[i] = new SortField(
+                    mapper.names().indexName(),
+                    fieldData.comparatorSource(
+                            reverse ? "_first" : "_last",
+                            reverse ? SortMode.MAX : SortMode.MIN),
+                    reverse);
+        }
+        return new Sort(sortFields);
+    }
+
+    @Override
+    protected void search(IndexSearcher searcher, Query query) throws IOException {
+        Sort sort = orderBy == null ? null : sort();
+        int[] docs;
+        if (sort != null) {
+            TopFieldCollector topFieldCollector = TopFieldCollector.create(sort, numHits, false, false, false, false);
+            searcher.search(query, topFieldCollector);
+            ScoreDoc[] scoreDocs = topFieldCollector.topDocs().scoreDocs;
+            docs = new int[scoreDocs.length];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                docs[i] = scoreDocs[i].doc;
+            }
+        } else {
+            OrderByValuesCollector orderByValuesCollector = new OrderByValuesCollector();
+            searcher.search(query, orderByValuesCollector);
+            docs = orderByValuesCollector.docs();
+        }
+        fetch(searcher, docs);
+    }
+
+    /**
+     * materialize the rows of the given documents,
+     * they are read in index order, the {@link SortingTopNProjector} sorts the rows anyway
+     */
+    private void fetch(IndexSearcher searcher, int[] docs) throws IOException {
+        Arrays.sort(docs);
+        List<AtomicReaderContext> leaves = searcher.getIndexReader().leaves();
+        AtomicReaderContext leaf = null;
+        try {
+            for (int doc : docs) {
+                if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                    leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                    setNextReader(leaf);
+                }
+                collect(doc - leaf.docBase);
+            }
+        } catch (CollectionTerminatedException e) {
+            // the downStream doesn't need any more rows
+        }
+    }
+
+    /**
+     * a document and its order by values
+     */
+    private static class OrderByValues {
+        final int doc;
+        final Object[] values;
+
+        OrderByValues(int doc, Object[] values) {
+            this.doc = doc;
+            this.values = values;
+        }
+    }
+
+    /**
+     * keeps the top documents by evaluating only the order by inputs of every document
+     */
+    private class OrderByValuesCollector extends Collector {
+
+        private final Ordering<OrderByValues> ordering;
+        private final PriorityQueue<OrderByValues> queue;
+        private int docBase;
+
+        OrderByValuesCollector() {
+            List<Ordering<OrderByValues>> orderings = new ArrayList<>(orderByInputs.size());
+            for (int i = 0; i < orderByInputs.size(); i++) {
+                final int col = i;
+                // null values are greater than any other value, like in the SortingTopNProjector
+                Ordering<Comparable> ordering = Ordering.natural().nullsLast();
+                if (reverseFlags[i]) {
+                    ordering = ordering.reverse();
+                }
+                orderings.add(ordering.onResultOf(new Function<OrderByValues, Comparable>() {
+                    @Override
+                    public Comparable apply(OrderByValues input) {
+                        return (Comparable) input.values[col];
+                    }
+                }));
+            }
+            ordering = Ordering.compound(orderings);
+            // the worst document is the head of the queue
+            queue = new PriorityQueue<>(Math.max(1, numHits), ordering.reverse());
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {}
+
+        @Override
+        public void collect(int doc) throws IOException {
+            checkStopped();
+            for (LuceneCollectorExpression e : collectorExpressions) {
+                e.setNextDocId(doc);
+            }
+            Object[] values = new Object[orderByInputs.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = orderByInputs.get(i).value();
+            }
+            OrderByValues orderByValues = new OrderByValues(docBase + doc, values);
+            if (queue.size() < numHits) {
+                queue.add(orderByValues);
+            } else if (numHits > 0 && ordering.compare(orderByValues, queue.peek()) < 0) {
+                queue.poll();
+                queue.add(orderByValues);
+            }
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            docBase = context.docBase;
+            OrderedLuceneDocCollector.this.setNextReader(context);
+        }
+
+        @Override
+        public boolean acceptsDocsOutOfOrder() {
+            return true;
+        }
+
+        int[] docs() {
+            int[] docs = new int[queue.size()];
+            int i = 0;
+            for (OrderByValues orderByValues : queue) {
+                docs[i++] = orderByValues.doc;
+            }
+            return docs;
+        }
+    }
+}
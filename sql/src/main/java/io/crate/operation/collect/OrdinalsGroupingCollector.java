@@ -0,0 +1,276 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.action.SQLXContentQueryParser;
+import io.crate.exceptions.GroupByOnArrayUnsupportedException;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.projectors.AggregationInputs;
+import io.crate.operation.projectors.GroupingProjector;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.reference.doc.BytesRefColumnReference;
+import io.crate.operation.reference.doc.LuceneCollectorExpression;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.*;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.index.fielddata.ordinals.Ordinals;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.script.ScriptService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * collect documents from a shard, grouping them by a single string column using the
+ * ordinals of its field data.
+ *
+ * The aggregation states of a segment are held in an array indexed by ordinal, so the key
+ * isn't materialized for every document. The key values are looked up once per ordinal
+ * when the segment is finished and the groups are passed to the {@link GroupingProjector}.
+ */
+public class OrdinalsGroupingCollector extends LuceneDocCollector {
+
+    /**
+     * segments with more ordinals are grouped by the {@link GroupingProjector} using the key values
+     */
+    static final long MAX_ORDINALS = 1 << 20;
+
+    private static final KeyUsageVisitor KEY_USAGE_VISITOR = new KeyUsageVisitor();
+
+    private final GroupingProjector groupingProjector;
+    private final int keyIndex;
+    private final BytesRefColumnReference keyExpression;
+    private final boolean materializeKey;
+    private final Collection<CollectExpression<?>> aggregationExpressions;
+    private final AggregationCollector[] aggregationCollectors;
+    private final Object[] row;
+
+    private BytesValues.WithOrdinals values;
+    private Ordinals.Docs ordinals;
+    private AggregationState[][] statesByOrd;
+
+    public OrdinalsGroupingCollector(ClusterService clusterService,
+                                     ShardId shardId,
+                                     IndexService indexService,
+                                     ScriptService scriptService,
+                                     CacheRecycler cacheRecycler,
+                                     PageCacheRecycler pageCacheRecycler,
+                                     SQLXContentQueryParser sqlxContentQueryParser,
+                                     List<Input<?>> inputs,
+                                     List<LuceneCollectorExpression<?>> collectorExpressions,
+                                     BytesReference querySource,
+                                     GroupingProjector downStreamProjector,
+                                     int keyIndex,
+                                     boolean materializeKey) throws Exception {
+        super(clusterService, shardId, indexService, scriptService, cacheRecycler, pageCacheRecycler,
+                sqlxContentQueryParser, inputs, collectorExpressions, querySource, downStreamProjector);
+        this.groupingProjector = downStreamProjector;
+        this.keyIndex = keyIndex;
+        this.keyExpression = (BytesRefColumnReference) inputs.get(keyIndex);
+        this.materializeKey = materializeKey;
+        this.row = new Object[inputs.size()];
+
+        AggregationInputs aggregationInputs = groupingProjector.inputsFactory().create();
+        this.aggregationExpressions = aggregationInputs.collectExpressions();
+        this.aggregationCollectors = aggregationInputs.aggregationCollectors();
+        for (CollectExpression<?> collectExpression : aggregationExpressions) {
+            collectExpression.startCollect();
+        }
+    }
+
+    /**
+     * the index of the group key in the collected inputs if the rows can be grouped by ordinals.
+     *
+     * @return the key index or null if the collectNode isn't grouping by a single string column
+     */
+    @Nullable
+    public static Integer keyIndex(CollectNode collectNode, List<Input<?>> inputs, Projector downStream) {
+        if (!(downStream instanceof GroupingProjector) || collectNode.projections().isEmpty()) {
+            return null;
+        }
+        Projection projection = collectNode.projections().get(0);
+        if (!(projection instanceof GroupProjection)) {
+            return null;
+        }
+        List<Symbol> keys = ((GroupProjection) projection).keys();
+        if (keys.size() != 1 || !(keys.get(0) instanceof InputColumn)) {
+            return null;
+        }
+        int keyIndex = ((InputColumn) keys.get(0)).index();
+        if (keyIndex >= inputs.size() || !(inputs.get(keyIndex) instanceof BytesRefColumnReference)) {
+            return null;
+        }
+        return keyIndex;
+    }
+
+    /**
+     * @return true if the key value is used as input of an aggregation
+     */
+    public static boolean keyUsedByAggregations(CollectNode collectNode, int keyIndex) {
+        for (Aggregation aggregation : ((GroupProjection) collectNode.projections().get(0)).values()) {
+            if (KEY_USAGE_VISITOR.process(aggregation, keyIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) throws IOException {
+        flushGroups();
+        super.setNextReader(context);
+        values = keyExpression.valuesWithOrdinals();
+        if (values != null && values.ordinals().getMaxOrd() <= MAX_ORDINALS) {
+            ordinals = values.ordinals();
+            statesByOrd = new AggregationState[(int) ordinals.getMaxOrd()][];
+        } else {
+            ordinals = null;
+            statesByOrd = null;
+        }
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        if (statesByOrd == null) {
+            super.collect(doc);
+            return;
+        }
+        checkStopped();
+
+        long ord;
+        if (ordinals.isMultiValued()) {
+            int numValues = ordinals.setDocument(doc);
+            if (numValues > 1) {
+                throw new GroupByOnArrayUnsupportedException(keyExpression.columnName());
+            }
+            ord = numValues == 0 ? Ordinals.MISSING_ORDINAL : ordinals.nextOrd();
+        } else {
+            ord = ordinals.getOrd(doc);
+        }
+
+        for (LuceneCollectorExpression e : collectorExpressions) {
+            e.setNextDocId(doc);
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (i == keyIndex) {
+                row[i] = materializeKey ? keyValue(ord) : null;
+            } else {
+                row[i] = topLevelInputs.get(i).value();
+            }
+        }
+        for (CollectExpression<?> collectExpression : aggregationExpressions) {
+            collectExpression.setNextRow(row);
+        }
+
+        AggregationState[] states = statesByOrd[(int) ord];
+        if (states == null) {
+            states = new AggregationState[aggregationCollectors.length];
+            statesByOrd[(int) ord] = states;
+            for (int i = 0; i < aggregationCollectors.length; i++) {
+                aggregationCollectors[i].startCollect();
+                aggregationCollectors[i].processRow();
+                states[i] = aggregationCollectors[i].state();
+            }
+        } else {
+            for (int i = 0; i < aggregationCollectors.length; i++) {
+                aggregationCollectors[i].state(states[i]);
+                aggregationCollectors[i].processRow();
+            }
+        }
+    }
+
+    @Override
+    protected void searchFinished() throws IOException {
+        flushGroups();
+    }
+
+    private BytesRef keyValue(long ord) {
+        if (ord == Ordinals.MISSING_ORDINAL) {
+            return null;
+        }
+        return BytesRef.deepCopyOf(values.getValueByOrd(ord));
+    }
+
+    /**
+     * pass the groups of the current segment to the groupingProjector
+     */
+    private void flushGroups() {
+        if (statesByOrd == null) {
+            return;
+        }
+        for (int ord = 0; ord < statesByOrd.length; ord++) {
+            if (statesByOrd[ord] != null) {
+                groupingProjector.setNextGroup(new Object[]{keyValue(ord)}, statesByOrd[ord]);
+            }
+        }
+        statesByOrd = null;
+    }
+
+    /**
+     * checks if the InputColumn with the index given as context is used by a symbol
+     */
+    private static class KeyUsageVisitor extends SymbolVisitor<Integer, Boolean> {
+
+        @Override
+        public Boolean visitAggregation(Aggregation symbol, Integer keyIndex) {
+            for (Symbol input : symbol.inputs()) {
+                if (process(input, keyIndex)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean visitFunction(Function symbol, Integer keyIndex) {
+            for (Symbol argument : symbol.arguments()) {
+                if (process(argument, keyIndex)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean visitInputColumn(InputColumn inputColumn, Integer keyIndex) {
+            return inputColumn.index() == keyIndex;
+        }
+
+        @Override
+        protected Boolean visitSymbol(Symbol symbol, Integer keyIndex) {
+            return false;
+        }
+    }
+}
@@ -42,16 +42,37 @@ public abstract class ShardCollectFuture extends AbstractFuture<Object[][]> {
         this.projectorChain = projectorChain;
     }
 
+    /**
+     * the collect of a shard has been split into several collectors,
+     * every one of them signals that it has finished
+     *
+     * @param numCollectors number of collectors in addition to the one counted per shard
+     */
+    protected void addCollectors(int numCollectors) {
+        numShards.addAndGet(numCollectors);
+    }
+
     protected void shardFinished() {
         if (numShards.decrementAndGet() <= 0) {
-            onAllShardsFinished();
+            Throwable throwable = lastException.get();
+            if (throwable == null) {
+                onAllShardsFinished();
+            } else {
+                // no collector feeds the projectors anymore, release what they hold
+                projectorChain.get(0).failProjection(throwable);
+            }
         }
     }
 
+    /**
+     * a collector failed, the failure is handled right away.
+     * The projection is failed once the other collectors are done as well.
+     */
     protected void shardFailure(Throwable t) {
         lastException.set(t);
         onAllShardsFinished();
         setException(t);
+        shardFinished();
     }
 
     public int numShards() {
@@ -21,6 +21,7 @@
 
 package io.crate.operation.collect;
 
+import com.google.common.collect.ImmutableList;
 import io.crate.action.SQLXContentQueryParser;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.blob.v2.BlobIndices;
@@ -30,20 +31,26 @@ import io.crate.metadata.Functions;
 import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.metadata.shard.blob.BlobShardReferenceResolver;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.projectors.GroupingProjector;
 import io.crate.operation.projectors.Projector;
 import io.crate.operation.reference.doc.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.LuceneDocLevelReferenceResolver;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.symbol.Reference;
 import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.script.ScriptService;
 
+import java.util.List;
+
 public class ShardCollectService {
 
     private final CollectInputSymbolVisitor<LuceneCollectorExpression<?>> docInputSymbolVisitor;
@@ -57,9 +64,11 @@ public class ShardCollectService {
     private final ESQueryBuilder queryBuilder;
     private final ImplementationSymbolVisitor shardInputSymbolVisitor;
     private final EvaluatingNormalizer shardNormalizer;
+    private final int minDocsPerUnit;
 
     @Inject
-    public ShardCollectService(ClusterService clusterService,
+    public ShardCollectService(Settings settings,
+                               ClusterService clusterService,
                                ShardId shardId,
                                IndexService indexService,
                                ScriptService scriptService,
@@ -71,6 +80,8 @@ public class ShardCollectService {
                                BlobShardReferenceResolver blobShardReferenceResolver) {
         this.clusterService = clusterService;
         this.shardId = shardId;
+        this.minDocsPerUnit = settings.getAsInt(
+                LuceneDocCollector.SETTING_MIN_DOCS_PER_UNIT, LuceneDocCollector.DEFAULT_MIN_DOCS_PER_UNIT);
 
         this.indexService = indexService;
         this.scriptService = scriptService;
@@ -115,6 +126,39 @@ public class ShardCollectService {
             if (granularity == RowGranularity.DOC) {
                 CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.process(collectNode);
                 BytesReference querySource = queryBuilder.convert(collectNode.whereClause());
+                Integer keyIndex = OrdinalsGroupingCollector.keyIndex(
+                        collectNode, docCtx.topLevelInputs(), downStream);
+                if (keyIndex != null) {
+                    return new OrdinalsGroupingCollector(clusterService, shardId, indexService,
+                            scriptService, cacheRecycler, pageCacheRecycler, sqlxContentQueryParser,
+                            docCtx.topLevelInputs(),
+                            docCtx.docLevelExpressions(),
+                            querySource,
+                            (GroupingProjector) downStream,
+                            keyIndex,
+                            OrdinalsGroupingCollector.keyUsedByAggregations(collectNode, keyIndex));
+                }
+                TopNProjection topN = OrderedLuceneDocCollector.orderedTopN(collectNode, downStream);
+                if (topN != null) {
+                    return new OrderedLuceneDocCollector(clusterService, shardId, indexService,
+                            scriptService, cacheRecycler, pageCacheRecycler, sqlxContentQueryParser,
+                            docCtx.topLevelInputs(),
+                            docCtx.docLevelExpressions(),
+                            querySource,
+                            downStream,
+                            topN,
+                            OrderedLuceneDocCollector.orderBy(collectNode, topN));
+                }
+                List<Reference> minMaxColumns = MinMaxTermsCollector.minMaxColumns(collectNode, downStream);
+                if (minMaxColumns != null) {
+                    return new MinMaxTermsCollector(clusterService, shardId, indexService,
+                            scriptService, cacheRecycler, pageCacheRecycler, sqlxContentQueryParser,
+                            docCtx.topLevelInputs(),
+                            docCtx.docLevelExpressions(),
+                            querySource,
+                            downStream,
+                            minMaxColumns);
+                }
                 return new LuceneDocCollector(clusterService, shardId, indexService,
                         scriptService, cacheRecycler, pageCacheRecycler,sqlxContentQueryParser,
                         docCtx.topLevelInputs(),
@@ -129,4 +173,33 @@ public class ShardCollectService {
             throw new CrateException(String.format("Granularity %s not supported", granularity.name()));
         }
     }
+
+    /**
+     * get the collectors of a shard, the segments of a large shard are collected by several collectors
+     * which can be run concurrently.
+     *
+     * @param maxUnits maximum number of collectors to split the collect into
+     * @see LuceneDocCollector#split(int, int, LuceneDocCollector.UnitInputsFactory)
+     */
+    public List<? extends CrateCollector> getCollectors(CollectNode collectNode,
+                                                        Projector downStream,
+                                                        int maxUnits) throws Exception {
+        CrateCollector collector = getCollector(collectNode, downStream);
+        // ordered and ordinals grouping collectors keep their own state per shard
+        if (maxUnits < 2 || collector.getClass() != LuceneDocCollector.class) {
+            return ImmutableList.of(collector);
+        }
+        final CollectNode normalizedNode = collectNode.normalize(shardNormalizer);
+        try {
+            return ((LuceneDocCollector) collector).split(maxUnits, minDocsPerUnit, new LuceneDocCollector.UnitInputsFactory() {
+                @Override
+                public CollectInputSymbolVisitor.Context<LuceneCollectorExpression<?>> create() {
+                    return docInputSymbolVisitor.process(normalizedNode);
+                }
+            });
+        } catch (Exception e) {
+            collector.close();
+            throw e;
+        }
+    }
 }
@@ -75,4 +75,8 @@ public class SimpleOneRowCollector extends AbstractRowCollector<Object[]> implem
     public void doCollect() {
         collect();
     }
+
+    @Override
+    public void close() {
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.collect;
+
+import io.crate.metadata.Functions;
+import io.crate.metadata.sys.SysJobsTableInfo;
+import io.crate.metadata.sys.SysOperationsTableInfo;
+import io.crate.operation.Input;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.reference.sys.job.SysJobsCollectorExpression;
+import io.crate.operation.reference.sys.job.SysJobsReferenceResolver;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.symbol.BooleanLiteral;
+import io.crate.exceptions.CrateException;
+import org.apache.lucene.search.CollectionTerminatedException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * collects the rows of <code>sys.jobs</code> and <code>sys.operations</code> from the {@link JobContextService}
+ * of this node. The table is given as the only index of the local node in the routing, without any shards.
+ */
+public class SysJobsCollectService implements CollectService {
+
+    private final Functions functions;
+    private final JobContextService jobContextService;
+
+    public SysJobsCollectService(Functions functions, JobContextService jobContextService) {
+        this.functions = functions;
+        this.jobContextService = jobContextService;
+    }
+
+    /**
+     * @return true if the routing of the given collectNode for the given node targets a table collected by this service
+     */
+    public static boolean handles(CollectNode collectNode, String nodeId) {
+        Map<String, Set<Integer>> nodeRouting = collectNode.routing().locations().get(nodeId);
+        return nodeRouting != null
+                && nodeRouting.size() == 1
+                && collectNode.routing().numShards(nodeId) == 0
+                && (nodeRouting.containsKey(SysJobsTableInfo.IDENT.name())
+                    || nodeRouting.containsKey(SysOperationsTableInfo.IDENT.name()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CrateCollector getCollector(CollectNode collectNode, Projector downstream) {
+        if (collectNode.whereClause().noMatch()) {
+            return CrateCollector.NOOP;
+        }
+        String table = collectNode.routing().locations().values().iterator().next().keySet().iterator().next();
+        Iterable<?> rows;
+        if (table.equals(SysJobsTableInfo.IDENT.name())) {
+            rows = jobContextService.jobs();
+        } else if (table.equals(SysOperationsTableInfo.IDENT.name())) {
+            rows = jobContextService.operations();
+        } else {
+            throw new CrateException(String.format("cannot collect table '%s'", table));
+        }
+
+        // the expressions hold the current row, so they aren't shared between collects
+        CollectInputSymbolVisitor<SysJobsCollectorExpression<?, ?>> inputSymbolVisitor =
+                new CollectInputSymbolVisitor<>(functions, new SysJobsReferenceResolver());
+        CollectInputSymbolVisitor.Context context = inputSymbolVisitor.process(collectNode);
+
+        Input<Boolean> condition;
+        if (collectNode.whereClause().hasQuery()) {
+            condition = (Input<Boolean>) inputSymbolVisitor.process(collectNode.whereClause().query(), context);
+        } else {
+            condition = BooleanLiteral.TRUE;
+        }
+
+        return new SysJobsCollector(
+                context.topLevelInputs(), context.docLevelExpressions(), downstream, rows, condition);
+    }
+
+    private static class SysJobsCollector implements CrateCollector {
+
+        private final List<Input<?>> inputs;
+        private final List<SysJobsCollectorExpression> collectorExpressions;
+        private final Projector downStream;
+        private final Iterable<?> rows;
+        private final Input<Boolean> condition;
+
+        public SysJobsCollector(List<Input<?>> inputs,
+                                List<SysJobsCollectorExpression> collectorExpressions,
+                                Projector downStream,
+                                Iterable<?> rows,
+                                Input<Boolean> condition) {
+            this.inputs = inputs;
+            this.collectorExpressions = collectorExpressions;
+            this.downStream = downStream;
+            this.rows = rows;
+            this.condition = condition;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void doCollect() throws Exception {
+            for (Object row : rows) {
+                for (SysJobsCollectorExpression collectorExpression : collectorExpressions) {
+                    collectorExpression.setNextRow(row);
+                }
+                if (!condition.value()) {
+                    // no match
+                    continue;
+                }
+
+                Object[] newRow = new Object[inputs.size()];
+                int i = 0;
+                for (Input<?> input : inputs) {
+                    newRow[i++] = input.value();
+                }
+                if (!downStream.setNextRow(newRow)) {
+                    // no more rows required, we can stop here
+                    throw new CollectionTerminatedException();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -147,5 +147,9 @@ public class UnassignedShardsCollectService implements CollectService {
                 }
             }
         }
+
+        @Override
+        public void close() {
+        }
     }
 }
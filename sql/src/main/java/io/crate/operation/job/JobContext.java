@@ -0,0 +1,151 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.job;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a job running on this node together with its operations.
+ *
+ * A job can be stopped once its result isn't needed anymore,
+ * collectors check {@link #isStopped()} while collecting and finish early.
+ * A killed job is stopped too, but its operations fail instead of returning their rows.
+ * A job which runs longer than the timeout of its statement is killed by the first operation
+ * noticing it, see {@link OperationContext#checkTimeout()}.
+ */
+public class JobContext {
+
+    private final UUID jobId;
+    private final long started;
+    private final AtomicLong rows = new AtomicLong();
+    private volatile boolean stopped = false;
+    private volatile boolean killed = false;
+    private volatile boolean timedOut = false;
+    private volatile TimeValue timeout = null;
+    private volatile long deadline = Long.MAX_VALUE;
+
+    // modified by the JobContextService only
+    final List<OperationContext> operations = new CopyOnWriteArrayList<>();
+
+    public JobContext(UUID jobId) {
+        this.jobId = jobId;
+        this.started = System.currentTimeMillis();
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    /**
+     * the time in milliseconds this node started its first operation of the job
+     */
+    public long started() {
+        return started;
+    }
+
+    /**
+     * the number of rows processed by the operations of this job on this node
+     */
+    public long rows() {
+        return rows.get();
+    }
+
+    void addRows(long numRows) {
+        rows.addAndGet(numRows);
+    }
+
+    /**
+     * the estimated number of bytes held by the running operations of this job
+     */
+    public long usedBytes() {
+        long usedBytes = 0L;
+        for (OperationContext operation : operations) {
+            usedBytes += operation.usedBytes();
+        }
+        return usedBytes;
+    }
+
+    /**
+     * set the timeout of the job, it expires the given time after now
+     */
+    synchronized void timeout(TimeValue timeout) {
+        long newDeadline = System.currentTimeMillis() + timeout.millis();
+        if (newDeadline < deadline) {
+            this.timeout = timeout;
+            this.deadline = newDeadline;
+        }
+    }
+
+    @Nullable
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    /**
+     * the time in milliseconds after which the job is timed out,
+     * {@link Long#MAX_VALUE} if it has no timeout
+     */
+    public long deadline() {
+        return deadline;
+    }
+
+    public List<OperationContext> operations() {
+        return operations;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public void kill() {
+        killed = true;
+        stopped = true;
+        for (OperationContext operation : operations) {
+            operation.killed();
+        }
+    }
+
+    public boolean isKilled() {
+        return killed;
+    }
+
+    /**
+     * kill the job because it exceeded its timeout
+     */
+    public void timeOut() {
+        timedOut = true;
+        kill();
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.job;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.crate.operation.breaker.RamAccountingContext;
+import org.elasticsearch.common.unit.TimeValue;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keeps the {@link JobContext}s of the jobs running on this node and their {@link OperationContext}s.
+ * They are listed in the <code>sys.jobs</code> and <code>sys.operations</code> tables.
+ *
+ * A stop or kill signal might arrive before the operations of the job are started,
+ * so the ids of stopped jobs are remembered for a while.
+ */
+public class JobContextService {
+
+    private final Map<UUID, JobContext> contexts = new HashMap<>();
+    private final Cache<UUID, Boolean> stoppedJobs = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    public OperationContext startOperation(UUID jobId,
+                                           String name,
+                                           @Nullable RamAccountingContext ramAccountingContext) {
+        return startOperation(jobId, name, ramAccountingContext, null);
+    }
+
+    /**
+     * start an operation of a job, it must be finished using {@link #finishOperation(OperationContext)}
+     *
+     * @param name the name of the operation as listed in <code>sys.operations</code>
+     * @param ramAccountingContext if not null, the memory accounted by it is listed as used by the operation
+     * @param timeout if not null, the job times out after the given time,
+     *                see {@link OperationContext#checkTimeout()}
+     */
+    public synchronized OperationContext startOperation(UUID jobId,
+                                                        String name,
+                                                        @Nullable RamAccountingContext ramAccountingContext,
+                                                        @Nullable TimeValue timeout) {
+        JobContext context = contexts.get(jobId);
+        if (context == null) {
+            context = new JobContext(jobId);
+            Boolean killed = stoppedJobs.getIfPresent(jobId);
+            if (killed != null) {
+                if (killed) {
+                    context.kill();
+                } else {
+                    context.stop();
+                }
+            }
+            contexts.put(jobId, context);
+        }
+        if (timeout != null) {
+            context.timeout(timeout);
+        }
+        OperationContext operationContext = new OperationContext(context, name, ramAccountingContext);
+        context.operations.add(operationContext);
+        return operationContext;
+    }
+
+    public synchronized void finishOperation(OperationContext operationContext) {
+        JobContext context = operationContext.jobContext();
+        if (context.operations.remove(operationContext) && context.operations.isEmpty()) {
+            contexts.remove(context.jobId());
+        }
+    }
+
+    /**
+     * stop collecting for the given job
+     */
+    public void stop(UUID jobId) {
+        JobContext context;
+        synchronized (this) {
+            if (stoppedJobs.getIfPresent(jobId) == null) {
+                stoppedJobs.put(jobId, Boolean.FALSE);
+            }
+            context = contexts.get(jobId);
+        }
+        if (context != null) {
+            context.stop();
+        }
+    }
+
+    /**
+     * stop the given job and let its operations fail with a {@link io.crate.exceptions.JobKilledException}
+     */
+    public void kill(UUID jobId) {
+        JobContext context;
+        synchronized (this) {
+            stoppedJobs.put(jobId, Boolean.TRUE);
+            context = contexts.get(jobId);
+        }
+        if (context != null) {
+            context.kill();
+        }
+    }
+
+    public synchronized List<JobContext> jobs() {
+        return ImmutableList.copyOf(contexts.values());
+    }
+
+    public synchronized List<OperationContext> operations() {
+        ImmutableList.Builder<OperationContext> builder = ImmutableList.builder();
+        for (JobContext context : contexts.values()) {
+            builder.addAll(context.operations);
+        }
+        return builder.build();
+    }
+
+    public synchronized int numActiveJobs() {
+        return contexts.size();
+    }
+}
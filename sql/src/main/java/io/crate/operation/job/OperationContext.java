@@ -0,0 +1,147 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.job;
+
+import io.crate.exceptions.JobKilledException;
+import io.crate.exceptions.StatementTimeoutException;
+import io.crate.operation.breaker.RamAccountingContext;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * an operation of a job running on this node, e.g. a collect or a merge.
+ * Started and finished using the {@link JobContextService}.
+ */
+public class OperationContext {
+
+    private final UUID id = UUID.randomUUID();
+    private final JobContext jobContext;
+    private final String name;
+    private final long started;
+    private final RamAccountingContext ramAccountingContext;
+    private final AtomicLong rows = new AtomicLong();
+    private final List<Runnable> killListeners = new CopyOnWriteArrayList<>();
+
+    OperationContext(JobContext jobContext, String name, @Nullable RamAccountingContext ramAccountingContext) {
+        this.jobContext = jobContext;
+        this.name = name;
+        this.ramAccountingContext = ramAccountingContext;
+        this.started = System.currentTimeMillis();
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public UUID jobId() {
+        return jobContext.jobId();
+    }
+
+    public JobContext jobContext() {
+        return jobContext;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long started() {
+        return started;
+    }
+
+    public long rows() {
+        return rows.get();
+    }
+
+    public void addRows(long numRows) {
+        rows.addAndGet(numRows);
+        jobContext.addRows(numRows);
+    }
+
+    /**
+     * the estimated number of bytes held by this operation
+     */
+    public long usedBytes() {
+        return ramAccountingContext == null ? 0L : ramAccountingContext.usedBytes();
+    }
+
+    public boolean isStopped() {
+        return jobContext.isStopped();
+    }
+
+    /**
+     * @throws JobKilledException if the job of this operation has been killed
+     */
+    public void checkKilled() throws JobKilledException {
+        if (jobContext.isKilled()) {
+            throw killedException();
+        }
+    }
+
+    /**
+     * the exception operations of a killed job fail with
+     */
+    public JobKilledException killedException() {
+        if (jobContext.isTimedOut()) {
+            return new StatementTimeoutException(jobContext.jobId(), jobContext.timeout());
+        }
+        return new JobKilledException(jobContext.jobId());
+    }
+
+    /**
+     * run the listener once the job of this operation is killed, right away if it has been killed already.
+     * Lets operations release their resources, e.g. files, even if they don't get any more rows.
+     */
+    public void addKillListener(Runnable listener) {
+        killListeners.add(listener);
+        if (jobContext.isKilled() && killListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * run the kill listeners, every listener is run once only
+     */
+    void killed() {
+        for (Runnable listener : killListeners) {
+            if (killListeners.remove(listener)) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * kills the job of this operation if it exceeded its timeout.
+     * Reads the current time, so operations should call it every few rows only.
+     *
+     * @throws JobKilledException if the job has been killed or timed out
+     */
+    public void checkTimeout() throws JobKilledException {
+        if (jobContext.deadline() < System.currentTimeMillis()) {
+            jobContext.timeOut();
+        }
+        checkKilled();
+    }
+}
@@ -23,11 +23,18 @@ package io.crate.operation.merge;
 
 import io.crate.operation.DownstreamOperation;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.job.OperationContext;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.Projector;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.node.dql.MergeNode;
 
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -38,19 +45,64 @@ public class MergeOperation implements DownstreamOperation {
     private final List<Projector> projectors;
     private final Projector firstProjector;
     private final int numUpstreams;
+    private final RamAccountingContext ramAccountingContext;
+    private final JobContextService jobContextService;
+    private final OperationContext operationContext;
 
     private AtomicBoolean wantMore = new AtomicBoolean(true);
+    private final AtomicBoolean done = new AtomicBoolean(false);
 
     public MergeOperation(ImplementationSymbolVisitor symbolVisitor, MergeNode mergeNode) {
-        ProjectionToProjectorVisitor projectorVisitor = new ProjectionToProjectorVisitor(symbolVisitor);
+        this(symbolVisitor, mergeNode, null, null, null);
+    }
+
+    /**
+     * @param spillService   if not null, grouping and sorting spill to disk once they exceed its budget
+     * @param breakerService if not null, the memory held by the projectors is accounted until {@link #close()}
+     * @param jobContextService if not null, the merge is registered as operation of its job until {@link #close()}
+     */
+    public MergeOperation(ImplementationSymbolVisitor symbolVisitor, MergeNode mergeNode,
+                          @Nullable SpillService spillService,
+                          @Nullable QueryBreakerService breakerService,
+                          @Nullable JobContextService jobContextService) {
+        String name = mergeNode.executionNodes().isEmpty() ? "merge" : "distributed merge";
+        if (breakerService != null) {
+            ramAccountingContext = breakerService.newContext(mergeNode.contextId(), name);
+        } else {
+            ramAccountingContext = null;
+        }
+        this.jobContextService = jobContextService;
+        if (jobContextService != null && mergeNode.contextId() != null) {
+            operationContext = jobContextService.startOperation(
+                    mergeNode.contextId(), name, ramAccountingContext, mergeNode.timeout());
+        } else {
+            operationContext = null;
+        }
+        ProjectionToProjectorVisitor projectorVisitor = new ProjectionToProjectorVisitor(
+                symbolVisitor, spillService, ramAccountingContext);
         this.projectors = projectorVisitor.process(mergeNode.projections());
         assert this.projectors.size() > 0;
         this.firstProjector = this.projectors.get(0);
         this.firstProjector.startProjection();
         this.numUpstreams = mergeNode.numUpstreams();
+        if (operationContext != null) {
+            operationContext.addKillListener(new Runnable() {
+                @Override
+                public void run() {
+                    fail(operationContext.killedException());
+                }
+            });
+        }
     }
 
     public boolean addRows(Object[][] rows) throws Exception{
+        if (operationContext != null) {
+            operationContext.checkTimeout();
+            operationContext.addRows(rows.length);
+        }
+        if (done.get()) {
+            return false;
+        }
         for (int i=0, length=rows.length; i< length && wantMore.get(); i++) {
             // assume that all projectors .setNextRow(...) methods are threadsafe
             if(!firstProjector.setNextRow(rows[i])) {
@@ -66,7 +118,36 @@ public class MergeOperation implements DownstreamOperation {
     }
 
     public Object[][] result() throws Exception  {
+        if (!done.compareAndSet(false, true)) {
+            if (operationContext != null) {
+                operationContext.checkKilled();
+            }
+            throw new IllegalStateException("merge has already been finished");
+        }
         firstProjector.finishProjection();
         return projectors.get(projectors.size()-1).getRows();
     }
+
+    /**
+     * fail the projectors so they release their resources, unless the merge has been finished
+     */
+    private void fail(Throwable throwable) {
+        if (done.compareAndSet(false, true)) {
+            firstProjector.failProjection(throwable);
+        }
+    }
+
+    /**
+     * releases the resources of the merge, fails its projectors if the result hasn't been retrieved
+     */
+    @Override
+    public void close() {
+        fail(new CancellationException("merge closed before its result was retrieved"));
+        if (ramAccountingContext != null) {
+            ramAccountingContext.close();
+        }
+        if (operationContext != null) {
+            jobContextService.finishOperation(operationContext);
+        }
+    }
 }
@@ -55,4 +55,21 @@ public abstract class AbstractProjector implements Projector {
     public void setDownStream(Projector downStream) {
         this.downStream = Optional.of(downStream);
     }
+
+    @Override
+    public boolean setNextRows(Object[][] rows, int numRows) {
+        for (int i = 0; i < numRows; i++) {
+            if (!setNextRow(rows[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void failProjection(Throwable throwable) {
+        if (downStream.isPresent()) {
+            downStream.get().failProjection(throwable);
+        }
+    }
 }
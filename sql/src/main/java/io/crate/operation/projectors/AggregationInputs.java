@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.collect.CollectExpression;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * inputs, collectExpressions and aggregations used by one thread to feed rows
+ * into a {@link GroupingProjector} or {@link AggregationProjector}.
+ *
+ * Inputs and collectExpressions hold the current row, so every collecting thread
+ * has to get its own instances from an {@link AggregationInputsFactory}.
+ */
+public class AggregationInputs {
+
+    public interface AggregationInputsFactory {
+        AggregationInputs create();
+    }
+
+    private final List<Input<?>> keyInputs;
+    private final Collection<CollectExpression<?>> collectExpressions;
+    private final AggregationContext[] aggregations;
+
+    public AggregationInputs(List<Input<?>> keyInputs,
+                             Collection<CollectExpression<?>> collectExpressions,
+                             AggregationContext[] aggregations) {
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        this.aggregations = aggregations;
+    }
+
+    public List<Input<?>> keyInputs() {
+        return keyInputs;
+    }
+
+    public Collection<CollectExpression<?>> collectExpressions() {
+        return collectExpressions;
+    }
+
+    public AggregationContext[] aggregations() {
+        return aggregations;
+    }
+
+    /**
+     * create a new {@link AggregationCollector} for every aggregation
+     */
+    public AggregationCollector[] aggregationCollectors() {
+        AggregationCollector[] aggregationCollectors = new AggregationCollector[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            aggregationCollectors[i] = new AggregationCollector(
+                    aggregations[i].symbol(),
+                    aggregations[i].function(),
+                    aggregations[i].inputs()
+            );
+        }
+        return aggregationCollectors;
+    }
+}
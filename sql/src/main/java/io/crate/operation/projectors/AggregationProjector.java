@@ -23,10 +23,11 @@ package io.crate.operation.projectors;
 
 import io.crate.operation.aggregation.AggregationCollector;
 import io.crate.operation.collect.CollectExpression;
-import io.crate.operation.AggregationContext;
 
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class AggregationProjector implements Projector {
 
@@ -56,30 +57,57 @@ public class AggregationProjector implements Projector {
         }
     }
 
-    private final AggregationCollector[] aggregationCollectors;
-    private final Set<CollectExpression<?>> collectExpressions;
-    private final Object[] row;
-    private Projector downStream;
+    /**
+     * aggregation state of a single collecting thread
+     */
+    private static class Aggregator {
+
+        private final Collection<CollectExpression<?>> collectExpressions;
+        private final AggregationCollector[] aggregationCollectors;
+
+        private Aggregator(AggregationInputs inputs) {
+            this.collectExpressions = inputs.collectExpressions();
+            this.aggregationCollectors = inputs.aggregationCollectors();
+            for (CollectExpression<?> collectExpression : collectExpressions) {
+                collectExpression.startCollect();
+            }
+            for (AggregationCollector aggregationCollector : aggregationCollectors) {
+                aggregationCollector.startCollect();
+            }
+        }
+
+        private void setNextRow(Object... row) {
+            for (CollectExpression<?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            for (AggregationCollector aggregationCollector : aggregationCollectors) {
+                aggregationCollector.processRow();
+            }
+        }
 
-    public AggregationProjector(Set<CollectExpression<?>> collectExpressions,
-                                AggregationContext[] aggregations) {
-
-        row = new Object[aggregations.length];
-        this.collectExpressions = collectExpressions;
-        aggregationCollectors = new AggregationCollector[aggregations.length];
-        for (int i = 0; i < aggregationCollectors.length; i++) {
-            aggregationCollectors[i] = new AggregationCollector(
-                    aggregations[i].symbol(),
-                    aggregations[i].function(),
-                    aggregations[i].inputs()
-            );
-
-            // startCollect creates the aggregationState. In case of the AggregationProjector
-            // we only want to have 1 global state not 1 state per node/shard or even document.
-            aggregationCollectors[i].startCollect();
+        @SuppressWarnings("unchecked")
+        private void merge(Aggregator other) {
+            for (int i = 0; i < aggregationCollectors.length; i++) {
+                aggregationCollectors[i].state().reduce(other.aggregationCollectors[i].state());
+            }
         }
     }
 
+    private final AggregationInputs.AggregationInputsFactory inputsFactory;
+    private final ConcurrentMap<Thread, Aggregator> aggregators = new ConcurrentHashMap<>();
+    private Object[] row;
+    private Projector downStream;
+
+    /**
+     * Every thread calling {@link #setNextRow(Object...)} aggregates into its own states
+     * which are merged on {@link #finishProjection()}.
+     * In case of the AggregationProjector there is only 1 global state per thread,
+     * not 1 state per node/shard or even document.
+     */
+    public AggregationProjector(AggregationInputs.AggregationInputsFactory inputsFactory) {
+        this.inputsFactory = inputsFactory;
+    }
+
     @Override
     public void setDownStream(Projector downStream) {
         this.downStream = downStream;
@@ -87,28 +115,50 @@ public class AggregationProjector implements Projector {
 
     @Override
     public void startProjection() {
-        for (CollectExpression<?> collectExpression : collectExpressions) {
-            collectExpression.startCollect();
-        }
+        // aggregators are created lazily by the collecting threads
     }
 
     @Override
-    public synchronized boolean setNextRow(Object... row) {
-        for (CollectExpression<?> collectExpression : collectExpressions) {
-            collectExpression.setNextRow(row);
-        }
+    public boolean setNextRow(Object... row) {
+        threadAggregator().setNextRow(row);
+        return true;
+    }
 
-        for (AggregationCollector aggregationCollector : aggregationCollectors) {
-            aggregationCollector.processRow();
+    @Override
+    public boolean setNextRows(Object[][] rows, int numRows) {
+        Aggregator aggregator = threadAggregator();
+        for (int i = 0; i < numRows; i++) {
+            aggregator.setNextRow(rows[i]);
         }
-
         return true;
     }
 
+    private Aggregator threadAggregator() {
+        Aggregator aggregator = aggregators.get(Thread.currentThread());
+        if (aggregator == null) {
+            aggregator = new Aggregator(inputsFactory.create());
+            aggregators.put(Thread.currentThread(), aggregator);
+        }
+        return aggregator;
+    }
+
     @Override
     public void finishProjection() {
-        for (int i = 0; i < aggregationCollectors.length; i++) {
-            row[i] = aggregationCollectors[i].finishCollect();
+        Aggregator aggregator;
+        Iterator<Aggregator> it = aggregators.values().iterator();
+        if (it.hasNext()) {
+            aggregator = it.next();
+            while (it.hasNext()) {
+                aggregator.merge(it.next());
+            }
+        } else {
+            aggregator = new Aggregator(inputsFactory.create());
+        }
+        aggregators.clear();
+
+        row = new Object[aggregator.aggregationCollectors.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = aggregator.aggregationCollectors[i].finishCollect();
         }
 
         if (downStream != null) {
@@ -118,6 +168,14 @@ public class AggregationProjector implements Projector {
         }
     }
 
+    @Override
+    public void failProjection(Throwable throwable) {
+        aggregators.clear();
+        if (downStream != null) {
+            downStream.failProjection(throwable);
+        }
+    }
+
     @Override
     public Object[][] getRows() throws IllegalStateException {
         return new Object[][]{row};
@@ -0,0 +1,126 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.projectors;
+
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.spill.SpillFile;
+import io.crate.operation.spill.SpillService;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * groups spilled to disk by the {@link GroupingProjector}.
+ *
+ * Groups are written into one of {@link #NUM_PARTITIONS} files depending on the hash of their keys,
+ * so all partial states of a group end up in the same partition and every partition
+ * can be reduced on its own, needing only a fraction of the memory of all groups.
+ */
+class GroupSpill implements Closeable {
+
+    static final int NUM_PARTITIONS = 16;
+
+    private final SpillService spillService;
+    private final SpillFile[] partitions = new SpillFile[NUM_PARTITIONS];
+    private boolean closed = false;
+
+    GroupSpill(SpillService spillService) {
+        this.spillService = spillService;
+    }
+
+    /**
+     * write all groups of the grouper to the partitions, the groups are dropped if the spill is closed already
+     */
+    synchronized void spill(Grouper grouper) throws IOException {
+        if (closed) {
+            return;
+        }
+        Iterator<Grouper.Group> it = grouper.groups();
+        while (it.hasNext()) {
+            Grouper.Group group = it.next();
+            int partition = (Arrays.hashCode(group.keys) & Integer.MAX_VALUE) % NUM_PARTITIONS;
+            if (partitions[partition] == null) {
+                partitions[partition] = spillService.newFile("group");
+            }
+            StreamOutput out = partitions[partition].output();
+            out.writeBoolean(true);
+            for (Object key : group.keys) {
+                SpillFile.writeValue(out, key);
+            }
+            for (AggregationState state : group.states) {
+                state.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * read all groups of a partition into the grouper, reducing the states of equal groups
+     */
+    void read(int partition, Grouper grouper) throws IOException {
+        SpillFile file = partitions[partition];
+        if (file == null) {
+            return;
+        }
+        file.output().writeBoolean(false);
+        StreamInput in = file.input();
+        while (in.readBoolean()) {
+            Object[] keys = new Object[grouper.numKeys];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = SpillFile.readValue(in);
+            }
+            AggregationState[] states = new AggregationState[grouper.aggregationCollectors.length];
+            for (int i = 0; i < states.length; i++) {
+                grouper.aggregationCollectors[i].startCollect();
+                states[i] = grouper.aggregationCollectors[i].state();
+                states[i].readFrom(in);
+            }
+            grouper.add(new Grouper.Group(keys, states));
+        }
+        file.close();
+        partitions[partition] = null;
+    }
+
+    /**
+     * close and delete all partitions
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        IOException exception = null;
+        for (int i = 0; i < partitions.length; i++) {
+            if (partitions[i] != null) {
+                try {
+                    partitions[i].close();
+                } catch (IOException e) {
+                    exception = e;
+                }
+                partitions[i] = null;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
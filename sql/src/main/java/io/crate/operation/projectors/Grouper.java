@@ -0,0 +1,157 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.projectors;
+
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.collect.CollectExpression;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * groups the rows of a single thread by their keys
+ * and holds the aggregation states of every group.
+ */
+abstract class Grouper {
+
+    /**
+     * keys and aggregation states of a group
+     */
+    static class Group {
+        final Object[] keys;
+        final AggregationState[] states;
+
+        Group(Object[] keys, AggregationState[] states) {
+            this.keys = keys;
+            this.states = states;
+        }
+    }
+
+    protected final Collection<CollectExpression<?>> collectExpressions;
+    protected final AggregationCollector[] aggregationCollectors;
+    protected final int numKeys;
+
+    /**
+     * bytes added to the {@link io.crate.operation.breaker.RamAccountingContext} for the groups of this grouper
+     */
+    long accountedBytes = 0;
+
+    protected Grouper(int numKeys,
+                      Collection<CollectExpression<?>> collectExpressions,
+                      AggregationCollector[] aggregationCollectors) {
+        this.numKeys = numKeys;
+        this.collectExpressions = collectExpressions;
+        this.aggregationCollectors = aggregationCollectors;
+    }
+
+    public boolean setNextRow(Object... row) {
+        for (CollectExpression collectExpression : collectExpressions) {
+            collectExpression.setNextRow(row);
+        }
+
+        AggregationState[] states = statesForCurrentRow();
+        for (int i = 0; i < aggregationCollectors.length; i++) {
+            if (states[i] == null) {
+                aggregationCollectors[i].startCollect();
+                aggregationCollectors[i].processRow();
+                states[i] = aggregationCollectors[i].state();
+            } else {
+                aggregationCollectors[i].state(states[i]);
+                aggregationCollectors[i].processRow();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the states of the group the current row belongs to.
+     * If the group didn't exist yet an array without any states is returned.
+     */
+    protected abstract AggregationState[] statesForCurrentRow();
+
+    /**
+     * the states of the group with the given keys.
+     * If the group didn't exist yet an array without any states is returned.
+     */
+    protected abstract AggregationState[] statesFor(Object[] keys);
+
+    /**
+     * the estimated size in bytes of the keys of the current row
+     */
+    protected abstract long currentKeysSize();
+
+    public abstract int size();
+
+    public abstract Iterator<Group> groups();
+
+    /**
+     * add the group to this grouper or reduce its states into the states of the existing group
+     */
+    @SuppressWarnings("unchecked")
+    protected void add(Group group) {
+        AggregationState[] states = statesFor(group.keys);
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == null) {
+                states[i] = group.states[i];
+            } else {
+                states[i].reduce(group.states[i]);
+            }
+        }
+    }
+
+    public void merge(Grouper other) {
+        Iterator<Group> it = other.groups();
+        while (it.hasNext()) {
+            add(it.next());
+        }
+    }
+
+    /**
+     * transform the groups into rows containing the keys followed by the aggregation results
+     */
+    public Iterator<Object[]> iterator() {
+        final Iterator<Group> groups = groups();
+        return new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return groups.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Group group = groups.next();
+                Object[] row = new Object[numKeys + aggregationCollectors.length];
+                System.arraycopy(group.keys, 0, row, 0, numKeys);
+                for (int i = 0; i < aggregationCollectors.length; i++) {
+                    aggregationCollectors[i].state(group.states[i]);
+                    row[numKeys + i] = aggregationCollectors[i].finishCollect();
+                }
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove not supported");
+            }
+        };
+    }
+}
@@ -21,42 +21,93 @@
 
 package io.crate.operation.projectors;
 
-import io.crate.operation.Input;
-import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.core.collections.ArrayIterator;
+import io.crate.exceptions.CrateException;
 import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.breaker.SizeEstimator;
 import io.crate.operation.collect.CollectExpression;
-import io.crate.operation.AggregationContext;
+import io.crate.operation.spill.SpillService;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Groups rows by the values of the keyInputs and aggregates them per group.
+ *
+ * Every thread calling {@link #setNextRow(Object...)} groups into its own {@link Grouper}
+ * using its own inputs created by the {@link AggregationInputs.AggregationInputsFactory},
+ * so no synchronization is required while collecting.
+ * The partial states of all groupers are merged using {@link AggregationState#reduce}
+ * on {@link #finishProjection()}.
+ *
+ * A single key is grouped by the {@link PrimitiveKeyGrouper} which avoids a boxed hash map for
+ * numeric keys, many keys are packed into bytes by the {@link PackedKeyGrouper}.
+ *
+ * If a {@link SpillService} is given and the groups of the collecting threads exceed its budget,
+ * the groups are spilled to disk, see {@link GroupSpill}. The spilled partitions are reduced
+ * one after another on {@link #finishProjection()}, {@link #failProjection(Throwable)} deletes them.
+ *
+ * If a {@link RamAccountingContext} is given, every new group is accounted by the size of its keys.
+ * If the circuit breaker trips the groups are spilled if possible, otherwise the projection fails.
+ *
+ * If a {@link PageHandler} is set, the groups of a collecting thread are passed to it as soon as they
+ * exceed its page size. This is only correct if the rows are partial results which are reduced again.
+ */
+public class GroupingProjector implements Projector {
 
-import java.util.*;
+    /**
+     * receives the groups of a collecting thread before the projection is finished
+     */
+    public interface PageHandler {
+
+        /**
+         * number of groups of a collecting thread that are passed as a page
+         */
+        public int pageSize();
+
+        /**
+         * @param rows the rows of the groups of a collecting thread,
+         *             they have to be consumed before this method returns
+         * @return false if the page isn't taken, e.g. because previous pages are still processed.
+         *         The groups are kept by the projector in this case.
+         */
+        public boolean page(Iterable<Object[]> rows);
+    }
 
-public class GroupingProjector implements Projector {
+    private final AggregationInputs.AggregationInputsFactory inputsFactory;
+    private final ConcurrentMap<Thread, Grouper> groupers = new ConcurrentHashMap<>();
 
-    private final List<CollectExpression<?>> collectExpressions;
+    private final SpillService spillService;
+    private final RamAccountingContext ramAccountingContext;
 
-    private final Grouper grouper;
+    /**
+     * estimated size of an aggregation state
+     */
+    private static final long STATE_SIZE = 64;
 
+    private PageHandler pageHandler;
+    private GroupSpill spill;
+    private boolean failed = false;
     private Object[][] rows;
     private Projector downStream = null;
 
-    public GroupingProjector(List<Input<?>> keyInputs,
-                             List<CollectExpression<?>> collectExpressions,
-                             AggregationContext[] aggregations) {
-        this.collectExpressions = collectExpressions;
-
-        AggregationCollector[] aggregationCollectors = new AggregationCollector[aggregations.length];
-        for (int i = 0; i < aggregations.length; i++) {
-            aggregationCollectors[i] = new AggregationCollector(
-                    aggregations[i].symbol(),
-                    aggregations[i].function(),
-                    aggregations[i].inputs()
-            );
-        }
+    public GroupingProjector(AggregationInputs.AggregationInputsFactory inputsFactory) {
+        this(inputsFactory, null, null);
+    }
 
-        if (keyInputs.size() == 1) {
-            grouper = new SingleKeyGrouper(keyInputs.get(0), collectExpressions, aggregationCollectors);
-        } else {
-            grouper = new ManyKeyGrouper(keyInputs, collectExpressions, aggregationCollectors);
-        }
+    public GroupingProjector(AggregationInputs.AggregationInputsFactory inputsFactory,
+                             @Nullable SpillService spillService,
+                             @Nullable RamAccountingContext ramAccountingContext) {
+        this.inputsFactory = inputsFactory;
+        this.spillService = spillService;
+        this.ramAccountingContext = ramAccountingContext;
     }
 
     @Override
@@ -64,294 +115,260 @@ public class GroupingProjector implements Projector {
         this.downStream = downStream;
     }
 
-    @Override
-    public void startProjection() {
-        for (CollectExpression collectExpression : collectExpressions) {
-            collectExpression.startCollect();
-        }
+    public void pageHandler(@Nullable PageHandler pageHandler) {
+        this.pageHandler = pageHandler;
     }
 
     @Override
-    public synchronized boolean setNextRow(final Object... row) {
-        return grouper.setNextRow(row);
+    public void startProjection() {
+        // groupers are created lazily by the collecting threads.
+        // startProjection might be called by every shard of a collect operation,
+        // even while other shards already feed rows, so there's nothing to reset here.
     }
 
     @Override
-    public void finishProjection() {
-        rows = grouper.finish();
-    }
-
-    /**
-     * transform map entry into pre-allocated object array.
-     * @param entry
-     * @param row
-     * @param aggregationCollectors
-     */
-    private static void transformToRow(Map.Entry<List<Object>, AggregationState[]> entry,
-                                       Object[] row,
-                                       AggregationCollector[] aggregationCollectors) {
-        int c = 0;
-
-        for (Object o : entry.getKey()) {
-            row[c] = o;
-            c++;
+    public boolean setNextRow(final Object... row) {
+        Grouper threadGrouper = threadGrouper();
+        int numGroups = threadGrouper.size();
+        threadGrouper.setNextRow(row);
+        boolean spillGroups = false;
+        if (ramAccountingContext != null && threadGrouper.size() > numGroups) {
+            spillGroups = !accountGroup(threadGrouper, threadGrouper.currentKeysSize());
         }
-
-        AggregationState[] aggregationStates = entry.getValue();
-        for (int i = 0; i < aggregationStates.length; i++) {
-            aggregationCollectors[i].state(aggregationStates[i]);
-            row[c] = aggregationCollectors[i].finishCollect();
-            c++;
+        if (page(threadGrouper)) {
+            return true;
         }
-    }
-
-    private static void singleTransformToRow(Map.Entry<Object, AggregationState[]> entry,
-                                       Object[] row,
-                                       AggregationCollector[] aggregationCollectors) {
-        int c = 0;
-        row[c] = entry.getKey();
-        c++;
-        AggregationState[] aggregationStates = entry.getValue();
-        for (int i = 0; i < aggregationStates.length; i++) {
-            aggregationCollectors[i].state(aggregationStates[i]);
-            row[c] = aggregationCollectors[i].finishCollect();
-            c++;
+        if (spillService != null
+                && threadGrouper.size() > spillService.maxRows() / Math.max(1, groupers.size())) {
+            spillGroups = true;
         }
+        if (spillGroups) {
+            spill(threadGrouper);
+        }
+        return true;
     }
 
     @Override
-    public Object[][] getRows() throws IllegalStateException {
-        return rows;
-    }
-
-    @Override
-    public Iterator<Object[]> iterator() {
-        return grouper.iterator();
+    public boolean setNextRows(Object[][] rows, int numRows) {
+        for (int i = 0; i < numRows; i++) {
+            setNextRow(rows[i]);
+        }
+        return true;
     }
 
-    private interface Grouper {
-        boolean setNextRow(final Object... row);
-        Object[][] finish();
-        Iterator<Object[]> iterator();
+    /**
+     * account the memory of a new group
+     *
+     * @return false if the circuit breaker tripped and the groups have to be spilled
+     * @throws CircuitBreakingException if the circuit breaker tripped and spilling isn't possible
+     */
+    private boolean accountGroup(Grouper threadGrouper, long keyBytes) throws CircuitBreakingException {
+        long bytes = keyBytes + threadGrouper.aggregationCollectors.length * STATE_SIZE;
+        try {
+            ramAccountingContext.addBytes(bytes);
+        } catch (CircuitBreakingException e) {
+            if (spillService == null) {
+                throw e;
+            }
+            return false;
+        }
+        threadGrouper.accountedBytes += bytes;
+        return true;
     }
 
-    private class SingleKeyGrouper implements Grouper {
-
-        private final Map<Object, AggregationState[]> result;
-        private final List<CollectExpression<?>> collectExpressions;
-        private final AggregationCollector[] aggregationCollectors;
-        private final Input keyInput;
-
-        public SingleKeyGrouper(Input keyInput,
-                                List<CollectExpression<?>> collectExpressions,
-                                AggregationCollector[] aggregationCollectors) {
-            this.result = new HashMap<>();
-            this.keyInput = keyInput;
-            this.collectExpressions = collectExpressions;
-            this.aggregationCollectors = aggregationCollectors;
+    /**
+     * pass the groups of the grouper of the current thread to the pageHandler if they exceed its page size
+     *
+     * @return true if the groups have been taken and the thread starts with a new grouper
+     */
+    private boolean page(final Grouper threadGrouper) {
+        if (pageHandler == null || threadGrouper.size() < pageHandler.pageSize()) {
+            return false;
         }
-
-        @Override
-        public boolean setNextRow(Object... row) {
-            for (CollectExpression collectExpression : collectExpressions) {
-                collectExpression.setNextRow(row);
+        boolean taken = pageHandler.page(new Iterable<Object[]>() {
+            @Override
+            public Iterator<Object[]> iterator() {
+                return threadGrouper.iterator();
             }
-
-            Object key = keyInput.value();
-            AggregationState[] states = result.get(key);
-            if (states == null) {
-                states = new AggregationState[aggregationCollectors.length];
-                for (int i = 0; i < aggregationCollectors.length; i++) {
-                    aggregationCollectors[i].startCollect();
-                    aggregationCollectors[i].processRow();
-                    states[i] = aggregationCollectors[i].state();
-                }
-                result.put(key, states);
-            } else {
-                for (int i = 0; i < aggregationCollectors.length; i++) {
-                    aggregationCollectors[i].state(states[i]);
-                    aggregationCollectors[i].processRow();
-                }
+        });
+        if (taken) {
+            if (ramAccountingContext != null) {
+                ramAccountingContext.releaseBytes(threadGrouper.accountedBytes);
             }
-
-            return true;
+            groupers.put(Thread.currentThread(), newGrouper());
         }
+        return taken;
+    }
 
-        @Override
-        public Object[][] finish() {
-            Object[][] rows = new Object[result.size()][1 + aggregationCollectors.length];
-            boolean sendToDownStream = downStream != null;
-            if (sendToDownStream) {
-                downStream.startProjection();
-            }
-
-            int r = 0;
-            for (Map.Entry<Object, AggregationState[]> entry : result.entrySet()) {
-                Object[] row = rows[r];
-                singleTransformToRow(entry, row, aggregationCollectors);
-                if (sendToDownStream) {
-                    sendToDownStream = downStream.setNextRow(row);
+    /**
+     * spill the groups of the grouper of the current thread to disk and start with a new one
+     */
+    private void spill(Grouper threadGrouper) {
+        try {
+            GroupSpill groupSpill;
+            synchronized (this) {
+                if (spill == null && !failed) {
+                    spill = new GroupSpill(spillService);
                 }
-                r++;
+                groupSpill = spill;
             }
-
-            if (downStream != null) {
-                downStream.finishProjection();
+            // the groups are dropped if the projection has failed
+            if (groupSpill != null) {
+                groupSpill.spill(threadGrouper);
             }
-
-            return rows;
+        } catch (IOException e) {
+            throw new CrateException("Failed to spill groups to disk", e);
         }
-
-        @Override
-        public Iterator<Object[]> iterator() {
-            return new SingleEntryToRowIterator(
-                    result.entrySet().iterator(), aggregationCollectors.length + 1, aggregationCollectors);
+        if (ramAccountingContext != null) {
+            ramAccountingContext.releaseBytes(threadGrouper.accountedBytes);
         }
+        groupers.put(Thread.currentThread(), newGrouper());
     }
 
-    private class ManyKeyGrouper implements Grouper {
-
-        private final AggregationCollector[] aggregationCollectors;
-        private final Map<List<Object>, AggregationState[]> result;
-        private final List<CollectExpression<?>> collectExpressions;
-        private final List<Input<?>> keyInputs;
-
-        public ManyKeyGrouper(List<Input<?>> keyInputs,
-                              List<CollectExpression<?>> collectExpressions,
-                              AggregationCollector[] aggregationCollectors) {
-            this.result = new HashMap<>();
-            this.collectExpressions = collectExpressions;
-            this.keyInputs = keyInputs;
-            this.aggregationCollectors = aggregationCollectors;
+    /**
+     * add a group which has been aggregated by the caller, e.g. using ordinals in a shard.
+     * The states are reduced into the states of an existing group with the same keys.
+     *
+     * @param keys the values of the group keys
+     * @param states states created by the aggregationCollectors of {@link #inputsFactory()}
+     */
+    public boolean setNextGroup(Object[] keys, AggregationState[] states) {
+        Grouper threadGrouper = threadGrouper();
+        int numGroups = threadGrouper.size();
+        threadGrouper.add(new Grouper.Group(keys, states));
+        if (ramAccountingContext != null && threadGrouper.size() > numGroups
+                && !accountGroup(threadGrouper, SizeEstimator.estimate(keys))) {
+            if (!page(threadGrouper)) {
+                spill(threadGrouper);
+            }
+        } else {
+            page(threadGrouper);
         }
+        return true;
+    }
 
-        @Override
-        public boolean setNextRow(Object... row) {
-            for (CollectExpression collectExpression : collectExpressions) {
-                collectExpression.setNextRow(row);
-            }
+    public AggregationInputs.AggregationInputsFactory inputsFactory() {
+        return inputsFactory;
+    }
 
-            // TODO: use something with better equals() performance for the keys
-            List<Object> key = new ArrayList<>(keyInputs.size());
-            for (Input keyInput : keyInputs) {
-                key.add(keyInput.value());
-            }
+    private Grouper threadGrouper() {
+        Grouper threadGrouper = groupers.get(Thread.currentThread());
+        if (threadGrouper == null) {
+            threadGrouper = newGrouper();
+            groupers.put(Thread.currentThread(), threadGrouper);
+        }
+        return threadGrouper;
+    }
 
-            AggregationState[] states = result.get(key);
-            if (states == null) {
-                states = new AggregationState[aggregationCollectors.length];
-                for (int i = 0; i < aggregationCollectors.length; i++) {
-                    aggregationCollectors[i].startCollect();
-                    aggregationCollectors[i].processRow();
-                    states[i] = aggregationCollectors[i].state();
+    @Override
+    public void finishProjection() {
+        List<Object[]> gatheredRows = new ArrayList<>();
+        if (downStream != null) {
+            downStream.startProjection();
+        }
+        if (spill == null) {
+            Grouper grouper;
+            Iterator<Grouper> it = groupers.values().iterator();
+            if (it.hasNext()) {
+                grouper = it.next();
+                while (it.hasNext()) {
+                    grouper.merge(it.next());
                 }
-                result.put(key, states);
             } else {
-                for (int i = 0; i < aggregationCollectors.length; i++) {
-                    aggregationCollectors[i].state(states[i]);
-                    aggregationCollectors[i].processRow();
-                }
+                grouper = newGrouper();
             }
-
-            return true;
-        }
-
-        @Override
-        public Object[][] finish() {
-            Object[][] rows = new Object[result.size()][keyInputs.size() + aggregationCollectors.length];
-            boolean sendToDownStream = downStream != null;
-            if (sendToDownStream) {
-                downStream.startProjection();
-            }
-
-            int r = 0;
-            for (Map.Entry<List<Object>, AggregationState[]> entry : result.entrySet()) {
-                Object[] row = rows[r];
-                transformToRow(entry, row, aggregationCollectors);
-                if (sendToDownStream) {
-                    sendToDownStream = downStream.setNextRow(row);
+            groupers.clear();
+            emit(grouper, gatheredRows);
+        } else {
+            try {
+                for (Grouper grouper : groupers.values()) {
+                    spill.spill(grouper);
                 }
-                r++;
-            }
-
-            if (downStream != null) {
-                downStream.finishProjection();
+                groupers.clear();
+                for (int partition = 0; partition < GroupSpill.NUM_PARTITIONS; partition++) {
+                    Grouper grouper = newGrouper();
+                    spill.read(partition, grouper);
+                    if (!emit(grouper, gatheredRows)) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new CrateException("Failed to read spilled groups", e);
+            } finally {
+                closeSpill();
             }
-
-            return rows;
         }
-
-        @Override
-        public Iterator<Object[]> iterator() {
-            return new MultiEntryToRowIterator(
-                    result.entrySet().iterator(),
-                    keyInputs.size() + aggregationCollectors.length,
-                    aggregationCollectors);
+        rows = gatheredRows.toArray(new Object[gatheredRows.size()][]);
+        if (downStream != null) {
+            downStream.finishProjection();
         }
     }
 
-
-    private static class SingleEntryToRowIterator implements Iterator<Object[]> {
-
-        private final Iterator<Map.Entry<Object, AggregationState[]>> iter;
-        private final int rowLength;
-        private final AggregationCollector[] aggregationCollectors;
-
-        private SingleEntryToRowIterator(Iterator<Map.Entry<Object, AggregationState[]>> iter,
-                                   int rowLength, AggregationCollector[] aggregationCollectors) {
-            this.iter = iter;
-            this.rowLength = rowLength;
-            this.aggregationCollectors = aggregationCollectors;
+    @Override
+    public void failProjection(Throwable throwable) {
+        synchronized (this) {
+            failed = true;
+            closeSpill();
         }
-
-        @Override
-        public boolean hasNext() {
-            return iter.hasNext();
+        groupers.clear();
+        if (downStream != null) {
+            downStream.failProjection(throwable);
         }
+    }
 
-        @Override
-        public Object[] next() {
-            Map.Entry<Object, AggregationState[]> entry = iter.next();
-            Object[] row = new Object[rowLength];
-            singleTransformToRow(entry, row, aggregationCollectors);
-            return row;
+    private synchronized void closeSpill() {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                // the files are deleted anyway, only closing their streams failed
+            }
+            spill = null;
         }
+    }
 
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException("remove not supported");
+    /**
+     * pass the rows of the grouper to the downStream, gather them if there is no downStream
+     * or if nothing was spilled.
+     *
+     * @return false if the downStream doesn't need any more rows
+     */
+    private boolean emit(Grouper grouper, List<Object[]> gatheredRows) {
+        boolean gather = downStream == null || spill == null;
+        boolean sendToDownStream = downStream != null;
+        Iterator<Object[]> rowIterator = grouper.iterator();
+        while (rowIterator.hasNext() && (gather || sendToDownStream)) {
+            Object[] row = rowIterator.next();
+            if (gather) {
+                gatheredRows.add(row);
+            }
+            if (sendToDownStream) {
+                sendToDownStream = downStream.setNextRow(row);
+            }
         }
+        return downStream == null || sendToDownStream;
     }
 
-    private static class MultiEntryToRowIterator implements Iterator<Object[]> {
-
-        private final Iterator<Map.Entry<List<Object>, AggregationState[]>> iter;
-        private final int rowLength;
-        private final AggregationCollector[] aggregationCollectors;
-
-        private MultiEntryToRowIterator(Iterator<Map.Entry<List<Object>, AggregationState[]>> iter,
-                                   int rowLength, AggregationCollector[] aggregationCollectors) {
-            this.iter = iter;
-            this.rowLength = rowLength;
-            this.aggregationCollectors = aggregationCollectors;
+    private Grouper newGrouper() {
+        AggregationInputs inputs = inputsFactory.create();
+        for (CollectExpression<?> collectExpression : inputs.collectExpressions()) {
+            collectExpression.startCollect();
         }
-
-        @Override
-        public boolean hasNext() {
-            return iter.hasNext();
+        if (inputs.keyInputs().size() == 1) {
+            return new PrimitiveKeyGrouper(
+                    inputs.keyInputs().get(0), inputs.collectExpressions(), inputs.aggregationCollectors());
         }
+        return new PackedKeyGrouper(
+                inputs.keyInputs(), inputs.collectExpressions(), inputs.aggregationCollectors());
+    }
 
-        @Override
-        public Object[] next() {
-            Map.Entry<List<Object>, AggregationState[]> entry = iter.next();
-            Object[] row = new Object[rowLength];
-            transformToRow(entry, row, aggregationCollectors);
-            return row;
-        }
+    @Override
+    public Object[][] getRows() throws IllegalStateException {
+        return rows;
+    }
 
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException("remove not supported");
-        }
+    @Override
+    public Iterator<Object[]> iterator() {
+        return new ArrayIterator(rows, 0, rows.length);
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.Iterators;
+import io.crate.Constants;
+import io.crate.exceptions.CrateException;
+import io.crate.exceptions.DuplicateKeyException;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.bulk.TransportBulkAction;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.rest.RestStatus;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Projector which indexes every row it receives as document of a table.
+ *
+ * The documents are sent in bulk requests of {@link #BULK_SIZE} documents, which elasticsearch
+ * forwards to the primary shards of the documents. At most {@link #MAX_BULKS_IN_FLIGHT} bulk requests
+ * are executed concurrently, the collecting threads are blocked until a bulk request finished.
+ *
+ * Results in one row containing the number of indexed documents.
+ * Like an INSERT, a row whose primary key already exists fails the projection with a
+ * {@link io.crate.exceptions.DuplicateKeyException}, the documents indexed until then are kept.
+ */
+public class IndexWriterProjector implements Projector {
+
+    private static final ESLogger logger = Loggers.getLogger(IndexWriterProjector.class);
+
+    static final int BULK_SIZE = 1000;
+    static final int MAX_BULKS_IN_FLIGHT = 4;
+
+    private final TransportBulkAction bulkAction;
+    private final String index;
+    private final List<String> columns;
+    private final int primaryKeyIdx;
+    private final int clusteredByIdx;
+    private final Semaphore bulksInFlight = new Semaphore(MAX_BULKS_IN_FLIGHT);
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicReference<String> failure = new AtomicReference<>();
+    private final AtomicReference<String> duplicateKey = new AtomicReference<>();
+
+    private BulkRequest bulkRequest = new BulkRequest();
+    private Projector downStream;
+    private Object[] row;
+
+    /**
+     * @param primaryKeyIdx  position of the primary key value in the rows, -1 to generate ids
+     * @param clusteredByIdx position of the clustered by value in the rows, -1 to route by id
+     */
+    public IndexWriterProjector(TransportBulkAction bulkAction,
+                                String index,
+                                List<String> columns,
+                                int primaryKeyIdx,
+                                int clusteredByIdx) {
+        this.bulkAction = bulkAction;
+        this.index = index;
+        this.columns = columns;
+        this.primaryKeyIdx = primaryKeyIdx;
+        this.clusteredByIdx = clusteredByIdx;
+    }
+
+    /**
+     * counts the indexed documents of a bulk request and keeps its failures
+     */
+    private class BulkListener implements ActionListener<BulkResponse> {
+
+        @Override
+        public void onResponse(BulkResponse bulkItemResponses) {
+            long indexed = 0;
+            long failed = 0;
+            for (BulkItemResponse response : bulkItemResponses.getItems()) {
+                if (!response.isFailed()) {
+                    indexed++;
+                } else if (response.getFailure().getStatus() == RestStatus.CONFLICT) {
+                    failed++;
+                    duplicateKey.compareAndSet(null, response.getId());
+                } else {
+                    failed++;
+                    failure.compareAndSet(null, response.getFailureMessage());
+                }
+            }
+            rowCount.addAndGet(indexed);
+            failedRows.addAndGet(failed);
+            if (logger.isTraceEnabled()) {
+                logger.trace("[{}] bulk of {} documents done, {} indexed, {} failed",
+                        index, bulkItemResponses.getItems().length, indexed, failed);
+            }
+            bulksInFlight.release();
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            failure.compareAndSet(null, e.getMessage());
+            bulksInFlight.release();
+        }
+    }
+
+    @Override
+    public void setDownStream(Projector downStream) {
+        this.downStream = downStream;
+    }
+
+    @Override
+    public void startProjection() {
+    }
+
+    @Override
+    public synchronized boolean setNextRow(Object... row) {
+        addRow(row);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean setNextRows(Object[][] rows, int numRows) {
+        for (int i = 0; i < numRows; i++) {
+            addRow(rows[i]);
+        }
+        return true;
+    }
+
+    private void addRow(Object[] row) {
+        Map<String, Object> source = new HashMap<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            source.put(columns.get(i), value(row[i]));
+        }
+
+        String id;
+        if (primaryKeyIdx < 0) {
+            id = Strings.randomBase64UUID();
+        } else {
+            id = idValue(row, primaryKeyIdx, "Primary key value must not be NULL");
+        }
+        String routing;
+        if (clusteredByIdx < 0) {
+            routing = id;
+        } else {
+            routing = idValue(row, clusteredByIdx, "Clustered by value must not be NULL");
+            if (clusteredByIdx != primaryKeyIdx) {
+                // clustered-by value must always be last
+                id = id + Constants.ID_SEPARATOR + routing;
+            }
+        }
+
+        IndexRequest request = new IndexRequest(index, Constants.DEFAULT_MAPPING_TYPE, id);
+        request.create(true);
+        request.routing(routing);
+        request.source(source);
+        bulkRequest.add(request);
+        if (bulkRequest.numberOfActions() >= BULK_SIZE) {
+            executeBulk();
+        }
+    }
+
+    @Nullable
+    private static Object value(Object value) {
+        if (value instanceof BytesRef) {
+            return ((BytesRef) value).utf8ToString();
+        }
+        return value;
+    }
+
+    private static String idValue(Object[] row, int idx, String nullMessage) {
+        Object value = value(row[idx]);
+        if (value == null) {
+            throw new IllegalArgumentException(nullMessage);
+        }
+        return value.toString();
+    }
+
+    /**
+     * send the current bulk request, blocks while too many bulk requests are in flight
+     */
+    private void executeBulk() {
+        // stop indexing once a bulk request failed
+        checkFailure();
+        acquireBulks(1);
+        BulkRequest request = bulkRequest;
+        bulkRequest = new BulkRequest();
+        bulkAction.execute(request, new BulkListener());
+    }
+
+    private void acquireBulks(int numBulks) {
+        try {
+            bulksInFlight.acquire(numBulks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CrateException("Interrupted while waiting for index requests", e);
+        }
+    }
+
+    private void checkFailure() {
+        String message = failure.get();
+        if (message != null) {
+            throw new CrateException(String.format("Failed to index %d documents into %s: %s",
+                    failedRows.get(), index, message));
+        }
+        String id = duplicateKey.get();
+        if (id != null) {
+            throw new DuplicateKeyException(String.format(
+                    "A document with the same primary key exists already: %s", id), null);
+        }
+    }
+
+    /**
+     * send the remaining documents and wait for the responses of all bulk requests
+     *
+     * @throws CrateException if a document couldn't be indexed
+     * @throws DuplicateKeyException if the primary key of a document exists already
+     */
+    @Override
+    public synchronized void finishProjection() {
+        if (row != null) {
+            // already finished
+            return;
+        }
+        if (bulkRequest.numberOfActions() > 0 && failure.get() == null && duplicateKey.get() == null) {
+            executeBulk();
+        }
+        acquireBulks(MAX_BULKS_IN_FLIGHT);
+        bulksInFlight.release(MAX_BULKS_IN_FLIGHT);
+        row = new Object[]{rowCount.get()};
+        checkFailure();
+
+        if (downStream != null) {
+            downStream.setNextRow(row);
+            downStream.finishProjection();
+        }
+    }
+
+    /**
+     * the remaining documents aren't sent, bulk requests in flight are not waited for
+     */
+    @Override
+    public synchronized void failProjection(Throwable throwable) {
+        bulkRequest = new BulkRequest();
+        if (downStream != null) {
+            downStream.failProjection(throwable);
+        }
+    }
+
+    @Override
+    public Object[][] getRows() throws IllegalStateException {
+        if (row == null) {
+            throw new IllegalStateException("projection not finished");
+        }
+        return new Object[][]{row};
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() {
+        return Iterators.singletonIterator(row);
+    }
+}
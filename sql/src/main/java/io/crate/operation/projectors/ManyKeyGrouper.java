@@ -0,0 +1,95 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.projectors;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.breaker.SizeEstimator;
+import io.crate.operation.collect.CollectExpression;
+
+import java.util.*;
+
+/**
+ * groups by many keys of any type using a {@link HashMap} with a list of the key values as key
+ */
+class ManyKeyGrouper extends Grouper {
+
+    private final Map<List<Object>, AggregationState[]> result = new HashMap<>();
+    private final List<Input<?>> keyInputs;
+
+    ManyKeyGrouper(List<Input<?>> keyInputs,
+                   Collection<CollectExpression<?>> collectExpressions,
+                   AggregationCollector[] aggregationCollectors) {
+        super(keyInputs.size(), collectExpressions, aggregationCollectors);
+        this.keyInputs = keyInputs;
+    }
+
+    @Override
+    protected AggregationState[] statesForCurrentRow() {
+        List<Object> key = new ArrayList<>(numKeys);
+        for (Input<?> keyInput : keyInputs) {
+            key.add(keyInput.value());
+        }
+        return statesForKey(key);
+    }
+
+    @Override
+    protected AggregationState[] statesFor(Object[] keys) {
+        return statesForKey(Arrays.asList(keys));
+    }
+
+    @Override
+    protected long currentKeysSize() {
+        long size = 0;
+        for (Input<?> keyInput : keyInputs) {
+            size += SizeEstimator.estimate(keyInput.value());
+        }
+        return size;
+    }
+
+    private AggregationState[] statesForKey(List<Object> key) {
+        AggregationState[] states = result.get(key);
+        if (states == null) {
+            states = new AggregationState[aggregationCollectors.length];
+            result.put(key, states);
+        }
+        return states;
+    }
+
+    @Override
+    public int size() {
+        return result.size();
+    }
+
+    @Override
+    public Iterator<Group> groups() {
+        return Iterators.transform(result.entrySet().iterator(),
+                new Function<Map.Entry<List<Object>, AggregationState[]>, Group>() {
+                    @Override
+                    public Group apply(Map.Entry<List<Object>, AggregationState[]> input) {
+                        return new Group(input.getKey().toArray(), input.getValue());
+                    }
+                });
+    }
+}
@@ -45,6 +45,14 @@ public class NoopProjector extends AbstractProjector {
         return true;
     }
 
+    @Override
+    public synchronized boolean setNextRows(Object[][] rows, int numRows) {
+        for (int i = 0; i < numRows; i++) {
+            this.rows.add(rows[i]);
+        }
+        return true;
+    }
+
     @Override
     public void finishProjection() {}
 
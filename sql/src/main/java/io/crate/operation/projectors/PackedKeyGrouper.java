@@ -0,0 +1,255 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.projectors;
+
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.breaker.SizeEstimator;
+import io.crate.operation.collect.CollectExpression;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * groups by many keys which are packed into a single byte sequence.
+ *
+ * The keys of every row are written into a reused buffer which is used to look up the group
+ * in a {@link BytesRefHash}, so no objects are allocated for rows of an existing group.
+ * Every value is prefixed with its type, which keeps the equality semantics of the values.
+ * If a key can't be packed all groups are moved to a {@link ManyKeyGrouper}
+ * which is used from then on.
+ */
+class PackedKeyGrouper extends Grouper {
+
+    private static final int MAX_PACKED_LENGTH = ByteBlockPool.BYTE_BLOCK_SIZE - 2;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte BYTES_REF = 8;
+    private static final byte STRING = 9;
+
+    private final BytesRefHash hash = new BytesRefHash();
+    private final List<Object[]> keys = new ArrayList<>();
+    private final List<AggregationState[]> states = new ArrayList<>();
+    private final List<Input<?>> keyInputs;
+    private final Object[] currentKeys;
+    private final BytesRef packed = new BytesRef(32);
+
+    private ManyKeyGrouper fallback;
+
+    PackedKeyGrouper(List<Input<?>> keyInputs,
+                     Collection<CollectExpression<?>> collectExpressions,
+                     AggregationCollector[] aggregationCollectors) {
+        super(keyInputs.size(), collectExpressions, aggregationCollectors);
+        this.keyInputs = keyInputs;
+        this.currentKeys = new Object[numKeys];
+    }
+
+    @Override
+    protected AggregationState[] statesForCurrentRow() {
+        if (fallback != null) {
+            return fallback.statesForCurrentRow();
+        }
+        for (int i = 0; i < numKeys; i++) {
+            currentKeys[i] = keyInputs.get(i).value();
+        }
+        return statesForKeys(currentKeys);
+    }
+
+    @Override
+    protected AggregationState[] statesFor(Object[] keys) {
+        if (fallback != null) {
+            return fallback.statesFor(keys);
+        }
+        return statesForKeys(keys);
+    }
+
+    @Override
+    protected long currentKeysSize() {
+        long size = 0;
+        for (Input<?> keyInput : keyInputs) {
+            size += SizeEstimator.estimate(keyInput.value());
+        }
+        return size;
+    }
+
+    private AggregationState[] statesForKeys(Object[] values) {
+        if (!pack(values)) {
+            switchToFallback();
+            return fallback.statesFor(values.clone());
+        }
+        int id = hash.add(packed);
+        if (id < 0) {
+            return states.get(-id - 1);
+        }
+        AggregationState[] groupStates = new AggregationState[aggregationCollectors.length];
+        keys.add(values.clone());
+        states.add(groupStates);
+        return groupStates;
+    }
+
+    private void switchToFallback() {
+        ManyKeyGrouper grouper = new ManyKeyGrouper(keyInputs, collectExpressions, aggregationCollectors);
+        Iterator<Group> it = groups();
+        while (it.hasNext()) {
+            grouper.add(it.next());
+        }
+        hash.clear();
+        keys.clear();
+        states.clear();
+        fallback = grouper;
+    }
+
+    /**
+     * write the values into the packed buffer
+     *
+     * @return false if a value is of a type that can't be packed or the values are too long
+     */
+    private boolean pack(Object[] values) {
+        packed.length = 0;
+        for (Object value : values) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof BytesRef) {
+                BytesRef bytesRef = (BytesRef) value;
+                writeByte(BYTES_REF);
+                writeVInt(bytesRef.length);
+                writeBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+            } else if (value instanceof String) {
+                String string = (String) value;
+                writeByte(STRING);
+                writeVInt(string.length());
+                for (int i = 0; i < string.length(); i++) {
+                    char c = string.charAt(i);
+                    writeByte((byte) (c >> 8));
+                    writeByte((byte) c);
+                }
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                writeByte(INTEGER);
+                writeLong((Integer) value);
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeLong(Float.floatToIntBits((Float) value));
+            } else if (value instanceof Short) {
+                writeByte(SHORT);
+                writeLong((Short) value);
+            } else if (value instanceof Byte) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Boolean) {
+                writeByte(BOOLEAN);
+                writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+            } else {
+                return false;
+            }
+            if (packed.length > MAX_PACKED_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (packed.bytes.length < packed.length + additional) {
+            packed.bytes = ArrayUtil.grow(packed.bytes, packed.length + additional);
+        }
+    }
+
+    private void writeByte(byte b) {
+        ensureCapacity(1);
+        packed.bytes[packed.length++] = b;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, packed.bytes, packed.length, length);
+        packed.length += length;
+    }
+
+    private void writeLong(long l) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            packed.bytes[packed.length++] = (byte) (l >> shift);
+        }
+    }
+
+    private void writeVInt(int i) {
+        while ((i & ~0x7F) != 0) {
+            writeByte((byte) ((i & 0x7f) | 0x80));
+            i >>>= 7;
+        }
+        writeByte((byte) i);
+    }
+
+    @Override
+    public int size() {
+        if (fallback != null) {
+            return fallback.size();
+        }
+        return keys.size();
+    }
+
+    @Override
+    public Iterator<Group> groups() {
+        if (fallback != null) {
+            return fallback.groups();
+        }
+        return new Iterator<Group>() {
+            int id = 0;
+
+            @Override
+            public boolean hasNext() {
+                return id < keys.size();
+            }
+
+            @Override
+            public Group next() {
+                Group group = new Group(keys.get(id), states.get(id));
+                id++;
+                return group;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove not supported");
+            }
+        };
+    }
+}
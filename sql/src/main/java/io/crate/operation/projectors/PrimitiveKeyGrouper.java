@@ -0,0 +1,234 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.projectors;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.breaker.SizeEstimator;
+import io.crate.operation.collect.CollectExpression;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * groups by a single numeric key using an open addressing hash map over the primitive long values.
+ *
+ * The key class is taken from the first non-null key. Keys are stored as long bits which
+ * keeps the equality semantics of the boxed values. If a key of another class shows up
+ * all groups are moved to an {@link ObjectKeyGrouper} which is used from then on.
+ */
+class PrimitiveKeyGrouper extends Grouper {
+
+    enum KeyType {
+        LONG {
+            @Override
+            long encode(Object key) {
+                return (Long) key;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return bits;
+            }
+        },
+        INTEGER {
+            @Override
+            long encode(Object key) {
+                return (Integer) key;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return (int) bits;
+            }
+        },
+        SHORT {
+            @Override
+            long encode(Object key) {
+                return (Short) key;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return (short) bits;
+            }
+        },
+        BYTE {
+            @Override
+            long encode(Object key) {
+                return (Byte) key;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return (byte) bits;
+            }
+        },
+        DOUBLE {
+            @Override
+            long encode(Object key) {
+                return Double.doubleToLongBits((Double) key);
+            }
+
+            @Override
+            Object decode(long bits) {
+                return Double.longBitsToDouble(bits);
+            }
+        },
+        FLOAT {
+            @Override
+            long encode(Object key) {
+                return Float.floatToIntBits((Float) key);
+            }
+
+            @Override
+            Object decode(long bits) {
+                return Float.intBitsToFloat((int) bits);
+            }
+        };
+
+        abstract long encode(Object key);
+
+        abstract Object decode(long bits);
+
+        static KeyType of(Class<?> clazz) {
+            if (clazz == Long.class) {
+                return LONG;
+            } else if (clazz == Integer.class) {
+                return INTEGER;
+            } else if (clazz == Double.class) {
+                return DOUBLE;
+            } else if (clazz == Float.class) {
+                return FLOAT;
+            } else if (clazz == Short.class) {
+                return SHORT;
+            } else if (clazz == Byte.class) {
+                return BYTE;
+            }
+            return null;
+        }
+    }
+
+    private final LongObjectOpenHashMap<AggregationState[]> result = new LongObjectOpenHashMap<>();
+    private final Input<?> keyInput;
+
+    private Class<?> keyClass;
+    private KeyType keyType;
+    private AggregationState[] nullKeyStates;
+    private ObjectKeyGrouper fallback;
+
+    PrimitiveKeyGrouper(Input<?> keyInput,
+                        Collection<CollectExpression<?>> collectExpressions,
+                        AggregationCollector[] aggregationCollectors) {
+        super(1, collectExpressions, aggregationCollectors);
+        this.keyInput = keyInput;
+    }
+
+    @Override
+    protected AggregationState[] statesForCurrentRow() {
+        return statesForKey(keyInput.value());
+    }
+
+    @Override
+    protected AggregationState[] statesFor(Object[] keys) {
+        return statesForKey(keys[0]);
+    }
+
+    @Override
+    protected long currentKeysSize() {
+        return SizeEstimator.estimate(keyInput.value());
+    }
+
+    private AggregationState[] statesForKey(Object key) {
+        if (fallback != null) {
+            return fallback.statesForKey(key);
+        }
+        if (key == null) {
+            if (nullKeyStates == null) {
+                nullKeyStates = new AggregationState[aggregationCollectors.length];
+            }
+            return nullKeyStates;
+        }
+        if (keyClass == null) {
+            keyType = KeyType.of(key.getClass());
+            if (keyType != null) {
+                keyClass = key.getClass();
+            }
+        }
+        if (key.getClass() != keyClass) {
+            switchToFallback();
+            return fallback.statesForKey(key);
+        }
+
+        long bits = keyType.encode(key);
+        if (result.containsKey(bits)) {
+            return result.lget();
+        }
+        AggregationState[] states = new AggregationState[aggregationCollectors.length];
+        result.put(bits, states);
+        return states;
+    }
+
+    private void switchToFallback() {
+        ObjectKeyGrouper grouper = new ObjectKeyGrouper(keyInput, collectExpressions, aggregationCollectors);
+        Iterator<Group> it = groups();
+        while (it.hasNext()) {
+            grouper.add(it.next());
+        }
+        result.clear();
+        nullKeyStates = null;
+        fallback = grouper;
+    }
+
+    @Override
+    public int size() {
+        if (fallback != null) {
+            return fallback.size();
+        }
+        return result.size() + (nullKeyStates == null ? 0 : 1);
+    }
+
+    @Override
+    public Iterator<Group> groups() {
+        if (fallback != null) {
+            return fallback.groups();
+        }
+        Iterator<Group> groups = Iterators.transform(result.iterator(),
+                new Function<LongObjectCursor<AggregationState[]>, Group>() {
+                    @Override
+                    public Group apply(LongObjectCursor<AggregationState[]> input) {
+                        return new Group(new Object[]{keyType.decode(input.key)}, input.value);
+                    }
+                });
+        if (nullKeyStates == null) {
+            return groups;
+        }
+        return Iterators.concat(
+                groups,
+                Collections.singletonList(new Group(new Object[]{null}, nullKeyStates)).iterator());
+    }
+}
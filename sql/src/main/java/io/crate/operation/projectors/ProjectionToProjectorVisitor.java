@@ -25,9 +25,13 @@ import com.google.common.collect.ImmutableList;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.breaker.RamAccountingContext;
 import io.crate.planner.projection.*;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.symbol.Aggregation;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -56,6 +60,9 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
     }
 
     private final ImplementationSymbolVisitor symbolVisitor;
+    private final SpillService spillService;
+    private final RamAccountingContext ramAccountingContext;
+    private final TransportBulkAction transportBulkAction;
 
     public List<Projector> process(Collection<Projection> projections) {
         Context ctx = new Context();
@@ -64,7 +71,31 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
     }
 
     public ProjectionToProjectorVisitor(ImplementationSymbolVisitor symbolVisitor) {
+        this(symbolVisitor, null, null);
+    }
+
+    /**
+     * @param spillService         if not null, grouping and sorting projectors spill to disk
+     *                             once they exceed its memory budget
+     * @param ramAccountingContext if not null, projectors holding rows account their memory
+     */
+    public ProjectionToProjectorVisitor(ImplementationSymbolVisitor symbolVisitor,
+                                        @Nullable SpillService spillService,
+                                        @Nullable RamAccountingContext ramAccountingContext) {
+        this(symbolVisitor, spillService, ramAccountingContext, null);
+    }
+
+    /**
+     * @param transportBulkAction if not null, index writer projections can be executed
+     */
+    public ProjectionToProjectorVisitor(ImplementationSymbolVisitor symbolVisitor,
+                                        @Nullable SpillService spillService,
+                                        @Nullable RamAccountingContext ramAccountingContext,
+                                        @Nullable TransportBulkAction transportBulkAction) {
         this.symbolVisitor = symbolVisitor;
+        this.spillService = spillService;
+        this.ramAccountingContext = ramAccountingContext;
+        this.transportBulkAction = transportBulkAction;
     }
 
     @Override
@@ -103,45 +134,85 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
                     orderByIndices,
                     projection.reverseFlags(),
                     projection.limit(),
-                    projection.offset());
+                    projection.offset(),
+                    spillService,
+                    ramAccountingContext);
         } else {
             projector = new SimpleTopNProjector(
                     inputs.toArray(new Input<?>[inputs.size()]),
                     collectExpressions.toArray(new CollectExpression[collectExpressions.size()]),
                     projection.limit(),
-                    projection.offset());
+                    projection.offset(),
+                    ramAccountingContext);
         }
         context.add(projector);
         return projector;
     }
 
     @Override
-    public Projector visitGroupProjection(GroupProjection projection, Context context) {
-        ImplementationSymbolVisitor.Context symbolContext = symbolVisitor.process(projection.keys());
-        List<Input<?>> keyInputs = symbolContext.topLevelInputs();
-
-        for (Aggregation aggregation : projection.values()) {
-            symbolVisitor.process(aggregation, symbolContext);
-        }
-        Projector groupProjector = new GroupingProjector(
-                keyInputs,
-                ImmutableList.copyOf(symbolContext.collectExpressions()),
-                symbolContext.aggregations()
-        );
+    public Projector visitGroupProjection(final GroupProjection projection, Context context) {
+        Projector groupProjector = new GroupingProjector(new AggregationInputs.AggregationInputsFactory() {
+            @Override
+            public AggregationInputs create() {
+                ImplementationSymbolVisitor.Context symbolContext = symbolVisitor.process(projection.keys());
+                List<Input<?>> keyInputs = symbolContext.topLevelInputs();
+
+                for (Aggregation aggregation : projection.values()) {
+                    symbolVisitor.process(aggregation, symbolContext);
+                }
+                return new AggregationInputs(
+                        keyInputs,
+                        ImmutableList.copyOf(symbolContext.collectExpressions()),
+                        symbolContext.aggregations()
+                );
+            }
+        }, spillService, ramAccountingContext);
         context.add(groupProjector);
         return groupProjector;
     }
 
     @Override
-    public Projector visitAggregationProjection(AggregationProjection projection, Context context) {
-        ImplementationSymbolVisitor.Context symbolContext = new ImplementationSymbolVisitor.Context();
-        for (Aggregation aggregation : projection.aggregations()) {
-            symbolVisitor.process(aggregation, symbolContext);
-        }
-        Projector aggregationProjector = new AggregationProjector(
-                symbolContext.collectExpressions(),
-                symbolContext.aggregations());
+    public Projector visitAggregationProjection(final AggregationProjection projection, Context context) {
+        Projector aggregationProjector = new AggregationProjector(new AggregationInputs.AggregationInputsFactory() {
+            @Override
+            public AggregationInputs create() {
+                ImplementationSymbolVisitor.Context symbolContext = new ImplementationSymbolVisitor.Context();
+                for (Aggregation aggregation : projection.aggregations()) {
+                    symbolVisitor.process(aggregation, symbolContext);
+                }
+                return new AggregationInputs(
+                        ImmutableList.<Input<?>>of(),
+                        symbolContext.collectExpressions(),
+                        symbolContext.aggregations()
+                );
+            }
+        });
         context.add(aggregationProjector);
         return aggregationProjector;
     }
+
+    @Override
+    public Projector visitIndexWriterProjection(IndexWriterProjection projection, Context context) {
+        if (transportBulkAction == null) {
+            throw new UnsupportedOperationException("IndexWriterProjection is only supported on collect nodes");
+        }
+        Projector projector = new IndexWriterProjector(
+                transportBulkAction,
+                projection.tableName(),
+                projection.columns(),
+                projection.primaryKeyIdx(),
+                projection.clusteredByIdx());
+        context.add(projector);
+        return projector;
+    }
+
+    @Override
+    public Projector visitWriterProjection(WriterProjection projection, Context context) {
+        Projector projector = new WriterProjector(
+                projection.directory(),
+                projection.fileNamePrefix(),
+                projection.compressed());
+        context.add(projector);
+        return projector;
+    }
 }
@@ -53,6 +53,22 @@ public interface Projector extends Iterable<Object[]> {
      */
     public boolean setNextRow(Object ... row);
 
+    /**
+     * feed this Projector with a batch of input rows, e.g. the documents of a segment.
+     * Handled like calling {@link #setNextRow(Object...)} for every row,
+     * but implementations may synchronize or look up their state only once per batch.
+     *
+     * The <code>rows</code> array is reused by the caller for the next batch,
+     * only the rows it contains may be kept.
+     *
+     * This method must be thread safe.
+     *
+     * @param rows array holding the rows of the batch
+     * @param numRows number of rows in <code>rows</code>, starting at index 0
+     * @return false if this projection does not need any more rows, true otherwise.
+     */
+    public boolean setNextRows(Object[][] rows, int numRows);
+
 
     /**
      * finish the projection. if rows had to be gathered,
@@ -60,6 +76,15 @@ public interface Projector extends Iterable<Object[]> {
      */
     public void finishProjection();
 
+    /**
+     * abort the projection because the rows couldn't be collected completely.
+     * Called instead of {@link #finishProjection()}, no more rows are fed afterwards.
+     * Releases anything held by the projection and fails the downStream Projectors.
+     *
+     * @param throwable the reason why the projection is aborted
+     */
+    public void failProjection(Throwable throwable);
+
     /**
      * finally, return all collected rows.
      * @return
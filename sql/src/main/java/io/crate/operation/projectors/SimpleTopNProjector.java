@@ -24,11 +24,13 @@ package io.crate.operation.projectors;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import io.crate.operation.Input;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.breaker.SizeEstimator;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.Constants;
-import io.crate.core.collections.ArrayIterator;
+import io.crate.core.collections.PagedRows;
 
-import java.util.Arrays;
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -44,24 +46,25 @@ public class SimpleTopNProjector implements Projector {
     static class GatheringTopNRowCollector extends AbstractProjector {
 
         private final AtomicInteger collected = new AtomicInteger();
-        private int endPos;
-        private final Object endPosMutex = new Object();
 
-        private final Object[][] result;
+        private PagedRows result;
         private final int start;
         private final int end;
+        private final RamAccountingContext ramAccountingContext;
 
         public GatheringTopNRowCollector(Input<?>[] inputs, CollectExpression<?>[] collectExpressions,
-                                         int offset, int limit) {
+                                         int offset, int limit,
+                                         @Nullable RamAccountingContext ramAccountingContext) {
             super(inputs, collectExpressions);
             this.start = offset;
             this.end = start + limit;
-            this.result = new Object[end - start][];
+            this.ramAccountingContext = ramAccountingContext;
         }
 
         @Override
         public void startProjection() {
-            endPos = 0;
+            // pages are allocated on demand, a high limit doesn't result in a huge array
+            result = new PagedRows(end - start);
             collected.set(0);
         }
 
@@ -84,10 +87,10 @@ public class SimpleTopNProjector implements Projector {
                 for (Input<?> input : inputs) {
                     evaluatedRow[i++] = input.value();
                 }
-                result[arrayPos] = evaluatedRow;
-                synchronized (endPosMutex) {
-                    endPos = Math.max(endPos, arrayPos);
+                if (ramAccountingContext != null) {
+                    ramAccountingContext.addBytes(SizeEstimator.estimate(evaluatedRow));
                 }
+                result.set(arrayPos, evaluatedRow);
             }
             return true;
         }
@@ -99,22 +102,18 @@ public class SimpleTopNProjector implements Projector {
 
         @Override
         public Object[][] getRows() throws IllegalStateException {
-            if (collected.get() == 0) {
-                return Constants.EMPTY_RESULT;
+            if (result == null) {
+                throw new IllegalStateException("projection not started");
             }
-            if (result.length == endPos + 1) {
-                return result;
-            }
-            return Arrays.copyOf(result, endPos + 1);
+            return result.toArray();
         }
 
         @Override
         public Iterator<Object[]> iterator() {
-            if (collected.get() == 0) {
-                return Collections.emptyIterator();
-            } else {
-                return new ArrayIterator(result, 0, endPos+1);
+            if (result == null) {
+                throw new IllegalStateException("projection not started");
             }
+            return result.iterator();
         }
     }
 
@@ -177,12 +176,24 @@ public class SimpleTopNProjector implements Projector {
     private final CollectExpression<?>[] collectExpressions;
     private final int limit;
     private final int offset;
+    private final RamAccountingContext ramAccountingContext;
     private Optional<Projector> downStream;
 
     public SimpleTopNProjector(Input<?>[] inputs,
                                CollectExpression<?>[] collectExpressions,
                                int limit,
                                int offset) {
+        this(inputs, collectExpressions, limit, offset, null);
+    }
+
+    /**
+     * @param ramAccountingContext if not null, the rows gathered without a downStream are accounted
+     */
+    public SimpleTopNProjector(Input<?>[] inputs,
+                               CollectExpression<?>[] collectExpressions,
+                               int limit,
+                               int offset,
+                               @Nullable RamAccountingContext ramAccountingContext) {
         Preconditions.checkArgument(limit >= TopN.NO_LIMIT, "invalid limit");
         Preconditions.checkArgument(offset>=0, "invalid offset");
         this.inputs = inputs;
@@ -192,6 +203,7 @@ public class SimpleTopNProjector implements Projector {
         }
         this.limit = limit;
         this.offset = offset;
+        this.ramAccountingContext = ramAccountingContext;
         this.downStream = Optional.absent();
     }
 
@@ -205,7 +217,7 @@ public class SimpleTopNProjector implements Projector {
         if (downStream.isPresent()) {
             wrappedProjector = new PassThroughTopNRowCollector(inputs, collectExpressions, downStream.get(), offset, limit);
         } else {
-            wrappedProjector = new GatheringTopNRowCollector(inputs, collectExpressions, offset, limit);
+            wrappedProjector = new GatheringTopNRowCollector(inputs, collectExpressions, offset, limit, ramAccountingContext);
         }
         wrappedProjector.startProjection();
     }
@@ -215,18 +227,38 @@ public class SimpleTopNProjector implements Projector {
         return wrappedProjector.setNextRow(row);
     }
 
+    @Override
+    public synchronized boolean setNextRows(Object[][] rows, int numRows) {
+        return wrappedProjector.setNextRows(rows, numRows);
+    }
+
     @Override
     public void finishProjection() {
         wrappedProjector.finishProjection();
     }
 
     @Override
-    public Object[][] getRows() {
+    public void failProjection(Throwable throwable) {
+        if (wrappedProjector != null) {
+            wrappedProjector.failProjection(throwable);
+        } else if (downStream.isPresent()) {
+            downStream.get().failProjection(throwable);
+        }
+    }
+
+    @Override
+    public Object[][] getRows() throws IllegalStateException {
+        if (wrappedProjector == null) {
+            throw new IllegalStateException("projection not started");
+        }
         return wrappedProjector.getRows();
     }
 
     @Override
     public Iterator<Object[]> iterator() {
+        if (wrappedProjector == null) {
+            throw new IllegalStateException("projection not started");
+        }
         return wrappedProjector.iterator();
     }
 }
@@ -28,25 +28,50 @@ import io.crate.operation.collect.CollectExpression;
 import org.apache.lucene.util.PriorityQueue;
 import io.crate.Constants;
 import io.crate.core.collections.ArrayIterator;
+import io.crate.core.collections.PagedRows;
+import io.crate.exceptions.CrateException;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.breaker.SizeEstimator;
+import io.crate.operation.spill.SpillFile;
+import io.crate.operation.spill.SpillService;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.StreamOutput;
 
 import javax.annotation.Nullable;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Projector used for sorted limit and offset queries
  *
- * storing rows in a sorted PriorityQueue.
+ * storing rows in a sorted PriorityQueue, which grows on demand up to <code>offset + limit</code> rows.
  * Passes rows over to upStresm projector in {@link SortingTopNProjector#finishProjection()} phase.
+ *
+ * If a {@link SpillService} is given and <code>offset + limit</code> exceeds its budget,
+ * the queue is written to disk as a sorted run whenever it is full.
+ * Once there are {@link #MAX_RUNS} runs they are merged into a single run of at most <code>offset + limit</code> rows,
+ * rows which aren't better than the last row of a full merged run are dropped right away.
+ * The runs and the rows left in the queue are merged in the {@link SortingTopNProjector#finishProjection()} phase,
+ * the files of the runs are deleted on {@link #failProjection(Throwable)}.
+ *
+ * If a {@link RamAccountingContext} is given, the rows held in the queue are accounted
+ * and released once they are evicted from the queue.
+ * If the circuit breaker trips the queue is spilled if possible, otherwise the projection fails.
  */
 public class SortingTopNProjector extends AbstractProjector {
 
     class RowPriorityQueue extends PriorityQueue<Object[]> {
 
+        private final int maxSize;
+
         public RowPriorityQueue(int maxSize) {
             super(maxSize);
+            this.maxSize = maxSize;
+        }
+
+        public int maxSize() {
+            return maxSize;
         }
 
         @Override
@@ -89,12 +114,122 @@ public class SortingTopNProjector extends AbstractProjector {
         }
     }
 
+    /**
+     * rows sorted best first, either spilled to disk or held in memory
+     */
+    static class Run {
+
+        private final Object[][] rows;
+        private final SpillFile file;
+        private int remaining;
+        private int idx = 0;
+        private Object[] current;
+
+        Run(Object[][] rows) {
+            this.rows = rows;
+            this.file = null;
+            this.remaining = rows.length;
+        }
+
+        Run(SpillFile file, int size) {
+            this.rows = null;
+            this.file = file;
+            this.remaining = size;
+        }
+
+        /**
+         * move to the next row of this run
+         *
+         * @return false if there are no more rows
+         */
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            if (file == null) {
+                current = rows[idx++];
+            } else {
+                current = SpillFile.readRow(file.input());
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * receives the rows of merged runs
+     */
+    interface RowReceiver {
+
+        /**
+         * @return false if no more rows are needed
+         */
+        boolean receive(Object[] row) throws IOException;
+    }
+
+    /**
+     * writes merged rows into a new run
+     */
+    static class RunWriter implements RowReceiver {
+
+        private final StreamOutput out;
+        private int size = 0;
+        private Object[] last;
+
+        RunWriter(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public boolean receive(Object[] row) throws IOException {
+            SpillFile.writeRow(out, row);
+            last = row;
+            size++;
+            return true;
+        }
+    }
+
+    /**
+     * queue of runs with the run of the best current row on top
+     */
+    class RunQueue extends PriorityQueue<Run> {
+
+        RunQueue(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        protected boolean lessThan(Run a, Run b) {
+            // the row queue has the worst row on top, so this is reversed
+            return pq.lessThan(b.current, a.current);
+        }
+    }
+
+
+    /**
+     * the number of spilled runs which are merged into a single run once it is reached
+     */
+    static final int MAX_RUNS = 16;
 
     private final int start;
     private final int end;
     private final int numOutputs;
+    private final SpillService spillService;
+    private final RamAccountingContext ramAccountingContext;
+    private final int maxQueueSize;
+    private long accountedBytes = 0;
 
     private RowPriorityQueue pq;
+    private final List<Run> runs = new ArrayList<>();
+    private Object[] cutoff = null;
+    private boolean failed = false;
     private final AtomicInteger collected = new AtomicInteger(0);
     private final Comparator[] comparators;
     private Object[][] result = Constants.EMPTY_RESULT;
@@ -112,6 +247,20 @@ public class SortingTopNProjector extends AbstractProjector {
                                 int numOutputs,
                                 int[] orderBy, boolean[] reverseFlags,
                                 int limit, int offset) {
+        this(inputs, collectExpressions, numOutputs, orderBy, reverseFlags, limit, offset, null, null);
+    }
+
+    /**
+     * @param spillService         if not null, sorted runs of rows are spilled to disk
+     *                             once more rows than its budget are held in memory
+     * @param ramAccountingContext if not null, the rows held in memory are accounted
+     */
+    public SortingTopNProjector(Input<?>[] inputs, CollectExpression<?>[] collectExpressions,
+                                int numOutputs,
+                                int[] orderBy, boolean[] reverseFlags,
+                                int limit, int offset,
+                                @Nullable SpillService spillService,
+                                @Nullable RamAccountingContext ramAccountingContext) {
         super(inputs, collectExpressions);
         Preconditions.checkArgument(limit >= TopN.NO_LIMIT, "invalid limit");
         Preconditions.checkArgument(offset >= 0, "invalid offset");
@@ -122,6 +271,13 @@ public class SortingTopNProjector extends AbstractProjector {
         this.end = this.start + limit;
 
         this.numOutputs = numOutputs;
+        this.spillService = spillService;
+        this.ramAccountingContext = ramAccountingContext;
+        if (spillService != null) {
+            this.maxQueueSize = Math.max(1, Math.min(end, spillService.maxRows()));
+        } else {
+            this.maxQueueSize = end;
+        }
 
         comparators = new Comparator[orderBy.length];
         for (int i = 0; i < orderBy.length; i++) {
@@ -134,11 +290,27 @@ public class SortingTopNProjector extends AbstractProjector {
     @Override
     public void startProjection() {
         collected.set(0);
-        pq = new RowPriorityQueue(end);
+        // the heap of the queue is allocated upfront, so start with one page and grow on demand
+        pq = new RowPriorityQueue(Math.min(maxQueueSize, PagedRows.DEFAULT_PAGE_SIZE));
+    }
+
+    /**
+     * replace the queue with one that has double the size, up to <code>maxQueueSize</code>
+     */
+    private void growQueue() {
+        RowPriorityQueue newPq = new RowPriorityQueue((int) Math.min((long) pq.maxSize() * 2, maxQueueSize));
+        Object[] row;
+        while ((row = pq.pop()) != null) {
+            newPq.add(row);
+        }
+        pq = newPq;
     }
 
     @Override
     public synchronized boolean setNextRow(Object... row) {
+        if (failed) {
+            return false;
+        }
         collected.incrementAndGet();
         for (CollectExpression<?> collectExpression : collectExpressions) {
             collectExpression.setNextRow(row);
@@ -148,12 +320,174 @@ public class SortingTopNProjector extends AbstractProjector {
         for (Input<?> input : inputs) {
             evaluatedRow[i++] = input.value();
         }
-        pq.insertWithOverflow(evaluatedRow);
+        if (cutoff != null && !pq.lessThan(cutoff, evaluatedRow)) {
+            // there are offset + limit rows spilled which are at least as good
+            return true;
+        }
+        if (pq.size() == pq.maxSize()) {
+            if (pq.maxSize() < maxQueueSize) {
+                growQueue();
+            } else if (maxQueueSize < end) {
+                spillQueue();
+            }
+        }
+        Object[] overflow = pq.insertWithOverflow(evaluatedRow);
+        if (ramAccountingContext != null && overflow != evaluatedRow) {
+            if (overflow != null) {
+                releaseRow(overflow);
+            }
+            accountRow(evaluatedRow);
+        }
         return true;
     }
 
+    @Override
+    public synchronized boolean setNextRows(Object[][] rows, int numRows) {
+        for (int i = 0; i < numRows; i++) {
+            if (!setNextRow(rows[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * account the memory of a row added to the queue, spill the queue if the circuit breaker trips
+     */
+    private void accountRow(Object[] row) throws CircuitBreakingException {
+        long bytes = SizeEstimator.estimate(row);
+        try {
+            ramAccountingContext.addBytes(bytes);
+            accountedBytes += bytes;
+        } catch (CircuitBreakingException e) {
+            if (spillService == null) {
+                throw e;
+            }
+            spillQueue();
+        }
+    }
+
+    /**
+     * release the memory of a row evicted from the queue
+     */
+    private void releaseRow(Object[] row) {
+        long bytes = SizeEstimator.estimate(row);
+        ramAccountingContext.releaseBytes(bytes);
+        accountedBytes -= bytes;
+    }
+
+    /**
+     * write the rows of the full queue to disk as a run sorted best first and empty the queue
+     */
+    private void spillQueue() {
+        Object[][] rows = popAll();
+        SpillFile file = null;
+        try {
+            file = spillService.newFile("sort");
+            StreamOutput out = file.output();
+            for (Object[] row : rows) {
+                SpillFile.writeRow(out, row);
+            }
+            runs.add(new Run(file, rows.length));
+            if (ramAccountingContext != null) {
+                ramAccountingContext.releaseBytes(accountedBytes);
+                accountedBytes = 0;
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e1) {
+                    // ignore, the original exception is thrown
+                }
+            }
+            throw new CrateException("Failed to spill sorted rows to disk", e);
+        }
+        if (runs.size() >= MAX_RUNS) {
+            compactRuns();
+        }
+    }
+
+    /**
+     * merge all runs into a single run of at most <code>offset + limit</code> rows,
+     * so only a few files are open and rows that can't be part of the result are dropped.
+     */
+    private void compactRuns() {
+        SpillFile file = null;
+        try {
+            file = spillService.newFile("sort");
+            RunWriter writer = new RunWriter(file.output());
+            merge(writer);
+            closeRuns();
+            runs.add(new Run(file, writer.size));
+            if (writer.size == end) {
+                cutoff = writer.last;
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e1) {
+                    // ignore, the original exception is thrown
+                }
+            }
+            throw new CrateException("Failed to merge sorted rows spilled to disk", e);
+        }
+    }
+
+    /**
+     * merge the runs best first, passing at most <code>offset + limit</code> rows to the receiver
+     */
+    private void merge(RowReceiver receiver) throws IOException {
+        RunQueue runQueue = new RunQueue(runs.size());
+        for (Run run : runs) {
+            if (run.next()) {
+                runQueue.add(run);
+            }
+        }
+        int pos = 0;
+        while (pos++ < end && runQueue.size() > 0) {
+            Run top = runQueue.top();
+            Object[] row = top.current;
+            if (top.next()) {
+                runQueue.updateTop();
+            } else {
+                runQueue.pop();
+            }
+            if (!receiver.receive(row)) {
+                break;
+            }
+        }
+    }
+
+    private void closeRuns() {
+        for (Run run : runs) {
+            try {
+                run.close();
+            } catch (IOException e) {
+                // the file is deleted on a best effort basis
+            }
+        }
+        runs.clear();
+    }
+
+    /**
+     * @return all rows of the queue sorted best first
+     */
+    private Object[][] popAll() {
+        Object[][] rows = new Object[pq.size()][];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = pq.pop();
+        }
+        return rows;
+    }
+
     @Override
     public void finishProjection() {
+        if (!runs.isEmpty()) {
+            mergeRuns();
+            return;
+        }
         final int resultSize = Math.max(pq.size() - start, 0);
         if (downStream.isPresent()) {
             // pass rows to downStream
@@ -177,6 +511,60 @@ public class SortingTopNProjector extends AbstractProjector {
         pq.clear();
     }
 
+    /**
+     * merge the spilled runs and the rows left in the queue,
+     * skipping <code>offset</code> rows and passing at most <code>limit</code> rows.
+     */
+    private void mergeRuns() {
+        runs.add(new Run(popAll()));
+        final Projector projector = downStream.orNull();
+        final List<Object[]> gatheredRows = new ArrayList<>();
+        if (projector != null) {
+            projector.startProjection();
+        }
+        try {
+            merge(new RowReceiver() {
+
+                private int pos = 0;
+
+                @Override
+                public boolean receive(Object[] row) {
+                    if (pos++ < start) {
+                        return true;
+                    }
+                    row = Arrays.copyOfRange(row, 0, numOutputs); // strip order by inputs
+                    if (projector != null) {
+                        return projector.setNextRow(row);
+                    }
+                    gatheredRows.add(row);
+                    return true;
+                }
+            });
+        } catch (IOException e) {
+            throw new CrateException("Failed to merge sorted rows spilled to disk", e);
+        } finally {
+            closeRuns();
+        }
+        result = gatheredRows.toArray(new Object[gatheredRows.size()][]);
+        if (projector != null) {
+            projector.finishProjection();
+        }
+    }
+
+    @Override
+    public synchronized void failProjection(Throwable throwable) {
+        failed = true;
+        closeRuns();
+        if (pq != null) {
+            pq.clear();
+        }
+        if (ramAccountingContext != null) {
+            ramAccountingContext.releaseBytes(accountedBytes);
+            accountedBytes = 0;
+        }
+        super.failProjection(throwable);
+    }
+
     @Override
     public Object[][] getRows() throws IllegalStateException {
         return result;
@@ -0,0 +1,259 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.Iterators;
+import io.crate.exceptions.CrateException;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Projector which writes the raw source of every row it receives as one line into a file.
+ *
+ * The rows of every shard are written into their own file <code>&lt;prefix&gt;_&lt;shardId&gt;.json</code>,
+ * so shards collected concurrently don't have to wait for each other.
+ * The raw source is expected as first, the shard id as second value of a row.
+ * Existing files are never overwritten, the files of a failed projection are deleted.
+ *
+ * Results in one row containing the number of written rows.
+ */
+public class WriterProjector implements Projector {
+
+    private static final ESLogger logger = Loggers.getLogger(WriterProjector.class);
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+    private final String fileNamePrefix;
+    private final boolean compressed;
+    private final ConcurrentMap<Integer, ShardOutput> outputs = new ConcurrentHashMap<>();
+
+    private Projector downStream;
+    private Object[] row;
+    private long started;
+
+    public WriterProjector(String directory, String fileNamePrefix, boolean compressed) {
+        this.directory = new File(directory);
+        this.fileNamePrefix = fileNamePrefix;
+        this.compressed = compressed;
+    }
+
+    /**
+     * the file of a single shard, written by the collectors of this shard only
+     */
+    private class ShardOutput {
+
+        private final File file;
+        private final OutputStream out;
+        private long rows = 0;
+        private long bytes = 0;
+
+        ShardOutput(int shardId) {
+            file = new File(directory, String.format("%s_%d.json%s",
+                    fileNamePrefix, shardId, compressed ? ".gz" : ""));
+            try {
+                OutputStream fileOut = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE_NEW);
+                if (compressed) {
+                    fileOut = new GZIPOutputStream(fileOut, BUFFER_SIZE);
+                }
+                out = new BufferedOutputStream(fileOut, BUFFER_SIZE);
+            } catch (FileAlreadyExistsException e) {
+                throw new CrateException(String.format("File %s exists already", file), e);
+            } catch (IOException e) {
+                throw new CrateException(String.format("Failed to open %s", file), e);
+            }
+        }
+
+        synchronized void write(BytesRef source) {
+            try {
+                out.write(source.bytes, source.offset, source.length);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new CrateException(String.format("Failed to write to %s", file), e);
+            }
+            rows++;
+            bytes += source.length + 1;
+        }
+
+        synchronized void close() throws IOException {
+            out.close();
+        }
+
+        /**
+         * close and delete the file
+         */
+        void delete() {
+            try {
+                close();
+            } catch (IOException e) {
+                // deleted anyway
+            }
+            if (!file.delete()) {
+                logger.warn("Failed to delete {}", file);
+            }
+        }
+    }
+
+    private ShardOutput output(Object shardId) {
+        Integer id = ((Number) shardId).intValue();
+        ShardOutput output = outputs.get(id);
+        if (output == null) {
+            synchronized (outputs) {
+                output = outputs.get(id);
+                if (output == null) {
+                    output = new ShardOutput(id);
+                    outputs.put(id, output);
+                }
+            }
+        }
+        return output;
+    }
+
+    @Override
+    public void setDownStream(Projector downStream) {
+        this.downStream = downStream;
+    }
+
+    @Override
+    public void startProjection() {
+        started = System.currentTimeMillis();
+        if (!directory.exists() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new CrateException(String.format("Failed to create directory %s", directory));
+        }
+    }
+
+    @Override
+    public boolean setNextRow(Object... row) {
+        if (row[0] != null) {
+            output(row[1]).write((BytesRef) row[0]);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setNextRows(Object[][] rows, int numRows) {
+        // a batch usually contains the rows of a single shard
+        ShardOutput output = null;
+        Object shardId = null;
+        for (int i = 0; i < numRows; i++) {
+            Object[] row = rows[i];
+            if (row[0] == null) {
+                continue;
+            }
+            if (output == null || !row[1].equals(shardId)) {
+                shardId = row[1];
+                output = output(shardId);
+            }
+            output.write((BytesRef) row[0]);
+        }
+        return true;
+    }
+
+    /**
+     * close all files and hand over the number of written rows
+     *
+     * @throws CrateException if a file couldn't be closed
+     */
+    @Override
+    public synchronized void finishProjection() {
+        if (row != null) {
+            // already finished
+            return;
+        }
+        long rowCount = 0;
+        long bytes = 0;
+        IOException failure = null;
+        File failedFile = null;
+        for (ShardOutput output : outputs.values()) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                failure = e;
+                failedFile = output.file;
+            }
+            rowCount += output.rows;
+            bytes += output.bytes;
+            if (logger.isDebugEnabled()) {
+                logger.debug("wrote {} rows ({}) into {}", output.rows, new ByteSizeValue(output.bytes), output.file);
+            }
+        }
+        row = new Object[]{rowCount};
+        if (failure != null) {
+            deleteOutputs();
+            throw new CrateException(String.format("Failed to close %s", failedFile), failure);
+        }
+
+        long took = Math.max(1, System.currentTimeMillis() - started);
+        logger.info("wrote {} rows ({}) into {} files of {} in {}, {}/s",
+                rowCount, new ByteSizeValue(bytes), outputs.size(), directory,
+                TimeValue.timeValueMillis(took), new ByteSizeValue(bytes * 1000 / took));
+
+        if (downStream != null) {
+            downStream.setNextRow(row);
+            downStream.finishProjection();
+        }
+    }
+
+    /**
+     * delete the files written so far, they'd only contain the rows of some shards
+     */
+    @Override
+    public synchronized void failProjection(Throwable throwable) {
+        deleteOutputs();
+        if (downStream != null) {
+            downStream.failProjection(throwable);
+        }
+    }
+
+    private void deleteOutputs() {
+        for (ShardOutput output : outputs.values()) {
+            output.delete();
+        }
+        outputs.clear();
+    }
+
+    @Override
+    public Object[][] getRows() throws IllegalStateException {
+        if (row == null) {
+            throw new IllegalStateException("projection not finished");
+        }
+        return new Object[][]{row};
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() {
+        return Iterators.singletonIterator(row);
+    }
+}
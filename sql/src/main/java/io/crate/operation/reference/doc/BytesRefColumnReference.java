@@ -29,6 +29,8 @@ import io.crate.exceptions.GroupByOnArrayUnsupportedException;
 import org.elasticsearch.index.fielddata.BytesValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 
+import javax.annotation.Nullable;
+
 public class BytesRefColumnReference extends FieldCacheExpression<IndexFieldData, BytesRef> {
 
     private BytesValues values;
@@ -50,6 +52,17 @@ public class BytesRefColumnReference extends FieldCacheExpression<IndexFieldData
         }
     }
 
+    /**
+     * @return the values of the current reader if they support ordinals, otherwise null
+     */
+    @Nullable
+    public BytesValues.WithOrdinals valuesWithOrdinals() {
+        if (values instanceof BytesValues.WithOrdinals) {
+            return (BytesValues.WithOrdinals) values;
+        }
+        return null;
+    }
+
     @Override
     public void setNextReader(AtomicReaderContext context) {
         super.setNextReader(context);
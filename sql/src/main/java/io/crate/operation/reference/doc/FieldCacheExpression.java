@@ -26,7 +26,13 @@ import io.crate.Constants;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 
-
+/**
+ * reads the values of a column using its {@link IndexFieldData}.
+ *
+ * If the column is stored with doc values the field data reads them from disk,
+ * otherwise the values of a segment are loaded into the heap on first use and kept
+ * until the segment is closed.
+ */
 public abstract class FieldCacheExpression<IFD extends IndexFieldData, ReturnType> extends
         ColumnReferenceCollectorExpression<ReturnType> {
 
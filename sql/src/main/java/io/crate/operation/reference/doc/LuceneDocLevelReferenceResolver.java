@@ -22,6 +22,7 @@
 package io.crate.operation.reference.doc;
 
 import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.doc.DocSysColumns;
 import io.crate.operation.reference.DocLevelReferenceResolver;
 import io.crate.planner.RowGranularity;
 import io.crate.exceptions.CrateException;
@@ -38,6 +39,10 @@ public class LuceneDocLevelReferenceResolver implements DocLevelReferenceResolve
         String colName = referenceInfo.ident().columnIdent().fqn();
         assert referenceInfo.granularity() == RowGranularity.DOC;
 
+        if (DocSysColumns.RAW.fqn().equals(colName)) {
+            return new RawCollectorExpression();
+        }
+
         switch (referenceInfo.type()) {
             case BYTE:
                 return new ByteColumnReference(colName);
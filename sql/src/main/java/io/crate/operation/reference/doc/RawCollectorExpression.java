@@ -0,0 +1,81 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.doc;
+
+import io.crate.DataType;
+import io.crate.exceptions.CrateException;
+import io.crate.metadata.doc.DocSysColumns;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.index.fieldvisitor.JustSourceFieldsVisitor;
+
+import java.io.IOException;
+
+/**
+ * the raw, uncompressed source of a document as stored,
+ * without parsing it into a map
+ */
+public class RawCollectorExpression extends LuceneCollectorExpression<BytesRef> implements ColumnReferenceExpression {
+
+    private final JustSourceFieldsVisitor visitor = new JustSourceFieldsVisitor();
+    private AtomicReader reader;
+    private int docId;
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) {
+        reader = context.reader();
+    }
+
+    @Override
+    public void setNextDocId(int doc) {
+        docId = doc;
+    }
+
+    @Override
+    public BytesRef value() {
+        visitor.reset();
+        try {
+            reader.document(docId, visitor);
+            BytesReference source = visitor.source();
+            if (source == null) {
+                return null;
+            }
+            return CompressorFactory.uncompressIfNeeded(source).toBytesRef();
+        } catch (IOException e) {
+            throw new CrateException("Failed to load the source of a document", e);
+        }
+    }
+
+    @Override
+    public DataType returnType() {
+        return DataType.STRING;
+    }
+
+    @Override
+    public String columnName() {
+        return DocSysColumns.RAW.fqn();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.reference.sys.job;
+
+import io.crate.metadata.ReferenceImplementation;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.operation.Input;
+
+/**
+ * expression of a <code>sys.jobs</code> or <code>sys.operations</code> column,
+ * evaluated on the job or operation set using {@link #setNextRow(Object)}
+ */
+public abstract class SysJobsCollectorExpression<R, T> implements ReferenceImplementation, Input<T> {
+
+    private final ReferenceInfo info;
+    protected R row;
+
+    protected SysJobsCollectorExpression(ReferenceInfo info) {
+        this.info = info;
+    }
+
+    @Override
+    public ReferenceImplementation getChildImplementation(String name) {
+        return null;
+    }
+
+    @Override
+    public ReferenceInfo info() {
+        return info;
+    }
+
+    public void setNextRow(R row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.reference.sys.job;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.sys.SysJobsTableInfo;
+import io.crate.metadata.sys.SysOperationsTableInfo;
+import io.crate.operation.job.JobContext;
+import io.crate.operation.job.OperationContext;
+import io.crate.operation.reference.DocLevelReferenceResolver;
+import org.apache.lucene.util.BytesRef;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * resolves the columns of <code>sys.jobs</code> and <code>sys.operations</code>.
+ *
+ * The expressions hold the current row, so every collect uses its own resolver.
+ */
+public class SysJobsReferenceResolver implements DocLevelReferenceResolver<SysJobsCollectorExpression<?, ?>> {
+
+    private final Map<ReferenceInfo, SysJobsCollectorExpression<?, ?>> implementations = new HashMap<>();
+
+    public SysJobsReferenceResolver() {
+        add(new JobExpression<BytesRef>("id") {
+            @Override
+            public BytesRef value() {
+                return new BytesRef(row.jobId().toString());
+            }
+        });
+        add(new JobExpression<Long>("started") {
+            @Override
+            public Long value() {
+                return row.started();
+            }
+        });
+        add(new JobExpression<Long>("rows") {
+            @Override
+            public Long value() {
+                return row.rows();
+            }
+        });
+        add(new JobExpression<Long>("memory_used") {
+            @Override
+            public Long value() {
+                return row.usedBytes();
+            }
+        });
+
+        add(new OperationExpression<BytesRef>("id") {
+            @Override
+            public BytesRef value() {
+                return new BytesRef(row.id().toString());
+            }
+        });
+        add(new OperationExpression<BytesRef>("job_id") {
+            @Override
+            public BytesRef value() {
+                return new BytesRef(row.jobId().toString());
+            }
+        });
+        add(new OperationExpression<BytesRef>("name") {
+            @Override
+            public BytesRef value() {
+                return new BytesRef(row.name());
+            }
+        });
+        add(new OperationExpression<Long>("started") {
+            @Override
+            public Long value() {
+                return row.started();
+            }
+        });
+        add(new OperationExpression<Long>("rows") {
+            @Override
+            public Long value() {
+                return row.rows();
+            }
+        });
+        add(new OperationExpression<Long>("memory_used") {
+            @Override
+            public Long value() {
+                return row.usedBytes();
+            }
+        });
+    }
+
+    private void add(SysJobsCollectorExpression<?, ?> implementation) {
+        implementations.put(implementation.info(), implementation);
+    }
+
+    @Nullable
+    @Override
+    public SysJobsCollectorExpression<?, ?> getImplementation(ReferenceInfo info) {
+        return implementations.get(info);
+    }
+
+    private static abstract class JobExpression<T> extends SysJobsCollectorExpression<JobContext, T> {
+
+        protected JobExpression(String name) {
+            super(SysJobsTableInfo.INFOS.get(new ColumnIdent(name)));
+        }
+    }
+
+    private static abstract class OperationExpression<T> extends SysJobsCollectorExpression<OperationContext, T> {
+
+        protected OperationExpression(String name) {
+            super(SysOperationsTableInfo.INFOS.get(new ColumnIdent(name)));
+        }
+    }
+}
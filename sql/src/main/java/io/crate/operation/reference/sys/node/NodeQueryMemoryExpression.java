@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.sys.node;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.ColumnIdent;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.reference.sys.SysNodeObjectReference;
+import org.elasticsearch.common.inject.Inject;
+
+public class NodeQueryMemoryExpression extends SysNodeObjectReference<Long> {
+
+    abstract class QueryMemoryExpression extends SysNodeExpression<Long> {
+        QueryMemoryExpression(String name) {
+            super(new ColumnIdent(NAME, ImmutableList.of(name)));
+        }
+    }
+
+    public static final String NAME = "query_memory";
+
+    public static final String USED = "used";
+    public static final String LIMIT = "limit";
+    public static final String TRIPPED = "tripped";
+
+    private final QueryBreakerService breakerService;
+
+    @Inject
+    public NodeQueryMemoryExpression(QueryBreakerService breakerService) {
+        super(NAME);
+        this.breakerService = breakerService;
+        addChildImplementations();
+    }
+
+    private void addChildImplementations() {
+        childImplementations.put(USED, new QueryMemoryExpression(USED) {
+            @Override
+            public Long value() {
+                return breakerService.used();
+            }
+        });
+        childImplementations.put(LIMIT, new QueryMemoryExpression(LIMIT) {
+            @Override
+            public Long value() {
+                return breakerService.limit();
+            }
+        });
+        childImplementations.put(TRIPPED, new QueryMemoryExpression(TRIPPED) {
+            @Override
+            public Long value() {
+                return breakerService.tripped();
+            }
+        });
+    }
+
+}
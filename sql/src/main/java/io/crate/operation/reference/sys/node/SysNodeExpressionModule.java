@@ -52,5 +52,7 @@ public class SysNodeExpressionModule extends AbstractModule {
         bindExpr(NodeMemoryExpression.NAME, NodeMemoryExpression.class);
         bindExpr(NodeNameExpression.NAME, NodeNameExpression.class);
         bindExpr(NodePortExpression.NAME, NodePortExpression.class);
+        bindExpr(NodeQueryMemoryExpression.NAME, NodeQueryMemoryExpression.class);
+        bindExpr(NodeStatementCacheExpression.NAME, NodeStatementCacheExpression.class);
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.spill;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.*;
+
+/**
+ * a file rows or groups are spilled to. It is written once and then read once.
+ */
+public class SpillFile implements Closeable {
+
+    private static final byte GENERIC = 0;
+    private static final byte BYTES_REF = 1;
+
+    private final File file;
+    private StreamOutput out;
+    private StreamInput in;
+
+    SpillFile(File file) {
+        this.file = file;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    /**
+     * the stream to write to, opened on the first call
+     */
+    public StreamOutput output() throws IOException {
+        if (in != null) {
+            throw new IllegalStateException("SpillFile is already read");
+        }
+        if (out == null) {
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+        return out;
+    }
+
+    /**
+     * close the output and open the file for reading
+     */
+    public StreamInput input() throws IOException {
+        if (in == null) {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            in = new InputStreamStreamInput(new BufferedInputStream(new FileInputStream(file)));
+        }
+        return in;
+    }
+
+    /**
+     * close all streams and delete the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (out != null) {
+                out.close();
+            }
+            if (in != null) {
+                in.close();
+            }
+        } finally {
+            out = null;
+            in = null;
+            file.delete();
+        }
+    }
+
+    /**
+     * write a value of a row, which can also be a {@link BytesRef}
+     * that isn't supported by {@link StreamOutput#writeGenericValue(Object)}
+     */
+    public static void writeValue(StreamOutput out, Object value) throws IOException {
+        if (value instanceof BytesRef) {
+            out.writeByte(BYTES_REF);
+            out.writeBytesRef((BytesRef) value);
+        } else {
+            out.writeByte(GENERIC);
+            out.writeGenericValue(value);
+        }
+    }
+
+    public static Object readValue(StreamInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case BYTES_REF:
+                return in.readBytesRef();
+            case GENERIC:
+                return in.readGenericValue();
+            default:
+                throw new IOException(String.format("Unknown value type %d", type));
+        }
+    }
+
+    public static void writeRow(StreamOutput out, Object[] row) throws IOException {
+        out.writeVInt(row.length);
+        for (Object value : row) {
+            writeValue(out, value);
+        }
+    }
+
+    public static Object[] readRow(StreamInput in) throws IOException {
+        Object[] row = new Object[in.readVInt()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = readValue(in);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.spill;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * provides the memory budget of operations which are able to spill rows to disk
+ * and creates the files they spill to.
+ *
+ * The budget is given as number of rows an operation may hold in memory,
+ * the files are created in a node local temp directory.
+ *
+ * Nodes holding data spill into a sub directory named after their local node id,
+ * which can't be used by another node at the same time, so files left over by a node that was
+ * stopped while spilling are deleted once it is started again.
+ * Other nodes spill into a sub directory of their own.
+ */
+public class SpillService extends AbstractComponent {
+
+    public static final String SETTING_MAX_ROWS = "crate.spill.max_rows";
+    public static final int DEFAULT_MAX_ROWS = 1000000;
+    public static final String SETTING_PATH = "crate.spill.path";
+
+    private final int maxRows;
+    private final File directory;
+
+    @Inject
+    public SpillService(Settings settings, Environment environment, NodeEnvironment nodeEnvironment) {
+        this(settings,
+                settings.getAsInt(SETTING_MAX_ROWS, DEFAULT_MAX_ROWS),
+                nodeDirectory(settings, environment, nodeEnvironment));
+    }
+
+    /**
+     * @param directory the directory to spill to, it must not be used by anyone else.
+     *                  Files left in it are deleted.
+     */
+    public SpillService(Settings settings, int maxRows, File directory) {
+        super(settings);
+        this.maxRows = maxRows;
+        this.directory = directory;
+        purge();
+    }
+
+    private static File nodeDirectory(Settings settings, Environment environment, NodeEnvironment nodeEnvironment) {
+        File directory = new File(settings.get(SETTING_PATH,
+                new File(environment.workWithClusterFile(), "spill").getAbsolutePath()));
+        if (nodeEnvironment.hasNodeFile()) {
+            return new File(directory, Integer.toString(nodeEnvironment.localNodeId()));
+        }
+        return new File(directory, Strings.randomBase64UUID());
+    }
+
+    /**
+     * delete the files spilled before this node was started
+     */
+    private void purge() {
+        File[] files = directory.listFiles();
+        if (files != null && files.length > 0) {
+            logger.info("deleting {} files left in spill directory {}", files.length, directory);
+            if (!FileSystemUtils.deleteRecursively(files)) {
+                logger.warn("failed to delete the files left in spill directory {}", directory);
+            }
+        }
+    }
+
+    /**
+     * the number of rows an operation may hold in memory before it has to spill them to disk
+     */
+    public int maxRows() {
+        return maxRows;
+    }
+
+    public File directory() {
+        return directory;
+    }
+
+    /**
+     * create a new empty file in the spill directory.
+     * The file is deleted once the returned {@link SpillFile} is closed.
+     */
+    public SpillFile newFile(String prefix) throws IOException {
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new IOException(String.format("Failed to create spill directory %s", directory));
+        }
+        File file = File.createTempFile(prefix, ".spill", directory);
+        logger.debug("spilling to {}", file);
+        return new SpillFile(file);
+    }
+}
@@ -161,6 +161,18 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
         return null;
     }
 
+    @Override
+    public Void visitESSearchScrollNode(ESSearchScrollNode node, PrintContext context) {
+        context.print(node.toString());
+        context.indent();
+        context.print("outputs:");
+        for (Symbol symbol : node.outputs()) {
+            symbolPrinter.process(symbol, context);
+        }
+        context.dedent();
+        return null;
+    }
+
     @Override
     public Void visitCollectNode(CollectNode node, PrintContext context) {
         context.print("Collect");
@@ -31,9 +31,12 @@ import io.crate.Constants;
 import io.crate.DataType;
 import io.crate.analyze.*;
 import io.crate.exceptions.CrateException;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.doc.DocSchemaInfo;
 import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.planner.node.ddl.ESClusterUpdateSettingsNode;
 import io.crate.planner.node.ddl.ESCreateIndexNode;
 import io.crate.planner.node.ddl.ESDeleteIndexNode;
@@ -41,8 +44,10 @@ import io.crate.planner.node.dml.*;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.projection.AggregationProjection;
 import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.IndexWriterProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.projection.WriterProjection;
 import io.crate.planner.symbol.*;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
@@ -84,8 +89,13 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
                     if (analysis.ids().size() > 0
                             && !analysis.table().isAlias()) {
                         ESGet(analysis, plan);
-                    } else {
+                    } else if (onlyReferences(analysis.outputSymbols())
+                            && onlyReferences(analysis.sortSymbols())) {
                         ESSearch(analysis, plan);
+                    } else {
+                        // expressions can't be returned or sorted by an elasticsearch search,
+                        // the shards collect them and an ordered limit only collects the top docs
+                        normalSelect(analysis, plan);
                     }
             } else {
                 normalSelect(analysis, plan);
@@ -102,6 +112,47 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
         return plan;
     }
 
+    @Override
+    protected Plan visitInsertFromSubQueryAnalysis(InsertFromSubQueryAnalysis analysis, Void context) {
+        Plan plan = new Plan();
+        SelectAnalysis subQueryAnalysis = analysis.subQueryAnalysis();
+
+        // every collect node writes the rows it collects into the target table
+        // and results in the number of written rows, which are summed up on the handler
+        List<String> columns = new ArrayList<>(analysis.columns().size());
+        for (Reference column : analysis.columns()) {
+            columns.add(column.info().ident().columnIdent().name());
+        }
+        IndexWriterProjection indexWriterProjection = new IndexWriterProjection(
+                analysis.table().ident().name(),
+                columns,
+                analysis.primaryKeyColumnIdx(),
+                analysis.routingColumnIdx());
+        CollectNode collectNode = PlanNodeBuilder.collect(
+                subQueryAnalysis,
+                subQueryAnalysis.outputSymbols(),
+                ImmutableList.<Projection>of(indexWriterProjection)
+        );
+        plan.add(collectNode);
+        plan.add(sumRowCountsMerge(collectNode));
+        plan.expectsAffectedRows(true);
+        return plan;
+    }
+
+    /**
+     * merge node summing up the row counts the collect nodes result in
+     */
+    private static MergeNode sumRowCountsMerge(CollectNode collectNode) {
+        Aggregation sumRowCounts = new Aggregation(
+                new FunctionInfo(new FunctionIdent(SumAggregation.NAME, ImmutableList.of(DataType.LONG)),
+                        DataType.DOUBLE, true),
+                ImmutableList.<Symbol>of(new InputColumn(0)),
+                Aggregation.Step.ITER, Aggregation.Step.FINAL);
+        return PlanNodeBuilder.localMerge(
+                ImmutableList.<Projection>of(new AggregationProjection(ImmutableList.of(sumRowCounts))),
+                collectNode);
+    }
+
     @Override
     protected Plan visitUpdateAnalysis(UpdateAnalysis analysis, Void context) {
         Plan plan = new Plan();
@@ -109,7 +160,8 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
                 analysis.table().ident().name(),
                 analysis.assignments(),
                 analysis.whereClause(),
-                analysis.ids()
+                analysis.ids(),
+                analysis.routingValues()
         );
         plan.add(node);
         plan.expectsAffectedRows(true);
@@ -119,7 +171,7 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
     @Override
     protected Plan visitDeleteAnalysis(DeleteAnalysis analysis, Void context) {
         Plan plan = new Plan();
-        if (analysis.ids().size() == 1) {
+        if (analysis.ids().size() > 0) {
             ESDelete(analysis, plan);
         } else {
             ESDeleteByQuery(analysis, plan);
@@ -134,7 +186,17 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
             CopyNode copyNode = new CopyNode(analysis.path(), analysis.table().ident().name(), analysis.mode());
             plan.add(copyNode);
         } else if (analysis.mode() == CopyAnalysis.Mode.INTO) {
-            throw new UnsupportedOperationException("COPY INTO statement not supported yet");
+            // every collect node writes the documents of its shards into local files
+            // and results in the number of written rows, which are summed up on the handler
+            WriterProjection writerProjection = new WriterProjection(
+                    analysis.path(), analysis.table().ident().name(), analysis.compressed());
+            CollectNode collectNode = PlanNodeBuilder.collect(
+                    analysis,
+                    analysis.outputSymbols(),
+                    ImmutableList.<Projection>of(writerProjection)
+            );
+            plan.add(collectNode);
+            plan.add(sumRowCountsMerge(collectNode));
         }
         plan.expectsAffectedRows(true);
         return plan;
@@ -185,12 +247,15 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
 
     private void ESDelete(DeleteAnalysis analysis, Plan plan) {
         WhereClause whereClause = analysis.whereClause();
-        if (analysis.ids().size() == 1 ) {
+        if (analysis.ids().size() == 1 || !whereClause.version().isPresent()) {
             plan.add(new ESDeleteNode(
-                    analysis.table().ident().name(), analysis.ids().get(0), whereClause.version()));
+                    analysis.table().ident().name(),
+                    analysis.ids(),
+                    analysis.routingValues(),
+                    whereClause.version()));
             plan.expectsAffectedRows(true);
         } else {
-            // TODO: implement bulk delete task / node
+            // deleting several rows with _version is only possible with a query
             ESDeleteByQuery(analysis, plan);
         }
     }
@@ -245,7 +310,13 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
             // otherwise results will be wrong
             TopNProjection tnp = new TopNProjection(analysis.offset() + analysis.limit(), 0,
                     contextBuilder.orderBy(), analysis.reverseFlags());
-            tnp.outputs(contextBuilder.outputs());
+            // pass all collected columns through, the merge sorts by columns which might not be an output
+            List<Symbol> toCollect = contextBuilder.toCollect();
+            List<Symbol> collectOutputs = new ArrayList<>(toCollect.size());
+            for (int i = 0; i < toCollect.size(); i++) {
+                collectOutputs.add(new InputColumn(i));
+            }
+            tnp.outputs(collectOutputs);
             projections = ImmutableList.<Projection>of(tnp);
         } else {
             projections = ImmutableList.<Projection>of();
@@ -265,6 +336,18 @@ public class Planner extends AnalysisVisitor<Void, Plan> {
         plan.add(PlanNodeBuilder.localMerge(ImmutableList.<Projection>of(tnp), collectNode));
     }
 
+    private static boolean onlyReferences(@Nullable List<Symbol> symbols) {
+        if (symbols != null) {
+            for (Symbol symbol : symbols) {
+                if (symbol.symbolType() != SymbolType.REFERENCE
+                        && symbol.symbolType() != SymbolType.DYNAMIC_REFERENCE) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private void ESSearch(SelectAnalysis analysis, Plan plan) {
         // this is an es query
         // this only supports INFOS as order by
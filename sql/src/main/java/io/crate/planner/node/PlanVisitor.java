@@ -55,6 +55,10 @@ public class PlanVisitor<C, R> {
         return visitPlanNode(node, context);
     }
 
+    public R visitESSearchScrollNode(ESSearchScrollNode node, C context) {
+        return visitPlanNode(node, context);
+    }
+
     public R visitESDeleteByQueryNode(ESDeleteByQueryNode node, C context) {
         return visitPlanNode(node, context);
     }
@@ -24,24 +24,54 @@ package io.crate.planner.node.dml;
 import com.google.common.base.Optional;
 import io.crate.planner.node.PlanVisitor;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
 public class ESDeleteNode extends DMLPlanNode {
 
-    private String index;
-    private String id;
-    private Optional<Long> version;
+    private final String index;
+    private final List<String> ids;
+    private final List<String> routingValues;
+    private final Optional<Long> version;
 
-    public ESDeleteNode(String index, String id, Optional<Long> version) {
+    /**
+     * @param routingValues one routing value per id, or an empty list to route by id
+     */
+    public ESDeleteNode(String index, List<String> ids, List<String> routingValues, Optional<Long> version) {
+        assert routingValues.isEmpty() || routingValues.size() == ids.size();
         this.index = index;
-        this.id = id;
+        this.ids = ids;
+        this.routingValues = routingValues;
         this.version = version;
     }
 
+    public ESDeleteNode(String index, String id, Optional<Long> version) {
+        this(index, Arrays.asList(id), Arrays.<String>asList(), version);
+    }
+
     public String index() {
         return index;
     }
 
+    public List<String> ids() {
+        return ids;
+    }
+
     public String id() {
-        return id;
+        return ids.get(0);
+    }
+
+    public List<String> routingValues() {
+        return routingValues;
+    }
+
+    /**
+     * @return the routing value of the id at the given position or null if the id itself is used for routing
+     */
+    @Nullable
+    public String routing(int idx) {
+        return routingValues.isEmpty() ? null : routingValues.get(idx);
     }
 
     @Override
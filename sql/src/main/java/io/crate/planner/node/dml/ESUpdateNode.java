@@ -27,6 +27,7 @@ import io.crate.operation.Input;
 import io.crate.planner.node.PlanVisitor;
 import io.crate.planner.symbol.*;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class ESUpdateNode extends DMLPlanNode {
@@ -37,14 +38,28 @@ public class ESUpdateNode extends DMLPlanNode {
     private final WhereClause whereClause;
     private final Optional<Long> version;
     private final List<String> ids;
-
+    private final List<String> routingValues;
 
     public ESUpdateNode(String index,
                         Map<Reference, Symbol> assignments,
                         WhereClause whereClause,
                         List<String> ids) {
+        this(index, assignments, whereClause, ids, Arrays.<String>asList());
+    }
+
+    /**
+     * @param routingValues one routing value per id, or an empty list to use
+     *                      the clustered by value of the where clause
+     */
+    public ESUpdateNode(String index,
+                        Map<Reference, Symbol> assignments,
+                        WhereClause whereClause,
+                        List<String> ids,
+                        List<String> routingValues) {
+        assert routingValues.isEmpty() || routingValues.size() == ids.size();
         this.index = index;
         this.ids = ids;
+        this.routingValues = routingValues;
         version = whereClause.version();
         updateDoc = new HashMap<>(assignments.size());
         for (Map.Entry<Reference, Symbol> entry: assignments.entrySet()) {
@@ -69,6 +84,21 @@ public class ESUpdateNode extends DMLPlanNode {
         return ids;
     }
 
+    public List<String> routingValues() {
+        return routingValues;
+    }
+
+    /**
+     * @return the routing value of the id at the given position, may be null
+     */
+    @Nullable
+    public String routing(int idx) {
+        if (routingValues.isEmpty()) {
+            return whereClause.clusteredBy().orNull();
+        }
+        return routingValues.get(idx);
+    }
+
     public String[] columns() {
         return columns;
     }
@@ -33,6 +33,7 @@ import io.crate.planner.projection.Projection;
 import io.crate.planner.symbol.Symbol;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -52,6 +53,7 @@ public class CollectNode extends AbstractDQLPlanNode {
     private WhereClause whereClause = WhereClause.MATCH_ALL;
     private RowGranularity maxRowgranularity = RowGranularity.CLUSTER;
     private List<String> downStreamNodes;
+    private TimeValue timeout;
 
     public CollectNode(String id) {
         super(id);
@@ -145,6 +147,18 @@ public class CollectNode extends AbstractDQLPlanNode {
         this.jobId = Optional.fromNullable(jobId);
     }
 
+    /**
+     * the timeout of the statement this node belongs to, see {@link io.crate.action.sql.SQLRequest#timeout()}
+     */
+    @Nullable
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    public void timeout(@Nullable TimeValue timeout) {
+        this.timeout = timeout;
+    }
+
 
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context) {
@@ -182,6 +196,9 @@ public class CollectNode extends AbstractDQLPlanNode {
         if (in.readBoolean()) {
             jobId = Optional.of(new UUID(in.readLong(), in.readLong()));
         }
+        if (in.readBoolean()) {
+            timeout = TimeValue.readTimeValue(in);
+        }
 
     }
 
@@ -218,6 +235,10 @@ public class CollectNode extends AbstractDQLPlanNode {
             out.writeLong(jobId.get().getMostSignificantBits());
             out.writeLong(jobId.get().getLeastSignificantBits());
         }
+        out.writeBoolean(timeout != null);
+        if (timeout != null) {
+            timeout.writeTo(out);
+        }
     }
 
     /**
@@ -240,6 +261,8 @@ public class CollectNode extends AbstractDQLPlanNode {
             result.downStreamNodes = downStreamNodes;
             result.maxRowgranularity = maxRowgranularity;
             result.whereClause(newWhereClause);
+            result.jobId = jobId;
+            result.timeout = timeout;
         }
         return result;
     }
@@ -31,6 +31,7 @@ import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.Constants;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -43,6 +44,7 @@ public class ESSearchNode extends ESDQLPlanNode {
     private final boolean[] reverseFlags;
     private final WhereClause whereClause;
     private final String indexName;
+    private TimeValue scroll;
 
     public ESSearchNode(String indexName,
                         List<Symbol> outputs,
@@ -97,6 +99,19 @@ public class ESSearchNode extends ESDQLPlanNode {
         return whereClause;
     }
 
+    /**
+     * if set, the search keeps a scroll open for the given time
+     * and the limit is used as page size.
+     */
+    @Nullable
+    public TimeValue scroll() {
+        return scroll;
+    }
+
+    public void scroll(@Nullable TimeValue scroll) {
+        this.scroll = scroll;
+    }
+
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context) {
         return visitor.visitESSearchNode(this, context);
@@ -110,6 +125,7 @@ public class ESSearchNode extends ESDQLPlanNode {
                 .add("orderBy", orderBy())
                 .add("reverseFlags", Arrays.toString(reverseFlags()))
                 .add("whereClause", whereClause())
+                .add("scroll", scroll())
                 .toString();
     }
 }
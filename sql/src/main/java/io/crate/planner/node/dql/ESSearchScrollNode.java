@@ -0,0 +1,75 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.node.dql;
+
+import com.google.common.base.Objects;
+import io.crate.planner.node.PlanVisitor;
+import io.crate.planner.symbol.Reference;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.List;
+
+/**
+ * fetches the next page of a scroll opened by an {@link ESSearchNode}
+ */
+public class ESSearchScrollNode extends ESDQLPlanNode {
+
+    private final String scrollId;
+    private final TimeValue scroll;
+    private final List<? extends Reference> references;
+
+    public ESSearchScrollNode(String scrollId, TimeValue scroll, List<? extends Reference> outputs) {
+        assert scrollId != null;
+        assert scroll != null;
+        assert outputs != null;
+        this.scrollId = scrollId;
+        this.scroll = scroll;
+        this.references = outputs;
+        this.outputs = outputs;
+    }
+
+    public String scrollId() {
+        return scrollId;
+    }
+
+    public TimeValue scroll() {
+        return scroll;
+    }
+
+    @Override
+    public List<? extends Reference> outputs() {
+        return references;
+    }
+
+    @Override
+    public <C, R> R accept(PlanVisitor<C, R> visitor, C context) {
+        return visitor.visitESSearchScrollNode(this, context);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("scrollId", scrollId())
+                .add("scroll", scroll())
+                .toString();
+    }
+}
@@ -27,7 +27,9 @@ import io.crate.planner.node.PlanVisitor;
 import io.crate.DataType;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.*;
 
@@ -40,6 +42,7 @@ public class MergeNode extends AbstractDQLPlanNode {
     private int numUpstreams;
     private Set<String> executionNodes;
     private UUID contextId;
+    private TimeValue timeout;
 
     public MergeNode() {
         numUpstreams = 0;
@@ -75,6 +78,18 @@ public class MergeNode extends AbstractDQLPlanNode {
         this.contextId = contextId;
     }
 
+    /**
+     * the timeout of the statement this node belongs to, see {@link io.crate.action.sql.SQLRequest#timeout()}
+     */
+    @Nullable
+    public TimeValue timeout() {
+        return timeout;
+    }
+
+    public void timeout(@Nullable TimeValue timeout) {
+        this.timeout = timeout;
+    }
+
     public void numUpstreams(int numUpstreams) {
         this.numUpstreams = numUpstreams;
     }
@@ -114,6 +129,9 @@ public class MergeNode extends AbstractDQLPlanNode {
                 executionNodes.add(in.readString());
             }
         }
+        if (in.readBoolean()) {
+            timeout = TimeValue.readTimeValue(in);
+        }
     }
 
     @Override
@@ -138,6 +156,10 @@ public class MergeNode extends AbstractDQLPlanNode {
                 out.writeString(node);
             }
         }
+        out.writeBoolean(timeout != null);
+        if (timeout != null) {
+            timeout.writeTo(out);
+        }
     }
 
     @Override
@@ -0,0 +1,160 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.projection;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.DataType;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Value;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A projection which writes every input row as document into the index of a table.
+ * The values of a row are written to the columns at the same position,
+ * the id and routing of the document are computed from the primary key and clustered by column.
+ *
+ * Outputs a single row containing the number of written documents.
+ */
+public class IndexWriterProjection extends Projection {
+
+    private static final List<Symbol> OUTPUTS = ImmutableList.<Symbol>of(new Value(DataType.LONG));
+
+    private String tableName;
+    private List<String> columns;
+    private int primaryKeyIdx = -1;
+    private int clusteredByIdx = -1;
+
+    public static final ProjectionFactory<IndexWriterProjection> FACTORY = new ProjectionFactory<IndexWriterProjection>() {
+        @Override
+        public IndexWriterProjection newInstance() {
+            return new IndexWriterProjection();
+        }
+    };
+
+    IndexWriterProjection() {
+    }
+
+    /**
+     * @param primaryKeyIdx  position of the primary key column, -1 if the ids are generated
+     * @param clusteredByIdx position of the clustered by column, -1 if the documents are routed by id
+     */
+    public IndexWriterProjection(String tableName, List<String> columns, int primaryKeyIdx, int clusteredByIdx) {
+        this.tableName = tableName;
+        this.columns = columns;
+        this.primaryKeyIdx = primaryKeyIdx;
+        this.clusteredByIdx = clusteredByIdx;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public int primaryKeyIdx() {
+        return primaryKeyIdx;
+    }
+
+    public int clusteredByIdx() {
+        return clusteredByIdx;
+    }
+
+    @Override
+    public ProjectionType projectionType() {
+        return ProjectionType.INDEX_WRITER;
+    }
+
+    @Override
+    public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
+        return visitor.visitIndexWriterProjection(this, context);
+    }
+
+    @Override
+    public List<? extends Symbol> outputs() {
+        return OUTPUTS;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        tableName = in.readString();
+        int size = in.readVInt();
+        columns = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            columns.add(in.readString());
+        }
+        primaryKeyIdx = in.readInt();
+        clusteredByIdx = in.readInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(tableName);
+        out.writeVInt(columns.size());
+        for (String column : columns) {
+            out.writeString(column);
+        }
+        out.writeInt(primaryKeyIdx);
+        out.writeInt(clusteredByIdx);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IndexWriterProjection that = (IndexWriterProjection) o;
+
+        if (clusteredByIdx != that.clusteredByIdx) return false;
+        if (primaryKeyIdx != that.primaryKeyIdx) return false;
+        if (!columns.equals(that.columns)) return false;
+        if (!tableName.equals(that.tableName)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tableName.hashCode();
+        result = 31 * result + columns.hashCode();
+        result = 31 * result + primaryKeyIdx;
+        result = 31 * result + clusteredByIdx;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexWriterProjection{" +
+                "tableName=" + tableName +
+                ", columns=" + columns +
+                ", primaryKeyIdx=" + primaryKeyIdx +
+                ", clusteredByIdx=" + clusteredByIdx +
+                '}';
+    }
+}
@@ -26,7 +26,9 @@ public enum ProjectionType {
     TOPN(TopNProjection.FACTORY),
     GROUP(GroupProjection.FACTORY),
     COLUMN(ColumnProjection.FACTORY),
-    AGGREGATION(AggregationProjection.FACTORY);
+    AGGREGATION(AggregationProjection.FACTORY),
+    INDEX_WRITER(IndexWriterProjection.FACTORY),
+    WRITER(WriterProjection.FACTORY);
 
     private final Projection.ProjectionFactory factory;
 
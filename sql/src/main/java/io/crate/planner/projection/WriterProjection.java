@@ -0,0 +1,141 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.projection;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.DataType;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Value;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A projection which writes the raw source of every input row into a file
+ * of the given directory on the node the rows are collected on.
+ * Every shard writes to its own file, the shard id is expected as second value of a row.
+ *
+ * Outputs a single row containing the number of written rows.
+ */
+public class WriterProjection extends Projection {
+
+    private static final List<Symbol> OUTPUTS = ImmutableList.<Symbol>of(new Value(DataType.LONG));
+
+    private String directory;
+    private String fileNamePrefix;
+    private boolean compressed;
+
+    public static final ProjectionFactory<WriterProjection> FACTORY = new ProjectionFactory<WriterProjection>() {
+        @Override
+        public WriterProjection newInstance() {
+            return new WriterProjection();
+        }
+    };
+
+    WriterProjection() {
+    }
+
+    /**
+     * @param fileNamePrefix prefix of the file names, the shard id is appended
+     * @param compressed     whether the files are gzip compressed
+     */
+    public WriterProjection(String directory, String fileNamePrefix, boolean compressed) {
+        this.directory = directory;
+        this.fileNamePrefix = fileNamePrefix;
+        this.compressed = compressed;
+    }
+
+    public String directory() {
+        return directory;
+    }
+
+    public String fileNamePrefix() {
+        return fileNamePrefix;
+    }
+
+    public boolean compressed() {
+        return compressed;
+    }
+
+    @Override
+    public ProjectionType projectionType() {
+        return ProjectionType.WRITER;
+    }
+
+    @Override
+    public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
+        return visitor.visitWriterProjection(this, context);
+    }
+
+    @Override
+    public List<? extends Symbol> outputs() {
+        return OUTPUTS;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        directory = in.readString();
+        fileNamePrefix = in.readString();
+        compressed = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(directory);
+        out.writeString(fileNamePrefix);
+        out.writeBoolean(compressed);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        WriterProjection that = (WriterProjection) o;
+
+        if (compressed != that.compressed) return false;
+        if (!directory.equals(that.directory)) return false;
+        if (!fileNamePrefix.equals(that.fileNamePrefix)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = directory.hashCode();
+        result = 31 * result + fileNamePrefix.hashCode();
+        result = 31 * result + (compressed ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "WriterProjection{" +
+                "directory=" + directory +
+                ", fileNamePrefix=" + fileNamePrefix +
+                ", compressed=" + compressed +
+                '}';
+    }
+}
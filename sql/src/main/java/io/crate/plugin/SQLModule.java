@@ -23,8 +23,12 @@ package io.crate.plugin;
 
 import io.crate.action.sql.DDLAnalysisDispatcher;
 import io.crate.action.sql.SQLAction;
+import io.crate.action.sql.StatementCache;
 import io.crate.action.sql.TransportSQLAction;
 import io.crate.metadata.FulltextAnalyzerResolver;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.spill.SpillService;
 import org.elasticsearch.action.GenericAction;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.common.inject.AbstractModule;
@@ -37,6 +41,10 @@ public class SQLModule extends AbstractModule {
     protected void configure() {
         bind(TransportSQLAction.class).asEagerSingleton();
         bind(DDLAnalysisDispatcher.class).asEagerSingleton();
+        bind(StatementCache.class).asEagerSingleton();
+        bind(SpillService.class).asEagerSingleton();
+        bind(QueryBreakerService.class).asEagerSingleton();
+        bind(JobContextService.class).asEagerSingleton();
         bind(FulltextAnalyzerResolver.class).asEagerSingleton();
         MapBinder<GenericAction, TransportAction> transportActionsBinder = MapBinder.newMapBinder(binder(), GenericAction.class,
                 TransportAction.class);
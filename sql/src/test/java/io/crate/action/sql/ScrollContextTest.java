@@ -0,0 +1,68 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.DataType;
+import io.crate.exceptions.ScrollUnknownException;
+import io.crate.planner.symbol.Reference;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import static io.crate.metadata.TestingHelpers.createReference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScrollContextTest {
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        Reference name = createReference("name", DataType.STRING);
+        Reference age = createReference("age", DataType.INTEGER);
+        ScrollContext context = new ScrollContext(
+                "esScrollId",
+                ImmutableList.of(name, age),
+                ImmutableList.of(DataType.STRING, DataType.INTEGER),
+                new String[]{"name", "age"},
+                TimeValue.timeValueMinutes(1),
+                10);
+
+        ScrollContext decoded = ScrollContext.decode(context.encode());
+        assertEquals("esScrollId", decoded.esScrollId());
+        assertEquals(ImmutableList.of(name, age), decoded.outputs());
+        assertEquals(ImmutableList.of(DataType.STRING, DataType.INTEGER), decoded.outputTypes());
+        assertArrayEquals(new String[]{"name", "age"}, decoded.outputNames());
+        assertEquals(TimeValue.timeValueMinutes(1).millis(), decoded.scroll().millis());
+        assertEquals(10, decoded.pageSize());
+
+        ScrollContext next = decoded.next("nextEsScrollId", TimeValue.timeValueSeconds(30));
+        decoded = ScrollContext.decode(next.encode());
+        assertEquals("nextEsScrollId", decoded.esScrollId());
+        assertEquals(TimeValue.timeValueSeconds(30).millis(), decoded.scroll().millis());
+        assertEquals(10, decoded.pageSize());
+    }
+
+    @Test (expected = ScrollUnknownException.class)
+    public void testDecodeInvalidScrollId() throws Exception {
+        ScrollContext.decode("invalid");
+    }
+}
@@ -24,10 +24,14 @@ package io.crate.analyze;
 import io.crate.exceptions.SchemaUnknownException;
 import io.crate.exceptions.TableUnknownException;
 import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocSchemaInfo;
 import io.crate.metadata.sys.MetaDataSysModule;
+import io.crate.metadata.sys.SysShardsTableInfo;
 import io.crate.metadata.table.SchemaInfo;
 import io.crate.operation.operator.OperatorModule;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.symbol.Reference;
 import org.elasticsearch.common.inject.Module;
 import org.junit.Test;
 
@@ -103,4 +107,53 @@ public class CopyAnalyzerTest extends BaseAnalyzerTest {
     public void testCopyFromInvalidParameter() throws Exception {
         analyze("copy users from ?", new Object[]{new HashMap<String, Object>()});
     }
+
+    @Test
+    public void testCopyToDirectory() throws Exception {
+        CopyAnalysis analysis = (CopyAnalysis)analyze("copy users to directory '/some/distant/dir'");
+        assertThat(analysis.mode(), is(CopyAnalysis.Mode.INTO));
+        assertThat(analysis.table().ident(), is(TEST_DOC_TABLE_IDENT));
+        assertThat(analysis.path(), is("/some/distant/dir"));
+        assertThat(analysis.compressed(), is(false));
+
+        assertThat(analysis.outputSymbols().size(), is(2));
+        Reference raw = (Reference) analysis.outputSymbols().get(0);
+        assertThat(raw.info().ident().columnIdent(), is(DocSysColumns.RAW));
+        Reference shardId = (Reference) analysis.outputSymbols().get(1);
+        assertThat(shardId.info().ident().tableIdent(), is(SysShardsTableInfo.IDENT));
+        assertThat(shardId.info().granularity(), is(RowGranularity.SHARD));
+    }
+
+    @Test
+    public void testCopyToDirectoryCompressed() throws Exception {
+        CopyAnalysis analysis = (CopyAnalysis)analyze(
+                "copy users to directory ? with (compression='gzip')", new Object[]{"/some/dir"});
+        assertThat(analysis.path(), is("/some/dir"));
+        assertThat(analysis.compressed(), is(true));
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testCopyToUnknownCompression() throws Exception {
+        analyze("copy users to directory '/some/dir' with (compression='zip')");
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testCopyToUnknownProperty() throws Exception {
+        analyze("copy users to directory '/some/dir' with (overwrite=true)");
+    }
+
+    @Test( expected = UnsupportedOperationException.class)
+    public void testCopyToSystemTable() throws Exception {
+        analyze("copy sys.shards to directory '/nope/nope'");
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testCopyToRelativeDirectory() throws Exception {
+        analyze("copy users to directory 'some/dir'");
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testCopyToInvalidPath() throws Exception {
+        analyze("copy users to directory 1.2");
+    }
 }
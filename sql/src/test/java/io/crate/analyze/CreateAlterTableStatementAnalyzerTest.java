@@ -240,6 +240,39 @@ public class CreateAlterTableStatementAnalyzerTest extends BaseAnalyzerTest {
         assertThat((String)ageProperties.get("type"), is("integer"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTableWithDocValues() throws Exception {
+        CreateTableAnalysis analysis = (CreateTableAnalysis)analyze(
+                "create table foo (id integer primary key, " +
+                "name string storage with (doc_values=false), " +
+                "content string index using fulltext, " +
+                "tags array(string), " +
+                "ids array(long) storage with (doc_values=true), " +
+                "counter long index off storage with (doc_values=?))", new Object[]{true});
+
+        Map<String, Object> mappingProperties = analysis.mappingProperties();
+        assertThat((Boolean)((Map<String, Object>)mappingProperties.get("id")).get("doc_values"), is(true));
+        assertThat((Boolean)((Map<String, Object>)mappingProperties.get("name")).get("doc_values"), is(false));
+        assertNull(((Map<String, Object>)mappingProperties.get("content")).get("doc_values"));
+        assertThat((Boolean)((Map<String, Object>)mappingProperties.get("tags")).get("doc_values"), is(false));
+        assertThat((Boolean)((Map<String, Object>)mappingProperties.get("ids")).get("doc_values"), is(true));
+
+        Map<String, Object> counterMapping = (Map<String, Object>)mappingProperties.get("counter");
+        assertThat((String)counterMapping.get("index"), is("no"));
+        assertThat((Boolean)counterMapping.get("doc_values"), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateTableWithDocValuesOnFulltextColumn() throws Exception {
+        analyze("create table foo (content string index using fulltext storage with (doc_values=true))");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateTableWithInvalidStorageOption() throws Exception {
+        analyze("create table foo (name string storage with (compression='lz4'))");
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testCreateTableWithAnalyzer() throws Exception {
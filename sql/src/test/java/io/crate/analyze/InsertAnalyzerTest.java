@@ -33,6 +33,7 @@ import io.crate.planner.RowGranularity;
 import io.crate.planner.symbol.*;
 import io.crate.DataType;
 import io.crate.exceptions.CrateException;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.exceptions.ValidationException;
 import org.elasticsearch.common.inject.Module;
 import org.junit.Test;
@@ -291,4 +292,54 @@ public class InsertAnalyzerTest extends BaseAnalyzerTest {
                 new Object[]{1, "1"});
     }
 
+    @Test
+    public void testInsertFromSubQuery() throws Exception {
+        InsertFromSubQueryAnalysis analysis = (InsertFromSubQueryAnalysis) analyze(
+                "insert into users (name, id) select name, id from users");
+        assertThat(analysis.table().ident(), is(TEST_DOC_TABLE_IDENT));
+        assertThat(analysis.columns().size(), is(2));
+        assertThat(analysis.columns().get(0).info().ident().columnIdent().name(), is("name"));
+        assertThat(analysis.columns().get(1).info().ident().columnIdent().name(), is("id"));
+        assertThat(analysis.primaryKeyColumnIdx(), is(1));
+        assertThat(analysis.routingColumnIdx(), is(1));
+
+        SelectAnalysis subQueryAnalysis = analysis.subQueryAnalysis();
+        assertThat(subQueryAnalysis.table().ident(), is(TEST_DOC_TABLE_IDENT));
+        assertThat(subQueryAnalysis.outputSymbols().size(), is(2));
+    }
+
+    @Test
+    public void testInsertFromSubQueryWithoutColumns() throws Exception {
+        InsertFromSubQueryAnalysis analysis = (InsertFromSubQueryAnalysis) analyze(
+                "insert into users select id, name from users");
+        assertThat(analysis.columns().size(), is(2));
+        assertThat(analysis.columns().get(0).info().ident().columnIdent().name(), is("id"));
+        assertThat(analysis.columns().get(1).info().ident().columnIdent().name(), is("name"));
+        assertThat(analysis.primaryKeyColumnIdx(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertFromSubQueryWithoutPrimaryKey() throws Exception {
+        analyze("insert into users (name) select name from users");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertFromSubQueryWithTooLessColumns() throws Exception {
+        analyze("insert into users (id, name) select id from users");
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testInsertFromSubQueryWithWrongType() throws Exception {
+        analyze("insert into users (id, name) select id, awesome from users");
+    }
+
+    @Test(expected = UnsupportedFeatureException.class)
+    public void testInsertFromSubQueryWithGroupBy() throws Exception {
+        analyze("insert into users (id) select id from users group by id");
+    }
+
+    @Test(expected = UnsupportedFeatureException.class)
+    public void testInsertFromSubQueryOnSysTable() throws Exception {
+        analyze("insert into users (id) select id from sys.nodes");
+    }
 }
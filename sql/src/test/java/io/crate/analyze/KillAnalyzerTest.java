@@ -0,0 +1,67 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.MetaDataModule;
+import io.crate.metadata.sys.MetaDataSysModule;
+import org.elasticsearch.common.inject.Module;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class KillAnalyzerTest extends BaseAnalyzerTest {
+
+    private static final String JOB_ID = "4e3c9f4b-4bd5-4a9c-8b37-1a7bf3c6b0a3";
+
+    @Override
+    protected List<Module> getModules() {
+        List<Module> modules = super.getModules();
+        modules.addAll(Arrays.<Module>asList(
+                new TestModule(),
+                new MetaDataModule(),
+                new MetaDataSysModule()
+        ));
+        return modules;
+    }
+
+    @Test
+    public void testKillJob() throws Exception {
+        KillAnalysis analysis = (KillAnalysis) analyze("kill '" + JOB_ID + "'");
+        assertThat(analysis.jobId(), is(UUID.fromString(JOB_ID)));
+    }
+
+    @Test
+    public void testKillJobParameter() throws Exception {
+        KillAnalysis analysis = (KillAnalysis) analyze("kill ?", new Object[]{JOB_ID});
+        assertThat(analysis.jobId(), is(UUID.fromString(JOB_ID)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKillInvalidJobId() throws Exception {
+        analyze("kill 'not a job'");
+    }
+}
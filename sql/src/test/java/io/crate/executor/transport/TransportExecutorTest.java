@@ -369,6 +369,35 @@ public class TransportExecutorTest extends SQLTransportIntegrationTest {
 
     }
 
+    @Test
+    public void testESBulkDeleteTask() throws Exception {
+        insertCharacters();
+
+        // delete from characters where id in (1, 3, 4)
+        ESDeleteNode node = new ESDeleteNode("characters",
+                asList("1", "3", "4"), asList("1", "3", "4"), Optional.<Long>absent());
+        Plan plan = new Plan();
+        plan.add(node);
+        Job job = executor.newJob(plan);
+        assertThat(job.tasks().get(0), instanceOf(ESBulkTask.class));
+        List<ListenableFuture<Object[][]>> result = executor.execute(job);
+        Object[][] rows = result.get(0).get();
+        assertThat(rows.length, is(1));
+        assertThat((Long)rows[0][0], is(2L));
+
+        // verify deletion
+        ESGetNode getNode = new ESGetNode("characters", asList("1", "2", "3"), asList("1", "2", "3"));
+        getNode.outputs(ImmutableList.<Symbol>of(id_ref, name_ref));
+        plan = new Plan();
+        plan.add(getNode);
+        job = executor.newJob(plan);
+        result = executor.execute(job);
+        Object[][] objects = result.get(0).get();
+
+        assertThat(objects.length, is(1));
+        assertThat((Integer) objects[0][0], is(2));
+    }
+
     @Test
     public void testESIndexTask() throws Exception {
         execute("create table characters (id int primary key, name string)");
@@ -24,6 +24,7 @@ package io.crate.executor.transport.merge;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.executor.transport.distributed.DistributedRequestContextManager;
 import io.crate.executor.transport.distributed.DistributedResultRequest;
+import io.crate.executor.transport.distributed.DistributedResultResponse;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.Functions;
@@ -117,7 +118,20 @@ public class DistributedResultRequestTest {
         assertTrue(requestReceiver.memoryStream().size() > 0);
 
 
-        contextManager.addToContext(requestReceiver);
+        final SettableFuture<DistributedResultResponse> merged = SettableFuture.create();
+        contextManager.addToContext(requestReceiver, new ActionListener<DistributedResultResponse>() {
+            @Override
+            public void onResponse(DistributedResultResponse response) {
+                merged.set(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                merged.setException(e);
+            }
+        });
+        // the upstream gets its response once the rows are merged
+        assertFalse(merged.isDone());
         final SettableFuture<Object[][]> result = SettableFuture.create();
 
         contextManager.createContext(dummyMergeNode, new ActionListener<NodeMergeResponse>() {
@@ -131,6 +145,7 @@ public class DistributedResultRequestTest {
             }
         });
 
+        assertNotNull(merged.get());
         Object[][] receivedRows = result.get();
         assertThat(receivedRows.length, is(3));
         for (int i = 0; i < rows.length; i++) {
@@ -211,6 +226,10 @@ public class DistributedResultRequestTest {
                 public Object[][] result() {
                     return result;
                 }
+
+                @Override
+                public void close() {
+                }
             };
         }
     }
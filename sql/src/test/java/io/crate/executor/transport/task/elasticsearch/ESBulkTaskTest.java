@@ -0,0 +1,117 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task.elasticsearch;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.exceptions.CrateException;
+import io.crate.exceptions.DuplicateKeyException;
+import io.crate.test.BulkResponses;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ESBulkTaskTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private BulkRequest deleteRequests(Long version) {
+        BulkRequest request = new BulkRequest();
+        for (String id : new String[]{"1", "2", "3"}) {
+            DeleteRequest deleteRequest = new DeleteRequest("characters", "default", id);
+            if (version != null) {
+                deleteRequest.version(version);
+            }
+            request.add(deleteRequest);
+        }
+        return request;
+    }
+
+    /**
+     * executes the listener of a task with two plan nodes, the first one owning
+     * the first item of the request, the second one the remaining items
+     */
+    private Object[][] respond(BulkRequest request, RestStatus... itemStatus) throws Exception {
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = BulkResponses.item(i, request.requests().get(i), itemStatus[i]);
+        }
+        SettableFuture<Object[][]> result = SettableFuture.create();
+        ESBulkTask.BulkResponseListener listener = new ESBulkTask.BulkResponseListener(
+                result, new int[]{1, items.length - 1}, request.requests());
+        listener.onResponse(new BulkResponse(items, 1L));
+        return result.get();
+    }
+
+    @Test
+    public void testRowsAffected() throws Exception {
+        Object[][] rows = respond(deleteRequests(null), null, null, RestStatus.NOT_FOUND);
+
+        assertThat((Long) rows[0][0], is(1L));
+        assertThat((Long) rows[1][0], is(1L));
+    }
+
+    @Test
+    public void testVersionConflictDoesNotAffectRows() throws Exception {
+        Object[][] rows = respond(deleteRequests(2L), RestStatus.CONFLICT, null, RestStatus.CONFLICT);
+
+        assertThat((Long) rows[0][0], is(0L));
+        assertThat((Long) rows[1][0], is(1L));
+    }
+
+    @Test
+    public void testConflictWithoutVersion() throws Exception {
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage(CrateException.class.getName());
+        respond(deleteRequests(null), null, RestStatus.CONFLICT, null);
+    }
+
+    @Test
+    public void testDuplicateKey() throws Exception {
+        BulkRequest request = new BulkRequest();
+        for (String id : new String[]{"1", "2"}) {
+            request.add(new IndexRequest("characters", "default", id).create(true).source("{}"));
+        }
+
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage(DuplicateKeyException.class.getName());
+        respond(request, null, RestStatus.CONFLICT);
+    }
+
+    @Test
+    public void testFailedItem() throws Exception {
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage("Failed to delete document with id 2: failed");
+        respond(deleteRequests(null), null, RestStatus.INTERNAL_SERVER_ERROR, null);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task.elasticsearch.facet;
+
+import io.crate.exceptions.CrateException;
+import io.crate.test.BulkResponses;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.TransportBulkAction;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.internal.SearchContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UpdateCollectorTest {
+
+    private static final int NUM_DOCS = 1100;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+    private SearchContext searchContext;
+    private TransportBulkAction bulkAction;
+    private final List<BulkRequest> bulkRequests = new ArrayList<>();
+
+    @Before
+    public void prepare() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory,
+                new IndexWriterConfig(Version.LUCENE_46, new KeywordAnalyzer()));
+        for (int i = 0; i < NUM_DOCS; i++) {
+            Document document = new Document();
+            document.add(new StringField("_uid", "default#" + i, Field.Store.YES));
+            writer.addDocument(document);
+        }
+        writer.forceMerge(1);
+        writer.close();
+        reader = DirectoryReader.open(directory);
+
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(new ShardId("characters", 0));
+        searchContext = mock(SearchContext.class);
+        when(searchContext.indexShard()).thenReturn(indexShard);
+        bulkAction = mock(TransportBulkAction.class);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    /**
+     * respond to every bulk request, every update fails with the given status or succeeds if it's null
+     */
+    @SuppressWarnings("unchecked")
+    private void respond(RestStatus failureStatus) {
+        doAnswer(BulkResponses.answering(bulkRequests, failureStatus))
+                .when(bulkAction).execute(any(BulkRequest.class), any(ActionListener.class));
+    }
+
+    private UpdateCollector collect(Long requiredVersion) throws Exception {
+        UpdateCollector collector = new UpdateCollector(
+                MapBuilder.<String, Object>newMapBuilder().put("flag", true).map(),
+                requiredVersion, bulkAction, searchContext);
+        for (AtomicReaderContext leaf : reader.leaves()) {
+            collector.setNextReader(leaf);
+            for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                collector.collect(doc);
+            }
+        }
+        collector.postCollection();
+        return collector;
+    }
+
+    @Test
+    public void testUpdateInBatches() throws Exception {
+        respond(null);
+        UpdateCollector collector = collect(null);
+
+        assertThat(collector.rowCount(), is((long) NUM_DOCS));
+        assertThat(bulkRequests.size(), is(3));
+        assertThat(bulkRequests.get(0).numberOfActions(), is(UpdateCollector.BATCH_SIZE));
+        assertThat(bulkRequests.get(2).numberOfActions(), is(NUM_DOCS - 2 * UpdateCollector.BATCH_SIZE));
+        for (ActionRequest request : bulkRequests.get(0).requests()) {
+            assertThat(((UpdateRequest) request).index(), is("characters"));
+        }
+    }
+
+    @Test
+    public void testVersionConflictDoesNotMatch() throws Exception {
+        respond(RestStatus.CONFLICT);
+        UpdateCollector collector = collect(1L);
+
+        assertThat(collector.rowCount(), is(0L));
+        assertThat(((UpdateRequest) bulkRequests.get(0).requests().get(0)).version(), is(1L));
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        respond(RestStatus.INTERNAL_SERVER_ERROR);
+
+        expectedException.expect(CrateException.class);
+        expectedException.expectMessage("Failed to update 500 documents of shard [characters][0]: failed");
+        collect(null);
+    }
+}
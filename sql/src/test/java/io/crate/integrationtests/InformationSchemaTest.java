@@ -79,14 +79,16 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultTables() throws Exception {
         execute("select * from information_schema.tables order by schema_name, table_name");
-        assertEquals(6L, response.rowCount());
+        assertEquals(8L, response.rowCount());
 
         assertArrayEquals(response.rows()[0], new Object[]{"information_schema", "columns", 1, "0", null});
         assertArrayEquals(response.rows()[1], new Object[]{"information_schema", "table_constraints", 1, "0", null});
         assertArrayEquals(response.rows()[2], new Object[]{"information_schema", "tables", 1, "0", null});
         assertArrayEquals(response.rows()[3], new Object[]{"sys", "cluster", 1, "0", null});
-        assertArrayEquals(response.rows()[4], new Object[]{"sys", "nodes", 1, "0", null});
-        assertArrayEquals(response.rows()[5], new Object[]{"sys", "shards", 1, "0", null});
+        assertArrayEquals(response.rows()[4], new Object[]{"sys", "jobs", 1, "0", null});
+        assertArrayEquals(response.rows()[5], new Object[]{"sys", "nodes", 1, "0", null});
+        assertArrayEquals(response.rows()[6], new Object[]{"sys", "operations", 1, "0", null});
+        assertArrayEquals(response.rows()[7], new Object[]{"sys", "shards", 1, "0", null});
     }
 
     @Test
@@ -94,7 +96,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         serviceSetup();
 
         execute("select * from information_schema.tables");
-        assertEquals(9L, response.rowCount());
+        assertEquals(11L, response.rowCount());
 
         client().execute(SQLAction.INSTANCE,
             new SQLRequest("create table t4 (col1 integer, col2 string)")).actionGet();
@@ -104,7 +106,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         Thread.sleep(10);
 
         execute("select * from information_schema.tables");
-        assertEquals(10L, response.rowCount());
+        assertEquals(12L, response.rowCount());
     }
 
 
@@ -226,17 +228,21 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     public void testSelectFromTableConstraints() throws Exception {
 
         execute("select * from INFORMATION_SCHEMA.table_constraints order by schema_name asc, table_name asc");
-        assertEquals(4L, response.rowCount());
+        assertEquals(6L, response.rowCount());
         assertThat(response.cols(), arrayContaining("schema_name", "table_name", "constraint_name",
                 "constraint_type"));
         assertThat(dotJoiner.join(response.rows()[0][0], response.rows()[0][1]), is("information_schema.columns"));
         assertThat(commaJoiner.join((Collection<?>)response.rows()[0][2]), is("schema_name, table_name, column_name"));
         assertThat(dotJoiner.join(response.rows()[1][0], response.rows()[1][1]), is("information_schema.tables"));
         assertThat(commaJoiner.join((Collection<?>)response.rows()[1][2]), is("schema_name, table_name"));
-        assertThat(dotJoiner.join(response.rows()[2][0], response.rows()[2][1]), is("sys.nodes"));
+        assertThat(dotJoiner.join(response.rows()[2][0], response.rows()[2][1]), is("sys.jobs"));
         assertThat(commaJoiner.join((Collection<?>)response.rows()[2][2]), is("id"));
-        assertThat(dotJoiner.join(response.rows()[3][0], response.rows()[3][1]), is("sys.shards"));
-        assertThat(commaJoiner.join((Collection<?>)response.rows()[3][2]), is("schema_name, table_name, id"));
+        assertThat(dotJoiner.join(response.rows()[3][0], response.rows()[3][1]), is("sys.nodes"));
+        assertThat(commaJoiner.join((Collection<?>)response.rows()[3][2]), is("id"));
+        assertThat(dotJoiner.join(response.rows()[4][0], response.rows()[4][1]), is("sys.operations"));
+        assertThat(commaJoiner.join((Collection<?>)response.rows()[4][2]), is("id"));
+        assertThat(dotJoiner.join(response.rows()[5][0], response.rows()[5][1]), is("sys.shards"));
+        assertThat(commaJoiner.join((Collection<?>)response.rows()[5][2]), is("schema_name, table_name, id"));
 
         execute("create table test (col1 integer primary key, col2 string)");
         ensureGreen();
@@ -400,7 +406,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() throws Exception {
         execute("select * from information_schema.columns order by schema_name, table_name");
-        assertEquals(45L, response.rowCount());
+        assertEquals(63L, response.rowCount());
     }
 
     @Test
@@ -520,7 +526,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         execute("select max(ordinal_position) from information_schema.columns");
         assertEquals(1, response.rowCount());
 
-        short max_ordinal = 21;
+        short max_ordinal = 29;
         assertEquals(max_ordinal, response.rows()[0][0]);
 
         execute("create table t1 (id integer, col1 string)");
@@ -585,7 +591,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         ensureYellow();
         execute("select count(*) from information_schema.tables");
         assertEquals(1, response.rowCount());
-        assertEquals(9L, response.rows()[0][0]); // 3 + 5
+        assertEquals(11L, response.rows()[0][0]); // 3 + 8
     }
 
     @Test
@@ -24,6 +24,7 @@ package io.crate.integrationtests;
 import org.codehaus.jackson.map.ObjectMapper;
 import io.crate.action.sql.parser.SQLXContentSourceContext;
 import io.crate.action.sql.parser.SQLXContentSourceParser;
+import io.crate.exceptions.SQLParseException;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.junit.Before;
 import org.junit.Test;
@@ -152,4 +153,60 @@ public class RestSqlActionTest extends SQLTransportIntegrationTest {
         assertEquals("[{\"1\":{\"2\":{\"3\":3}}},[{\"1\":{\"2\":[2,2]}}]]",
             mapper.writeValueAsString(context.args()));
     }
+
+    @Test
+    public void testBulkArgsParser() throws Exception {
+        SQLXContentSourceContext context = new SQLXContentSourceContext();
+        SQLXContentSourceParser parser = new SQLXContentSourceParser(context);
+        BytesArray source = new BytesArray("{\n" +
+            "    \"stmt\": \"insert into locations (id, name) values (?, ?)\",\n" +
+            "    \"bulk_args\": [[\"1\", \"foo\"], [\"2\", [\"bar\"]]]\n" +
+            "}\n");
+        parser.parseSource(source);
+        assertNull(context.args());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("[[\"1\",\"foo\"],[\"2\",[\"bar\"]]]",
+            mapper.writeValueAsString(context.bulkArgs()));
+    }
+
+    @Test (expected = SQLParseException.class)
+    public void testBulkArgsWithArgsParser() throws Exception {
+        SQLXContentSourceContext context = new SQLXContentSourceContext();
+        SQLXContentSourceParser parser = new SQLXContentSourceParser(context);
+        parser.parseSource(new BytesArray(
+                "{\"stmt\": \"delete from locations\", \"args\": [1], \"bulk_args\": [[1]]}"));
+    }
+
+    @Test
+    public void testBulkInsert() throws Exception {
+        String json = restSQLExecute("{\n" +
+                "    \"stmt\": \"insert into locations (id, name, kind) values (?, ?, ?)\",\n" +
+                "    \"bulk_args\": [[\"100\", \"Berlin\", \"City\"], [\"101\", \"Dornbirn\", \"City\"]]\n" +
+                "}\n");
+        JSONAssert.assertEquals(
+                "{\n" +
+                        "  \"cols\" : [ ],\n" +
+                        "  \"rows\" : [ ],\n" +
+                        "  \"results\" : [ {\"rowcount\" : 1}, {\"rowcount\" : 1} ],\n" +
+                        "  \"duration\" : " + responseDuration +
+                        "}", json, false);
+    }
+
+    @Test
+    public void testScrollParser() throws Exception {
+        SQLXContentSourceContext context = new SQLXContentSourceContext();
+        SQLXContentSourceParser parser = new SQLXContentSourceParser(context);
+        parser.parseSource(new BytesArray("{\"scroll_id\": \"abc\", \"scroll\": \"2m\"}"));
+        assertNull(context.stmt());
+        assertEquals("abc", context.scrollId());
+        assertEquals(120000L, context.scroll().millis());
+    }
+
+    @Test
+    public void testTimeoutParser() throws Exception {
+        SQLXContentSourceContext context = new SQLXContentSourceContext();
+        SQLXContentSourceParser parser = new SQLXContentSourceParser(context);
+        parser.parseSource(new BytesArray("{\"stmt\": \"select * from test\", \"timeout\": \"30s\"}"));
+        assertEquals(30000L, context.timeout().millis());
+    }
 }
@@ -27,18 +27,23 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import io.crate.Constants;
 import io.crate.TimestampFormat;
+import io.crate.action.sql.SQLAction;
+import io.crate.action.sql.SQLRequest;
 import io.crate.action.sql.SQLResponse;
 import io.crate.exceptions.*;
 import io.crate.test.integration.CrateIntegrationTest;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.File;
@@ -67,6 +72,9 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * override execute to store response in property for easier access
      */
@@ -153,6 +161,53 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         assertEquals(0, response.rowCount());
     }
 
+    @Test
+    public void testSelectFunctionOrderByLimit() throws Exception {
+        execute("create table test (id integer primary key, ts timestamp) " +
+                "clustered into 2 shards with (number_of_replicas=0)");
+        ensureGreen();
+        executeBulk("insert into test (id, ts) values (?, ?)", new Object[][]{
+                new Object[]{1, "2014-03-27T23:00:00"},
+                new Object[]{2, "2014-03-28T08:00:00"},
+                new Object[]{3, "2014-03-29T10:00:00"},
+                new Object[]{4, "2014-03-30T01:00:00"},
+                new Object[]{5, "2014-03-31T12:00:00"}
+        });
+        refresh();
+
+        execute("select id, date_trunc('day', ts) from test order by ts desc limit 2 offset 1");
+        assertEquals(2L, response.rowCount());
+        assertArrayEquals(new Object[]{4, 1396137600000L}, response.rows()[0]);
+        assertArrayEquals(new Object[]{3, 1396051200000L}, response.rows()[1]);
+
+        execute("select date_trunc('day', ts) from test order by ts limit 2");
+        assertEquals(2L, response.rowCount());
+        assertEquals(1395878400000L, response.rows()[0][0]);
+        assertEquals(1395964800000L, response.rows()[1][0]);
+    }
+
+    @Test
+    public void testSelectOrderByFunctionLimit() throws Exception {
+        execute("create table test (id integer primary key, name string, ts timestamp) " +
+                "clustered into 2 shards with (number_of_replicas=0)");
+        ensureGreen();
+        executeBulk("insert into test (id, name, ts) values (?, ?, ?)", new Object[][]{
+                new Object[]{1, "Arthur", "2014-03-27T23:00:00"},
+                new Object[]{2, "Ford", "2014-03-28T08:00:00"},
+                new Object[]{3, "Trillian", "2014-03-29T10:00:00"},
+                new Object[]{4, "Zaphod", "2014-03-30T01:00:00"},
+                new Object[]{5, "Marvin", "2014-03-31T12:00:00"}
+        });
+        refresh();
+
+        // only the order by values are evaluated for every document, the names only for the top ones
+        execute("select name from test order by date_trunc('day', ts) desc limit 3 offset 1");
+        assertEquals(3L, response.rowCount());
+        assertEquals("Zaphod", response.rows()[0][0]);
+        assertEquals("Trillian", response.rows()[1][0]);
+        assertEquals("Ford", response.rows()[2][0]);
+    }
+
     // TODO: when analyzers are in the tableinfo, re-enable this test
 //    @Test(expected = GroupByOnArrayUnsupportedException.class)
 //    public void testGroupByOnAnalyzedColumn() throws Exception {
@@ -822,6 +877,44 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         assertArrayEquals(new Object[]{32, "Youri"}, response.rows()[1]);
     }
 
+    @Test
+    public void testInsertFromSubQuery() throws Exception {
+        execute("create table source (id int primary key, name string) " +
+                "clustered into 2 shards with (number_of_replicas=0)");
+        execute("create table target (id int primary key, name string) " +
+                "clustered into 3 shards with (number_of_replicas=0)");
+        ensureGreen();
+        execute("insert into source (id, name) values (1, 'Arthur'), (2, 'Trillian'), (3, 'Ford')");
+        refresh();
+
+        execute("insert into target (name, id) select name, id from source where id > 1");
+        assertEquals(2L, response.rowCount());
+        refresh();
+
+        execute("select id, name from target order by id");
+        assertEquals(2L, response.rowCount());
+        assertArrayEquals(new Object[]{2, "Trillian"}, response.rows()[0]);
+        assertArrayEquals(new Object[]{3, "Ford"}, response.rows()[1]);
+
+        // the rows are routed by their primary key
+        execute("select name from target where id = 3");
+        assertEquals(1L, response.rowCount());
+        assertEquals("Ford", response.rows()[0][0]);
+
+        // like an insert, an existing primary key fails the statement
+        // but the rows indexed until then are kept
+        try {
+            execute("insert into target select id, name from source");
+            fail("expected DuplicateKeyException");
+        } catch (DuplicateKeyException e) {
+            assertThat(e.getMessage(), startsWith("A document with the same primary key exists already"));
+        }
+        refresh();
+        execute("select id, name from target order by id");
+        assertEquals(3L, response.rowCount());
+        assertArrayEquals(new Object[]{1, "Arthur"}, response.rows()[0]);
+    }
+
     @Test
     public void testInsertWithParams() throws Exception {
         prepareCreate("test")
@@ -1910,6 +2003,26 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         assertEquals(0, response.rowCount());
     }
 
+    @Test
+    public void testGroupByStringOverManySegments() throws Exception {
+        execute("create table test (col1 string, col2 integer) " +
+                "clustered into 1 shards with (number_of_replicas=0)");
+        ensureGreen();
+        execute("insert into test (col1, col2) values (?, ?), (?, ?), (?, ?)",
+                new Object[]{"a", 1, "b", 2, null, 3});
+        refresh();
+        execute("insert into test (col1, col2) values (?, ?), (?, ?)",
+                new Object[]{"b", 4, "c", 5});
+        refresh();
+
+        execute("select col1, count(*), count(col1), sum(col2) from test group by col1 order by sum(col2)");
+        assertEquals(4, response.rowCount());
+        assertArrayEquals(new Object[]{"a", 1L, 1L, 1.0}, response.rows()[0]);
+        assertArrayEquals(new Object[]{null, 1L, 0L, 3.0}, response.rows()[1]);
+        assertArrayEquals(new Object[]{"c", 1L, 1L, 5.0}, response.rows()[2]);
+        assertArrayEquals(new Object[]{"b", 2L, 2L, 6.0}, response.rows()[3]);
+    }
+
     @Test
     public void testGroupByMultiValueField() throws Exception {
         expectedException.expect(GroupByOnArrayUnsupportedException.class);
@@ -2452,6 +2565,36 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         assertEquals(3L, response.rowCount());
     }
 
+    @Test
+    public void testCopyToDirectory() throws Exception {
+        execute("create table quotes (id int primary key, " +
+                "quote string index using fulltext) " +
+                "clustered into 2 shards with (number_of_replicas=0)");
+        ensureGreen();
+        execute("insert into quotes (id, quote) values (?, ?), (?, ?), (?, ?)",
+                new Object[]{1, "Don't panic", 2, "Time is an illusion", 3, "So long"});
+        refresh();
+
+        String directory = folder.getRoot().getAbsolutePath();
+        execute("copy quotes to directory ?", new Object[]{directory});
+        assertEquals(3L, response.rowCount());
+
+        // every shard wrote its own file
+        String[] files = folder.getRoot().list();
+        assertThat(files.length, greaterThanOrEqualTo(1));
+        for (String file : files) {
+            assertTrue(file.matches("quotes_[01]\\.json"));
+        }
+
+        execute("delete from quotes");
+        refresh();
+        execute("copy quotes from ?", new Object[]{directory});
+        refresh();
+        execute("select quote from quotes where id = 2");
+        assertEquals(1L, response.rowCount());
+        assertEquals("Time is an illusion", response.rows()[0][0]);
+    }
+
     @Test
     public void testSelectTableAlias() throws Exception {
         execute("create table quotes_en (id int primary key, quote string) with (number_of_replicas=0)");
@@ -2692,6 +2835,23 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         assertEquals(55.25d, response.rows()[0][3]);
     }
 
+    @Test
+    public void testGlobalMinMaxAfterDelete() throws Exception {
+        // min and max are looked up in the terms of segments without deletions
+        this.setup.groupBySetup();
+        execute("select min(age), max(age) from characters");
+        assertEquals(1, response.rowCount());
+        assertEquals(32, response.rows()[0][0]);
+        assertEquals(112, response.rows()[0][1]);
+
+        execute("delete from characters where age = 112");
+        refresh();
+        execute("select min(age), max(age) from characters");
+        assertEquals(1, response.rowCount());
+        assertEquals(32, response.rows()[0][0]);
+        assertEquals(43, response.rows()[0][1]);
+    }
+
 
     @Test
     public void testSelectGlobalExpressionGroupBy() throws Exception {
@@ -2963,4 +3123,161 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         Integer id = (Integer)response.rows()[0][1];
         assertEquals(id.toString(), _id);
     }
+
+    private SQLResponse executeBulk(String stmt, Object[][] bulkArgs) {
+        return client().execute(SQLAction.INSTANCE, new SQLRequest(stmt).bulkArgs(bulkArgs)).actionGet();
+    }
+
+    @Test
+    public void testBulkOperations() throws Exception {
+        execute("create table test (id integer primary key, name string) " +
+                "with (number_of_replicas=0)");
+        ensureGreen();
+
+        SQLResponse bulkResponse = executeBulk("insert into test (id, name) values (?, ?)", new Object[][]{
+                new Object[]{1, "Earth"},
+                new Object[]{2, "Saturn"},
+                new Object[]{3, "Moon"}
+        });
+        assertArrayEquals(new long[]{1L, 1L, 1L}, bulkResponse.bulkRowCounts());
+        refresh();
+
+        bulkResponse = executeBulk("update test set name = 'Mars' where id = ?", new Object[][]{
+                new Object[]{1},
+                new Object[]{2},
+                new Object[]{4}     // does not exist
+        });
+        assertArrayEquals(new long[]{1L, 1L, 0L}, bulkResponse.bulkRowCounts());
+        refresh();
+
+        bulkResponse = executeBulk("delete from test where id = ?", new Object[][]{
+                new Object[]{1},
+                new Object[]{4}
+        });
+        assertArrayEquals(new long[]{1L, 0L}, bulkResponse.bulkRowCounts());
+        refresh();
+
+        bulkResponse = executeBulk("delete from test where name = ?", new Object[][]{
+                new Object[]{"Mars"},
+                new Object[]{"Moon"}
+        });
+        assertEquals(2, bulkResponse.bulkRowCounts().length);
+        refresh();
+
+        execute("select count(*) from test");
+        assertEquals(0L, response.rows()[0][0]);
+    }
+
+    @Test
+    public void testBulkInsertDuplicateKey() throws Exception {
+        execute("create table test (id integer primary key, name string) " +
+                "with (number_of_replicas=0)");
+        ensureGreen();
+
+        expectedException.expect(DuplicateKeyException.class);
+        executeBulk("insert into test (id, name) values (?, ?)", new Object[][]{
+                new Object[]{1, "Earth"},
+                new Object[]{1, "Earth"}
+        });
+    }
+
+    @Test
+    public void testBulkSelect() throws Exception {
+        expectedException.expect(UnsupportedFeatureException.class);
+        executeBulk("select name from sys.cluster where name = ?", new Object[][]{
+                new Object[]{"foo"}
+        });
+    }
+
+    private SQLResponse scroll(SQLRequest request) {
+        return client().execute(SQLAction.INSTANCE, request.scroll(TimeValue.timeValueMinutes(1))).actionGet();
+    }
+
+    @Test
+    public void testScroll() throws Exception {
+        execute("create table test (id integer primary key, name string) " +
+                "clustered into 2 shards with (number_of_replicas=0)");
+        ensureGreen();
+        Object[][] bulkArgs = new Object[25][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i, "name" + i};
+        }
+        executeBulk("insert into test (id, name) values (?, ?)", bulkArgs);
+        refresh();
+
+        // sorted
+        SQLResponse page = scroll(new SQLRequest("select id, name from test order by id limit 10"));
+        List<Object> ids = new ArrayList<>();
+        while (page.rows().length > 0) {
+            assertArrayEquals(new String[]{"id", "name"}, page.cols());
+            for (Object[] row : page.rows()) {
+                ids.add(row[0]);
+            }
+            if (page.scrollId() == null) {
+                break;
+            }
+            page = scroll(new SQLRequest().scrollId(page.scrollId()));
+        }
+        assertEquals(25, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, ids.get(i));
+        }
+        assertNoOpenSearchContexts("test");
+
+        // unsorted
+        page = scroll(new SQLRequest("select name from test limit 5"));
+        Set<Object> names = new HashSet<>();
+        while (true) {
+            for (Object[] row : page.rows()) {
+                names.add(row[0]);
+            }
+            if (page.scrollId() == null) {
+                break;
+            }
+            page = scroll(new SQLRequest().scrollId(page.scrollId()));
+        }
+        assertEquals(25, names.size());
+        assertNoOpenSearchContexts("test");
+    }
+
+    @Test
+    public void testScrollEndingWithEmptyPage() throws Exception {
+        execute("create table test (id integer primary key) " +
+                "clustered into 1 shards with (number_of_replicas=0)");
+        ensureGreen();
+        executeBulk("insert into test (id) values (?)",
+                new Object[][]{new Object[]{1}, new Object[]{2}, new Object[]{3}, new Object[]{4}});
+        refresh();
+
+        SQLResponse page = scroll(new SQLRequest("select id from test order by id limit 2"));
+        int pages = 1;
+        while (page.scrollId() != null) {
+            page = scroll(new SQLRequest().scrollId(page.scrollId()));
+            pages++;
+        }
+        assertEquals(3, pages);
+        assertEquals(0, page.rows().length);
+        assertNoOpenSearchContexts("test");
+    }
+
+    private void assertNoOpenSearchContexts(String index) {
+        IndicesStatsResponse stats = client().admin().indices().prepareStats(index)
+                .clear().setSearch(true).execute().actionGet();
+        assertEquals(0L, stats.getTotal().getSearch().getOpenContexts());
+    }
+
+    @Test
+    public void testScrollAggregation() throws Exception {
+        execute("create table test (id integer primary key, name string) " +
+                "with (number_of_replicas=0)");
+        ensureGreen();
+        expectedException.expect(UnsupportedFeatureException.class);
+        scroll(new SQLRequest("select count(*) from test"));
+    }
+
+    @Test
+    public void testScrollUnknownScrollId() throws Exception {
+        expectedException.expect(ScrollUnknownException.class);
+        scroll(new SQLRequest().scrollId("invalid"));
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.google.common.collect.ImmutableList;
+import io.crate.DataType;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationCollector;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.AggregationState;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.operation.projectors.AggregationInputs;
+import io.crate.operation.projectors.GroupingProjector;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Symbol;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * compares the {@link GroupingProjector} with grouping into a {@link HashMap}
+ * as it was done before the primitive and packed key groupers.
+ */
+@AxisRange(min = 0)
+@BenchmarkMethodChart(filePrefix = "benchmark-grouping-projector")
+public class GroupingProjectorBenchmark {
+
+    public static final int NUMBER_OF_ROWS = 1000000;
+    public static final int NUMBER_OF_GROUPS = 10000;
+    public static final int BENCHMARK_ROUNDS = 50;
+
+    private static Object[][] longKeyRows;
+    private static Object[][] compositeKeyRows;
+    private static Functions functions;
+    private static FunctionInfo countInfo;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BeforeClass
+    public static void generateRows() {
+        functions = new ModulesBuilder()
+                .add(new AggregationImplModule()).createInjector().getInstance(Functions.class);
+        countInfo = new FunctionInfo(
+                new FunctionIdent(CountAggregation.NAME, ImmutableList.<DataType>of()), DataType.LONG);
+
+        Random random = new Random(42L);
+        BytesRef[] names = new BytesRef[NUMBER_OF_GROUPS / 100];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = new BytesRef("name" + i);
+        }
+        longKeyRows = new Object[NUMBER_OF_ROWS][];
+        compositeKeyRows = new Object[NUMBER_OF_ROWS][];
+        for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+            long id = random.nextInt(NUMBER_OF_GROUPS);
+            longKeyRows[i] = new Object[]{id};
+            compositeKeyRows[i] = new Object[]{id % 100, (int) (id / 100), names[(int) (id % names.length)]};
+        }
+    }
+
+    private AggregationInputs inputs(int numKeys) {
+        List<Input<?>> keys = new ArrayList<>(numKeys);
+        List<CollectExpression<?>> collectExpressions = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            InputCollectExpression<Object> expression = new InputCollectExpression<>(i);
+            keys.add(expression);
+            collectExpressions.add(expression);
+        }
+        AggregationContext count = new AggregationContext(
+                (AggregationFunction) functions.get(countInfo.ident()),
+                new Aggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER, Aggregation.Step.FINAL));
+        return new AggregationInputs(keys, collectExpressions, new AggregationContext[]{count});
+    }
+
+    private int groupingProjector(final int numKeys, Object[][] rows) {
+        GroupingProjector projector = new GroupingProjector(new AggregationInputs.AggregationInputsFactory() {
+            @Override
+            public AggregationInputs create() {
+                return inputs(numKeys);
+            }
+        });
+        projector.startProjection();
+        for (Object[] row : rows) {
+            projector.setNextRow(row);
+        }
+        projector.finishProjection();
+        return projector.getRows().length;
+    }
+
+    /**
+     * group the rows into a HashMap, using a list of the key values as key for many keys
+     */
+    private int hashMap(int numKeys, Object[][] rows) {
+        AggregationInputs inputs = inputs(numKeys);
+        AggregationCollector[] aggregationCollectors = inputs.aggregationCollectors();
+        Map<Object, AggregationState[]> result = new HashMap<>();
+        for (CollectExpression<?> collectExpression : inputs.collectExpressions()) {
+            collectExpression.startCollect();
+        }
+        for (Object[] row : rows) {
+            for (CollectExpression<?> collectExpression : inputs.collectExpressions()) {
+                collectExpression.setNextRow(row);
+            }
+            Object key;
+            if (numKeys == 1) {
+                key = inputs.keyInputs().get(0).value();
+            } else {
+                List<Object> keyList = new ArrayList<>(numKeys);
+                for (Input<?> keyInput : inputs.keyInputs()) {
+                    keyList.add(keyInput.value());
+                }
+                key = keyList;
+            }
+            AggregationState[] states = result.get(key);
+            if (states == null) {
+                states = new AggregationState[aggregationCollectors.length];
+                for (int i = 0; i < aggregationCollectors.length; i++) {
+                    aggregationCollectors[i].startCollect();
+                    aggregationCollectors[i].processRow();
+                    states[i] = aggregationCollectors[i].state();
+                }
+                result.put(key, states);
+            } else {
+                for (int i = 0; i < aggregationCollectors.length; i++) {
+                    aggregationCollectors[i].state(states[i]);
+                    aggregationCollectors[i].processRow();
+                }
+            }
+        }
+        return result.size();
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 5)
+    @Test
+    public void testGroupByLongKeyPerformance() {
+        assertEquals(NUMBER_OF_GROUPS, groupingProjector(1, longKeyRows));
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 5)
+    @Test
+    public void testGroupByLongKeyHashMapPerformance() {
+        assertEquals(NUMBER_OF_GROUPS, hashMap(1, longKeyRows));
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 5)
+    @Test
+    public void testGroupByCompositeKeyPerformance() {
+        assertEquals(NUMBER_OF_GROUPS, groupingProjector(3, compositeKeyRows));
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 5)
+    @Test
+    public void testGroupByCompositeKeyHashMapPerformance() {
+        assertEquals(NUMBER_OF_GROUPS, hashMap(3, compositeKeyRows));
+    }
+}
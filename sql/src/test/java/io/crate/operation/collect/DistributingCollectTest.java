@@ -41,6 +41,7 @@ import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.Constants;
 import io.crate.action.SQLXContentQueryParser;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -155,6 +156,7 @@ public class DistributingCollectTest {
                     Matchers.<TransportRequest>any(),
                     any(TransportResponseHandler.class));
             bind(TransportService.class).toInstance(transportService);
+            bind(TransportBulkAction.class).toInstance(mock(TransportBulkAction.class));
         }
     }
 
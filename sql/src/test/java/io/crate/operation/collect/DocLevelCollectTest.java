@@ -24,13 +24,17 @@ package io.crate.operation.collect;
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.WhereClause;
 import io.crate.metadata.*;
+import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.sys.SysClusterTableInfo;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.metadata.sys.SysShardsTableInfo;
 import io.crate.operation.operator.EqOperator;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.TopNProjection;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.IntegerLiteral;
 import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
@@ -39,6 +43,7 @@ import io.crate.DataType;
 import io.crate.integrationtests.SQLTransportIntegrationTest;
 import io.crate.test.integration.CrateIntegrationTest;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -78,9 +83,13 @@ public class DocLevelCollectTest extends SQLTransportIntegrationTest {
     }
 
     private Routing routing() {
+        return routing(TEST_TABLE_NAME);
+    }
+
+    private Routing routing(String table) {
         Map<String, Map<String, Set<Integer>>> locations = new HashMap<>();
 
-        for (final ShardRouting shardRouting : clusterService().state().routingTable().allShards(TEST_TABLE_NAME)) {
+        for (final ShardRouting shardRouting : clusterService().state().routingTable().allShards(table)) {
             Map<String, Set<Integer>> shardIds = locations.get(shardRouting.currentNodeId());
             if (shardIds == null) {
                 shardIds = new HashMap<>();
@@ -110,6 +119,23 @@ public class DocLevelCollectTest extends SQLTransportIntegrationTest {
         assertThat((Integer) result[1][0], isOneOf(2, 4));
     }
 
+    @Test
+    public void testCollectRawSource() throws Exception {
+        Reference raw = new Reference(new ReferenceInfo(
+                new ReferenceIdent(new TableIdent(null, TEST_TABLE_NAME), DocSysColumns.RAW),
+                RowGranularity.DOC, DataType.STRING));
+        CollectNode collectNode = new CollectNode("docCollect", routing());
+        collectNode.toCollect(Arrays.<Symbol>asList(raw, testDocLevelReference));
+        collectNode.maxRowGranularity(RowGranularity.DOC);
+        Object[][] result = operation.collect(collectNode).get();
+        assertThat(result.length, is(2));
+        for (Object[] row : result) {
+            Map<String, Object> source = XContentHelper.convertToMap(
+                    ((BytesRef) row[0]).bytes, ((BytesRef) row[0]).offset, ((BytesRef) row[0]).length, false).v2();
+            assertThat(source.get("doc"), is(row[1]));
+        }
+    }
+
     @Test
     public void testCollectDocLevelWhereClause() throws Exception {
         EqOperator op = (EqOperator) functions.get(new FunctionIdent(EqOperator.NAME, ImmutableList.of(DataType.INTEGER, DataType.INTEGER)));
@@ -127,6 +153,57 @@ public class DocLevelCollectTest extends SQLTransportIntegrationTest {
         assertThat((Integer) result[0][0], is(2));
     }
 
+    @Test
+    public void testCollectDocLevelOrderedTopN() throws Exception {
+        execute(String.format("insert into %s (id, doc) values (?, ?)", TEST_TABLE_NAME), new Object[]{5, null});
+        execute(String.format("insert into %s (id, doc) values (?, ?)", TEST_TABLE_NAME), new Object[]{7, 6});
+        refresh();
+
+        CollectNode collectNode = new CollectNode("docCollect", routing());
+        collectNode.toCollect(Arrays.<Symbol>asList(testDocLevelReference));
+        collectNode.maxRowGranularity(RowGranularity.DOC);
+        TopNProjection topN = new TopNProjection(2, 1,
+                Arrays.<Symbol>asList(new InputColumn(0)), new boolean[]{true});
+        topN.outputs(Arrays.<Symbol>asList(new InputColumn(0)));
+        collectNode.projections(Arrays.<Projection>asList(topN));
+
+        Object[][] result = operation.collect(collectNode).get();
+        assertThat(result.length, is(2));
+        assertThat((Integer) result[0][0], is(6));
+        assertThat((Integer) result[1][0], is(4));
+    }
+
+    @Test
+    public void testCollectDocLevelOrderedTopNOnOrderByValues() throws Exception {
+        // boolean columns aren't sorted by lucene, only the order by values are read for every document
+        execute("create table ordered_test (id integer primary key, flag boolean) " +
+                "clustered into 2 shards with(number_of_replicas=0)");
+        ensureGreen();
+        execute("insert into ordered_test (id, flag) values (?, ?), (?, ?), (?, ?), (?, ?)",
+                new Object[]{1, true, 2, false, 3, null, 4, true});
+        refresh();
+
+        TableIdent tableIdent = new TableIdent(null, "ordered_test");
+        Reference id = new Reference(new ReferenceInfo(
+                new ReferenceIdent(tableIdent, "id"), RowGranularity.DOC, DataType.INTEGER));
+        Reference flag = new Reference(new ReferenceInfo(
+                new ReferenceIdent(tableIdent, "flag"), RowGranularity.DOC, DataType.BOOLEAN));
+
+        CollectNode collectNode = new CollectNode("docCollect", routing("ordered_test"));
+        collectNode.toCollect(Arrays.<Symbol>asList(id, flag));
+        collectNode.maxRowGranularity(RowGranularity.DOC);
+        TopNProjection topN = new TopNProjection(3, 0,
+                Arrays.<Symbol>asList(new InputColumn(1), new InputColumn(0)), new boolean[]{true, false});
+        topN.outputs(Arrays.<Symbol>asList(new InputColumn(0), new InputColumn(1)));
+        collectNode.projections(Arrays.<Projection>asList(topN));
+
+        Object[][] result = operation.collect(collectNode).get();
+        assertThat(result.length, is(3));
+        assertThat((Integer) result[0][0], is(3));
+        assertThat((Integer) result[1][0], is(1));
+        assertThat((Integer) result[2][0], is(4));
+    }
+
     @Test
     public void testCollectWithShardAndNodeExpressions() throws Exception {
         Routing routing = routing();
@@ -31,6 +31,8 @@ import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.metadata.shard.blob.BlobShardReferenceImplementation;
 import io.crate.metadata.sys.SysShardsTableInfo;
 import io.crate.operation.Input;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.job.JobContextService;
 import io.crate.operation.operator.AndOperator;
 import io.crate.operation.operator.EqOperator;
 import io.crate.operation.operator.OperatorModule;
@@ -42,6 +44,7 @@ import org.apache.lucene.util.BytesRef;
 import io.crate.DataType;
 import io.crate.action.SQLXContentQueryParser;
 import io.crate.exceptions.CrateException;
+import org.elasticsearch.action.bulk.TransportBulkAction;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.AbstractModule;
@@ -247,7 +250,9 @@ public class LocalDataCollectTest {
         when(indicesService.indexServiceSafe(TEST_TABLE_NAME)).thenReturn(indexService);
 
         operation = new MapSideDataCollectOperation(injector.getInstance(ClusterService.class),
-                functions, injector.getInstance(ReferenceResolver.class), indicesService, testThreadPool);
+                functions, injector.getInstance(ReferenceResolver.class), indicesService, testThreadPool,
+                new QueryBreakerService(ImmutableSettings.EMPTY), new JobContextService(),
+                mock(TransportBulkAction.class));
     }
 
     private Routing shardRouting(final Integer... shardIds) {
@@ -0,0 +1,262 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.DataType;
+import io.crate.action.sql.SQLAction;
+import io.crate.action.sql.SQLRequest;
+import io.crate.exceptions.JobKilledException;
+import io.crate.integrationtests.SQLTransportIntegrationTest;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.Routing;
+import io.crate.metadata.TableIdent;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.job.OperationContext;
+import io.crate.operation.projectors.NoopProjector;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateIntegrationTest;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.is;
+
+@CrateIntegrationTest.ClusterScope(scope = CrateIntegrationTest.Scope.SUITE, numNodes = 1)
+public class LuceneDocCollectorTest extends SQLTransportIntegrationTest {
+
+    private static final String TABLE_NAME = "split_test";
+    private static final int NUM_SEGMENTS = 4;
+    private static final int DOCS_PER_SEGMENT = 50;
+
+    private static final Reference idReference = new Reference(
+            new ReferenceInfo(
+                    new ReferenceIdent(new TableIdent(null, TABLE_NAME), "id"),
+                    RowGranularity.DOC,
+                    DataType.INTEGER
+            )
+    );
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.builder()
+                .put(LuceneDocCollector.SETTING_MIN_DOCS_PER_UNIT, 10)
+                .put("threadpool.search.size", NUM_SEGMENTS)
+                .build();
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        execute(String.format("create table %s (id integer primary key, k integer, v long) " +
+                "clustered into 1 shards with (number_of_replicas=0)", TABLE_NAME));
+        ensureGreen();
+        // every refresh writes a new segment
+        int id = 0;
+        for (int s = 0; s < NUM_SEGMENTS; s++) {
+            Object[][] bulkArgs = new Object[DOCS_PER_SEGMENT][];
+            for (int i = 0; i < DOCS_PER_SEGMENT; i++, id++) {
+                bulkArgs[i] = new Object[]{id, id % 7, id * 3L};
+            }
+            SQLRequest request = new SQLRequest(
+                    String.format("insert into %s (id, k, v) values (?, ?, ?)", TABLE_NAME));
+            client().execute(SQLAction.INSTANCE, request.bulkArgs(bulkArgs)).actionGet();
+            refresh();
+        }
+    }
+
+    private IndexShard indexShard() {
+        IndexService indexService = cluster().getInstance(IndicesService.class).indexServiceSafe(TABLE_NAME);
+        return indexService.shardSafe(0);
+    }
+
+    private ShardCollectService shardCollectService() {
+        IndexService indexService = cluster().getInstance(IndicesService.class).indexServiceSafe(TABLE_NAME);
+        return indexService.shardInjectorSafe(0).getInstance(ShardCollectService.class);
+    }
+
+    /**
+     * the references of the shard's reader, every collector holds one until it is released
+     */
+    private int readerRefCount() {
+        Engine.Searcher searcher = indexShard().acquireSearcher("test");
+        try {
+            return searcher.reader().getRefCount();
+        } finally {
+            searcher.release();
+        }
+    }
+
+    private CollectNode collectNode() {
+        CollectNode collectNode = new CollectNode("splitCollect", new Routing());
+        collectNode.toCollect(Arrays.<Symbol>asList(idReference));
+        collectNode.maxRowGranularity(RowGranularity.DOC);
+        return collectNode;
+    }
+
+    private List<LuceneDocCollector> units(NoopProjector downStream) throws Exception {
+        List<LuceneDocCollector> units = new ArrayList<>();
+        for (CrateCollector collector : shardCollectService().getCollectors(collectNode(), downStream, 8)) {
+            units.add((LuceneDocCollector) collector);
+        }
+        return units;
+    }
+
+    private Set<Integer> ids(NoopProjector downStream) {
+        Set<Integer> ids = new HashSet<>();
+        for (Object[] row : downStream.rows) {
+            assertTrue("document collected twice", ids.add((Integer) row[0]));
+        }
+        return ids;
+    }
+
+    @Test
+    public void testSplitCollectsEverySegmentOnce() throws Exception {
+        int refCount = readerRefCount();
+        NoopProjector downStream = new NoopProjector();
+        List<LuceneDocCollector> units = units(downStream);
+        assertThat(units.size(), is(NUM_SEGMENTS));
+        for (LuceneDocCollector unit : units) {
+            unit.doCollect();
+        }
+        assertThat(ids(downStream).size(), is(NUM_SEGMENTS * DOCS_PER_SEGMENT));
+        assertThat(readerRefCount(), is(refCount));
+    }
+
+    @Test
+    public void testNoSplitBelowMinDocsPerUnit() throws Exception {
+        NoopProjector downStream = new NoopProjector();
+        LuceneDocCollector collector = (LuceneDocCollector) shardCollectService().getCollector(
+                collectNode(), downStream);
+        List<LuceneDocCollector> units = collector.split(8, NUM_SEGMENTS * DOCS_PER_SEGMENT, null);
+        assertThat(units.size(), is(1));
+        assertSame(collector, units.get(0));
+        collector.doCollect();
+        assertThat(ids(downStream).size(), is(NUM_SEGMENTS * DOCS_PER_SEGMENT));
+    }
+
+    @Test
+    public void testSplitResultsMatchUnsplitCollect() throws Exception {
+        String groupBy = String.format("select k, count(*), sum(v) from %s group by k order by k", TABLE_NAME);
+        String aggregate = String.format("select sum(v), avg(v) from %s", TABLE_NAME);
+
+        execute(groupBy);
+        Object[][] splitGroups = response.rows();
+        execute(aggregate);
+        Object[][] splitAggregates = response.rows();
+
+        // a single segment isn't split
+        client().admin().indices().prepareOptimize(TABLE_NAME).setMaxNumSegments(1).execute().actionGet();
+        refresh();
+        NoopProjector downStream = new NoopProjector();
+        List<LuceneDocCollector> units = units(downStream);
+        assertThat(units.size(), is(1));
+        units.get(0).close();
+
+        execute(groupBy);
+        assertThat(splitGroups.length, is(7));
+        assertArrayEquals(response.rows(), splitGroups);
+        execute(aggregate);
+        assertArrayEquals(response.rows(), splitAggregates);
+    }
+
+    @Test
+    public void testSearcherReleasedOnceIfUnitFails() throws Exception {
+        int refCount = readerRefCount();
+        NoopProjector downStream = new NoopProjector() {
+            @Override
+            public synchronized boolean setNextRows(Object[][] rows, int numRows) {
+                throw new IllegalStateException("downstream failure");
+            }
+        };
+        List<LuceneDocCollector> units = units(downStream);
+        assertThat(units.size(), is(NUM_SEGMENTS));
+        int failures = 0;
+        for (LuceneDocCollector unit : units) {
+            try {
+                unit.doCollect();
+            } catch (IllegalStateException e) {
+                failures++;
+            }
+            // the collect operation closes every unit again
+            unit.close();
+        }
+        assertThat(failures, is(NUM_SEGMENTS));
+        assertThat(readerRefCount(), is(refCount));
+    }
+
+    @Test
+    public void testSearcherReleasedOnceIfJobStopped() throws Exception {
+        int refCount = readerRefCount();
+        JobContextService jobContextService = cluster().getInstance(JobContextService.class);
+        UUID jobId = UUID.randomUUID();
+        OperationContext operationContext = jobContextService.startOperation(jobId, "collect", null);
+        try {
+            NoopProjector downStream = new NoopProjector();
+            List<LuceneDocCollector> units = units(downStream);
+            jobContextService.stop(jobId);
+            // the first unit runs with the stopped job, the others are closed without collecting
+            units.get(0).operationContext(operationContext);
+            units.get(0).doCollect();
+            for (LuceneDocCollector unit : units.subList(1, units.size())) {
+                unit.close();
+            }
+            assertThat(downStream.rows.size(), is(0));
+            assertThat(readerRefCount(), is(refCount));
+        } finally {
+            jobContextService.finishOperation(operationContext);
+        }
+    }
+
+    @Test
+    public void testSearcherReleasedOnceIfJobKilled() throws Exception {
+        int refCount = readerRefCount();
+        JobContextService jobContextService = cluster().getInstance(JobContextService.class);
+        UUID jobId = UUID.randomUUID();
+        OperationContext operationContext = jobContextService.startOperation(jobId, "collect", null);
+        try {
+            List<LuceneDocCollector> units = units(new NoopProjector());
+            jobContextService.kill(jobId);
+            for (LuceneDocCollector unit : units) {
+                unit.operationContext(operationContext);
+                try {
+                    unit.doCollect();
+                    fail("expected JobKilledException");
+                } catch (JobKilledException e) {
+                    // expected
+                }
+            }
+            assertThat(readerRefCount(), is(refCount));
+        } finally {
+            jobContextService.finishOperation(operationContext);
+        }
+    }
+}
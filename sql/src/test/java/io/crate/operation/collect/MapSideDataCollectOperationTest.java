@@ -0,0 +1,143 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.exceptions.JobKilledException;
+import io.crate.exceptions.StatementTimeoutException;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.job.OperationContext;
+import io.crate.operation.projectors.NoopProjector;
+import io.crate.operation.projectors.Projector;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class MapSideDataCollectOperationTest {
+
+    private final JobContextService jobContextService = new JobContextService();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private ShardCollectFuture shardCollectFuture(int numShards) {
+        return shardCollectFuture(numShards, new NoopProjector());
+    }
+
+    private ShardCollectFuture shardCollectFuture(int numShards, Projector projector) {
+        return new ShardCollectFuture(numShards, Arrays.asList(projector)) {
+            @Override
+            protected void onAllShardsFinished() {
+                Throwable throwable = lastException.get();
+                if (throwable != null) {
+                    setException(throwable);
+                } else {
+                    set(new Object[0][]);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testStopJobWithQueuedCollectors() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext operationContext = jobContextService.startOperation(jobId, "collect", null);
+        CrateCollector running = mock(CrateCollector.class);
+        CrateCollector queued1 = mock(CrateCollector.class);
+        CrateCollector queued2 = mock(CrateCollector.class);
+        ShardCollectFuture result = shardCollectFuture(3);
+
+        MapSideDataCollectOperation.collectShard(running, result, operationContext);
+        jobContextService.stop(jobId);
+        MapSideDataCollectOperation.collectShard(queued1, result, operationContext);
+        MapSideDataCollectOperation.collectShard(queued2, result, operationContext);
+
+        verify(running).doCollect();
+        verify(running).close();
+        verify(queued1, never()).doCollect();
+        verify(queued1).close();
+        verify(queued2, never()).doCollect();
+        verify(queued2).close();
+        assertThat(result.isDone(), is(true));
+        assertThat(result.get().length, is(0));
+    }
+
+    @Test
+    public void testCloseCollectorOfTimedOutJob() throws Exception {
+        OperationContext operationContext = jobContextService.startOperation(
+                UUID.randomUUID(), "collect", null, TimeValue.timeValueMillis(-1));
+        CrateCollector collector = mock(CrateCollector.class);
+        ShardCollectFuture result = shardCollectFuture(1);
+
+        MapSideDataCollectOperation.collectShard(collector, result, operationContext);
+
+        verify(collector, never()).doCollect();
+        verify(collector).close();
+        assertThat(result.isDone(), is(true));
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage(StatementTimeoutException.class.getName());
+        result.get();
+    }
+
+    @Test
+    public void testCloseCollectorOfKilledJob() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext operationContext = jobContextService.startOperation(jobId, "collect", null);
+        jobContextService.kill(jobId);
+        CrateCollector collector = mock(CrateCollector.class);
+        ShardCollectFuture result = shardCollectFuture(1);
+
+        MapSideDataCollectOperation.collectShard(collector, result, operationContext);
+
+        verify(collector, never()).doCollect();
+        verify(collector).close();
+        assertThat(result.isDone(), is(true));
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage(JobKilledException.class.getName());
+        result.get();
+    }
+
+    @Test
+    public void testFailProjectionOnceAllCollectorsAreDone() throws Exception {
+        Projector projector = mock(Projector.class);
+        CrateCollector failing = mock(CrateCollector.class);
+        Exception failure = new RuntimeException("failed");
+        doThrow(failure).when(failing).doCollect();
+        ShardCollectFuture result = shardCollectFuture(2, projector);
+
+        MapSideDataCollectOperation.collectShard(failing, result, null);
+        assertThat(result.isDone(), is(true));
+        verify(projector, never()).failProjection(any(Throwable.class));
+
+        MapSideDataCollectOperation.collectShard(mock(CrateCollector.class), result, null);
+        verify(projector).failProjection(failure);
+        verify(projector, never()).finishProjection();
+    }
+}
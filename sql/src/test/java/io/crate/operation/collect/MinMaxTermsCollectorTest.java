@@ -0,0 +1,129 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.DataType;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MinMaxTermsCollectorTest {
+
+    private RAMDirectory directory;
+    private DirectoryReader directoryReader;
+    private AtomicReader reader;
+
+    private long minLong = Long.MAX_VALUE;
+    private long maxLong = Long.MIN_VALUE;
+    private int minInt = Integer.MAX_VALUE;
+    private int maxInt = Integer.MIN_VALUE;
+    private double minDouble = Double.MAX_VALUE;
+    private double maxDouble = -Double.MAX_VALUE;
+    private float minFloat = Float.MAX_VALUE;
+    private float maxFloat = -Float.MAX_VALUE;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory,
+                new IndexWriterConfig(Version.LUCENE_46, new KeywordAnalyzer()));
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            long l = random.nextLong();
+            int n = random.nextInt();
+            double d = random.nextDouble() * 1000 - 500;
+            float f = random.nextFloat() * -100;
+            minLong = Math.min(minLong, l);
+            maxLong = Math.max(maxLong, l);
+            minInt = Math.min(minInt, n);
+            maxInt = Math.max(maxInt, n);
+            minDouble = Math.min(minDouble, d);
+            maxDouble = Math.max(maxDouble, d);
+            minFloat = Math.min(minFloat, f);
+            maxFloat = Math.max(maxFloat, f);
+
+            Document document = new Document();
+            document.add(new LongField("l", l, Field.Store.NO));
+            document.add(new IntField("i", n, Field.Store.NO));
+            document.add(new DoubleField("d", d, Field.Store.NO));
+            document.add(new FloatField("f", f, Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.forceMerge(1);
+        writer.close();
+        directoryReader = DirectoryReader.open(directory);
+        reader = directoryReader.leaves().get(0).reader();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        directoryReader.close();
+        directory.close();
+    }
+
+    @Test
+    public void testMinMaxLong() throws Exception {
+        Object[] minMax = MinMaxTermsCollector.minMax(reader, "l", DataType.LONG);
+        assertThat((Long) minMax[0], is(minLong));
+        assertThat((Long) minMax[1], is(maxLong));
+    }
+
+    @Test
+    public void testMinMaxInteger() throws Exception {
+        Object[] minMax = MinMaxTermsCollector.minMax(reader, "i", DataType.INTEGER);
+        assertThat((Integer) minMax[0], is(minInt));
+        assertThat((Integer) minMax[1], is(maxInt));
+    }
+
+    @Test
+    public void testMinMaxDouble() throws Exception {
+        Object[] minMax = MinMaxTermsCollector.minMax(reader, "d", DataType.DOUBLE);
+        assertThat((Double) minMax[0], is(minDouble));
+        assertThat((Double) minMax[1], is(maxDouble));
+    }
+
+    @Test
+    public void testMinMaxFloat() throws Exception {
+        Object[] minMax = MinMaxTermsCollector.minMax(reader, "f", DataType.FLOAT);
+        assertThat((Float) minMax[0], is(minFloat));
+        assertThat((Float) minMax[1], is(maxFloat));
+    }
+
+    @Test
+    public void testMinMaxMissingField() throws Exception {
+        assertThat(MinMaxTermsCollector.minMax(reader, "missing", DataType.LONG), nullValue());
+    }
+}
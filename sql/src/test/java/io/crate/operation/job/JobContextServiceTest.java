@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.job;
+
+import io.crate.exceptions.JobKilledException;
+import io.crate.exceptions.StatementTimeoutException;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class JobContextServiceTest {
+
+    private final JobContextService jobContextService = new JobContextService();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testStopRunningCollect() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext operation1 = jobContextService.startOperation(jobId, "collect", null);
+        OperationContext operation2 = jobContextService.startOperation(jobId, "collect", null);
+        assertThat(operation1.jobContext() == operation2.jobContext(), is(true));
+        assertThat(operation1.isStopped(), is(false));
+
+        jobContextService.stop(jobId);
+        assertThat(operation1.isStopped(), is(true));
+
+        jobContextService.finishOperation(operation1);
+        assertThat(jobContextService.numActiveJobs(), is(1));
+        jobContextService.finishOperation(operation2);
+        assertThat(jobContextService.numActiveJobs(), is(0));
+    }
+
+    @Test
+    public void testStopBeforeCollect() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        jobContextService.stop(jobId);
+
+        OperationContext operation = jobContextService.startOperation(jobId, "collect", null);
+        assertThat(operation.isStopped(), is(true));
+        assertThat(jobContextService.startOperation(UUID.randomUUID(), "collect", null).isStopped(), is(false));
+    }
+
+    @Test
+    public void testJobsAndOperations() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext collect = jobContextService.startOperation(jobId, "collect", null);
+        OperationContext merge = jobContextService.startOperation(jobId, "merge", null);
+        jobContextService.startOperation(UUID.randomUUID(), "collect", null);
+        collect.addRows(10);
+        merge.addRows(2);
+
+        assertThat(jobContextService.jobs().size(), is(2));
+        assertThat(jobContextService.operations().size(), is(3));
+        assertThat(collect.rows(), is(10L));
+        assertThat(collect.jobContext().rows(), is(12L));
+        assertThat(collect.jobContext().operations().size(), is(2));
+
+        jobContextService.finishOperation(collect);
+        assertThat(jobContextService.operations().size(), is(2));
+        assertThat(merge.jobContext().rows(), is(12L));
+    }
+
+    @Test
+    public void testKill() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext operation = jobContextService.startOperation(jobId, "collect", null);
+        operation.checkKilled();
+
+        jobContextService.kill(jobId);
+        assertThat(operation.isStopped(), is(true));
+
+        expectedException.expect(JobKilledException.class);
+        jobContextService.startOperation(jobId, "merge", null).checkKilled();
+    }
+
+    @Test
+    public void testKillListeners() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        final AtomicInteger killed = new AtomicInteger();
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                killed.incrementAndGet();
+            }
+        };
+        OperationContext operation = jobContextService.startOperation(jobId, "merge", null);
+        operation.addKillListener(listener);
+        assertThat(killed.get(), is(0));
+
+        jobContextService.kill(jobId);
+        assertThat(killed.get(), is(1));
+        jobContextService.kill(jobId);
+        assertThat(killed.get(), is(1));
+
+        // listeners of operations of a killed job are run right away
+        jobContextService.startOperation(jobId, "merge", null).addKillListener(listener);
+        assertThat(killed.get(), is(2));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        OperationContext collect = jobContextService.startOperation(
+                jobId, "collect", null, TimeValue.timeValueMillis(1));
+        OperationContext merge = jobContextService.startOperation(
+                jobId, "merge", null, TimeValue.timeValueHours(1));
+        assertThat(collect.jobContext().timeout(), is(TimeValue.timeValueMillis(1)));
+        Thread.sleep(10);
+        merge.checkKilled();
+
+        try {
+            collect.checkTimeout();
+            fail("expected StatementTimeoutException");
+        } catch (StatementTimeoutException e) {
+            assertThat(e.jobId(), is(jobId));
+        }
+        assertThat(merge.isStopped(), is(true));
+
+        expectedException.expect(StatementTimeoutException.class);
+        merge.checkKilled();
+    }
+}
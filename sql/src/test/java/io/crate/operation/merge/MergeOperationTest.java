@@ -36,16 +36,26 @@ import io.crate.planner.symbol.Aggregation;
 import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Symbol;
 import io.crate.DataType;
+import io.crate.exceptions.JobKilledException;
+import io.crate.operation.job.JobContextService;
+import io.crate.operation.spill.SpillService;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.UUID;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 
 public class MergeOperationTest {
@@ -54,6 +64,12 @@ public class MergeOperationTest {
     private AggregationFunction<MinimumAggregation.MinimumAggState<Double>> minAggFunction;
     private ImplementationSymbolVisitor symbolVisitor;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
     @Before
     @SuppressWarnings("unchecked")
     public void prepare() {
@@ -131,4 +147,51 @@ public class MergeOperationTest {
         assertThat((Double)mergeResult[0][1], is(2.5d));
     }
 
+    private Object[][] distinctGroups(int numRows) {
+        Object[][] rows = new Object[numRows][];
+        for (int i = 0; i < rows.length; i++) {
+            MinimumAggregation.MinimumAggState<Double> aggState = minAggFunction.newState();
+            aggState.setValue(i + 0.5d);
+            rows[i] = new Object[]{i, aggState};
+        }
+        return rows;
+    }
+
+    @Test
+    public void testKillDeletesSpilledGroups() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        JobContextService jobContextService = new JobContextService();
+        MergeNode mergeNode = new MergeNode("merge", 2);
+        mergeNode.contextId(UUID.randomUUID());
+        mergeNode.projections(Arrays.<Projection>asList(groupProjection));
+        MergeOperation mergeOperation = new MergeOperation(symbolVisitor, mergeNode,
+                new SpillService(ImmutableSettings.EMPTY, 2, spillDirectory), null, jobContextService);
+        assertTrue(mergeOperation.addRows(distinctGroups(20)));
+        assertThat(spillDirectory.list().length, greaterThan(0));
+
+        jobContextService.kill(mergeNode.contextId());
+        assertThat(spillDirectory.list().length, is(0));
+
+        expectedException.expect(JobKilledException.class);
+        try {
+            mergeOperation.result();
+        } finally {
+            mergeOperation.close();
+        }
+    }
+
+    @Test
+    public void testCloseWithoutResultDeletesSpilledGroups() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        MergeNode mergeNode = new MergeNode("merge", 2);
+        mergeNode.projections(Arrays.<Projection>asList(groupProjection));
+        MergeOperation mergeOperation = new MergeOperation(symbolVisitor, mergeNode,
+                new SpillService(ImmutableSettings.EMPTY, 2, spillDirectory), null, null);
+        assertTrue(mergeOperation.addRows(distinctGroups(20)));
+        assertThat(spillDirectory.list().length, greaterThan(0));
+
+        mergeOperation.close();
+        assertThat(spillDirectory.list().length, is(0));
+        assertThat(mergeOperation.addRows(distinctGroups(20)), is(false));
+    }
 }
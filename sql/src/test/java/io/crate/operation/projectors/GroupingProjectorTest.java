@@ -1,27 +1,47 @@
 package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.AggregationContext;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.symbol.Aggregation;
 import io.crate.planner.symbol.Symbol;
 import io.crate.DataType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.*;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertThat;
 
 public class GroupingProjectorTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * NOTE:
      *
@@ -46,12 +66,17 @@ public class GroupingProjectorTest {
                 (AggregationFunction)functions.get(countInfo.ident()),
                 countAggregation);
 
-        AggregationContext[] aggregations = new AggregationContext[] { aggregationContext };
-        GroupingProjector projector = new GroupingProjector(
+        final AggregationInputs inputs = new AggregationInputs(
                 keys,
                 ImmutableList.<CollectExpression<?>>of(),
-                aggregations
+                new AggregationContext[] { aggregationContext }
         );
+        GroupingProjector projector = new GroupingProjector(new AggregationInputs.AggregationInputsFactory() {
+            @Override
+            public AggregationInputs create() {
+                return inputs;
+            }
+        });
 
         projector.startProjection();
         projector.setNextRow();
@@ -63,6 +88,254 @@ public class GroupingProjectorTest {
         assertThat(rows[0][1], instanceOf(CountAggregation.CountAggState.class));
     }
 
+    /**
+     * group the rows by the columns at the given indices using count(*) ITER -> FINAL
+     * @return the count of every group by the group keys
+     */
+    private Map<List<Object>, Long> groupAndCount(final int[] keyIndices, Object[]... rows) {
+        return groupAndCount(null, null, keyIndices, rows);
+    }
+
+    private Map<List<Object>, Long> groupAndCount(@Nullable SpillService spillService,
+                                                  @Nullable RamAccountingContext ramAccountingContext,
+                                                  final int[] keyIndices, Object[]... rows) {
+        GroupingProjector projector = countProjector(spillService, ramAccountingContext, keyIndices);
+        projector.startProjection();
+        for (Object[] row : rows) {
+            projector.setNextRow(row);
+        }
+        projector.finishProjection();
+
+        Map<List<Object>, Long> result = new HashMap<>();
+        for (Object[] row : projector.getRows()) {
+            assertThat(row.length, is(keyIndices.length + 1));
+            List<Object> key = Arrays.asList(Arrays.copyOf(row, keyIndices.length));
+            assertThat(result.put(key, (Long) row[keyIndices.length]), nullValue());
+        }
+        return result;
+    }
+
+    private GroupingProjector countProjector(@Nullable SpillService spillService,
+                                             @Nullable RamAccountingContext ramAccountingContext,
+                                             final int[] keyIndices) {
+        final Functions functions = new ModulesBuilder()
+                .add(new AggregationImplModule()).createInjector().getInstance(Functions.class);
+        final FunctionInfo countInfo = new FunctionInfo(
+                new FunctionIdent(CountAggregation.NAME, ImmutableList.<DataType>of()), DataType.LONG);
+        return new GroupingProjector(new AggregationInputs.AggregationInputsFactory() {
+            @Override
+            public AggregationInputs create() {
+                List<Input<?>> keys = new ArrayList<>(keyIndices.length);
+                List<CollectExpression<?>> collectExpressions = new ArrayList<>(keyIndices.length);
+                for (int keyIndex : keyIndices) {
+                    InputCollectExpression<Object> expression = new InputCollectExpression<>(keyIndex);
+                    keys.add(expression);
+                    collectExpressions.add(expression);
+                }
+                AggregationContext count = new AggregationContext(
+                        (AggregationFunction) functions.get(countInfo.ident()),
+                        new Aggregation(countInfo, ImmutableList.<Symbol>of(),
+                                Aggregation.Step.ITER, Aggregation.Step.FINAL));
+                return new AggregationInputs(keys, collectExpressions, new AggregationContext[]{count});
+            }
+        }, spillService, ramAccountingContext);
+    }
+
+    private static List<Object> key(Object... values) {
+        return Arrays.asList(values);
+    }
+
+    @Test
+    public void testGroupByPrimitiveKey() {
+        Map<List<Object>, Long> result = groupAndCount(new int[]{0},
+                new Object[]{1L}, new Object[]{2L}, new Object[]{null}, new Object[]{1L}, new Object[]{null});
+        assertThat(result.size(), is(3));
+        assertThat(result.get(key(1L)), is(2L));
+        assertThat(result.get(key(2L)), is(1L));
+        assertThat(result.get(key((Object) null)), is(2L));
+
+        result = groupAndCount(new int[]{0},
+                new Object[]{1.5d}, new Object[]{-0.0d}, new Object[]{0.0d}, new Object[]{1.5d});
+        assertThat(result.size(), is(3));
+        assertThat(result.get(key(1.5d)), is(2L));
+        assertThat(result.get(key(-0.0d)), is(1L));
+        assertThat(result.get(key(0.0d)), is(1L));
+    }
+
+    @Test
+    public void testGroupBySingleKeyMixedTypes() {
+        // keys of different types are distinct groups, even if their value is the same
+        Map<List<Object>, Long> result = groupAndCount(new int[]{0},
+                new Object[]{1L}, new Object[]{null}, new Object[]{1}, new Object[]{1L}, new Object[]{"1"});
+        assertThat(result.size(), is(4));
+        assertThat(result.get(key(1L)), is(2L));
+        assertThat(result.get(key(1)), is(1L));
+        assertThat(result.get(key("1")), is(1L));
+        assertThat(result.get(key((Object) null)), is(1L));
+    }
+
+    @Test
+    public void testGroupByPackedKeys() {
+        Map<List<Object>, Long> result = groupAndCount(new int[]{0, 1, 2},
+                new Object[]{new BytesRef("a"), 1L, null},
+                new Object[]{new BytesRef("a"), 1L, null},
+                new Object[]{new BytesRef("a"), 1, null},
+                new Object[]{new BytesRef("ab"), 1L, true},
+                new Object[]{new BytesRef("a"), 1L, false},
+                new Object[]{new BytesRef("ab"), 1L, true});
+        assertThat(result.size(), is(4));
+        assertThat(result.get(key(new BytesRef("a"), 1L, null)), is(2L));
+        assertThat(result.get(key(new BytesRef("a"), 1, null)), is(1L));
+        assertThat(result.get(key(new BytesRef("ab"), 1L, true)), is(2L));
+        assertThat(result.get(key(new BytesRef("a"), 1L, false)), is(1L));
+    }
+
+    @Test
+    public void testGroupByPackedKeysUnsupportedType() {
+        // the map can't be packed, groups are moved to the ManyKeyGrouper
+        Map<String, Object> object = new HashMap<>();
+        object.put("x", 1);
+        Map<List<Object>, Long> result = groupAndCount(new int[]{0, 1},
+                new Object[]{"a", 1L},
+                new Object[]{"a", object},
+                new Object[]{"a", 1L},
+                new Object[]{"a", object});
+        assertThat(result.size(), is(2));
+        assertThat(result.get(key("a", 1L)), is(2L));
+        assertThat(result.get(key("a", object)), is(2L));
+    }
+
+    @Test
+    public void testGroupBySpillToDisk() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SpillService spillService = new SpillService(ImmutableSettings.EMPTY, 2, spillDirectory);
+        Object[][] rows = new Object[100][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{new BytesRef("k" + (i % 10)), (long) (i % 4)};
+        }
+        Map<List<Object>, Long> result = groupAndCount(spillService, null, new int[]{0, 1}, rows);
+        assertThat(result.size(), is(20));
+        for (Map.Entry<List<Object>, Long> entry : result.entrySet()) {
+            assertThat(entry.getValue(), is(5L));
+        }
+        result = groupAndCount(spillService, null, new int[]{1}, rows);
+        assertThat(result.size(), is(4));
+        assertThat(result.get(key(0L)), is(25L));
+        assertThat(result.get(key(3L)), is(25L));
+
+        // all spill files are deleted
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    @Test
+    public void testFailProjectionDeletesSpilledGroups() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SpillService spillService = new SpillService(ImmutableSettings.EMPTY, 2, spillDirectory);
+        GroupingProjector projector = countProjector(spillService, null, new int[]{0});
+        projector.startProjection();
+        for (Object[] row : distinctRows(100)) {
+            projector.setNextRow(row);
+        }
+        assertThat(spillDirectory.list().length, greaterThan(0));
+
+        projector.failProjection(new IllegalStateException("failed"));
+        assertThat(spillDirectory.list().length, is(0));
+
+        // rows of collectors which haven't noticed the failure yet are not spilled anymore
+        for (Object[] row : distinctRows(100)) {
+            projector.setNextRow(row);
+        }
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    private Object[][] distinctRows(int numRows) {
+        Object[][] rows = new Object[numRows][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{new BytesRef("key" + i)};
+        }
+        return rows;
+    }
+
+    @Test (expected = CircuitBreakingException.class)
+    public void testGroupByCircuitBreaker() throws Exception {
+        QueryBreakerService breakerService = new QueryBreakerService(ImmutableSettings.builder()
+                .put(QueryBreakerService.SETTING_LIMIT, "1kb").build());
+        groupAndCount(null, breakerService.newContext(UUID.randomUUID(), "test"), new int[]{0}, distinctRows(100));
+    }
+
+    @Test
+    public void testGroupByAccountsKeysOnly() throws Exception {
+        QueryBreakerService breakerService = new QueryBreakerService(ImmutableSettings.EMPTY);
+        RamAccountingContext ramAccountingContext = breakerService.newContext(UUID.randomUUID(), "test");
+        BytesRef payload = new BytesRef(new byte[10000]);
+
+        Map<List<Object>, Long> result = groupAndCount(null, ramAccountingContext, new int[]{0},
+                new Object[]{new BytesRef("a"), payload},
+                new Object[]{new BytesRef("b"), payload});
+        assertThat(result.size(), is(2));
+        assertThat(ramAccountingContext.usedBytes(), greaterThan(0L));
+        assertThat(ramAccountingContext.usedBytes(), lessThanOrEqualTo(1024L));
+    }
+
+    @Test
+    public void testGroupByCircuitBreakerSpillToDisk() throws Exception {
+        QueryBreakerService breakerService = new QueryBreakerService(ImmutableSettings.builder()
+                .put(QueryBreakerService.SETTING_LIMIT, "1kb").build());
+        SpillService spillService = new SpillService(ImmutableSettings.EMPTY, 1000, temporaryFolder.newFolder());
+        RamAccountingContext ramAccountingContext = breakerService.newContext(UUID.randomUUID(), "test");
+
+        Map<List<Object>, Long> result = groupAndCount(spillService, ramAccountingContext, new int[]{0}, distinctRows(100));
+        assertThat(result.size(), is(100));
+        assertThat(result.get(key(new BytesRef("key42"))), is(1L));
+        assertThat(ramAccountingContext.usedBytes(), lessThanOrEqualTo(1024L));
+
+        ramAccountingContext.close();
+        assertThat(breakerService.used(), is(0L));
+    }
+
+    @Test
+    public void testGroupByPages() throws Exception {
+        final List<Object[]> pagedRows = new ArrayList<>();
+        final int[] numPages = new int[]{0, 0};
+        GroupingProjector projector = countProjector(null, null, new int[]{0});
+        projector.pageHandler(new GroupingProjector.PageHandler() {
+            @Override
+            public int pageSize() {
+                return 10;
+            }
+
+            @Override
+            public boolean page(Iterable<Object[]> rows) {
+                // reject every other page, the groups are kept then
+                if (numPages[0]++ % 2 == 0) {
+                    return false;
+                }
+                numPages[1]++;
+                for (Object[] row : rows) {
+                    pagedRows.add(row);
+                }
+                return true;
+            }
+        });
+
+        projector.startProjection();
+        for (int i = 0; i < 3; i++) {
+            for (Object[] row : distinctRows(25)) {
+                projector.setNextRow(row);
+            }
+        }
+        projector.finishProjection();
+
+        assertThat(numPages[1] > 0, is(true));
+        Map<Object, Long> counts = new HashMap<>();
+        for (Object[] row : Iterables.concat(pagedRows, Arrays.asList(projector.getRows()))) {
+            Long count = counts.get(row[0]);
+            counts.put(row[0], (count == null ? 0 : count) + (Long) row[1]);
+        }
+        assertThat(counts.size(), is(25));
+        assertThat(counts.get(new BytesRef("key7")), is(3L));
+    }
+
     class DummyInput implements Input<String> {
 
         private final String[] values;
@@ -0,0 +1,130 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import io.crate.exceptions.CrateException;
+import io.crate.exceptions.DuplicateKeyException;
+import io.crate.test.BulkResponses;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.TransportBulkAction;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class IndexWriterProjectorTest {
+
+    private static final int NUM_ROWS = 2100;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private TransportBulkAction bulkAction;
+    private final List<BulkRequest> bulkRequests = new ArrayList<>();
+
+    @Before
+    public void prepare() {
+        bulkAction = mock(TransportBulkAction.class);
+    }
+
+    /**
+     * respond to every bulk request, every document fails with the given status or is indexed if it's null
+     */
+    @SuppressWarnings("unchecked")
+    private void respond(RestStatus failureStatus) {
+        doAnswer(BulkResponses.answering(bulkRequests, failureStatus))
+                .when(bulkAction).execute(any(BulkRequest.class), any(ActionListener.class));
+    }
+
+    private IndexWriterProjector project(int primaryKeyIdx, int clusteredByIdx) {
+        IndexWriterProjector projector = new IndexWriterProjector(
+                bulkAction, "characters", Arrays.asList("id", "name"), primaryKeyIdx, clusteredByIdx);
+        projector.startProjection();
+        for (int i = 0; i < NUM_ROWS; i++) {
+            projector.setNextRow(i, new BytesRef("Arthur" + i));
+        }
+        projector.finishProjection();
+        return projector;
+    }
+
+    @Test
+    public void testIndexInBulks() throws Exception {
+        respond(null);
+        IndexWriterProjector projector = project(0, 0);
+
+        assertThat((Long) projector.getRows()[0][0], is((long) NUM_ROWS));
+        assertThat(bulkRequests.size(), is(3));
+        assertThat(bulkRequests.get(0).numberOfActions(), is(IndexWriterProjector.BULK_SIZE));
+        assertThat(bulkRequests.get(2).numberOfActions(), is(NUM_ROWS - 2 * IndexWriterProjector.BULK_SIZE));
+
+        IndexRequest request = (IndexRequest) bulkRequests.get(0).requests().get(1);
+        assertThat(request.index(), is("characters"));
+        assertThat(request.id(), is("1"));
+        assertThat(request.routing(), is("1"));
+        assertThat((Integer) request.sourceAsMap().get("id"), is(1));
+        assertThat((String) request.sourceAsMap().get("name"), is("Arthur1"));
+    }
+
+    @Test
+    public void testGeneratedIdClusteredBy() throws Exception {
+        respond(null);
+        project(-1, 1);
+
+        IndexRequest request = (IndexRequest) bulkRequests.get(0).requests().get(1);
+        assertThat(request.id(), endsWith(":Arthur1"));
+        assertThat(request.routing(), is("Arthur1"));
+    }
+
+    @Test
+    public void testDuplicateKey() throws Exception {
+        respond(RestStatus.CONFLICT);
+
+        expectedException.expect(DuplicateKeyException.class);
+        expectedException.expectMessage("A document with the same primary key exists already: 0");
+        project(0, 0);
+    }
+
+    @Test
+    public void testFailedBulk() throws Exception {
+        respond(RestStatus.INTERNAL_SERVER_ERROR);
+
+        expectedException.expect(CrateException.class);
+        expectedException.expectMessage("Failed to index 1000 documents into characters: failed");
+        project(0, 0);
+    }
+}
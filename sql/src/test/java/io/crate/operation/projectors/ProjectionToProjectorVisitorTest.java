@@ -42,9 +42,10 @@ import org.elasticsearch.common.inject.ModulesBuilder;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
@@ -194,4 +195,86 @@ public class ProjectionToProjectorVisitorTest {
         assertThat((Double)rows[2][2], is(44.0));
         assertThat((Long)rows[2][3], is(2L));
     }
+
+    @Test
+    public void testAggregationProjectorConcurrentRows() throws Exception {
+        AggregationProjection projection = new AggregationProjection();
+        projection.aggregations(Arrays.asList(
+                new Aggregation(avgInfo, Arrays.<Symbol>asList(new InputColumn(1)), Aggregation.Step.ITER, Aggregation.Step.FINAL),
+                new Aggregation(countInfo, Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER, Aggregation.Step.FINAL)
+        ));
+        Projector projector = visitor.process(projection, new ProjectionToProjectorVisitor.Context());
+        projector.startProjection();
+        feedConcurrently(projector, 4, 1000, new Object[] { "foo", 10 }, new Object[] { "bar", 20 });
+        projector.finishProjection();
+
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(1));
+        assertThat((Double)rows[0][0], is(15.0));   // avg
+        assertThat((Long)rows[0][1], is(8000L));    // count
+    }
+
+    @Test
+    public void testGroupProjectorConcurrentRows() throws Exception {
+        GroupProjection projection = new GroupProjection();
+        projection.keys(Arrays.<Symbol>asList(new InputColumn(0), new InputColumn(2)));
+        projection.values(Arrays.asList(
+                new Aggregation(avgInfo, Arrays.<Symbol>asList(new InputColumn(1)), Aggregation.Step.ITER, Aggregation.Step.FINAL),
+                new Aggregation(countInfo, Arrays.<Symbol>asList(new InputColumn(0)), Aggregation.Step.ITER, Aggregation.Step.FINAL)
+        ));
+        Projector projector = visitor.process(projection, new ProjectionToProjectorVisitor.Context());
+        projector.startProjection();
+        feedConcurrently(projector, 4, 1000,
+                new Object[] { "human", 34, "male" },
+                new Object[] { "human", 22, "female" },
+                new Object[] { "vogon", 40, "male" });
+        projector.finishProjection();
+
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(3));
+        Arrays.sort(rows, new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return ((Double) o1[2]).compareTo((Double) o2[2]);
+            }
+        });
+        assertThat((String)rows[0][1], is("female"));
+        assertThat((Double)rows[0][2], is(22.0));
+        assertThat((Long)rows[0][3], is(4000L));
+
+        assertThat((String)rows[1][0], is("human"));
+        assertThat((Double)rows[1][2], is(34.0));
+        assertThat((Long)rows[1][3], is(4000L));
+
+        assertThat((String)rows[2][0], is("vogon"));
+        assertThat((Double)rows[2][2], is(40.0));
+        assertThat((Long)rows[2][3], is(4000L));
+    }
+
+    /**
+     * every thread feeds each of the given rows numRows times into the projector
+     */
+    private void feedConcurrently(final Projector projector,
+                                  int numThreads,
+                                  final int numRows,
+                                  final Object[]... rows) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<>(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < numRows; i++) {
+                        for (Object[] row : rows) {
+                            projector.setNextRow(row);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
 }
@@ -32,7 +32,9 @@ import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Symbol;
 import io.crate.Constants;
 import io.crate.DataType;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 import java.util.Arrays;
 
@@ -46,6 +48,9 @@ public class SimpleTopNProjectorTest {
     private static final Input<Integer> input = new InputCollectExpression<>(0);
     private static final Object[] row = new Object[]{42};
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
     private static class TestFunction implements Scalar<Integer, Integer> {
 
         public static final String NAME = "signum";
@@ -101,6 +106,41 @@ public class SimpleTopNProjectorTest {
 
     }
 
+    @Test
+    public void testProjectBatchLimitAndOffset() {
+        SimpleTopNProjector projector = new SimpleTopNProjector(new Input<?>[]{input},
+                new CollectExpression[]{(CollectExpression)input}, 3, 2);
+        projector.startProjection();
+        Object[][] batch = new Object[4][];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Object[]{i};
+        }
+        assertThat(projector.setNextRows(batch, 3), is(true));
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Object[]{i + 3};
+        }
+        assertThat(projector.setNextRows(batch, 4), is(false));
+        projector.finishProjection();
+
+        Object[][] projected = projector.getRows();
+        assertThat(projected.length, is(3));
+        assertThat((Integer) projected[0][0], is(2));
+        assertThat((Integer) projected[1][0], is(3));
+        assertThat((Integer) projected[2][0], is(4));
+    }
+
+    @Test
+    public void testProjectHighLimit() {
+        SimpleTopNProjector projector = new SimpleTopNProjector(new Input<?>[]{input},
+                new CollectExpression[]{(CollectExpression)input}, Integer.MAX_VALUE - 1, TopN.NO_OFFSET);
+        projector.startProjection();
+        for (int i = 0; i<5; i++) {
+            projector.setNextRow(row);
+        }
+        projector.finishProjection();
+        assertThat(projector.getRows().length, is(5));
+    }
+
     @Test
     public void testProjectLimitOnlyLessThanLimit() {
         SimpleTopNProjector projector = new SimpleTopNProjector(new Input<?>[]{input},
@@ -395,4 +435,13 @@ public class SimpleTopNProjectorTest {
         assertThat(iterateLength, is(Constants.DEFAULT_SELECT_LIMIT));
     }
 
+
+    @Test
+    public void testGetRowsBeforeStart() throws Exception {
+        SimpleTopNProjector projector = new SimpleTopNProjector(new Input<?>[]{input},
+                new CollectExpression[]{(CollectExpression)input}, 10, TopN.NO_OFFSET);
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("projection not started");
+        projector.getRows();
+    }
 }
@@ -24,11 +24,21 @@ package io.crate.operation.projectors;
 import io.crate.operation.Input;
 import io.crate.operation.collect.InputCollectExpression;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
+import io.crate.operation.spill.SpillService;
 import io.crate.planner.symbol.BooleanLiteral;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.UUID;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
 import static org.hamcrest.number.OrderingComparison.lessThanOrEqualTo;
 
 public class SortingTopNProjectorTest {
@@ -36,6 +46,9 @@ public class SortingTopNProjectorTest {
     private static final Input<Integer> INPUT = new InputCollectExpression<>(0);
     private static final BooleanLiteral TRUE_LITERAL = new BooleanLiteral(true);
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testOrderByWithoutLimitAndOffset() throws Exception {
         SortingTopNProjector projector = new SortingTopNProjector(
@@ -70,6 +83,29 @@ public class SortingTopNProjectorTest {
         assertThat(iterateLength, is(10));
     }
 
+    @Test
+    public void testOrderByMoreRowsThanInitialQueueSize() throws Exception {
+        SortingTopNProjector projector = new SortingTopNProjector(
+                new Input<?>[]{INPUT, TRUE_LITERAL},
+                new CollectExpression[]{(CollectExpression<?>)INPUT},
+                2,
+                new int[]{0},
+                new boolean[]{false},
+                3000,
+                TopN.NO_OFFSET);
+        projector.startProjection();
+        for (int i = 5000; i > 0; i--) {   // 5000 --> 1
+            projector.setNextRow(i);
+        }
+        projector.finishProjection();
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(3000));
+        for (int j = 0; j < 3000; j++) {
+            // 1 --> 3000
+            assertThat((Integer)rows[j][0], is(j+1));
+        }
+    }
+
     @Test
     public void testWithHighOffset() throws Exception {
         SortingTopNProjector projector = new SortingTopNProjector(
@@ -248,4 +284,109 @@ public class SortingTopNProjectorTest {
         assertThat(iterateLength, is(20));
 
     }
+
+    @Test
+    public void testOrderBySpillToDisk() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SortingTopNProjector projector = new SortingTopNProjector(
+                new Input<?>[]{INPUT, TRUE_LITERAL},
+                new CollectExpression[]{(CollectExpression<?>)INPUT},
+                2,
+                new int[]{0},
+                new boolean[]{true},
+                30,
+                5,
+                new SpillService(ImmutableSettings.EMPTY, 4, spillDirectory),
+                null);
+        projector.startProjection();
+        for (int i = 0; i < 100; i++) {
+            projector.setNextRow((i * 37) % 100); // 0 - 99 shuffled
+        }
+        assertThat(spillDirectory.list().length, greaterThan(0));
+        projector.finishProjection();
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(30));
+        for (int j = 0; j < 30; j++) {
+            // 94 --> 65
+            assertThat((Integer)rows[j][0], is(94 - j));
+            assertThat(rows[j].length, is(2));
+        }
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    private SortingTopNProjector spillingProjector(File spillDirectory, int limit, int offset) {
+        return new SortingTopNProjector(
+                new Input<?>[]{INPUT, TRUE_LITERAL},
+                new CollectExpression[]{(CollectExpression<?>)INPUT},
+                2,
+                new int[]{0},
+                new boolean[]{true},
+                limit,
+                offset,
+                new SpillService(ImmutableSettings.EMPTY, 4, spillDirectory),
+                null);
+    }
+
+    @Test
+    public void testOrderBySpillMergesRuns() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SortingTopNProjector projector = spillingProjector(spillDirectory, 10, 0);
+        projector.startProjection();
+        for (int i = 0; i < 1000; i++) {
+            projector.setNextRow((i * 37) % 1000); // 0 - 999 shuffled
+            assertThat(spillDirectory.list().length, lessThanOrEqualTo(SortingTopNProjector.MAX_RUNS));
+        }
+        projector.finishProjection();
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(10));
+        for (int j = 0; j < 10; j++) {
+            assertThat((Integer)rows[j][0], is(999 - j));
+        }
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    @Test
+    public void testFailProjectionDeletesSpilledRuns() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SortingTopNProjector projector = spillingProjector(spillDirectory, 30, 5);
+        projector.startProjection();
+        for (int i = 0; i < 100; i++) {
+            projector.setNextRow(i);
+        }
+        assertThat(spillDirectory.list().length, greaterThan(0));
+
+        projector.failProjection(new IllegalStateException("failed"));
+        assertThat(spillDirectory.list().length, is(0));
+        assertThat(projector.setNextRow(100), is(false));
+        assertThat(spillDirectory.list().length, is(0));
+    }
+
+    @Test
+    public void testEvictedRowsAreReleased() throws Exception {
+        QueryBreakerService breakerService = new QueryBreakerService(ImmutableSettings.EMPTY);
+        RamAccountingContext ramAccountingContext = breakerService.newContext(UUID.randomUUID(), "test");
+        SortingTopNProjector projector = new SortingTopNProjector(
+                new Input<?>[]{INPUT, TRUE_LITERAL},
+                new CollectExpression[]{(CollectExpression<?>)INPUT},
+                2,
+                new int[]{0},
+                new boolean[]{true},
+                10,
+                0,
+                null,
+                ramAccountingContext);
+        projector.startProjection();
+        for (int i = 0; i < 10; i++) {
+            projector.setNextRow(i);
+        }
+        long usedBytes = ramAccountingContext.usedBytes();
+        assertThat(usedBytes, greaterThan(0L));
+        for (int i = 10; i < 1000; i++) {
+            projector.setNextRow(i);
+        }
+        assertThat(ramAccountingContext.usedBytes(), is(usedBytes));
+
+        projector.failProjection(new IllegalStateException("failed"));
+        assertThat(ramAccountingContext.usedBytes(), is(0L));
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import io.crate.exceptions.CrateException;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class WriterProjectorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static BytesRef source(int id) {
+        return new BytesRef(String.format("{\"id\": %d}", id));
+    }
+
+    private static List<String> lines(File file, boolean compressed) throws Exception {
+        InputStream in = new FileInputStream(file);
+        if (compressed) {
+            in = new GZIPInputStream(in);
+        }
+        try {
+            return CharStreams.readLines(new InputStreamReader(in, Charsets.UTF_8));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testWriteFilePerShard() throws Exception {
+        File directory = new File(temporaryFolder.getRoot(), "export");
+        WriterProjector projector = new WriterProjector(directory.getAbsolutePath(), "characters", false);
+        projector.startProjection();
+
+        projector.setNextRow(source(1), 0);
+        projector.setNextRow(source(2), 1);
+        projector.setNextRows(new Object[][]{
+                new Object[]{source(3), 1},
+                new Object[]{null, 1},
+                new Object[]{source(4), 0},
+                new Object[]{source(5), 1}
+        }, 4);
+        projector.finishProjection();
+
+        Object[][] rows = projector.getRows();
+        assertThat(rows.length, is(1));
+        assertThat((Long) rows[0][0], is(5L));
+
+        assertThat(directory.list(), arrayContainingInAnyOrder("characters_0.json", "characters_1.json"));
+        assertThat(lines(new File(directory, "characters_0.json"), false),
+                contains("{\"id\": 1}", "{\"id\": 4}"));
+        assertThat(lines(new File(directory, "characters_1.json"), false),
+                contains("{\"id\": 2}", "{\"id\": 3}", "{\"id\": 5}"));
+    }
+
+    @Test
+    public void testWriteCompressed() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        WriterProjector projector = new WriterProjector(directory.getAbsolutePath(), "characters", true);
+        projector.startProjection();
+
+        for (int i = 0; i < 1000; i++) {
+            projector.setNextRow(source(i), 2);
+        }
+        projector.finishProjection();
+        // finishing twice doesn't close the files again
+        projector.finishProjection();
+
+        assertThat((Long) projector.getRows()[0][0], is(1000L));
+        List<String> lines = lines(new File(directory, "characters_2.json.gz"), true);
+        assertThat(lines.size(), is(1000));
+        assertThat(lines.get(999), is("{\"id\": 999}"));
+    }
+
+    @Test
+    public void testExistingFileIsNotOverwritten() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        assertThat(new File(directory, "characters_0.json").createNewFile(), is(true));
+        WriterProjector projector = new WriterProjector(directory.getAbsolutePath(), "characters", false);
+        projector.startProjection();
+
+        expectedException.expect(CrateException.class);
+        expectedException.expectMessage("characters_0.json exists already");
+        projector.setNextRow(source(1), 0);
+    }
+
+    @Test
+    public void testFailProjectionDeletesFiles() throws Exception {
+        File directory = new File(temporaryFolder.getRoot(), "export");
+        WriterProjector projector = new WriterProjector(directory.getAbsolutePath(), "characters", true);
+        projector.startProjection();
+
+        projector.setNextRow(source(1), 0);
+        projector.setNextRow(source(2), 1);
+        assertThat(directory.list().length, is(2));
+
+        projector.failProjection(new CrateException("collect failed"));
+        assertThat(directory.list().length, is(0));
+    }
+}
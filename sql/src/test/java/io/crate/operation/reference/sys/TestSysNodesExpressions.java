@@ -20,12 +20,15 @@
  */
 package io.crate.operation.reference.sys;
 
+import io.crate.action.sql.StatementCache;
 import io.crate.metadata.GlobalReferenceResolver;
 import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.ReferenceResolver;
 import io.crate.metadata.sys.SysExpression;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.operation.Input;
+import io.crate.operation.breaker.QueryBreakerService;
+import io.crate.operation.breaker.RamAccountingContext;
 import io.crate.operation.reference.sys.node.SysNodeExpressionModule;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
@@ -53,6 +56,7 @@ import org.mockito.stubbing.Answer;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.UUID;
 
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
@@ -63,6 +67,9 @@ public class TestSysNodesExpressions {
 
     private Injector injector;
     private ReferenceResolver resolver;
+    private final StatementCache statementCache = new StatementCache(ImmutableSettings.EMPTY);
+    private final QueryBreakerService breakerService = new QueryBreakerService(
+            ImmutableSettings.builder().put(QueryBreakerService.SETTING_LIMIT, "10mb").build());
 
     class TestModule extends AbstractModule {
 
@@ -137,6 +144,9 @@ public class TestSysNodesExpressions {
             when(httpServer.info()).thenReturn(httpInfo);
             bind(HttpServer.class).toInstance(httpServer);
 
+            bind(StatementCache.class).toInstance(statementCache);
+            bind(QueryBreakerService.class).toInstance(breakerService);
+
             bind(ReferenceResolver.class).to(GlobalReferenceResolver.class).asEagerSingleton();
         }
     }
@@ -237,4 +247,36 @@ public class TestSysNodesExpressions {
         assertEquals(70.84604449344218, v.get("used_percent"));
     }
 
+    @Test
+    public void testStatementCache() throws Exception {
+        statementCache.get("select name from sys.nodes");
+        statementCache.get("select name from sys.nodes");
+        statementCache.get("select id from sys.nodes");
+
+        ReferenceIdent ident = new ReferenceIdent(SysNodesTableInfo.IDENT, "statement_cache");
+        SysObjectReference<Long> cache = (SysObjectReference<Long>) resolver.getImplementation(ident);
+
+        Map<String, Long> v = cache.value();
+        assertEquals(new Long(2), v.get("size"));
+        assertEquals(new Long(1), v.get("hits"));
+        assertEquals(new Long(2), v.get("misses"));
+    }
+
+    @Test
+    public void testQueryMemory() throws Exception {
+        RamAccountingContext context = breakerService.newContext(UUID.randomUUID(), "test");
+        context.addBytes(1024L);
+
+        ReferenceIdent ident = new ReferenceIdent(SysNodesTableInfo.IDENT, "query_memory");
+        SysObjectReference<Long> queryMemory = (SysObjectReference<Long>) resolver.getImplementation(ident);
+
+        Map<String, Long> v = queryMemory.value();
+        assertEquals(new Long(1024), v.get("used"));
+        assertEquals(new Long(10 * 1024 * 1024), v.get("limit"));
+        assertEquals(new Long(0), v.get("tripped"));
+
+        context.close();
+        assertEquals(new Long(0), queryMemory.value().get("used"));
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+package io.crate.operation.spill;
+
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SpillServiceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFilesLeftFromPreviousRunAreDeleted() throws Exception {
+        File spillDirectory = temporaryFolder.newFolder();
+        SpillService spillService = new SpillService(ImmutableSettings.EMPTY, 10, spillDirectory);
+        SpillFile spilled = spillService.newFile("sort");
+        spilled.output().writeString("spilled");
+        spilled.input();
+        SpillFile closed = spillService.newFile("sort");
+        closed.close();
+        assertThat(spillDirectory.list().length, is(1));
+
+        new SpillService(ImmutableSettings.EMPTY, 10, spillDirectory);
+        assertThat(spillDirectory.list().length, is(0));
+    }
+}
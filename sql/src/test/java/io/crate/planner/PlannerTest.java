@@ -26,8 +26,10 @@ import io.crate.planner.node.dml.*;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.projection.AggregationProjection;
 import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.IndexWriterProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.projection.WriterProjection;
 import io.crate.planner.symbol.*;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.Statement;
@@ -36,6 +38,7 @@ import io.crate.metadata.FulltextAnalyzerResolver;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -144,6 +147,7 @@ public class PlannerTest {
             TableInfo charactersTableInfo = TestingTableInfo.builder(charactersTableIdent, RowGranularity.DOC, shardRouting)
                     .add("name", DataType.STRING, null)
                     .add("id", DataType.STRING, null)
+                    .add("date", DataType.TIMESTAMP, null)
                     .addPrimaryKey("id")
                     .clusteredBy("id")
                     .build();
@@ -293,6 +297,19 @@ public class PlannerTest {
     public void testMultiDeletePlan() throws Exception {
         Plan plan = plan("delete from users where id in (1, 2)");
         Iterator<PlanNode> iterator = plan.iterator();
+        PlanNode planNode = iterator.next();
+        assertThat(planNode, instanceOf(ESDeleteNode.class));
+
+        ESDeleteNode node = (ESDeleteNode) planNode;
+        assertThat(node.ids(), containsInAnyOrder("1", "2"));
+        assertThat(node.routingValues(), containsInAnyOrder("1", "2"));
+        assertTrue(plan.expectsAffectedRows());
+    }
+
+    @Test
+    public void testDeleteByQueryPlan() throws Exception {
+        Plan plan = plan("delete from users where name = 'Marvin'");
+        Iterator<PlanNode> iterator = plan.iterator();
         assertThat(iterator.next(), instanceOf(ESDeleteByQueryNode.class));
     }
 
@@ -445,6 +462,28 @@ public class PlannerTest {
         assertFalse(plan.expectsAffectedRows());
     }
 
+    @Test
+    public void testSelectWithFunctionAndLimitPlan() throws Exception {
+        // an es search can't return the function, so the shards collect the top docs
+        Plan plan = plan("select date_trunc('day', date) from characters order by date limit 10");
+        Iterator<PlanNode> iterator = plan.iterator();
+        PlanNode planNode = iterator.next();
+        assertThat(planNode, instanceOf(CollectNode.class));
+        CollectNode collectNode = (CollectNode) planNode;
+        assertThat(collectNode.maxRowGranularity(), is(RowGranularity.DOC));
+        assertThat(collectNode.executionNodes().size(), is(2));
+
+        TopNProjection topN = (TopNProjection) collectNode.projections().get(0);
+        assertThat(topN.limit(), is(10));
+        assertThat(topN.orderBy().size(), is(1));
+        assertThat(collectNode.toCollect(), hasItem(Matchers.<Symbol>instanceOf(Function.class)));
+
+        planNode = iterator.next();
+        assertThat(planNode, instanceOf(MergeNode.class));
+        assertFalse(iterator.hasNext());
+        assertFalse(plan.expectsAffectedRows());
+    }
+
     @Test
     public void testESIndexPlan() throws Exception {
         Plan plan = plan("insert into users (id, name) values (42, 'Deep Thought')");
@@ -492,6 +531,31 @@ public class PlannerTest {
         assertTrue(plan.expectsAffectedRows());
     }
 
+    @Test
+    public void testInsertFromSubQueryPlan() throws Exception {
+        Plan plan = plan("insert into users (name, id) select name, id from users where name = 'Arthur'");
+        Iterator<PlanNode> iterator = plan.iterator();
+
+        CollectNode collectNode = (CollectNode) iterator.next();
+        assertThat(collectNode.toCollect().size(), is(2));
+        assertTrue(collectNode.whereClause().hasQuery());
+        assertThat(collectNode.projections().size(), is(1));
+        IndexWriterProjection projection = (IndexWriterProjection) collectNode.projections().get(0);
+        assertThat(projection.tableName(), is("users"));
+        assertThat(projection.columns(), contains("name", "id"));
+        assertThat(projection.primaryKeyIdx(), is(1));
+        assertThat(projection.clusteredByIdx(), is(1));
+        assertThat(collectNode.outputTypes(), contains(DataType.LONG));
+
+        // the row counts of all nodes are summed up on the handler
+        MergeNode mergeNode = (MergeNode) iterator.next();
+        assertThat(mergeNode.projections().size(), is(1));
+        assertThat(mergeNode.projections().get(0), instanceOf(AggregationProjection.class));
+        assertFalse(iterator.hasNext());
+
+        assertTrue(plan.expectsAffectedRows());
+    }
+
     @Test
     public void testCountDistinctPlan() throws Exception {
         Plan plan = plan("select count(distinct name) from users");
@@ -647,6 +711,7 @@ public class PlannerTest {
         ESUpdateNode updateNode = (ESUpdateNode)planNode;
         assertThat(updateNode.ids().size(), is(3));
         assertThat(updateNode.ids(), containsInAnyOrder("1", "2", "3"));
+        assertThat(updateNode.routingValues(), is(updateNode.ids()));
     }
 
     @Test
@@ -661,6 +726,29 @@ public class PlannerTest {
         assertThat(copyNode.path(), is("/path/to/file.extension"));
     }
 
+    @Test
+    public void testCopyToPlan() throws Exception {
+        Plan plan = plan("copy users to directory '/path/to/dir' with (compression='gzip')");
+        Iterator<PlanNode> iterator = plan.iterator();
+
+        CollectNode collectNode = (CollectNode) iterator.next();
+        assertThat(collectNode.toCollect().size(), is(2));
+        assertThat(collectNode.maxRowGranularity(), is(RowGranularity.DOC));
+        assertThat(collectNode.projections().size(), is(1));
+        WriterProjection projection = (WriterProjection) collectNode.projections().get(0);
+        assertThat(projection.directory(), is("/path/to/dir"));
+        assertThat(projection.fileNamePrefix(), is("users"));
+        assertTrue(projection.compressed());
+        assertThat(collectNode.outputTypes(), contains(DataType.LONG));
+
+        // the row counts of all nodes are summed up on the handler
+        MergeNode mergeNode = (MergeNode) iterator.next();
+        assertThat(mergeNode.projections().get(0), instanceOf(AggregationProjection.class));
+        assertFalse(iterator.hasNext());
+
+        assertTrue(plan.expectsAffectedRows());
+    }
+
     @Test
     public void testShardSelect() throws Exception {
         Plan plan = plan("select table_name from sys.shards");
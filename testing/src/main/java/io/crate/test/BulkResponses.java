@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.test;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Builds the responses of bulk requests sent to a mocked bulk action or client, e.g.
+ * <p/>
+ * <pre>
+ *     doAnswer(BulkResponses.answering(bulkRequests, null))
+ *         .when(bulkAction).execute(any(BulkRequest.class), any(ActionListener.class));
+ * </pre>
+ */
+public class BulkResponses {
+
+    /**
+     * answers every bulk request with a response whose items succeed or,
+     * if a failure status is given, fail with that status.
+     * The requests are added to the given list.
+     */
+    public static Answer<Void> answering(List<BulkRequest> bulkRequests, @Nullable RestStatus failureStatus) {
+        return answering(bulkRequests, Integer.MAX_VALUE, failureStatus);
+    }
+
+    /**
+     * like {@link #answering(java.util.List, org.elasticsearch.rest.RestStatus)} but only
+     * the items of the first failingRequests requests fail, later requests succeed.
+     */
+    public static Answer<Void> answering(final List<BulkRequest> bulkRequests,
+                                         final int failingRequests,
+                                         @Nullable final RestStatus failureStatus) {
+        return new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                BulkRequest request = (BulkRequest) invocation.getArguments()[0];
+                bulkRequests.add(request);
+                RestStatus status = bulkRequests.size() > failingRequests ? null : failureStatus;
+                ((ActionListener<BulkResponse>) invocation.getArguments()[1]).onResponse(
+                        response(request, status));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * a response whose items succeed or, if a failure status is given, fail with that status
+     */
+    public static BulkResponse response(BulkRequest request, @Nullable RestStatus failureStatus) {
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(i, request.requests().get(i), failureStatus);
+        }
+        return new BulkResponse(items, 1L);
+    }
+
+    /**
+     * the response of a single index, update or delete request of a bulk request.
+     * The item fails with the message "failed" if a failure status is given.
+     */
+    public static BulkItemResponse item(int id, ActionRequest request, @Nullable RestStatus failureStatus) {
+        String index;
+        String type;
+        String docId;
+        String opType;
+        if (request instanceof IndexRequest) {
+            IndexRequest indexRequest = (IndexRequest) request;
+            index = indexRequest.index();
+            type = indexRequest.type();
+            docId = indexRequest.id();
+            opType = indexRequest.opType().lowercase();
+        } else if (request instanceof UpdateRequest) {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            index = updateRequest.index();
+            type = updateRequest.type();
+            docId = updateRequest.id();
+            opType = "update";
+        } else if (request instanceof DeleteRequest) {
+            DeleteRequest deleteRequest = (DeleteRequest) request;
+            index = deleteRequest.index();
+            type = deleteRequest.type();
+            docId = deleteRequest.id();
+            opType = "delete";
+        } else {
+            throw new IllegalArgumentException("unsupported bulk item request " + request);
+        }
+
+        if (failureStatus != null) {
+            return new BulkItemResponse(id, opType,
+                    new BulkItemResponse.Failure(index, type, docId, "failed", failureStatus));
+        }
+        switch (opType) {
+            case "update":
+                return new BulkItemResponse(id, opType, new UpdateResponse(index, type, docId, 2L, false));
+            case "delete":
+                return new BulkItemResponse(id, opType, new DeleteResponse(index, type, docId, 2L, true));
+            default:
+                return new BulkItemResponse(id, opType, new IndexResponse(index, type, docId, 1L, true));
+        }
+    }
+}